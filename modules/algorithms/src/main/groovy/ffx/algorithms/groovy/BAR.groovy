@@ -46,6 +46,8 @@ import ffx.numerics.estimator.BennettAcceptanceRatio
 import ffx.numerics.estimator.EstimateBootstrapper
 import ffx.numerics.estimator.SequentialEstimator
 import ffx.numerics.math.BootStrapStatistics
+import ffx.potential.DualTopologyEnergy
+import ffx.potential.ForceFieldEnergy
 import ffx.potential.MolecularAssembly
 import ffx.potential.bonded.LambdaInterface
 import ffx.potential.cli.AlchemicalOptions
@@ -664,10 +666,20 @@ class BAR extends AlgorithmsScript {
       }
 
       x = potential.getCoordinates(x)
+      double[] energies = null
+      if (potential instanceof ForceFieldEnergy) {
+        energies = ((ForceFieldEnergy) potential).energyAtLambdas(x, lambdaValues)
+      } else if (potential instanceof DualTopologyEnergy) {
+        energies = ((DualTopologyEnergy) potential).energyAtLambdas(x, lambdaValues)
+      }
       for (int k = 0; k < lambdaValues.length; k++) {
-        double lambda = lambdaValues[k]
-        linter1.setLambda(lambda)
-        energy[k][i] = potential.energy(x, false)
+        if (energies != null) {
+          energy[k][i] = energies[k]
+        } else {
+          double lambda = lambdaValues[k]
+          linter1.setLambda(lambda)
+          energy[k][i] = potential.energy(x, false)
+        }
       }
 
       if (lambdaValues.length == 2) {
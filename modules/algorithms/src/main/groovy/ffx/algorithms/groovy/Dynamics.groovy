@@ -38,6 +38,7 @@
 package ffx.algorithms.groovy
 
 import edu.rit.pj.Comm
+import edu.rit.pj.ParallelTeam
 import ffx.algorithms.cli.AlgorithmsScript
 import ffx.algorithms.cli.BarostatOptions
 import ffx.algorithms.cli.DynamicsOptions
@@ -47,6 +48,7 @@ import ffx.algorithms.dynamics.MolecularDynamics
 import ffx.algorithms.dynamics.ReplicaExchange
 import ffx.crystal.CrystalPotential
 import ffx.numerics.Potential
+import ffx.potential.MolecularAssembly
 import ffx.potential.cli.AtomSelectionOptions
 import ffx.potential.cli.WriteoutOptions
 import org.apache.commons.io.FilenameUtils
@@ -93,10 +95,33 @@ class Dynamics extends AlgorithmsScript {
   public Potential potential = null
   public MolecularDynamics molDyn = null
 
+  /**
+   * The potential of each in-process replica (replica 0 is the potential of the active assembly).
+   */
+  private List<Potential> replicaPotentials = new ArrayList<>()
+
+  /**
+   * The MolecularDynamics instance of each in-process replica.
+   */
+  private MolecularDynamics[] replicaDynamics = null
+
+  /**
+   * The ReplicaExchange instance for in-process replicas.
+   */
+  private ReplicaExchange replicaExchange = null
+
   MolecularDynamics getMolecularDynamics() {
     return molDyn
   }
 
+  MolecularDynamics[] getReplicaDynamics() {
+    return replicaDynamics
+  }
+
+  ReplicaExchange getReplicaExchange() {
+    return replicaExchange
+  }
+
   Potential getPotentialObject() {
     return potential
   }
@@ -130,8 +155,18 @@ class Dynamics extends AlgorithmsScript {
     // Init DynamicsOptions (e.g., the thermostat and barostat flags).
     dynamicsOptions.init()
 
-    // Load the MolecularAssembly.
-    activeAssembly = getActiveAssembly(filename)
+    // Replicas hosted by this process each use an equal share of the available threads.
+    Comm world = Comm.world()
+    int size = world.size()
+    boolean inProcessReplicas = repEx.repEx && size < 2 && repEx.replicas > 1
+    int threadsPer = Math.max(1, (int) (ParallelTeam.getDefaultThreadCount() / repEx.replicas))
+
+    // Load the MolecularAssembly. With in-process replicas, it is replica 0.
+    if (inProcessReplicas && filename != null) {
+      activeAssembly = algorithmFunctions.openAll(filename, threadsPer)[0]
+    } else {
+      activeAssembly = getActiveAssembly(filename)
+    }
     if (activeAssembly == null) {
       logger.info(helpString())
       return this
@@ -154,10 +189,63 @@ class Dynamics extends AlgorithmsScript {
       potential = barostat
     }
 
-    Comm world = Comm.world()
-    int size = world.size()
+    if (inProcessReplicas) {
+      int nReplicas = repEx.replicas
+      logger.info(String.format("\n Running %d in-process replicas of replica exchange molecular dynamics on %s",
+          nReplicas, filename))
+
+      // The active assembly is replica 0; each additional replica is loaded with its own slice of
+      // the available threads.
+      File structureFile = new File(filename)
+      String baseFilename = FilenameUtils.removeExtension(structureFile.getName())
+      MolecularDynamics[] replicas = new MolecularDynamics[nReplicas]
+      for (int r = 0; r < nReplicas; r++) {
+        MolecularAssembly replicaAssembly
+        Potential replicaPotential
+        if (r == 0) {
+          replicaAssembly = activeAssembly
+          replicaPotential = potential
+        } else {
+          replicaAssembly = algorithmFunctions.openAll(filename, threadsPer)[0]
+          atomSelectionOptions.setActiveAtoms(replicaAssembly)
+          replicaPotential = replicaAssembly.getPotentialEnergy()
+          if (barostatOptions.pressure > 0) {
+            replicaPotential = barostatOptions.createBarostat(replicaAssembly,
+                (CrystalPotential) replicaPotential)
+          }
+        }
+        replicaPotentials.add(replicaPotential)
+
+        File replicaDirectory = new File(structureFile.getParent() + File.separator + Integer.toString(r))
+        if (!replicaDirectory.exists()) {
+          replicaDirectory.mkdir()
+        }
+        String replicaName = replicaDirectory.getPath() + File.separator + baseFilename
+        replicaAssembly.setFile(new File(replicaDirectory.getPath() + File.separator + structureFile.getName()))
+        replicas[r] = dynamicsOptions.getDynamics(writeOut, replicaPotential, replicaAssembly, algorithmListener)
+
+        // Each replica reads and writes its own restart file.
+        File dyn = new File(replicaName + ".dyn")
+        if (dyn.exists()) {
+          logger.info(String.format(" Replica %d will continue from %s", r, dyn.getAbsolutePath()))
+        }
+        replicas[r].setFallbackDynFile(dyn)
+      }
+      replicaDynamics = replicas
+      molDyn = replicas[0]
+
+      replicaExchange = new ReplicaExchange(replicas, algorithmListener,
+          dynamicsOptions.temperature, repEx.exponent, repEx.monteCarlo)
 
-    if (!repEx.repEx || size < 2) {
+      long totalSteps = dynamicsOptions.steps
+      int nSteps = repEx.replicaSteps
+      int cycles = (int) (totalSteps / nSteps)
+      if (cycles <= 0) {
+        cycles = 1
+      }
+
+      replicaExchange.sample(cycles, nSteps, dynamicsOptions.dt, dynamicsOptions.report, dynamicsOptions.write)
+    } else if (!repEx.repEx || size < 2) {
       logger.info("\n Running molecular dynamics on " + filename)
       // Restart File
       File dyn = new File(FilenameUtils.removeExtension(filename) + ".dyn")
@@ -215,7 +303,9 @@ class Dynamics extends AlgorithmsScript {
   @Override
   List<Potential> getPotentials() {
     List<Potential> potentials
-    if (potential == null) {
+    if (!replicaPotentials.isEmpty()) {
+      potentials = Collections.unmodifiableList(replicaPotentials)
+    } else if (potential == null) {
       potentials = Collections.emptyList()
     } else {
       potentials = Collections.singletonList(potential)
@@ -38,6 +38,7 @@
 package ffx.algorithms.groovy
 
 import edu.rit.pj.Comm
+import edu.rit.pj.ParallelTeam
 import ffx.algorithms.optimize.TitrationManyBody
 import ffx.algorithms.cli.AlgorithmsScript
 import ffx.algorithms.cli.ManyBodyOptions
@@ -131,9 +132,18 @@ class ManyBody extends AlgorithmsScript {
       System.setProperty("intramolecular-softcore", "true");
     }
 
-    // Load the MolecularAssembly.
-    activeAssembly = getActiveAssembly(filename)
+    // Additional copies of the system can be used to compute energies concurrently.
+    int nCopies = manyBodyOptions.getPotentialCopies()
+    boolean potentialCopies = nCopies > 1 && !manyBodyOptions.getTitration() && !lambdaTerm
+    int threadsPer = Math.max(1, (int) (ParallelTeam.getDefaultThreadCount() / nCopies))
 
+    // Load the MolecularAssembly. With potential copies, it is the first copy and uses the same
+    // share of the available threads as the others.
+    if (potentialCopies) {
+      activeAssembly = algorithmFunctions.openAll(filename, threadsPer)[0]
+    } else {
+      activeAssembly = getActiveAssembly(filename)
+    }
 
     if (activeAssembly == null) {
       logger.info(helpString())
@@ -201,6 +211,23 @@ class ManyBody extends AlgorithmsScript {
     manyBodyOptions.initRotamerOptimization(rotamerOptimization, activeAssembly)
     List<Residue> residueList = rotamerOptimization.getResidues()
 
+    // Load additional copies of the system to compute energies concurrently.
+    if (nCopies > 1) {
+      if (!potentialCopies) {
+        logger.info(" Potential copies are not supported with titration or softcore atoms.")
+      } else {
+        MolecularAssembly[] copies = new MolecularAssembly[nCopies - 1]
+        for (int i = 0; i < nCopies - 1; i++) {
+          copies[i] = algorithmFunctions.openAll(filename, threadsPer)[0]
+          if (properties.getBoolean("standardizeAtomNames", false)) {
+            renameAtomsToPDBStandard(copies[i])
+          }
+          copies[i].getPotentialEnergy().setPrintOnFailure(false, false)
+        }
+        rotamerOptimization.setPotentialCopies(copies)
+      }
+    }
+
     logger.info("\n Initial Potential Energy:")
     potentialEnergy.energy(false, true)
 
@@ -209,6 +236,7 @@ class ManyBody extends AlgorithmsScript {
 
     // Run the optimization.
     rotamerOptimization.optimize(manyBodyOptions.getAlgorithm(residueList.size()))
+    rotamerOptimization.setPotentialCopies(null)
 
     boolean isTitrating = false
     Set<Atom> excludeAtoms = new HashSet<>()
@@ -740,6 +740,19 @@ public class ManyBodyOptions {
     return energyGroup.pHRestraint;
   }
 
+  /**
+   * The number of copies of the system used to compute energies concurrently.
+   *
+   * @return Returns the number of potential copies.
+   */
+  public int getPotentialCopies() {
+    return energyGroup.potentialCopies;
+  }
+
+  public void setPotentialCopies(int potentialCopies) {
+    energyGroup.potentialCopies = potentialCopies;
+  }
+
   public boolean isTitrating() {
     return group.titrationPH == 0;
   }
@@ -1039,6 +1052,14 @@ public class ManyBodyOptions {
             "--kPH", "--pHRestraint"}, paramLabel = "0.0", defaultValue = "0.0", description = "Only allow titration state to change from" +
             "standard state is self energy exceeds the restraint.")
     private double pHRestraint = 0;
+
+    /**
+     * --pc or --potentialCopies Number of copies of the system (each with its own potential) used
+     * to compute self, pair and triple energies concurrently within one process.
+     */
+    @Option(names = {"--pc",
+        "--potentialCopies"}, paramLabel = "1", defaultValue = "1", description = "Number of system copies used to compute energies concurrently.")
+    private int potentialCopies = 1;
   }
 
   /**
@@ -43,6 +43,14 @@ public class RepExOptions {
     return group.monteCarlo;
   }
 
+  public int getReplicas() {
+    return group.replicas;
+  }
+
+  public void setReplicas(int replicas) {
+    group.replicas = replicas;
+  }
+
 
   private static class RepExOptionGroup {
 
@@ -75,6 +83,13 @@ public class RepExOptions {
         description = "Execute 1 Monte Carlo move for each temperature in each cycle")
     boolean monteCarlo = false;
 
+    /**
+     * --nr or --replicas sets the number of replicas hosted by a single process.
+     */
+    @Option(names = {"--nr", "--replicas"}, paramLabel = "1", defaultValue = "1",
+        description = "Number of replicas hosted by this process (used without multiple processes).")
+    private int replicas = 1;
+
   }
 }
 
@@ -70,12 +70,16 @@ import ffx.potential.bonded.Atom;
 import ffx.potential.bonded.LambdaInterface;
 import ffx.potential.extended.ExtendedSystem;
 import ffx.potential.parameters.ForceField;
+import ffx.potential.parsers.BinaryTrajectoryWriter;
 import ffx.potential.parsers.DYNFilter;
 import ffx.potential.parsers.PDBFilter;
 import ffx.potential.parsers.XPHFilter;
 import ffx.potential.parsers.XYZFilter;
+import ffx.utilities.FFXProperty;
 import ffx.utilities.FileUtils;
+import ffx.utilities.PropertyGroup;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
@@ -208,6 +212,25 @@ public class MolecularDynamics implements Runnable, Terminatable {
   protected String fileType = "XYZ";
   /** Save snapshots in PDB format. */
   boolean saveSnapshotAsPDB = true;
+  /** Save snapshots in a text format (ARC, XPH or PDB). */
+  boolean saveSnapshotAsText = true;
+  /** Save snapshots to a binary trajectory. */
+  @FFXProperty(name = "binary-trajectory", clazz = Boolean.class,
+      propertyGroup = PropertyGroup.MolecularDynamics, defaultValue = "false", description = """
+      If true, each snapshot is also appended to a compressed binary trajectory (.ftrj) next to the
+      ARC or PDB archive. Snapshots are queued and written by a background thread, so that dynamics
+      does not wait for the file system. The BIN snapshot file type writes only the binary trajectory.
+      """)
+  boolean saveSnapshotAsBinary = false;
+  /** Asynchronous binary trajectory writer for each MolecularAssembly (or null). */
+  @FFXProperty(name = "binary-trajectory-buffer", clazz = Integer.class,
+      propertyGroup = PropertyGroup.MolecularDynamics, defaultValue = "4", description = """
+      The number of binary trajectory snapshots that can be queued for writing. Dynamics only waits
+      for the background writer when all of them are queued.
+      """)
+  private BinaryTrajectoryWriter[] binaryTrajectoryWriters;
+  /** The time step of the snapshot being written. */
+  private long snapshotStep = 0;
   /** Dynamics restart file. */
   File restartFile = null;
   /** Flag to indicate loading of restart file. */
@@ -281,6 +304,10 @@ public class MolecularDynamics implements Runnable, Terminatable {
     boolean oMMLogging = potential instanceof OpenMMEnergy;
     List<Constraint> constraints = potentialEnergy.getConstraints();
 
+    // The counter-based-random property opts in to Philox random numbers that are keyed by the
+    // time step and degree of freedom.
+    boolean counterBasedRandom = properties.getBoolean("counter-based-random", false);
+
     // Set the integrator.
     integrator = switch (requestedIntegrator) {
       case RESPA, MTS -> {
@@ -299,6 +326,7 @@ public class MolecularDynamics implements Runnable, Terminatable {
         double friction = properties.getDouble("friction", 91.0);
         logger.log(Level.FINE, format(" Friction set at %.3f collisions/picosecond", friction));
         Stochastic stochastic = new Stochastic(friction, state);
+        stochastic.setCounterBasedRandom(counterBasedRandom);
         if (properties.containsKey("randomseed")) {
           stochastic.setRandomSeed(properties.getInt("randomseed", 0));
         }
@@ -344,6 +372,7 @@ public class MolecularDynamics implements Runnable, Terminatable {
       default -> new Adiabatic(state, potentialEnergy.getVariableTypes(), constraints);
     };
 
+    thermostat.setCounterBasedRandom(counterBasedRandom);
     if (properties.containsKey("randomseed")) {
       thermostat.setRandomSeed(properties.getInt("randomseed", 0));
     }
@@ -779,8 +808,15 @@ public class MolecularDynamics implements Runnable, Terminatable {
 
     // Set snapshot file type.
     saveSnapshotAsPDB = true;
+    saveSnapshotAsText = true;
+    // The binary-trajectory property adds a binary trajectory to the ARC or PDB snapshots.
+    saveSnapshotAsBinary = molecularAssembly[0].getProperties().getBoolean("binary-trajectory", false);
     if (fileType.equalsIgnoreCase("XYZ") || fileType.equalsIgnoreCase("ARC")) {
       saveSnapshotAsPDB = false;
+    } else if (fileType.equalsIgnoreCase("BIN")) {
+      saveSnapshotAsPDB = false;
+      saveSnapshotAsText = false;
+      saveSnapshotAsBinary = true;
     } else if (!fileType.equalsIgnoreCase("PDB")) {
       logger.warning("Snapshot file type unrecognized; saving snapshots as PDB.\n");
     }
@@ -1019,6 +1055,7 @@ public class MolecularDynamics implements Runnable, Terminatable {
             atom.setTempFactor(esvSystem.getTautomerLambda(atomIndex));
           }
         }
+        snapshotStep = step;
         appendSnapshot(allLines);
         written.add(MDWriteAction.SNAPSHOT);
       }
@@ -1233,6 +1270,9 @@ public class MolecularDynamics implements Runnable, Terminatable {
       potential.setEnergyTermState(Potential.STATE.BOTH);
     }
 
+    // Finish writing the binary trajectory.
+    closeBinaryTrajectories();
+
     // Log normal completion.
     if (!terminate) {
       logger.log(basicLogging, format(" Completed %8d time steps\n", nSteps));
@@ -1249,6 +1289,13 @@ public class MolecularDynamics implements Runnable, Terminatable {
    * @param extraLines Strings of meta-data to include.
    */
   protected void appendSnapshot(String[] extraLines) {
+    if (saveSnapshotAsBinary) {
+      appendBinarySnapshot();
+    }
+    if (!saveSnapshotAsText) {
+      return;
+    }
+
     // Loop over all molecular assemblies.
     for (MolecularAssembly assembly : molecularAssembly) {
       File archiveFile = assembly.getArchiveFile();
@@ -1295,6 +1342,69 @@ public class MolecularDynamics implements Runnable, Terminatable {
     }
   }
 
+  /**
+   * Queue a snapshot of each molecular assembly for its binary trajectory. The coordinates and
+   * velocities are copied into a preallocated buffer and written to disk by a background thread.
+   */
+  private void appendBinarySnapshot() {
+    int n = molecularAssembly.length;
+    if (binaryTrajectoryWriters == null) {
+      binaryTrajectoryWriters = new BinaryTrajectoryWriter[n];
+    }
+    double lambda = Double.NaN;
+    if (potential instanceof LambdaInterface lambdaInterface) {
+      lambda = lambdaInterface.getLambda();
+    }
+    double pH = (esvSystem != null) ? esvSystem.getConstantPh() : Double.NaN;
+    for (int i = 0; i < n; i++) {
+      MolecularAssembly assembly = molecularAssembly[i];
+      Atom[] atoms = assembly.getAtomArray();
+      BinaryTrajectoryWriter writer = binaryTrajectoryWriters[i];
+      try {
+        if (writer == null) {
+          File archiveFile = assembly.getArchiveFile();
+          String filename = FilenameUtils.removeExtension(archiveFile.getAbsolutePath());
+          File binaryFile = new File(filename + ".ftrj");
+          int bufferFrames = assembly.getProperties().getInt("binary-trajectory-buffer",
+              BinaryTrajectoryWriter.DEFAULT_BUFFER_FRAMES);
+          writer = new BinaryTrajectoryWriter(binaryFile, atoms.length, true, true, bufferFrames);
+          binaryTrajectoryWriters[i] = writer;
+        }
+        writer.append(snapshotStep, totalSimTime, lambda, pH, assembly.getCrystal().getUnitCell(),
+            atoms);
+        String name = FileUtils.relativePathTo(writer.getFile()).toString();
+        logger.log(basicLogging, format(" Queued snapshot for:        %s", name));
+      } catch (IOException e) {
+        logger.warning(format(" Appending to binary trajectory failed:\n %s", e));
+        saveSnapshotAsBinary = false;
+      }
+    }
+  }
+
+  /**
+   * Wait for queued binary trajectory snapshots to be written and close the binary trajectories.
+   * They are reopened in append mode if dynamics continues.
+   */
+  private void closeBinaryTrajectories() {
+    if (binaryTrajectoryWriters == null) {
+      return;
+    }
+    for (BinaryTrajectoryWriter writer : binaryTrajectoryWriters) {
+      if (writer == null) {
+        continue;
+      }
+      String name = FileUtils.relativePathTo(writer.getFile()).toString();
+      try {
+        writer.close();
+        logger.log(basicLogging,
+            format(" Wrote %d frames to binary trajectory %s", writer.getNumberOfFrames(), name));
+      } catch (IOException e) {
+        logger.warning(format(" Closing binary trajectory %s failed:\n %s", name, e));
+      }
+    }
+    binaryTrajectoryWriters = null;
+  }
+
   /**
    * Checks if thermodynamics must be logged. If logged, current time is returned, else the time
    * passed in is returned.
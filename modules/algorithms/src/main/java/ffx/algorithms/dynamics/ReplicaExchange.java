@@ -43,6 +43,10 @@ import static org.apache.commons.math3.util.FastMath.exp;
 
 import edu.rit.mp.DoubleBuf;
 import edu.rit.pj.Comm;
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
 import ffx.algorithms.AlgorithmListener;
 import ffx.algorithms.Terminatable;
 import java.io.IOException;
@@ -53,6 +57,11 @@ import java.util.logging.Logger;
 /**
  * The ReplicaExchange implements temperature and lambda replica exchange methods.
  *
+ * <p>Replicas are either distributed one per process (communicating through the Parallel Java
+ * world communicator) or hosted within a single process. In the latter case, each replica is
+ * advanced concurrently on its own thread (its potential should be constructed with its own slice
+ * of the available threads) and exchanges only update the temperature mapping in shared memory.
+ *
  * @author Timothy D. Fenn and Michael J. Schnieders
  * @since 1.0
  */
@@ -61,10 +70,14 @@ public class ReplicaExchange implements Terminatable {
   private static final Logger logger = Logger.getLogger(ReplicaExchange.class.getName());
   private final int nReplicas;
   private final Random random;
-  /** Parallel Java world communicator. */
+  /** Parallel Java world communicator, or null if all replicas are hosted by this process. */
   private final Comm world;
   /** Rank of this process. */
   private final int rank;
+  /** Replicas hosted by this process (only used when the world communicator is null). */
+  private final MolecularDynamics[] replicas;
+  /** ParallelTeam that advances the replicas hosted by this process. */
+  private ParallelTeam replicaTeam = null;
   /**
    * The parameters array stores communicated parameters for each process (i.e. each RepEx system).
    * Currently, the array is of size [number of Processes][2].
@@ -137,6 +150,46 @@ public class ReplicaExchange implements Terminatable {
     // during communication calls.
     myParameters = parameters[rank];
     myParametersBuf = parametersBuf[rank];
+    replicas = null;
+  }
+
+  /**
+   * ReplicaExchange constructor for replicas that are all hosted by this process.
+   *
+   * @param replicas The MolecularDynamics instance for each replica.
+   * @param listener A listener for algorithm events.
+   * @param temperature The temperature (K).
+   * @param exponent a double to set temperature ladder.
+   * @param monteCarlo If true, attempt one exchange per temperature per cycle.
+   */
+  public ReplicaExchange(MolecularDynamics[] replicas, AlgorithmListener listener,
+      double temperature, double exponent, boolean monteCarlo) {
+
+    this.replicas = replicas;
+    this.replica = replicas[0];
+    this.monteCarlo = monteCarlo;
+
+    // No communication is needed: the replica index takes the place of the process rank.
+    world = null;
+    rank = 0;
+
+    nReplicas = replicas.length;
+    temperatures = new double[nReplicas];
+    temp2Rank = new int[nReplicas];
+    rank2Temp = new int[nReplicas];
+    tempAcceptedCount = new int[nReplicas];
+    rankAcceptedCount = new int[nReplicas];
+    tempTrialCount = new int[nReplicas];
+
+    setExponentialTemperatureLadder(temperature, exponent);
+
+    random = new Random();
+    random.setSeed(0);
+
+    parameters = new double[nReplicas][2];
+    parametersBuf = null;
+    myParameters = parameters[rank];
+    myParametersBuf = null;
   }
 
   /**
@@ -158,10 +211,22 @@ public class ReplicaExchange implements Terminatable {
         done = true;
         break;
       }
-      dynamic(nSteps, timeStep, printInterval, saveInterval);
+      if (world == null) {
+        dynamicInProcess(nSteps, timeStep, printInterval, saveInterval);
+      } else {
+        dynamic(nSteps, timeStep, printInterval, saveInterval);
+      }
       logger.info(String.format(" Applying exchange condition for cycle %d.", i));
       exchange(i);
     }
+    if (replicaTeam != null) {
+      try {
+        replicaTeam.shutdown();
+      } catch (Exception ex) {
+        logger.log(Level.WARNING, " Exception shutting down the replica team.", ex);
+      }
+      replicaTeam = null;
+    }
   }
 
   /**
@@ -188,6 +253,29 @@ public class ReplicaExchange implements Terminatable {
     this.temperatures = temperatures;
   }
 
+  /**
+   * Get the position of a replica on the temperature ladder.
+   *
+   * @param replica The replica (or process rank).
+   * @return The index of the temperature the replica is currently sampling.
+   */
+  public int getTemperatureIndex(int replica) {
+    return rank2Temp[replica];
+  }
+
+  /**
+   * Get the number of accepted exchanges.
+   *
+   * @return The number of accepted exchanges over all temperatures.
+   */
+  public int getAcceptedExchanges() {
+    int accepted = 0;
+    for (int count : tempAcceptedCount) {
+      accepted += count;
+    }
+    return accepted;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -322,4 +410,50 @@ public class ReplicaExchange implements Terminatable {
       logger.log(Level.SEVERE, message, ex);
     }
   }
+
+  /**
+   * Blocking dynamic steps for replicas hosted by this process: each replica is advanced
+   * concurrently at its current temperature and its parameters are written directly into the shared
+   * parameters array.
+   *
+   * @param nSteps the number of time steps.
+   * @param timeStep the time step (fsec).
+   * @param printInterval the number of steps between logging updates.
+   * @param saveInterval the number of steps between saving snapshots.
+   */
+  private void dynamicInProcess(final long nSteps, final double timeStep,
+      final double printInterval, final double saveInterval) {
+    if (replicaTeam == null) {
+      replicaTeam = new ParallelTeam(nReplicas);
+    }
+    try {
+      replicaTeam.execute(new ParallelRegion() {
+        @Override
+        public void run() throws Exception {
+          execute(0, nReplicas - 1, new IntegerForLoop() {
+            @Override
+            public IntegerSchedule schedule() {
+              return IntegerSchedule.dynamic();
+            }
+
+            @Override
+            public void run(int lb, int ub) {
+              for (int r = lb; r <= ub; r++) {
+                int i = rank2Temp[r];
+                MolecularDynamics molecularDynamics = replicas[r];
+                boolean initVelocities = true;
+                molecularDynamics.dynamic(nSteps, timeStep, printInterval, saveInterval,
+                    temperatures[i], initVelocities, null);
+                parameters[r][0] = temperatures[i];
+                parameters[r][1] = molecularDynamics.state.getPotentialEnergy();
+              }
+            }
+          });
+        }
+      });
+    } catch (Exception ex) {
+      String message = " Exception advancing in-process replicas.";
+      logger.log(Level.SEVERE, message, ex);
+    }
+  }
 }
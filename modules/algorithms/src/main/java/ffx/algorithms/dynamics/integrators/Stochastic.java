@@ -44,9 +44,12 @@ import static java.util.Arrays.copyOf;
 import static org.apache.commons.math3.util.FastMath.exp;
 import static org.apache.commons.math3.util.FastMath.sqrt;
 
+import ffx.numerics.math.PhiloxRandom;
 import ffx.potential.SystemState;
 import ffx.numerics.Potential;
 import ffx.potential.constraint.ShakeChargeConstraint;
+import ffx.utilities.FFXProperty;
+import ffx.utilities.PropertyGroup;
 
 import java.util.Arrays;
 import java.util.Random;
@@ -73,6 +76,30 @@ public class Stochastic extends Integrator {
    * Random number generator.
    */
   private final Random random;
+  /**
+   * Optional counter-based random number generator keyed by time step and degree of freedom.
+   */
+  private final PhiloxRandom philoxRandom;
+  /**
+   * If true, random forces are drawn from the counter-based random number generator.
+   */
+  @FFXProperty(name = "counter-based-random", clazz = Boolean.class,
+      propertyGroup = PropertyGroup.MolecularDynamics, defaultValue = "false", description = """
+      If true, the random forces of stochastic dynamics, the random numbers of the Bussi thermostat
+      and initial velocities are drawn from a Philox counter-based generator. Each random number
+      then depends only on the seed, a counter (such as the time step) and the index of the degree
+      of freedom, rather than on the order in which numbers are drawn from java.util.Random.
+      """)
+  private boolean counterBasedRandom = false;
+  /**
+   * Number of completed time steps, which is the counter for the counter-based random number
+   * generator.
+   */
+  private long step = 0;
+  /**
+   * Two normal random numbers from the counter-based random number generator.
+   */
+  private final double[] gaussians = new double[2];
   /**
    * Per degree of freedom friction.
    */
@@ -119,6 +146,7 @@ public class Stochastic extends Integrator {
     efdt = exp(-fdt);
     temperature = 298.15;
     random = new Random();
+    philoxRandom = new PhiloxRandom();
   }
 
   /**
@@ -225,8 +253,16 @@ public class Stochastic extends Integrator {
           double psig = sqrt(ktm * pterm) / friction;
           double vsig = sqrt(ktm * vterm);
           double rhoc = sqrt(1.0 - rho * rho);
-          double pnorm = random.nextGaussian();
-          double vnorm = random.nextGaussian();
+          double pnorm;
+          double vnorm;
+          if (counterBasedRandom) {
+            philoxRandom.gaussians(step, i, gaussians);
+            pnorm = gaussians[0];
+            vnorm = gaussians[1];
+          } else {
+            pnorm = random.nextGaussian();
+            vnorm = random.nextGaussian();
+          }
           prand = psig * pnorm;
           vRandom[i] = vsig * (rho * pnorm + rhoc * vnorm);
         }
@@ -249,6 +285,18 @@ public class Stochastic extends Integrator {
     if (iter == maxIter) {
       throw new RuntimeException("SHAKE  --  Warning, Distance Constraints not Satisfied");
     }
+    step++;
+  }
+
+  /**
+   * Use the counter-based random number generator, for which the random force on each degree of
+   * freedom depends only on the seed, the number of steps since the seed was set and the index of
+   * the degree of freedom. By default, random forces are drawn sequentially from java.util.Random.
+   *
+   * @param counterBasedRandom If true, use the counter-based random number generator.
+   */
+  public void setCounterBasedRandom(boolean counterBasedRandom) {
+    this.counterBasedRandom = counterBasedRandom;
   }
 
   /**
@@ -258,6 +306,8 @@ public class Stochastic extends Integrator {
    */
   public void setRandomSeed(long seed) {
     random.setSeed(seed);
+    philoxRandom.setSeed(seed);
+    step = 0;
   }
 
   /**
@@ -44,6 +44,7 @@ import static org.apache.commons.math3.util.FastMath.sqrt;
 import ffx.potential.SystemState;
 import ffx.numerics.Constraint;
 import ffx.numerics.Potential.VARIABLE_TYPE;
+import ffx.numerics.math.PhiloxRandom;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -63,6 +64,12 @@ public class Bussi extends Thermostat {
 
   /** The random number generator used to perturb velocities. */
   private final Random bussiRandom;
+  /** The optional counter-based random number generator used to perturb velocities. */
+  private final PhiloxRandom bussiPhiloxRandom;
+  /** Number of full steps, which is the counter for the counter-based random number generator. */
+  private long step = 0;
+  /** Two normal random numbers from the counter-based random number generator. */
+  private final double[] gaussians = new double[2];
   /** Bussi thermostat time constant (psec). */
   private double tau;
 
@@ -84,6 +91,7 @@ public class Bussi extends Thermostat {
     this.name = ThermostatEnum.BUSSI;
     this.tau = tau;
     this.bussiRandom = new Random();
+    this.bussiPhiloxRandom = new PhiloxRandom();
   }
 
   /**
@@ -107,11 +115,30 @@ public class Bussi extends Thermostat {
     double expTau = exp(-dt / tau);
     double tempRatio = targetTemperature / state.getTemperature();
     double rate = (1.0 - expTau) * tempRatio / degreesOfFreedom;
-    double r = bussiRandom.nextGaussian();
+    double r;
     double s = 0.0;
-    for (int i = 0; i < degreesOfFreedom - 1; i++) {
-      double si = bussiRandom.nextGaussian();
-      s += si * si;
+    if (counterBasedRandom) {
+      bussiPhiloxRandom.gaussians(step, 0, gaussians);
+      r = gaussians[0];
+      // Sum the squares of (degreesOfFreedom - 1) normal random numbers, drawn two per block.
+      int n = degreesOfFreedom - 1;
+      if (n > 0) {
+        s = gaussians[1] * gaussians[1];
+      }
+      for (int i = 1; i < n; i += 2) {
+        bussiPhiloxRandom.gaussians(step, (i + 1) / 2, gaussians);
+        s += gaussians[0] * gaussians[0];
+        if (i + 1 < n) {
+          s += gaussians[1] * gaussians[1];
+        }
+      }
+      step++;
+    } else {
+      r = bussiRandom.nextGaussian();
+      for (int i = 0; i < degreesOfFreedom - 1; i++) {
+        double si = bussiRandom.nextGaussian();
+        s += si * si;
+      }
     }
     double scale = expTau + (s + r * r) * rate + 2.0 * r * sqrt(expTau * rate);
     scale = sqrt(scale);
@@ -161,6 +188,8 @@ public class Bussi extends Thermostat {
    */
   public void setRandomSeed(long seed) {
     bussiRandom.setSeed(seed);
+    bussiPhiloxRandom.setSeed(seed);
+    step = 0;
   }
 
   /**
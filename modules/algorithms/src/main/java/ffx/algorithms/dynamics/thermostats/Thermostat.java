@@ -39,6 +39,7 @@ package ffx.algorithms.dynamics.thermostats;
 
 import ffx.numerics.Constraint;
 import ffx.numerics.Potential.VARIABLE_TYPE;
+import ffx.numerics.math.PhiloxRandom;
 import ffx.potential.SystemState;
 
 import java.util.ArrayList;
@@ -106,6 +107,23 @@ public abstract class Thermostat {
    * The random number generator that the Thermostat will use to initialize velocities.
    */
   protected Random random;
+  /**
+   * The optional counter-based random number generator that the Thermostat will use to initialize
+   * velocities.
+   */
+  protected PhiloxRandom philoxRandom;
+  /**
+   * If true, random numbers are drawn from the counter-based random number generator.
+   */
+  protected boolean counterBasedRandom = false;
+  /**
+   * Number of velocity draws, which is the counter for the counter-based random number generator.
+   */
+  private long draws = 0;
+  /**
+   * Two normal random numbers from the counter-based random number generator.
+   */
+  private final double[] gaussians = new double[2];
   /**
    * Any geometric constraints to apply during integration.
    */
@@ -141,6 +159,7 @@ public abstract class Thermostat {
     assert (n > 3);
     assert (type.length == n);
     random = new Random();
+    philoxRandom = new PhiloxRandom();
     setTargetTemperature(targetTemperature);
 
     this.constraints = new ArrayList<>(constraints);
@@ -386,9 +405,10 @@ public abstract class Thermostat {
     for (int i = 0; i < state.getNumberOfVariables(); i++) {
       double m = mass[i];
       if (m > 0.0) {
-        v[i] = random.nextGaussian() * sqrt(kB * targetTemperature / m);
+        v[i] = nextGaussian(i) * sqrt(kB * targetTemperature / m);
       }
     }
+    draws++;
 
     // Remove the center of mass motion.
     if (removeCenterOfMassMotion) {
@@ -438,12 +458,29 @@ public abstract class Thermostat {
     double[] vv = new double[3];
     if (mass > 0.0) {
       for (int i = 0; i < 3; i++) {
-        vv[i] = random.nextGaussian() * sqrt(kB * targetTemperature / mass);
+        vv[i] = nextGaussian(i) * sqrt(kB * targetTemperature / mass);
       }
+      draws++;
     }
     return vv;
   }
 
+  /**
+   * Draw a normal random number for the degree of freedom i of the current velocity draw. The
+   * counter-based generator provides normal random numbers for degrees of freedom 2k and 2k + 1 from
+   * block k, independent of which other degrees of freedom are drawn.
+   *
+   * @param i The index of the degree of freedom.
+   * @return A normal random number.
+   */
+  private double nextGaussian(int i) {
+    if (!counterBasedRandom) {
+      return random.nextGaussian();
+    }
+    philoxRandom.gaussians(draws, i / 2, gaussians);
+    return gaussians[i % 2];
+  }
+
   /**
    * Setter for the field <code>quiet</code>.
    *
@@ -461,6 +498,19 @@ public abstract class Thermostat {
    */
   public void setRandomSeed(long seed) {
     random.setSeed(seed);
+    philoxRandom.setSeed(seed);
+    draws = 0;
+  }
+
+  /**
+   * Use the counter-based random number generator, for which each random number depends only on
+   * the seed, the number of draws since the seed was set and the index of the degree of freedom.
+   * By default, random numbers are drawn sequentially from java.util.Random.
+   *
+   * @param counterBasedRandom If true, use the counter-based random number generator.
+   */
+  public void setCounterBasedRandom(boolean counterBasedRandom) {
+    this.counterBasedRandom = counterBasedRandom;
   }
 
   /**
@@ -336,7 +336,7 @@ public class RosenbluthChiAllMove implements MCMove {
         trialSet.theta[i] = 0.0; // this cheap version does all thetas at once
         trialSet.rotamer[i] = newState;
         trialSet.uDep[i] = uTors;
-        trialSet.uExt[i] = totalEnergy() - uTors;
+        trialSet.uExt[i] = localEnergy() - uTors;
         i++;
         writeSnapshot(snapSuffix, true);
         if (printTestSets) {
@@ -387,7 +387,7 @@ public class RosenbluthChiAllMove implements MCMove {
         trialSet.theta[i] = theta;
         trialSet.rotamer[i] = newState;
         trialSet.uDep[i] = uTors;
-        trialSet.uExt[i] = totalEnergy() - uTors; // Expensive!
+        trialSet.uExt[i] = localEnergy() - uTors;
         i++;
         writeSnapshot(snapSuffix, true);
         if (i < 4 || i > setSize - 1) {
@@ -469,7 +469,7 @@ public class RosenbluthChiAllMove implements MCMove {
     for (Torsion tors : allTors) {
       ouDep += tors.energy(false); // original-conf uDep
     }
-    double ouExt = totalEnergy() - ouDep; // original-conf uExt
+    double ouExt = localEnergy() - ouDep; // original-conf uExt
     double ouExtBolt = FastMath.exp(-beta * ouExt);
     if (printTestSets) {
       report.append(
@@ -583,7 +583,7 @@ public class RosenbluthChiAllMove implements MCMove {
     for (int i = 0; i < chi.length; i++) {
       Torsion tors = map.get(i).torsion;
       double ouDep = tors.energy(false); // original-conf uDep
-      double ouExt = totalEnergy() - ouDep; // original-conf uExt
+      double ouExt = localEnergy() - ouDep; // original-conf uExt
       double ouExtBolt = FastMath.exp(-beta * ouExt);
       TrialSet trialSet = expensiveTorsionSet(tors, i, testSetSize - 1, "bko");
       wo[i] = ouExtBolt + trialSet.sumExtBolt();
@@ -736,6 +736,17 @@ public class RosenbluthChiAllMove implements MCMove {
     return forceFieldEnergy.energy(false, verboseEnergies);
   }
 
+  /**
+   * The energy of the terms that depend on the target residue. Terms that do not involve the
+   * target are constant during a move and cancel from the Rosenbluth weights.
+   *
+   * @return The local energy of the target residue.
+   */
+  private double localEnergy() {
+    forceFieldEnergy.setEnergyTermState(Potential.STATE.BOTH);
+    return forceFieldEnergy.getLocalEnergy(target.getAtomList().toArray(new Atom[0]));
+  }
+
   /**
    * Maps the back-bonded terms affected by key atoms in an amino acid. Here, 'key atom' refers to
    * each new rotamer-torsion-completing atom. e.g. VAL has 1 key atom (CG1), ARG has 4 key atoms
@@ -58,8 +58,10 @@ import ffx.algorithms.optimize.manybody.DistanceMatrix;
 import ffx.algorithms.optimize.manybody.EliminatedRotamers;
 import ffx.algorithms.optimize.manybody.EnergyExpansion;
 import ffx.algorithms.optimize.manybody.EnergyRegion;
+import ffx.algorithms.optimize.manybody.EnergyRestartStore;
 import ffx.algorithms.optimize.manybody.FourBodyEnergyRegion;
 import ffx.algorithms.optimize.manybody.GoldsteinPairRegion;
+import ffx.algorithms.optimize.manybody.PotentialCopies;
 import ffx.algorithms.optimize.manybody.RotamerMatrixMC;
 import ffx.algorithms.optimize.manybody.RotamerMatrixMove;
 import ffx.algorithms.optimize.manybody.SelfEnergyRegion;
@@ -84,7 +86,9 @@ import ffx.potential.nonbonded.VanDerWaals;
 import ffx.potential.parameters.TitrationUtils;
 import ffx.potential.parsers.PDBFilter;
 import ffx.utilities.Constants;
+import ffx.utilities.FFXProperty;
 import ffx.utilities.ObjectPair;
+import ffx.utilities.PropertyGroup;
 import ffx.utilities.Resources;
 import org.apache.commons.configuration2.CompositeConfiguration;
 import org.apache.commons.io.FilenameUtils;
@@ -105,7 +109,7 @@ import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.BiFunction;
-import java.util.function.ToDoubleFunction;
+import java.util.function.ToDoubleBiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -193,10 +197,11 @@ public class RotamerOptimization implements Terminatable {
      */
     private final BiFunction<List<Residue>, List<Rotamer>, File> dirSupplier;
     /**
-     * Represents the method called to obtain energy for the current rotamer or state; defaults to the
-     * existing potential energy code. May discard the input file.
+     * Represents the method called to obtain energy for the current rotamer or state of a Potential
+     * (the Potential under optimization or that of a potential copy); defaults to the existing
+     * potential energy code. May discard the input file.
      */
-    private final ToDoubleFunction<File> eFunction;
+    private final ToDoubleBiFunction<File, Potential> eFunction;
     /**
      * Flag to indicate verbose logging.
      */
@@ -410,6 +415,11 @@ public class RotamerOptimization implements Terminatable {
      * An array of all residues in the system, which is used to compute a distance matrix.
      */
     private Residue[] allResiduesArray = null;
+    /**
+     * Independent copies of the system used to compute self, pair and triple energies
+     * concurrently, or null.
+     */
+    private PotentialCopies potentialCopies = null;
     /**
      * Number of residues being optimized.
      */
@@ -486,6 +496,23 @@ public class RotamerOptimization implements Terminatable {
      * Writes energies to restart file.
      */
     private BufferedWriter energyWriter;
+    /**
+     * If true, energies are written to a binary energy restart store instead of a text file.
+     */
+    @FFXProperty(name = "ro-binaryEnergyRestart", clazz = Boolean.class,
+        propertyGroup = PropertyGroup.RotamerOptimization, defaultValue = "false", description = """
+        If true, many-body energies are written to a binary energy restart store
+        instead of a text file.
+        """)
+    private boolean binaryEnergyRestart;
+    /**
+     * File for the binary energy restart store.
+     */
+    private File energyStoreFile;
+    /**
+     * Binary energy restart store, opened once the residues under optimization are known.
+     */
+    private EnergyRestartStore energyStore;
 
   /**
    * False unless JUnit testing.
@@ -583,6 +610,9 @@ public class RotamerOptimization implements Terminatable {
       setMonteCarloTesting(true);
     }
 
+    // Write energies to a binary energy restart store.
+    binaryEnergyRestart = properties.getBoolean("ro-binaryEnergyRestart", false);
+
     // Compute 4-body energies.
     String computeQuads = properties.getString("ro-compute4BodyEnergy");
     if (computeQuads != null) {
@@ -897,6 +927,19 @@ public class RotamerOptimization implements Terminatable {
     return currentEnergy(Arrays.asList(resArray));
   }
 
+  /**
+   * Calculates the energy at the current state of a potential copy, using the same energy function
+   * as the Potential under optimization.
+   *
+   * @param resArray        Array of residues of the copy in current energy term.
+   * @param energyPotential The Potential of the copy.
+   * @return Energy of the current state.
+   */
+  public double currentEnergy(Residue[] resArray, Potential energyPotential)
+      throws ArithmeticException {
+    return currentEnergy(Arrays.asList(resArray), energyPotential);
+  }
+
   /**
    * Wrapper intended for use with RotamerMatrixMC.
    *
@@ -1220,6 +1263,9 @@ public class RotamerOptimization implements Terminatable {
         if (energyWriter != null) {
           energyWriter.close();
         }
+        if (energyStore != null) {
+          energyStore.close();
+        }
       } catch (IOException ex) {
         logger.severe(" Exception in closing buffered energy writer.");
       }
@@ -1595,6 +1641,27 @@ public class RotamerOptimization implements Terminatable {
     this.revert = revert;
   }
 
+  /**
+   * Set additional copies of the system (loaded from the same file, each with its own Potential)
+   * that are used to compute self, pair and triple energies concurrently.
+   *
+   * @param copies Additional copies of the system under optimization.
+   */
+  public void setPotentialCopies(MolecularAssembly[] copies) {
+    if (potentialCopies != null) {
+      potentialCopies.destroy();
+      potentialCopies = null;
+    }
+    if (copies == null || copies.length == 0) {
+      return;
+    }
+    if (potential instanceof OpenMMEnergy) {
+      logger.info(" Potential copies are not supported with OpenMM.");
+      return;
+    }
+    potentialCopies = new PotentialCopies(copies);
+  }
+
   public void setRotamerLibrary(RotamerLibrary lib) {
     library = lib;
   }
@@ -1655,6 +1722,24 @@ public class RotamerOptimization implements Terminatable {
     }
   }
 
+  /**
+   * Get the 2-body cutoff distance.
+   *
+   * @return The 2-body cutoff distance.
+   */
+  public double getTwoBodyCutoff() {
+    return twoBodyCutoffDist;
+  }
+
+  /**
+   * Get the 3-body cutoff distance.
+   *
+   * @return The 3-body cutoff distance.
+   */
+  public double getThreeBodyCutoff() {
+    return threeBodyCutoffDist;
+  }
+
   /**
    * Specify use of Goldstein optimization.
    *
@@ -3581,19 +3666,38 @@ public class RotamerOptimization implements Terminatable {
    * @return Energy of the current state.
    */
   private double currentEnergy(List<Residue> resList) throws ArithmeticException {
+    return currentEnergy(resList, potential);
+  }
+
+  /**
+   * Calculates the energy at the current state of a Potential.
+   *
+   * @param resList         List of residues in current energy term.
+   * @param energyPotential The Potential under optimization or that of a potential copy.
+   * @return Energy of the current state.
+   */
+  private double currentEnergy(List<Residue> resList, Potential energyPotential)
+      throws ArithmeticException {
     List<Rotamer> rots = resList.stream().filter(Objects::nonNull).map(Residue::getRotamer)
         .collect(Collectors.toList());
     File energyDir = dirSupplier.apply(resList, rots);
-    return eFunction.applyAsDouble(energyDir);
+    return eFunction.applyAsDouble(energyDir, energyPotential);
   }
 
   /**
    * Default method for obtaining energy: calculates energy of the Potential.
    *
-   * @param dir Ignored, should be null
+   * @param dir             Ignored, should be null
+   * @param energyPotential The Potential under optimization or that of a potential copy.
    * @return Current potential energy
    */
-  private double currentPE(File dir) {
+  private double currentPE(File dir, Potential energyPotential) {
+    if (energyPotential != potential) {
+      // Potential copies compute energies concurrently, so each call uses its own coordinates.
+      double[] xCopy = new double[energyPotential.getNumberOfVariables()];
+      energyPotential.getCoordinates(xCopy);
+      return energyPotential.energy(xCopy);
+    }
     if (x == null) {
       int nVar = potential.getNumberOfVariables();
       x = new double[nVar];
@@ -3659,6 +3763,11 @@ public class RotamerOptimization implements Terminatable {
     File restartFile;
     if (loadEnergyRestart) {
       restartFile = energyRestartFile;
+    } else if (binaryEnergyRestart) {
+      File file = molecularAssembly.getFile();
+      String filename = FilenameUtils.removeExtension(file.getAbsolutePath());
+      restartFile = Paths.get(filename + ".brestart").toFile();
+      energyRestartFile = restartFile;
     } else {
       File file = molecularAssembly.getFile();
       String filename = FilenameUtils.removeExtension(file.getAbsolutePath());
@@ -3666,6 +3775,15 @@ public class RotamerOptimization implements Terminatable {
       restartFile = restartPath.toFile();
       energyRestartFile = restartFile;
     }
+    // New energies are appended in the format of a restart file being loaded.
+    boolean binary = loadEnergyRestart ? EnergyRestartStore.isEnergyRestartStore(restartFile)
+        : binaryEnergyRestart;
+    if (binary) {
+      // The header of the store describes the residues, so it is opened on first use.
+      energyStoreFile = restartFile;
+      logger.info(format("\n Energy restart store: %s", restartFile.getName()));
+      return;
+    }
     try {
       energyWriter = new BufferedWriter(new FileWriter(restartFile, true));
     } catch (IOException ex) {
@@ -3674,6 +3792,25 @@ public class RotamerOptimization implements Terminatable {
     logger.info(format("\n Energy restart file: %s", restartFile.getName()));
   }
 
+  /**
+   * Get the binary energy restart store, which is opened on first use once the residues under
+   * optimization are known.
+   *
+   * @return The energy restart store, or null if energies are written to a text restart file.
+   */
+  public synchronized EnergyRestartStore getEnergyRestartStore() {
+    if (energyStore == null && energyStoreFile != null && allResiduesList != null) {
+      try {
+        energyStore = EnergyRestartStore.open(energyStoreFile, allResiduesList, twoBodyCutoffDist,
+            threeBodyCutoffDist);
+      } catch (IOException ex) {
+        logger.warning(format(" Energies will not be saved for restart.\n%s", ex.getMessage()));
+        energyStoreFile = null;
+      }
+    }
+    return energyStore;
+  }
+
   /**
    * Turn off non-bonded contributions from all residues except for one. Compute the self-energy for
    * each residue relative to the backbone contribution.
@@ -3722,6 +3859,16 @@ public class RotamerOptimization implements Terminatable {
     // Update the EliminatedRotamers instance with the EnergyExpansion instance.
     eR.setEnergyExpansion(eE);
 
+    // Load the current state of the system into the potential copies.
+    if (potentialCopies != null) {
+      if (potentialCopies.synchronize(molecularAssembly, allResiduesList, library)) {
+        logIfRank0(format(" Computing energies with %d potential copies.", potentialCopies.size()));
+        eE.setPotentialCopies(potentialCopies);
+      } else {
+        logger.info(" Potential copies do not match the system; computing energies serially.");
+      }
+    }
+
     int loaded = 0;
     if (loadEnergyRestart) {
       if (usingBoxOptimization) {
@@ -3767,7 +3914,7 @@ public class RotamerOptimization implements Terminatable {
 
       if (threeBodyTerm) {
         if (loaded < 3) {
-          eE.allocate3BodyJobMap(residues, nResidues, false);
+          eE.allocate3BodyJobMap(residues, nResidues);
         }
         ThreeBodyEnergyRegion threeBodyEnergyRegion = new ThreeBodyEnergyRegion(this, dM, eE, eR,
             residues, allResiduesList, energyWriter, world, numProc, superpositionThreshold, rank0,
@@ -4761,8 +4908,13 @@ public class RotamerOptimization implements Terminatable {
           if (rank0 && writeEnergyRestart && printFiles) {
             String boxHeader = format(" Box %d: %d,%d,%d", i + 1, cellIndices[0], cellIndices[1], cellIndices[2]);
             try {
-              energyWriter.append(boxHeader);
-              energyWriter.newLine();
+              EnergyRestartStore restartStore = getEnergyRestartStore();
+              if (restartStore != null) {
+                restartStore.appendBox(i + 1, cellIndices);
+              } else if (energyWriter != null) {
+                energyWriter.append(boxHeader);
+                energyWriter.newLine();
+              }
             } catch (IOException ex) {
               logger.log(Level.SEVERE, " Exception writing box header to energy restart file.", ex);
             }
@@ -40,12 +40,16 @@ package ffx.algorithms.optimize.manybody;
 import ffx.algorithms.AlgorithmListener;
 import ffx.algorithms.optimize.RotamerOptimization;
 import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
 import ffx.potential.MolecularAssembly;
 import ffx.potential.bonded.Atom;
+import ffx.potential.bonded.MultiResidue;
 import ffx.potential.bonded.Residue;
 import ffx.potential.bonded.Rotamer;
 import ffx.potential.openmm.OpenMMEnergy;
 import ffx.potential.utils.EnergyException;
+import ffx.utilities.FFXProperty;
+import ffx.utilities.PropertyGroup;
 import org.apache.commons.configuration2.CompositeConfiguration;
 
 import java.io.File;
@@ -56,14 +60,17 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static ffx.potential.bonded.RotamerLibrary.applyRotamer;
 import static java.lang.String.format;
+import static java.util.Arrays.copyOf;
 
 public class EnergyExpansion {
 
@@ -85,9 +92,9 @@ public class EnergyExpansion {
      */
     private final Map<Integer, Integer[]> twoBodyEnergyMap = new HashMap<>();
     /**
-     * Map of 3-body energy values to compute.
+     * 3-body energy values to compute, stored as consecutive (i, ri, j, rj, k, rk) tuples.
      */
-    private final Map<Integer, Integer[]> threeBodyEnergyMap = new HashMap<>();
+    private int[] threeBodyJobs = new int[0];
     /**
      * Map of 4-body energy values to compute.
      */
@@ -112,6 +119,21 @@ public class EnergyExpansion {
      * Indicates if the Potential is an OpenMMForceFieldEnergy.
      */
     private final boolean potentialIsOpenMM;
+    /**
+     * ForceFieldEnergy used to compute pair energies directly from the interactions between two
+     * rotamers, or null if pair energies are always computed by subtraction.
+     */
+    @FFXProperty(name = "ro-directPairEnergies", clazz = Boolean.class,
+        propertyGroup = PropertyGroup.RotamerOptimization, defaultValue = "true", description = """
+        If true, pair energies are computed directly from the interactions between two rotamers.
+        Otherwise, pair energies are computed by subtracting self and backbone energies.
+        """)
+    private final ForceFieldEnergy directPotential;
+    /**
+     * Atoms within four bonds of the variable atoms of each residue, used to find residues whose
+     * side-chains share a bonded term.
+     */
+    private final Map<Residue, Set<Atom>> bondedAtoms = new ConcurrentHashMap<>();
     private final RotamerOptimization rO;
     private final DistanceMatrix dM;
     private final EliminatedRotamers eR;
@@ -174,10 +196,27 @@ public class EnergyExpansion {
      */
     private double[][][][] twoBodyEnergy;
     /**
-     * Trimer-energies for each trimer of rotamers.
-     * [residue1][rotamer1][residue2][rotamer2][residue3][rotamer3]
+     * Trimer-energies for each trimer of rotamers within the 3-body cutoff, keyed by the packed
+     * rotamer indices of the three residues. Trimers that have not been stored have an energy of 0.
+     */
+    private SparseEnergyMap threeBodyEnergy;
+    /**
+     * Index of the first rotamer of each residue among all rotamers, used to pack 3-body keys.
+     */
+    private int[] rotamerOffsets;
+    /**
+     * Independent copies of the system used to compute energies concurrently, or null.
+     */
+    private PotentialCopies potentialCopies = null;
+    /**
+     * Number of energy jobs handed to a process at once, or 0 to choose the chunk size automatically.
      */
-    private double[][][][][][] threeBodyEnergy;
+    @FFXProperty(name = "ro-energyChunkSize", clazz = Integer.class,
+        propertyGroup = PropertyGroup.RotamerOptimization, defaultValue = "0", description = """
+        Number of self, pair or triple energy jobs handed to a process at once.
+        The default of 0 chooses the chunk size automatically.
+        """)
+    private final int energyChunkSize;
 
     public EnergyExpansion(RotamerOptimization rO, DistanceMatrix dM, EliminatedRotamers eR,
                            MolecularAssembly molecularAssembly, Potential potential, AlgorithmListener algorithmListener,
@@ -211,6 +250,13 @@ public class EnergyExpansion {
         } else {
             ommRecalculateThreshold = -1E200;
         }
+        energyChunkSize = Math.max(0, properties.getInt("ro-energyChunkSize", 0));
+        boolean directPairEnergies = properties.getBoolean("ro-directPairEnergies", true);
+        if (directPairEnergies && !potentialIsOpenMM && potential instanceof ForceFieldEnergy) {
+            directPotential = (ForceFieldEnergy) potential;
+        } else {
+            directPotential = null;
+        }
     }
 
     /**
@@ -314,12 +360,20 @@ public class EnergyExpansion {
         return reverseJobMapPairs;
     }
 
-    public HashMap<String, Integer> allocate3BodyJobMap(Residue[] residues, int nResidues,
-                                                        boolean reverseMap) {
-        HashMap<String, Integer> reverseJobMapTrimers = new HashMap<>();
-        threeBodyEnergyMap.clear();
-        // fill in 3-Body energies from the restart file.
-        threeBodyEnergy = new double[nResidues][][][][][];
+    public void allocate3BodyJobMap(Residue[] residues, int nResidues) {
+        // Rotamers are numbered consecutively over the residues to pack 3-body keys.
+        rotamerOffsets = new int[nResidues];
+        int nRotamers = 0;
+        for (int i = 0; i < nResidues; i++) {
+            rotamerOffsets[i] = nRotamers;
+            nRotamers += residues[i].getRotamers().length;
+        }
+        if (nRotamers > SparseEnergyMap.MAX_INDEX + 1) {
+            throw new IllegalArgumentException(
+                    format(" Too many rotamers (%d) to store 3-body energies.", nRotamers));
+        }
+
+        int[] jobs = new int[6 * 1024];
         int trimerJobIndex = 0;
         for (int i = 0; i < nResidues; i++) {
             Residue resi = residues[i];
@@ -328,14 +382,12 @@ public class EnergyExpansion {
             int lenri = roti.length;
             int[] nI = resNeighbors[i];
             int lenNI = nI.length;
-            threeBodyEnergy[i] = new double[lenri][lenNI][][][];
 
             for (int ri = 0; ri < lenri; ri++) {
                 if (eR.check(i, ri)) {
                     continue;
                 }
                 for (int indJ = 0; indJ < lenNI; indJ++) {
-                    // for (int j = i + 1; j < nResidues; j++) {
                     int j = nI[indJ];
                     Residue resj = residues[j];
                     int indexJ = allResiduesList.indexOf(resj);
@@ -343,20 +395,17 @@ public class EnergyExpansion {
                     int lenrj = rotj.length;
                     int[] nJ = resNeighbors[j];
                     int lenNJ = nJ.length;
-                    threeBodyEnergy[i][ri][indJ] = new double[lenrj][lenNJ][];
 
                     for (int rj = 0; rj < lenrj; rj++) {
                         if (eR.checkToJ(i, ri, j, rj)) {
                             continue;
                         }
-                        // for (int k = j + 1; k < nResidues; k++) {
                         for (int indK = 0; indK < lenNJ; indK++) {
                             int k = nJ[indK];
                             Residue resk = residues[k];
                             int indexK = allResiduesList.indexOf(resk);
                             Rotamer[] rotk = resk.getRotamers();
                             int lenrk = rotk.length;
-                            threeBodyEnergy[i][ri][indJ][rj][indK] = new double[lenrk];
 
                             for (int rk = 0; rk < lenrk; rk++) {
                                 if (eR.checkToK(i, ri, j, rj, k, rk)) {
@@ -365,15 +414,19 @@ public class EnergyExpansion {
                                 if (dM.checkTriDistThreshold(indexI, ri, indexJ, rj, indexK, rk)) {
                                     continue;
                                 }
-                                Integer[] trimerJob = {i, ri, j, rj, k, rk};
                                 if (decomposeOriginal && (ri != 0 || rj != 0 || rk != 0)) {
                                     continue;
                                 }
-                                threeBodyEnergyMap.put(trimerJobIndex, trimerJob);
-                                if (reverseMap) {
-                                    String revKey = format("%d %d %d %d %d %d", i, ri, j, rj, k, rk);
-                                    reverseJobMapTrimers.put(revKey, trimerJobIndex);
+                                if (6 * trimerJobIndex == jobs.length) {
+                                    jobs = copyOf(jobs, 2 * jobs.length);
                                 }
+                                int n = 6 * trimerJobIndex;
+                                jobs[n] = i;
+                                jobs[n + 1] = ri;
+                                jobs[n + 2] = j;
+                                jobs[n + 3] = rj;
+                                jobs[n + 4] = k;
+                                jobs[n + 5] = rk;
                                 trimerJobIndex++;
                             }
                         }
@@ -381,7 +434,8 @@ public class EnergyExpansion {
                 }
             }
         }
-        return reverseJobMapTrimers;
+        threeBodyJobs = copyOf(jobs, 6 * trimerJobIndex);
+        threeBodyEnergy = new SparseEnergyMap(trimerJobIndex);
     }
 
     public void allocate4BodyJobMap(Residue[] residues, int nResidues) {
@@ -505,31 +559,55 @@ public class EnergyExpansion {
      * @return Epair(ri, rj)=E2(ri,rj)-Eself(ri)-Eself(rj)-Eenv/bb.
      */
     public double compute2BodyEnergy(Residue[] residues, int i, int ri, int j, int rj) {
-        rO.turnOffAllResidues(residues);
-        turnOnResidue(residues[i], ri);
-        turnOnResidue(residues[j], rj);
+        return compute2BodyEnergy(residues, i, ri, j, rj, 0);
+    }
+
+    /**
+     * Computes a pair energy using one of the potential copies.
+     *
+     * @param residues Residues under optimization.
+     * @param i        A residue index.
+     * @param ri       A rotamer index for residue i.
+     * @param j        A residue index j!=i.
+     * @param rj       A rotamer index for residue j.
+     * @param copy     The potential copy to use (0 for the original system).
+     * @return Epair(ri, rj)=E2(ri,rj)-Eself(ri)-Eself(rj)-Eenv/bb.
+     */
+    public double compute2BodyEnergy(Residue[] residues, int i, int ri, int j, int rj, int copy) {
+        Residue[] copyResidues = getCopyResidues(residues, copy);
+        turnOffAllResidues(copyResidues);
+        turnOnResidue(copyResidues[i], ri);
+        turnOnResidue(copyResidues[j], rj);
         double energy;
         try {
-            if (algorithmListener != null) {
-                algorithmListener.algorithmUpdate(molecularAssembly);
-            }
             Rotamer[] rot_i = residues[i].getRotamers();
             Rotamer[] rot_j = residues[j].getRotamers();
-            double subtract =
-                    -backboneEnergy - getSelf(i, ri, rot_i[ri], true) - getSelf(j, rj, rot_j[rj], true);
-
-            //double subtract = -backboneEnergy - getSelf(i, ri) - getSelf(j, rj);
-            energy = rO.currentEnergy(residues) + subtract;
-            if (logger.isLoggable(Level.FINE)) {
-                logger.fine(format(" %s Pair-Energy %16.8f = FF %16.8f - BB %16.8f + Self Ri %16.8f + Self Rj %16.8f ",
-                        rot_i[ri].getName() + "-" + rot_j[rj].getName(), energy, energy + backboneEnergy, backboneEnergy,
-                        getSelf(i, ri, rot_i[ri], true) , getSelf(j, rj, rot_j[rj], true)));
-            }
-            if (potentialIsOpenMM && energy < ommRecalculateThreshold) {
-                logger.warning(
-                        format(" Experimental: re-computing pair energy %s-%d %s-%d using Force Field X",
-                                residues[i], ri, residues[j], rj));
-                energy = rO.currentFFXPE() + subtract;
+            if (isDirectPair(residues[i], rot_i[ri], residues[j], rot_j[rj])) {
+                // Only the interactions between the two rotamers contribute to a pairwise additive energy.
+                Atom[] atoms_i = copyResidues[i].getVariableAtoms().toArray(new Atom[0]);
+                Atom[] atoms_j = copyResidues[j].getVariableAtoms().toArray(new Atom[0]);
+                energy = getForceFieldEnergy(copy).getInteractionEnergy(atoms_i, atoms_j);
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine(format(" %s Pair-Energy %16.8f (direct)",
+                            rot_i[ri].getName() + "-" + rot_j[rj].getName(), energy));
+                }
+            } else {
+                double subtract =
+                        -backboneEnergy - getSelf(i, ri, rot_i[ri], true) - getSelf(j, rj, rot_j[rj], true);
+
+                //double subtract = -backboneEnergy - getSelf(i, ri) - getSelf(j, rj);
+                energy = currentEnergy(residues, copy) + subtract;
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine(format(" %s Pair-Energy %16.8f = FF %16.8f - BB %16.8f + Self Ri %16.8f + Self Rj %16.8f ",
+                            rot_i[ri].getName() + "-" + rot_j[rj].getName(), energy, energy + backboneEnergy, backboneEnergy,
+                            getSelf(i, ri, rot_i[ri], true) , getSelf(j, rj, rot_j[rj], true)));
+                }
+                if (potentialIsOpenMM && energy < ommRecalculateThreshold) {
+                    logger.warning(
+                            format(" Experimental: re-computing pair energy %s-%d %s-%d using Force Field X",
+                                    residues[i], ri, residues[j], rj));
+                    energy = rO.currentFFXPE() + subtract;
+                }
             }
             if (energy < singularityThreshold) {
                 String message = format(
@@ -540,8 +618,8 @@ public class EnergyExpansion {
             }
         } finally {
             // Revert if the currentEnergy call throws an exception.
-            turnOffResidue(residues[i]);
-            turnOffResidue(residues[j]);
+            turnOffResidue(copyResidues[i]);
+            turnOffResidue(copyResidues[j]);
         }
         return energy;
     }
@@ -561,23 +639,45 @@ public class EnergyExpansion {
      *rj)=E3(ri,rj,rk)-Epair(ri,rj)-Epair(ri,rk)-Epair(rj,rk)-Eself(ri)-Eself(rj)-Eself(rk)-Eenv/bb.
      */
     public double compute3BodyEnergy(Residue[] residues, int i, int ri, int j, int rj, int k, int rk) {
-        turnOffAllResidues(residues);
-        turnOnResidue(residues[i], ri);
-        turnOnResidue(residues[j], rj);
-        turnOnResidue(residues[k], rk);
+        return compute3BodyEnergy(residues, i, ri, j, rj, k, rk, 0);
+    }
+
+    /**
+     * Computes a 3-body energy using one of the potential copies.
+     *
+     * @param residues Residues under optimization.
+     * @param i        A residue index.
+     * @param ri       A rotamer index for residue i.
+     * @param j        A residue index j!=i.
+     * @param rj       A rotamer index for residue j.
+     * @param k        A residue index k!=j k!=i.
+     * @param rk       A rotamer index for residue k.
+     * @param copy     The potential copy to use (0 for the original system).
+     * @return The 3-body energy.
+     */
+    public double compute3BodyEnergy(Residue[] residues, int i, int ri, int j, int rj, int k, int rk,
+                                     int copy) {
         Rotamer[] rot_i = residues[i].getRotamers();
         Rotamer[] rot_j = residues[j].getRotamers();
         Rotamer[] rot_k = residues[k].getRotamers();
+        if (isDirectPair(residues[i], rot_i[ri], residues[j], rot_j[rj])
+                && isDirectPair(residues[i], rot_i[ri], residues[k], rot_k[rk])
+                && isDirectPair(residues[j], rot_j[rj], residues[k], rot_k[rk])) {
+            // A pairwise additive energy has no 3-body contribution.
+            return 0.0;
+        }
+        Residue[] copyResidues = getCopyResidues(residues, copy);
+        turnOffAllResidues(copyResidues);
+        turnOnResidue(copyResidues[i], ri);
+        turnOnResidue(copyResidues[j], rj);
+        turnOnResidue(copyResidues[k], rk);
         double energy;
         try {
-            if (algorithmListener != null) {
-                algorithmListener.algorithmUpdate(molecularAssembly);
-            }
             double subtract =
                     -backboneEnergy - getSelf(i, ri, rot_i[ri], true) - getSelf(j, rj, rot_j[rj], true)
                             - getSelf(k, rk, rot_k[rk], true) - get2Body(i, ri, j, rj) - get2Body(i, ri, k, rk)
                             - get2Body(j, rj, k, rk);
-            energy = rO.currentEnergy(residues) + subtract;
+            energy = currentEnergy(residues, copy) + subtract;
             if (potentialIsOpenMM && energy < ommRecalculateThreshold) {
                 logger.warning(
                         format(" Experimental: re-computing triple energy %s-%d %s-%d %s-%d using Force Field X",
@@ -593,9 +693,9 @@ public class EnergyExpansion {
             }
         } finally {
             // Revert if the currentEnergy call throws an exception.
-            turnOffResidue(residues[i]);
-            turnOffResidue(residues[j]);
-            turnOffResidue(residues[k]);
+            turnOffResidue(copyResidues[i]);
+            turnOffResidue(copyResidues[j]);
+            turnOffResidue(copyResidues[k]);
         }
         return energy;
     }
@@ -673,15 +773,26 @@ public class EnergyExpansion {
      * @return Eself(ri)=E1(ri)-Eenv/bb.
      */
     public double computeSelfEnergy(Residue[] residues, int i, int ri) {
-        rO.turnOffAllResidues(residues);
-        rO.turnOnResidue(residues[i], ri);
+        return computeSelfEnergy(residues, i, ri, 0);
+    }
+
+    /**
+     * Computes a self energy using one of the potential copies.
+     *
+     * @param residues Residues under optimization.
+     * @param i        A residue index.
+     * @param ri       A rotamer index for residue i.
+     * @param copy     The potential copy to use (0 for the original system).
+     * @return Eself(ri)=E1(ri)-Eenv/bb.
+     */
+    public double computeSelfEnergy(Residue[] residues, int i, int ri, int copy) {
+        Residue[] copyResidues = getCopyResidues(residues, copy);
+        turnOffAllResidues(copyResidues);
+        turnOnResidue(copyResidues[i], ri);
         double KpH = rO.getPHRestraint();
         double energy;
         try {
-            if (algorithmListener != null) {
-                algorithmListener.algorithmUpdate(molecularAssembly);
-            }
-            energy = rO.currentEnergy(residues) - backboneEnergy;
+            energy = currentEnergy(residues, copy) - backboneEnergy;
             if (potentialIsOpenMM && energy < ommRecalculateThreshold) {
                 logger.warning(
                         format(" Experimental: re-computing self energy %s-%d using Force Field X", residues[i],
@@ -696,7 +807,7 @@ public class EnergyExpansion {
                 throw new EnergyException(message);
             }
         } finally {
-            rO.turnOffResidue(residues[i]);
+            turnOffResidue(copyResidues[i]);
         }
 
         Rotamer[] rotamers = residues[i].getRotamers();
@@ -901,7 +1012,8 @@ public class EnergyExpansion {
     }
 
     /**
-     * Return a previously computed 3-body energy.
+     * Return a previously computed 3-body energy. Trimers within the cutoff whose energy has not
+     * been stored return 0.
      *
      * @param i        Residue i.
      * @param ri       Rotamer ri of residue i.
@@ -942,27 +1054,7 @@ public class EnergyExpansion {
             rk = jrj;
         }
 
-        // Find where j is in i's neighbor list, and where k is in j's neighbor list.
-        int[] nI = resNeighbors[i];
-        int indJ = -1;
-        for (int l = 0; l < nI.length; l++) {
-            if (nI[l] == j) {
-                indJ = l;
-                break;
-            }
-        }
-
-        int[] nJ = resNeighbors[j];
-        int indK = -1;
-        for (int l = 0; l < nJ.length; l++) {
-            if (nJ[l] == k) {
-                indK = l;
-                break;
-            }
-        }
-
         // i,j,k: Indices in the current Residue array.
-        // indJ, indK: Index of j in i's neighbor list, index of k in j's neighbor list.
         // indexI, indexJ, indexK: Indices in allResiduesList.
         int indexI = allResiduesList.indexOf(residues[i]);
         int indexJ = allResiduesList.indexOf(residues[j]);
@@ -971,7 +1063,12 @@ public class EnergyExpansion {
             return 0;
         } else {
             try {
-                return threeBodyEnergy[i][ri][indJ][rj][indK][rk];
+                // Triples outside the neighbor lists were never computed.
+                if (!threeBodyNeighbors(i, j, k)) {
+                    throw new ArrayIndexOutOfBoundsException(
+                            format(" Residues %d, %d and %d are not neighbors.", i, j, k));
+                }
+                return threeBodyEnergy.get(threeBodyKey(residues, i, ri, j, rj, k, rk));
             } catch (NullPointerException | ArrayIndexOutOfBoundsException ex) {
                 String message = format(
                         " Could not find an energy for 3-body energy (%3d,%2d) (%3d,%2d) (%3d,%2d)", i, ri, j,
@@ -982,6 +1079,39 @@ public class EnergyExpansion {
         }
     }
 
+    /**
+     * Get the potential copies used to compute energies concurrently.
+     *
+     * @return The potential copies, or null if energies are computed one at a time.
+     */
+    public PotentialCopies getPotentialCopies() {
+        return potentialCopies;
+    }
+
+    /**
+     * Compute the number of energy jobs handed to a process at once by the dynamic schedule.
+     *
+     * @param nJobs   The number of energy jobs.
+     * @param numProc The number of processes.
+     * @return The chunk size.
+     */
+    public int getEnergyChunkSize(int nJobs, int numProc) {
+        int nCopies = potentialCopies == null ? 1 : potentialCopies.size();
+        if (energyChunkSize > 0) {
+            return Math.max(nCopies, energyChunkSize);
+        }
+        return EnergyResultBuffer.chunkSize(nJobs, numProc, nCopies);
+    }
+
+    /**
+     * Set the potential copies used to compute energies concurrently.
+     *
+     * @param potentialCopies The potential copies, or null to compute energies one at a time.
+     */
+    public void setPotentialCopies(PotentialCopies potentialCopies) {
+        this.potentialCopies = potentialCopies;
+    }
+
     public double getBackboneEnergy() {
         return backboneEnergy;
     }
@@ -1098,8 +1228,13 @@ public class EnergyExpansion {
         return selfEnergyMap;
     }
 
-    public Map<Integer, Integer[]> getThreeBodyEnergyMap() {
-        return threeBodyEnergyMap;
+    /**
+     * Get the 3-body energies to compute, stored as consecutive (i, ri, j, rj, k, rk) tuples.
+     *
+     * @return The 3-body energy jobs.
+     */
+    public int[] getThreeBodyJobs() {
+        return threeBodyJobs;
     }
 
     public Map<Integer, Integer[]> getTwoBodyEnergyMap() {
@@ -1114,9 +1249,16 @@ public class EnergyExpansion {
                                  int[] cellIndices) {
         try {
             int nResidues = residues.length;
-            Path path = Paths.get(restartFile.getCanonicalPath());
-            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
-            List<String> linesThisBox = new ArrayList<>();
+            if (!usingBoxOptimization) {
+                boxIteration = -1;
+            }
+            EnergyRestartStore.Entries[] entries;
+            if (EnergyRestartStore.isEnergyRestartStore(restartFile)) {
+                entries = EnergyRestartStore.load(restartFile, allResiduesList, rO.getTwoBodyCutoff(),
+                        rO.getThreeBodyCutoff(), boxIteration, cellIndices);
+            } else {
+                entries = readEnergyRestart(restartFile, residues, boxIteration, cellIndices);
+            }
 
             try {
                 backboneEnergy = rO.computeBackboneEnergy(residues);
@@ -1126,62 +1268,23 @@ public class EnergyExpansion {
             }
             rO.logIfRank0(format("\n Backbone energy:  %s\n", rO.formatEnergy(backboneEnergy)));
 
-            if (usingBoxOptimization && boxIteration >= 0) {
-                boolean foundBox = false;
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i);
-                    if (line.startsWith("Box")) {
-                        String[] tok = line.replaceAll("Box", "").replaceAll(":", ",").replaceAll(" ", "")
-                                .split(",");
-                        int readIteration = Integer.parseInt(tok[0]);
-                        int readCellIndexX = Integer.parseInt(tok[1]);
-                        int readCellIndexY = Integer.parseInt(tok[2]);
-                        int readCellIndexZ = Integer.parseInt(tok[3]);
-                        if (readIteration == boxIteration && readCellIndexX == cellIndices[0]
-                                && readCellIndexY == cellIndices[1] && readCellIndexZ == cellIndices[2]) {
-                            foundBox = true;
-                            for (int j = i + 1; j < lines.size(); j++) {
-                                String l = lines.get(j);
-                                if (l.startsWith("Box")) {
-                                    break;
-                                }
-                                linesThisBox.add(l);
-                            }
-                            break;
-                        }
-                    }
-                }
-                if (!foundBox) {
-                    rO.logIfRank0(format(" Didn't find restart energies for Box %d: %d,%d,%d", boxIteration,
-                            cellIndices[0], cellIndices[1], cellIndices[2]));
-                    return 0;
-                } else if (linesThisBox.isEmpty()) {
-                    return 0;
-                } else {
-                    lines = linesThisBox;
-                }
-            }
-
-            List<String> singleLines = new ArrayList<>();
-            List<String> pairLines = new ArrayList<>();
-            List<String> tripleLines = new ArrayList<>();
-            for (String line : lines) {
-                String[] tok = line.split("\\s");
-                if (tok[0].startsWith("Self")) {
-                    singleLines.add(line);
-                } else if (tok[0].startsWith("Pair")) {
-                    pairLines.add(line);
-                } else if (tok[0].startsWith("Triple")) {
-                    tripleLines.add(line);
-                }
+            if (entries == null) {
+                rO.logIfRank0(format(" Didn't find restart energies for Box %d: %d,%d,%d", boxIteration,
+                        cellIndices[0], cellIndices[1], cellIndices[2]));
+                return 0;
             }
+            EnergyRestartStore.Entries singles = entries[0];
+            EnergyRestartStore.Entries pairs = entries[1];
+            EnergyRestartStore.Entries triples = entries[2];
             int loaded = 0;
-            if (!tripleLines.isEmpty()) {
+            if (!triples.isEmpty()) {
                 loaded = 3;
-            } else if (!pairLines.isEmpty()) {
+            } else if (!pairs.isEmpty()) {
                 loaded = 2;
-            } else if (!singleLines.isEmpty()) {
+            } else if (!singles.isEmpty()) {
                 loaded = 1;
+            } else if (boxIteration >= 0) {
+                return 0;
             } else {
                 logger.warning(
                         format(" Empty or unreadable energy restart file: %s.", restartFile.getCanonicalPath()));
@@ -1191,35 +1294,24 @@ public class EnergyExpansion {
                 HashMap<String, Integer> reverseJobMapSingles = allocateSelfJobMap(residues, nResidues,
                         reverseMap);
                 // fill in self-energies from file while removing the corresponding jobs from selfEnergyMap
-                for (String line : singleLines) {
+                for (int n = 0; n < singles.size(); n++) {
+                    int i = singles.getIndex(n, 0);
+                    int ri = singles.getIndex(n, 1);
+                    double energy = singles.getEnergy(n);
                     try {
-                        String[] tok = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
+                        setSelf(i, ri, energy);
+                        if (verbose) {
+                            rO.logIfRank0(format(" From restart file: Self energy %3d (%8s,%2d): %s", i,
+                                    residues[i].toFormattedString(false, true), ri, rO.formatEnergy(energy)));
                         }
-                        int ri = Integer.parseInt(tok[2]);
-                        double energy = Double.parseDouble(tok[3]);
-                        try {
-                            setSelf(i, ri, energy);
-                            if (verbose) {
-                                rO.logIfRank0(format(" From restart file: Self energy %3d (%8s,%2d): %s", i,
-                                        residues[i].toFormattedString(false, true), ri, rO.formatEnergy(energy)));
-                            }
-                        } catch (Exception e) {
-                            if (verbose) {
-                                rO.logIfRank0(format(" Restart file out-of-bounds index: %s", line));
-                            }
+                    } catch (Exception e) {
+                        if (verbose) {
+                            rO.logIfRank0(format(" Restart file out-of-bounds index: Self %d %d", i, ri));
                         }
-                        // remove that job from the pool
-                        String revKey = format("%d %d", i, ri);
-                        selfEnergyMap.remove(reverseJobMapSingles.get(revKey));
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, format(" Unparsable line in energy restart file: \n%s", line),
-                                ex);
                     }
+                    // remove that job from the pool
+                    String revKey = format("%d %d", i, ri);
+                    selfEnergyMap.remove(reverseJobMapSingles.get(revKey));
                 }
                 rO.logIfRank0(" Loaded self energies from restart file.");
 
@@ -1245,81 +1337,65 @@ public class EnergyExpansion {
                         reverseMap);
                 // fill in pair-energies from file while removing the corresponding jobs from
                 // twoBodyEnergyMap
-                for (String line : pairLines) {
+                for (int n = 0; n < pairs.size(); n++) {
+                    int i = pairs.getIndex(n, 0);
+                    int ri = pairs.getIndex(n, 1);
+                    int j = pairs.getIndex(n, 2);
+                    int rj = pairs.getIndex(n, 3);
+                    double energy = pairs.getEnergy(n);
                     try {
-                        String[] tok = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
-                        }
-                        int ri = Integer.parseInt(tok[2]);
-                        int j;
-                        if (tok[3].contains("-")) {
-                            j = nameToNumber(tok[3], residues);
-                        } else {
-                            j = Integer.parseInt(tok[3]);
-                        }
-                        int rj = Integer.parseInt(tok[4]);
-                        double energy = Double.parseDouble(tok[5]);
-                        try {
-                            // When a restart file is generated using a large cutoff, but a new simulation is
-                            // being done with a smaller cutoff, the two-body distance needs to be checked. If the two-body
-                            // distance is larger than the cutoff, then the two residues are not considered
-                            // 'neighbors' so that pair should not be added to the pairs map.
-                            if (rO.checkNeighboringPair(i, j)) {
-                                // If inside the cutoff, set energy to previously computed value.
-                                // Gather distances and indices for printing.
-                                Residue residueI = residues[i];
-                                Residue residueJ = residues[j];
-                                int indexI = allResiduesList.indexOf(residueI);
-                                int indexJ = allResiduesList.indexOf(residueJ);
-                                if (!dM.checkPairDistThreshold(indexI, ri, indexJ, rj)) {
-                                    set2Body(i, ri, j, rj, energy);
-
-                                    double resDist = dM.getResidueDistance(indexI, ri, indexJ, rj);
-                                    String resDistString = "large";
-                                    if (resDist < Double.MAX_VALUE) {
-                                        resDistString = format("%5.3f", resDist);
-                                    }
-
-                                    double dist = dM.checkDistMatrix(indexI, ri, indexJ, rj);
-                                    String distString = "     large";
-                                    if (dist < Double.MAX_VALUE) {
-                                        distString = format("%10.3f", dist);
-                                    }
+                        // When a restart file is generated using a large cutoff, but a new simulation is
+                        // being done with a smaller cutoff, the two-body distance needs to be checked. If the two-body
+                        // distance is larger than the cutoff, then the two residues are not considered
+                        // 'neighbors' so that pair should not be added to the pairs map.
+                        if (rO.checkNeighboringPair(i, j)) {
+                            // If inside the cutoff, set energy to previously computed value.
+                            // Gather distances and indices for printing.
+                            Residue residueI = residues[i];
+                            Residue residueJ = residues[j];
+                            int indexI = allResiduesList.indexOf(residueI);
+                            int indexJ = allResiduesList.indexOf(residueJ);
+                            if (!dM.checkPairDistThreshold(indexI, ri, indexJ, rj)) {
+                                set2Body(i, ri, j, rj, energy);
+
+                                double resDist = dM.getResidueDistance(indexI, ri, indexJ, rj);
+                                String resDistString = "large";
+                                if (resDist < Double.MAX_VALUE) {
+                                    resDistString = format("%5.3f", resDist);
+                                }
 
-                                    logger.fine(format(" Pair %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue).",
-                                            residueI.toFormattedString(false, true), ri,
-                                            residueJ.toFormattedString(false, true), rj,
-                                            rO.formatEnergy(get2Body(i, ri, j, rj)), distString, resDistString));
+                                double dist = dM.checkDistMatrix(indexI, ri, indexJ, rj);
+                                String distString = "     large";
+                                if (dist < Double.MAX_VALUE) {
+                                    distString = format("%10.3f", dist);
                                 }
-                            } else {
-                                logger.fine(format(
-                                        "Ignoring a pair-energy from outside the cutoff: 2-energy [(%8s,%2d),(%8s,%2d)]: %12.4f",
-                                        residues[i].toFormattedString(false, true), ri,
-                                        residues[j].toFormattedString(false, true), rj, energy));
-                            }
 
-                            if (verbose) {
-                                rO.logIfRank0(
-                                        format(" From restart file: Pair energy [(%8s,%2d),(%8s,%2d)]: %12.4f",
-                                                residues[i].toFormattedString(false, true), ri,
-                                                residues[j].toFormattedString(false, true), rj, energy));
-                            }
-                        } catch (Exception e) {
-                            if (verbose) {
-                                rO.logIfRank0(format(" Restart file out-of-bounds index: %s", line));
+                                logger.fine(format(" Pair %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue).",
+                                        residueI.toFormattedString(false, true), ri,
+                                        residueJ.toFormattedString(false, true), rj,
+                                        rO.formatEnergy(get2Body(i, ri, j, rj)), distString, resDistString));
                             }
+                        } else {
+                            logger.fine(format(
+                                    "Ignoring a pair-energy from outside the cutoff: 2-energy [(%8s,%2d),(%8s,%2d)]: %12.4f",
+                                    residues[i].toFormattedString(false, true), ri,
+                                    residues[j].toFormattedString(false, true), rj, energy));
+                        }
+
+                        if (verbose) {
+                            rO.logIfRank0(
+                                    format(" From restart file: Pair energy [(%8s,%2d),(%8s,%2d)]: %12.4f",
+                                            residues[i].toFormattedString(false, true), ri,
+                                            residues[j].toFormattedString(false, true), rj, energy));
+                        }
+                    } catch (Exception e) {
+                        if (verbose) {
+                            rO.logIfRank0(format(" Restart file out-of-bounds index: Pair %d %d, %d %d", i, ri, j, rj));
                         }
-                        // remove that job from the pool
-                        String revKey = format("%d %d %d %d", i, ri, j, rj);
-                        twoBodyEnergyMap.remove(reverseJobMapPairs.get(revKey));
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, format("Unparsable line in energy restart file: \n%s", line),
-                                ex);
                     }
+                    // remove that job from the pool
+                    String revKey = format("%d %d %d %d", i, ri, j, rj);
+                    twoBodyEnergyMap.remove(reverseJobMapPairs.get(revKey));
                 }
                 rO.logIfRank0(" Loaded 2-body energies from restart file.");
 
@@ -1342,116 +1418,89 @@ public class EnergyExpansion {
                                 "Double-check that parameters match original run!  Found trimers in restart file, but pairs job queue is non-empty.");
                     }
                 }
-                boolean reverseMap = true;
-                HashMap<String, Integer> reverseJobMapTrimers = allocate3BodyJobMap(residues, nResidues,
-                        reverseMap);
+                allocate3BodyJobMap(residues, nResidues);
+
+                // fill in 3-Body energies from file; the corresponding jobs are removed afterward.
+                for (int n = 0; n < triples.size(); n++) {
+                    int i = triples.getIndex(n, 0);
+                    int ri = triples.getIndex(n, 1);
+                    int j = triples.getIndex(n, 2);
+                    int rj = triples.getIndex(n, 3);
+                    int k = triples.getIndex(n, 4);
+                    int rk = triples.getIndex(n, 5);
+                    double energy = triples.getEnergy(n);
 
-                // fill in 3-Body energies from file while removing the corresponding jobs from
-                // threeBodyEnergyMap
-                for (String line : tripleLines) {
                     try {
-                        String[] tok = line.replace(",", "").replace(":", "").split("\\s+");
-                        int i;
-                        if (tok[1].contains("-")) {
-                            i = nameToNumber(tok[1], residues);
-                        } else {
-                            i = Integer.parseInt(tok[1]);
-                        }
-                        int ri = Integer.parseInt(tok[2]);
-                        int j;
-                        if (tok[3].contains("-")) {
-                            j = nameToNumber(tok[3], residues);
-                        } else {
-                            j = Integer.parseInt(tok[3]);
-                        }
-                        int rj = Integer.parseInt(tok[4]);
-                        int k;
-                        if (tok[5].contains("-")) {
-                            k = nameToNumber(tok[5], residues);
-                        } else {
-                            k = Integer.parseInt(tok[5]);
-                        }
-                        int rk = Integer.parseInt(tok[6]);
-                        double energy = Double.parseDouble(tok[7]);
-
-                        try {
-              /*
-                When a restart file is generated using a large cutoff, but a new simulation is
-                being done with a smaller cutoff, the three-body distance needs to be checked. If the
-                three-body distance is larger than the cutoff, then the three residues are not considered
-                'neighbors' so that triple should not be added to the pairs map.
-               */
-                            if (rO.checkNeighboringTriple(i, j, k)) {
-                                // If within the cutoff, the energy should be set to the previously calculated
-                                // energy.
-                                Residue residueI = residues[i];
-                                Residue residueJ = residues[j];
-                                Residue residueK = residues[k];
-                                int indexI = allResiduesList.indexOf(residueI);
-                                int indexJ = allResiduesList.indexOf(residueJ);
-                                int indexK = allResiduesList.indexOf(residueK);
-                                if (!dM.checkTriDistThreshold(indexI, ri, indexJ, rj, indexK, rk)) {
-                                    set3Body(residues, i, ri, j, rj, k, rk, energy);
-
-                                    double resDist = dM.get3BodyResidueDistance(indexI, ri, indexJ, rj, indexK, rk);
-                                    String resDistString = "     large";
-                                    if (resDist < Double.MAX_VALUE) {
-                                        resDistString = format("%5.3f", resDist);
-                                    }
-
-                                    double rawDist = dM.getRawNBodyDistance(indexI, ri, indexJ, rj, indexK, rk);
-                                    String distString = "     large";
-                                    if (rawDist < Double.MAX_VALUE) {
-                                        distString = format("%10.3f", rawDist);
-                                    }
+          /*
+            When a restart file is generated using a large cutoff, but a new simulation is
+            being done with a smaller cutoff, the three-body distance needs to be checked. If the
+            three-body distance is larger than the cutoff, then the three residues are not considered
+            'neighbors' so that triple should not be added to the pairs map.
+           */
+                        if (rO.checkNeighboringTriple(i, j, k)) {
+                            // If within the cutoff, the energy should be set to the previously calculated
+                            // energy.
+                            Residue residueI = residues[i];
+                            Residue residueJ = residues[j];
+                            Residue residueK = residues[k];
+                            int indexI = allResiduesList.indexOf(residueI);
+                            int indexJ = allResiduesList.indexOf(residueJ);
+                            int indexK = allResiduesList.indexOf(residueK);
+                            if (!dM.checkTriDistThreshold(indexI, ri, indexJ, rj, indexK, rk)) {
+                                set3Body(residues, i, ri, j, rj, k, rk, energy);
+
+                                double resDist = dM.get3BodyResidueDistance(indexI, ri, indexJ, rj, indexK, rk);
+                                String resDistString = "     large";
+                                if (resDist < Double.MAX_VALUE) {
+                                    resDistString = format("%5.3f", resDist);
+                                }
 
-                                    logger.fine(format(
-                                            " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue).",
-                                            residueI.toFormattedString(false, true), ri,
-                                            residueJ.toFormattedString(false, true), rj,
-                                            residueK.toFormattedString(false, true), rk,
-                                            rO.formatEnergy(get3Body(residues, i, ri, j, rj, k, rk)), distString,
-                                            resDistString));
+                                double rawDist = dM.getRawNBodyDistance(indexI, ri, indexJ, rj, indexK, rk);
+                                String distString = "     large";
+                                if (rawDist < Double.MAX_VALUE) {
+                                    distString = format("%10.3f", rawDist);
                                 }
-                            } else {
+
                                 logger.fine(format(
-                                        "Ignoring a triple-energy from outside the cutoff: 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s",
-                                        residues[i].toFormattedString(false, true), ri,
-                                        residues[j].toFormattedString(false, true), rj,
-                                        residues[k].toFormattedString(false, true), rk,
-                                        rO.formatEnergy(get3Body(residues, i, ri, j, rj, k, rk))));
-                            }
-                        } catch (ArrayIndexOutOfBoundsException ex) {
-                            if (verbose) {
-                                rO.logIfRank0(format(" Restart file out-of-bounds index: %s", line));
-                            }
-                        } catch (NullPointerException npe) {
-                            if (verbose) {
-                                rO.logIfRank0(format(" NPE in loading 3-body energies: pruning "
-                                                + "likely changed! 3-body %s-%d %s-%d %s-%d",
-                                        residues[i].toFormattedString(false, true), ri, residues[j], rj, residues[k],
-                                        rk));
+                                        " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue).",
+                                        residueI.toFormattedString(false, true), ri,
+                                        residueJ.toFormattedString(false, true), rj,
+                                        residueK.toFormattedString(false, true), rk,
+                                        rO.formatEnergy(get3Body(residues, i, ri, j, rj, k, rk)), distString,
+                                        resDistString));
                             }
+                        } else {
+                            logger.fine(format(
+                                    "Ignoring a triple-energy from outside the cutoff: 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s",
+                                    residues[i].toFormattedString(false, true), ri,
+                                    residues[j].toFormattedString(false, true), rj,
+                                    residues[k].toFormattedString(false, true), rk,
+                                    rO.formatEnergy(get3Body(residues, i, ri, j, rj, k, rk))));
                         }
+                    } catch (ArrayIndexOutOfBoundsException ex) {
                         if (verbose) {
-                            rO.logIfRank0(
-                                    format(" From restart file: Trimer energy %3d %-2d, %3d %-2d, %3d %-2d: %s", i, ri,
-                                            j, rj, k, rk, rO.formatEnergy(energy)));
+                            rO.logIfRank0(format(" Restart file out-of-bounds index: Triple %d %d, %d %d, %d %d",
+                                    i, ri, j, rj, k, rk));
+                        }
+                    } catch (NullPointerException npe) {
+                        if (verbose) {
+                            rO.logIfRank0(format(" NPE in loading 3-body energies: pruning "
+                                            + "likely changed! 3-body %s-%d %s-%d %s-%d",
+                                    residues[i].toFormattedString(false, true), ri, residues[j], rj, residues[k],
+                                    rk));
                         }
-                        // Remove that job from the pool.
-                        String revKey = format("%d %d %d %d %d %d", i, ri, j, rj, k, rk);
-                        threeBodyEnergyMap.remove(reverseJobMapTrimers.get(revKey));
-                    } catch (NumberFormatException ex) {
-                        logger.log(Level.WARNING, format("Unparsable line in energy restart file: \n%s", line),
-                                ex);
+                    }
+                    if (verbose) {
+                        rO.logIfRank0(
+                                format(" From restart file: Trimer energy %3d %-2d, %3d %-2d, %3d %-2d: %s", i, ri,
+                                        j, rj, k, rk, rO.formatEnergy(energy)));
                     }
                 }
+                // Remove the jobs whose energies were loaded from the pool.
+                removeLoaded3BodyJobs(residues);
                 rO.logIfRank0(" Loaded trimer energies from restart file.");
             }
 
-            // Remap to sequential integer keys.
-            condenseEnergyMap(threeBodyEnergyMap);
-
             return loaded;
         } catch (IOException ex) {
             logger.log(Level.WARNING, "Exception while loading energy restart file.", ex);
@@ -1460,6 +1509,88 @@ public class EnergyExpansion {
         return 0;
     }
 
+    /**
+     * Read the self, 2-body and 3-body energies of a text energy restart file.
+     *
+     * @param restartFile  The energy restart file.
+     * @param residues     Residues under optimization.
+     * @param boxIteration The box to load (or -1 to load all energies).
+     * @param cellIndices  The cell indices of the box to load.
+     * @return The self, 2-body and 3-body energies, or null if the box was not found.
+     * @throws IOException If the file cannot be read.
+     */
+    private EnergyRestartStore.Entries[] readEnergyRestart(File restartFile, Residue[] residues,
+                                                          int boxIteration, int[] cellIndices)
+            throws IOException {
+        Path path = Paths.get(restartFile.getCanonicalPath());
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (boxIteration >= 0) {
+            List<String> linesThisBox = new ArrayList<>();
+            boolean foundBox = false;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.startsWith("Box")) {
+                    String[] tok = line.replaceAll("Box", "").replaceAll(":", ",").replaceAll(" ", "")
+                            .split(",");
+                    int readIteration = Integer.parseInt(tok[0]);
+                    int readCellIndexX = Integer.parseInt(tok[1]);
+                    int readCellIndexY = Integer.parseInt(tok[2]);
+                    int readCellIndexZ = Integer.parseInt(tok[3]);
+                    if (readIteration == boxIteration && readCellIndexX == cellIndices[0]
+                            && readCellIndexY == cellIndices[1] && readCellIndexZ == cellIndices[2]) {
+                        foundBox = true;
+                        for (int j = i + 1; j < lines.size(); j++) {
+                            String l = lines.get(j);
+                            if (l.startsWith("Box")) {
+                                break;
+                            }
+                            linesThisBox.add(l);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (!foundBox) {
+                return null;
+            }
+            lines = linesThisBox;
+        }
+
+        EnergyRestartStore.Entries[] entries = {new EnergyRestartStore.Entries(2),
+                new EnergyRestartStore.Entries(4), new EnergyRestartStore.Entries(6)};
+        int[] index = new int[6];
+        for (String line : lines) {
+            String[] tok = line.split("\\s");
+            int width;
+            if (tok[0].startsWith("Self")) {
+                width = 2;
+            } else if (tok[0].startsWith("Pair")) {
+                width = 4;
+            } else if (tok[0].startsWith("Triple")) {
+                width = 6;
+            } else {
+                continue;
+            }
+            try {
+                tok = line.replace(",", "").replace(":", "").split("\\s+");
+                for (int n = 0; n < width; n += 2) {
+                    if (tok[n + 1].contains("-")) {
+                        index[n] = nameToNumber(tok[n + 1], residues);
+                    } else {
+                        index[n] = Integer.parseInt(tok[n + 1]);
+                    }
+                    index[n + 1] = Integer.parseInt(tok[n + 2]);
+                }
+                double energy = Double.parseDouble(tok[width + 1]);
+                entries[width / 2 - 1].add(index, energy);
+            } catch (NumberFormatException ex) {
+                logger.log(Level.WARNING, format(" Unparsable line in energy restart file: \n%s", line),
+                        ex);
+            }
+        }
+        return entries;
+    }
+
     /**
      * Return the lowest pair-energy for residue (i,ri) with residue j.
      *
@@ -1839,27 +1970,7 @@ public class EnergyExpansion {
             rk = jrj;
         }
 
-        // Find where j is in i's neighbor list, and where k is in j's neighbor list.
-        int[] nI = resNeighbors[i];
-        int indJ = -1;
-        for (int l = 0; l < nI.length; l++) {
-            if (nI[l] == j) {
-                indJ = l;
-                break;
-            }
-        }
-
-        int[] nJ = resNeighbors[j];
-        int indK = -1;
-        for (int l = 0; l < nJ.length; l++) {
-            if (nJ[l] == k) {
-                indK = l;
-                break;
-            }
-        }
-
         // i,j,k: Indices in the current Residue array.
-        // indJ, indK: Index of j in i's neighbor list, index of k in j's neighbor list.
         // indexI, indexJ, indexK: Indices in allResiduesList.
         int indexI = allResiduesList.indexOf(residues[i]);
         int indexJ = allResiduesList.indexOf(residues[j]);
@@ -1869,7 +1980,11 @@ public class EnergyExpansion {
                     format(" Residue %d not found in neighbors of %d; assumed past cutoff.", j, i));
         } else {
             try {
-                threeBodyEnergy[i][ri][indJ][rj][indK][rk] = e;
+                if (!threeBodyNeighbors(i, j, k)) {
+                    throw new ArrayIndexOutOfBoundsException(
+                            format(" Residues %d, %d and %d are not neighbors.", i, j, k));
+                }
+                threeBodyEnergy.put(threeBodyKey(residues, i, ri, j, rj, k, rk), e);
             } catch (NullPointerException | ArrayIndexOutOfBoundsException ex) {
                 if (!quiet) {
                     String message = format(
@@ -2101,6 +2216,129 @@ public class EnergyExpansion {
         return Double.isFinite(minMax[0]);
     }
 
+    /**
+     * Get the residues of a potential copy.
+     *
+     * @param residues Residues under optimization.
+     * @param copy     The potential copy (0 for the original system).
+     * @return The residues of the copy.
+     */
+    private Residue[] getCopyResidues(Residue[] residues, int copy) {
+        if (copy == 0) {
+            return residues;
+        }
+        return potentialCopies.getResidues(residues, copy);
+    }
+
+    /**
+     * Compute the energy of a potential copy at its current state.
+     *
+     * @param residues Residues under optimization.
+     * @param copy     The potential copy (0 for the original system).
+     * @return The potential energy.
+     */
+    private double currentEnergy(Residue[] residues, int copy) {
+        if (copy == 0) {
+            algorithmUpdate(molecularAssembly);
+            return rO.currentEnergy(residues);
+        }
+        // Copies use the same energy function as the original system.
+        algorithmUpdate(potentialCopies.getAssembly(copy));
+        return rO.currentEnergy(potentialCopies.getResidues(residues, copy),
+                potentialCopies.getPotential(copy));
+    }
+
+    /**
+     * Notify the algorithm listener of an update to a system. Potential copies compute energies
+     * concurrently, so updates are serialized.
+     *
+     * @param assembly The original system or a potential copy.
+     */
+    private void algorithmUpdate(MolecularAssembly assembly) {
+        if (algorithmListener != null) {
+            synchronized (algorithmListener) {
+                algorithmListener.algorithmUpdate(assembly);
+            }
+        }
+    }
+
+    /**
+     * Get the ForceFieldEnergy used for direct pair energies by a potential copy.
+     *
+     * @param copy The potential copy (0 for the original system).
+     * @return The ForceFieldEnergy.
+     */
+    private ForceFieldEnergy getForceFieldEnergy(int copy) {
+        if (copy == 0) {
+            return directPotential;
+        }
+        return potentialCopies.getForceFieldEnergy(copy);
+    }
+
+    /**
+     * Check if the pair energy of two rotamers can be computed directly from their interactions. This
+     * requires a pairwise additive potential, amino acid side-chains that are not titrating, and that
+     * no bonded term spans both side-chains; otherwise the pair energy is computed by subtraction.
+     *
+     * @param residueI The first residue.
+     * @param rotI     The rotamer of the first residue.
+     * @param residueJ The second residue.
+     * @param rotJ     The rotamer of the second residue.
+     * @return true if the pair energy can be computed directly.
+     */
+    private boolean isDirectPair(Residue residueI, Rotamer rotI, Residue residueJ, Rotamer rotJ) {
+        if (directPotential == null || !directPotential.isPairwiseAdditive()) {
+            return false;
+        }
+        if (!isDirectResidue(residueI, rotI) || !isDirectResidue(residueJ, rotJ)) {
+            return false;
+        }
+        Set<Atom> bonded = bondedAtoms.computeIfAbsent(residueI, EnergyExpansion::getBondedAtoms);
+        for (Atom atom : residueJ.getVariableAtoms()) {
+            if (bonded.contains(atom)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if a rotamer only moves the side-chain atoms of an amino acid.
+     *
+     * @param residue The residue.
+     * @param rot     The rotamer.
+     * @return true for a non-titrating amino acid rotamer.
+     */
+    private static boolean isDirectResidue(Residue residue, Rotamer rot) {
+        return residue.getResidueType() == Residue.ResidueType.AA && !(residue instanceof MultiResidue)
+                && !rot.isTitrating;
+    }
+
+    /**
+     * Collect the atoms within four bonds of the variable atoms of a residue. A bonded term spans at
+     * most five atoms (e.g. a torsion-torsion), so two side-chains share a bonded term only if one
+     * includes an atom of this set.
+     *
+     * @param residue The residue.
+     * @return The variable atoms and the atoms within four bonds of them.
+     */
+    private static Set<Atom> getBondedAtoms(Residue residue) {
+        List<Atom> shell = residue.getVariableAtoms();
+        Set<Atom> bonded = new HashSet<>(shell);
+        for (int n = 0; n < 4; n++) {
+            List<Atom> next = new ArrayList<>();
+            for (Atom atom : shell) {
+                for (Atom a12 : atom.get12List()) {
+                    if (bonded.add(a12)) {
+                        next.add(a12);
+                    }
+                }
+            }
+            shell = next;
+        }
+        return bonded;
+    }
+
     /**
      * Applies the "default" rotamer: currently the 0'th rotamer.
      *
@@ -2124,6 +2362,77 @@ public class EnergyExpansion {
         return ret;
     }
 
+    /**
+     * Remove 3-body jobs whose energies have already been stored (i.e. loaded from a restart file).
+     *
+     * @param residues Residues being optimized.
+     */
+    private void removeLoaded3BodyJobs(Residue[] residues) {
+        int[] jobs = threeBodyJobs;
+        int count = 0;
+        for (int n = 0; n < jobs.length; n += 6) {
+            long key = threeBodyKey(residues, jobs[n], jobs[n + 1], jobs[n + 2], jobs[n + 3],
+                    jobs[n + 4], jobs[n + 5]);
+            if (!threeBodyEnergy.contains(key)) {
+                System.arraycopy(jobs, n, jobs, count, 6);
+                count += 6;
+            }
+        }
+        threeBodyJobs = copyOf(jobs, count);
+    }
+
+    /**
+     * Check if a trimer is covered by the neighbor lists, i.e. j is a neighbor of i and k is a
+     * neighbor of j.
+     *
+     * @param i Residue i.
+     * @param j Residue j (j > i).
+     * @param k Residue k (k > j).
+     * @return true if the 3-body energy of the trimer is stored.
+     */
+    private boolean threeBodyNeighbors(int i, int j, int k) {
+        boolean neighborJ = false;
+        for (int l : resNeighbors[i]) {
+            if (l == j) {
+                neighborJ = true;
+                break;
+            }
+        }
+        if (!neighborJ) {
+            return false;
+        }
+        for (int l : resNeighbors[j]) {
+            if (l == k) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pack the rotamers of a trimer into a 3-body energy key.
+     *
+     * @param residues Residues being optimized.
+     * @param i        Residue i.
+     * @param ri       Rotamer ri of residue i.
+     * @param j        Residue j (j > i).
+     * @param rj       Rotamer rj of residue j.
+     * @param k        Residue k (k > j).
+     * @param rk       Rotamer rk of residue k.
+     * @return The key.
+     * @throws ArrayIndexOutOfBoundsException If a rotamer index is out of range.
+     */
+    private long threeBodyKey(Residue[] residues, int i, int ri, int j, int rj, int k, int rk) {
+        if (ri >= residues[i].getRotamers().length || rj >= residues[j].getRotamers().length
+                || rk >= residues[k].getRotamers().length) {
+            throw new ArrayIndexOutOfBoundsException(
+                    format(" Rotamer index out of range for 3-body energy (%3d,%2d) (%3d,%2d) (%3d,%2d)",
+                            i, ri, j, rj, k, rk));
+        }
+        return SparseEnergyMap.pack(rotamerOffsets[i] + ri, rotamerOffsets[j] + rj,
+                rotamerOffsets[k] + rk);
+    }
+
     private void condenseEnergyMap(Map<Integer, Integer[]> energyMap) {
         Set<Integer> keys = energyMap.keySet();
         HashMap<Integer, Integer[]> tempMap = new HashMap<>();
@@ -0,0 +1,532 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Arrays.copyOf;
+import static org.apache.commons.math3.util.FastMath.min;
+
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.Rotamer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Binary, append-only store of self, 2-body and 3-body energies that can be used to restart a
+ * rotamer optimization. The file begins with a header that records the 2-body and 3-body cutoffs
+ * and the name and rotamer count of each residue under optimization, followed by fixed size records
+ * of residue and rotamer indices and an energy. Each record carries a CRC32 checksum, so a record
+ * left incomplete by an interrupted run is ignored on reload.
+ *
+ * <p>Records are appended at positions reserved atomically, so several threads may append
+ * concurrently. The records are reloaded through memory-mapped buffers.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class EnergyRestartStore implements Closeable {
+
+  private static final Logger logger = Logger.getLogger(EnergyRestartStore.class.getName());
+  /** Identifies an energy restart store ("FFXE"). */
+  private static final int MAGIC = 0x46465845;
+  /** Version of the file format. */
+  private static final int VERSION = 1;
+  /** Record types. */
+  private static final int SELF = 1;
+  private static final int PAIR = 2;
+  private static final int TRIPLE = 3;
+  private static final int BOX = 4;
+  /** Number of indices in each record. */
+  private static final int INDICES = 6;
+  /** Bytes in each record: type, indices, energy and checksum. */
+  private static final int RECORD_SIZE = 4 + 4 * INDICES + 8 + 4;
+  /** The energy restart file. */
+  private final File file;
+  /** Channel used to write records. */
+  private final FileChannel channel;
+  /** Position in the file where the next record is written. */
+  private final AtomicLong position;
+
+  /**
+   * EnergyRestartStore constructor.
+   *
+   * @param file The energy restart file.
+   * @param channel Channel used to write records.
+   * @param position Position in the file where the next record is written.
+   */
+  private EnergyRestartStore(File file, FileChannel channel, long position) {
+    this.file = file;
+    this.channel = channel;
+    this.position = new AtomicLong(position);
+  }
+
+  /**
+   * Check if a file is an energy restart store, rather than a text energy restart file.
+   *
+   * @param file The file to check.
+   * @return true if the file begins with the energy restart store identifier.
+   */
+  public static boolean isEnergyRestartStore(File file) {
+    if (file == null || !file.isFile() || file.length() < 4) {
+      return false;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(4);
+      readFully(channel, buffer, 0);
+      return buffer.getInt(0) == MAGIC;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Open an energy restart store for appending. A new store is created if the file is empty or does
+   * not exist; otherwise the header of the file must match the residues, while cutoffs that differ
+   * are logged. A record left incomplete at the end of the file is overwritten.
+   *
+   * @param file The energy restart file.
+   * @param residues The residues under optimization.
+   * @param twoBodyCutoff The 2-body cutoff distance.
+   * @param threeBodyCutoff The 3-body cutoff distance.
+   * @return The energy restart store.
+   * @throws IOException If the file cannot be opened or was written for a different system.
+   */
+  public static EnergyRestartStore open(File file, List<Residue> residues, double twoBodyCutoff,
+      double threeBodyCutoff) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), READ, WRITE, CREATE);
+    try {
+      long size = channel.size();
+      int headerLength;
+      if (size == 0) {
+        byte[] header = createHeader(residues, twoBodyCutoff, threeBodyCutoff);
+        writeFully(channel, ByteBuffer.wrap(header), 0);
+        headerLength = header.length;
+        size = headerLength;
+      } else {
+        // As on reload, the residues must match, while different cutoffs are only logged.
+        headerLength = readHeader(file, channel, residues, twoBodyCutoff, threeBodyCutoff);
+      }
+      long records = (size - headerLength) / RECORD_SIZE;
+      return new EnergyRestartStore(file, channel, headerLength + records * RECORD_SIZE);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Load the energies of an energy restart store.
+   *
+   * @param file The energy restart file.
+   * @param residues The residues under optimization, which must match the header.
+   * @param twoBodyCutoff The current 2-body cutoff distance.
+   * @param threeBodyCutoff The current 3-body cutoff distance.
+   * @param boxIteration The box to load (or -1 to load all energies).
+   * @param cellIndices The cell indices of the box to load.
+   * @return The self, 2-body and 3-body energies, or null if the box was not found.
+   * @throws IOException If the file cannot be read or was written for a different system.
+   */
+  public static Entries[] load(File file, List<Residue> residues, double twoBodyCutoff,
+      double threeBodyCutoff, int boxIteration, int[] cellIndices) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      int headerLength = readHeader(file, channel, residues, twoBodyCutoff, threeBodyCutoff);
+      Entries[] entries = {new Entries(2), new Entries(4), new Entries(6)};
+      long nRecords = (channel.size() - headerLength) / RECORD_SIZE;
+      long maxRecords = Integer.MAX_VALUE / RECORD_SIZE;
+      boolean inBox = boxIteration < 0;
+      boolean foundBox = inBox;
+      boolean done = false;
+      long corrupt = 0;
+      byte[] record = new byte[RECORD_SIZE];
+      ByteBuffer buffer = ByteBuffer.wrap(record);
+      int[] index = new int[INDICES];
+      CRC32 crc = new CRC32();
+      // Map at most 2 GB of records at a time.
+      for (long first = 0; first < nRecords && !done; first += maxRecords) {
+        long count = min(maxRecords, nRecords - first);
+        MappedByteBuffer map = channel.map(MapMode.READ_ONLY,
+            headerLength + first * RECORD_SIZE, count * RECORD_SIZE);
+        for (long r = 0; r < count; r++) {
+          map.get(record);
+          crc.reset();
+          crc.update(record, 0, RECORD_SIZE - 4);
+          int type = buffer.getInt(0);
+          if (buffer.getInt(RECORD_SIZE - 4) != (int) crc.getValue() || type < SELF
+              || type > BOX) {
+            corrupt++;
+            continue;
+          }
+          for (int n = 0; n < INDICES; n++) {
+            index[n] = buffer.getInt(4 + 4 * n);
+          }
+          if (type == BOX) {
+            if (boxIteration >= 0) {
+              if (inBox) {
+                done = true;
+                break;
+              }
+              inBox = index[0] == boxIteration && index[1] == cellIndices[0]
+                  && index[2] == cellIndices[1] && index[3] == cellIndices[2];
+              foundBox = foundBox || inBox;
+            }
+            continue;
+          }
+          if (inBox) {
+            entries[type - 1].add(index, buffer.getDouble(4 + 4 * INDICES));
+          }
+        }
+      }
+      if (corrupt > 0) {
+        logger.warning(format(" Skipped %d corrupt records in energy restart file %s.", corrupt,
+            file.getName()));
+      }
+      return foundBox ? entries : null;
+    }
+  }
+
+  /**
+   * Append a self energy.
+   *
+   * @param i The residue index.
+   * @param ri The rotamer index.
+   * @param energy The self energy.
+   * @throws IOException If the record cannot be written.
+   */
+  public void appendSelf(int i, int ri, double energy) throws IOException {
+    append(SELF, energy, i, ri);
+  }
+
+  /**
+   * Append a 2-body energy.
+   *
+   * @param i The first residue index.
+   * @param ri The first rotamer index.
+   * @param j The second residue index.
+   * @param rj The second rotamer index.
+   * @param energy The 2-body energy.
+   * @throws IOException If the record cannot be written.
+   */
+  public void appendPair(int i, int ri, int j, int rj, double energy) throws IOException {
+    append(PAIR, energy, i, ri, j, rj);
+  }
+
+  /**
+   * Append a 3-body energy.
+   *
+   * @param i The first residue index.
+   * @param ri The first rotamer index.
+   * @param j The second residue index.
+   * @param rj The second rotamer index.
+   * @param k The third residue index.
+   * @param rk The third rotamer index.
+   * @param energy The 3-body energy.
+   * @throws IOException If the record cannot be written.
+   */
+  public void appendTriple(int i, int ri, int j, int rj, int k, int rk, double energy)
+      throws IOException {
+    append(TRIPLE, energy, i, ri, j, rj, k, rk);
+  }
+
+  /**
+   * Append the start of a box for box optimization. The records that follow belong to this box.
+   *
+   * @param box The box iteration.
+   * @param cellIndices The cell indices of the box.
+   * @throws IOException If the record cannot be written.
+   */
+  public void appendBox(int box, int[] cellIndices) throws IOException {
+    append(BOX, 0.0, box, cellIndices[0], cellIndices[1], cellIndices[2]);
+  }
+
+  /**
+   * Get the energy restart file.
+   *
+   * @return The energy restart file.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    if (channel.isOpen()) {
+      channel.force(false);
+      channel.close();
+    }
+  }
+
+  /**
+   * Append a record at a reserved position, which allows concurrent appends.
+   *
+   * @param type The record type.
+   * @param energy The energy.
+   * @param indices The residue and rotamer indices.
+   * @throws IOException If the record cannot be written.
+   */
+  private void append(int type, double energy, int... indices) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    buffer.putInt(type);
+    for (int n = 0; n < INDICES; n++) {
+      buffer.putInt(n < indices.length ? indices[n] : -1);
+    }
+    buffer.putDouble(energy);
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), 0, RECORD_SIZE - 4);
+    buffer.putInt((int) crc.getValue());
+    buffer.flip();
+    writeFully(channel, buffer, position.getAndAdd(RECORD_SIZE));
+  }
+
+  /**
+   * Create the header that describes the cutoffs and the residues under optimization.
+   *
+   * @param residues The residues under optimization.
+   * @param twoBodyCutoff The 2-body cutoff distance.
+   * @param threeBodyCutoff The 3-body cutoff distance.
+   * @return The header.
+   * @throws IOException If the header cannot be created.
+   */
+  private static byte[] createHeader(List<Residue> residues, double twoBodyCutoff,
+      double threeBodyCutoff) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeDouble(twoBodyCutoff);
+    out.writeDouble(threeBodyCutoff);
+    out.writeInt(residues.size());
+    for (Residue residue : residues) {
+      Rotamer[] rotamers = residue.getRotamers();
+      out.writeUTF(residue.toString());
+      out.writeInt(rotamers == null ? 0 : rotamers.length);
+    }
+    out.flush();
+    byte[] body = bytes.toByteArray();
+    // Magic number, version, header length, body and checksum.
+    int length = 12 + body.length + 4;
+    ByteBuffer header = ByteBuffer.allocate(length);
+    header.putInt(MAGIC).putInt(VERSION).putInt(length).put(body);
+    CRC32 crc = new CRC32();
+    crc.update(header.array(), 0, length - 4);
+    header.putInt((int) crc.getValue());
+    return header.array();
+  }
+
+  /**
+   * Read and check the header of an energy restart store.
+   *
+   * @param file The energy restart file.
+   * @param channel Channel to read from.
+   * @param residues The residues under optimization.
+   * @param twoBodyCutoff The current 2-body cutoff distance.
+   * @param threeBodyCutoff The current 3-body cutoff distance.
+   * @return The length of the header.
+   * @throws IOException If the header is corrupt or does not match the residues.
+   */
+  private static int readHeader(File file, FileChannel channel, List<Residue> residues,
+      double twoBodyCutoff, double threeBodyCutoff) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(12);
+    readFully(channel, start, 0);
+    if (start.getInt(0) != MAGIC || start.getInt(4) != VERSION) {
+      throw new IOException(format(" %s is not a version %d energy restart file.", file, VERSION));
+    }
+    int length = start.getInt(8);
+    if (length < 16 || length > channel.size()) {
+      throw new IOException(format(" Energy restart file %s has a corrupt header.", file));
+    }
+    ByteBuffer header = ByteBuffer.allocate(length);
+    readFully(channel, header, 0);
+    CRC32 crc = new CRC32();
+    crc.update(header.array(), 0, length - 4);
+    if (header.getInt(length - 4) != (int) crc.getValue()) {
+      throw new IOException(format(" Energy restart file %s has a corrupt header.", file));
+    }
+
+    DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(header.array(), 12, length - 16));
+    double readTwoBodyCutoff = in.readDouble();
+    double readThreeBodyCutoff = in.readDouble();
+    int nResidues = in.readInt();
+    boolean match = nResidues == residues.size();
+    for (int i = 0; i < nResidues && match; i++) {
+      Residue residue = residues.get(i);
+      Rotamer[] rotamers = residue.getRotamers();
+      int nRotamers = rotamers == null ? 0 : rotamers.length;
+      match = in.readUTF().equals(residue.toString()) && in.readInt() == nRotamers;
+    }
+    if (!match) {
+      throw new IOException(
+          format(" Energy restart file %s was written for different residues or rotamers.", file));
+    }
+    if (readTwoBodyCutoff != twoBodyCutoff || readThreeBodyCutoff != threeBodyCutoff) {
+      logger.info(format(" Energy restart file cutoffs (%6.3f, %6.3f) differ from the current"
+          + " cutoffs (%6.3f, %6.3f).", readTwoBodyCutoff, readThreeBodyCutoff, twoBodyCutoff,
+          threeBodyCutoff));
+    }
+    return length;
+  }
+
+  /**
+   * Read bytes from a channel until the buffer is full.
+   *
+   * @param channel The channel.
+   * @param buffer The buffer to fill.
+   * @param position The file position to read from.
+   * @throws IOException If the end of the file is reached first.
+   */
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException(" Unexpected end of energy restart file.");
+      }
+      position += read;
+    }
+  }
+
+  /**
+   * Write all remaining bytes of a buffer to a channel.
+   *
+   * @param channel The channel.
+   * @param buffer The buffer to write.
+   * @param position The file position to write at.
+   * @throws IOException If the bytes cannot be written.
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * A growable list of energies, each keyed by a fixed number of residue and rotamer indices.
+   */
+  public static class Entries {
+
+    /** Number of indices per entry. */
+    private final int width;
+    /** Indices of each entry. */
+    private int[] indices;
+    /** Energy of each entry. */
+    private double[] energies;
+    /** Number of entries. */
+    private int size = 0;
+
+    /**
+     * Entries constructor.
+     *
+     * @param width The number of indices per entry.
+     */
+    public Entries(int width) {
+      this.width = width;
+      indices = new int[width * 1024];
+      energies = new double[1024];
+    }
+
+    /**
+     * Add an entry.
+     *
+     * @param index The indices of the entry (only the first width values are used).
+     * @param energy The energy.
+     */
+    public void add(int[] index, double energy) {
+      if (size == energies.length) {
+        energies = copyOf(energies, 2 * size);
+        indices = copyOf(indices, 2 * size * width);
+      }
+      System.arraycopy(index, 0, indices, size * width, width);
+      energies[size++] = energy;
+    }
+
+    /**
+     * Get an index of an entry.
+     *
+     * @param entry The entry.
+     * @param n The position of the index within the entry.
+     * @return The index.
+     */
+    public int getIndex(int entry, int n) {
+      return indices[entry * width + n];
+    }
+
+    /**
+     * Get the energy of an entry.
+     *
+     * @param entry The entry.
+     * @return The energy.
+     */
+    public double getEnergy(int entry) {
+      return energies[entry];
+    }
+
+    /**
+     * Check if there are no entries.
+     *
+     * @return true if there are no entries.
+     */
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * Number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+      return size;
+    }
+  }
+}
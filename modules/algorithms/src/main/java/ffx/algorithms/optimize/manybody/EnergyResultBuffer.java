@@ -0,0 +1,149 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+
+import edu.rit.mp.DoubleBuf;
+import edu.rit.mp.IntegerBuf;
+import edu.rit.pj.Comm;
+import java.io.IOException;
+
+/**
+ * Collects the many-body energy results computed by this process during a WorkerRegion. Each
+ * result is a fixed width record of residue and rotamer indices followed by the energy. The records
+ * are shared with all processes once, when the region completes, rather than after every job.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class EnergyResultBuffer {
+
+  /** Number of chunks requested per process when scheduling energy jobs dynamically. */
+  private static final int CHUNKS_PER_PROCESS = 32;
+  /** Maximum number of energy jobs in one chunk. */
+  private static final int MAX_CHUNK_SIZE = 64;
+  /** Number of values in each result. */
+  private final int width;
+  /** Results computed by this process. */
+  private double[] results;
+  /** Number of results computed by this process. */
+  private int count = 0;
+
+  /**
+   * EnergyResultBuffer constructor.
+   *
+   * @param width The number of values in each result.
+   */
+  public EnergyResultBuffer(int width) {
+    this.width = width;
+    results = new double[width * MAX_CHUNK_SIZE];
+  }
+
+  /**
+   * Compute the number of energy jobs handed to a process at once. Chunks are small enough that
+   * processes finish at nearly the same time, but large enough to amortize the scheduling messages.
+   *
+   * @param nJobs The number of energy jobs.
+   * @param numProc The number of processes.
+   * @param nCopies The number of jobs each process computes concurrently.
+   * @return The chunk size.
+   */
+  public static int chunkSize(int nJobs, int numProc, int nCopies) {
+    return max(nCopies, min(MAX_CHUNK_SIZE * nCopies, nJobs / (numProc * CHUNKS_PER_PROCESS)));
+  }
+
+  /**
+   * Add a result computed by this process.
+   *
+   * @param result The residue and rotamer indices followed by the energy.
+   */
+  public synchronized void add(double... result) {
+    assert (result.length == width);
+    if ((count + 1) * width > results.length) {
+      results = copyOf(results, 2 * results.length);
+    }
+    arraycopy(result, 0, results, count * width, width);
+    count++;
+  }
+
+  /**
+   * Clear the results computed by this process.
+   */
+  public synchronized void clear() {
+    count = 0;
+  }
+
+  /**
+   * Share the results of all processes. Every process must call this method.
+   *
+   * @param world The Parallel Java world communicator.
+   * @return The results of each process, indexed by rank, as a flattened array of records.
+   * @throws IOException If an I/O error occurs.
+   */
+  public synchronized double[][] allGather(Comm world) throws IOException {
+    int numProc = world.size();
+    int rank = world.rank();
+
+    // Share the number of results computed by each process.
+    int[][] counts = new int[numProc][1];
+    IntegerBuf[] countBuf = new IntegerBuf[numProc];
+    for (int i = 0; i < numProc; i++) {
+      countBuf[i] = IntegerBuf.buffer(counts[i]);
+    }
+    counts[rank][0] = count;
+    world.allGather(countBuf[rank], countBuf);
+
+    // Share the results.
+    double[][] all = new double[numProc][];
+    DoubleBuf[] resultBuf = new DoubleBuf[numProc];
+    for (int i = 0; i < numProc; i++) {
+      if (i == rank) {
+        all[i] = copyOf(results, count * width);
+      } else {
+        all[i] = new double[counts[i][0] * width];
+      }
+      resultBuf[i] = DoubleBuf.buffer(all[i]);
+    }
+    world.allGather(resultBuf[rank], resultBuf);
+    return all;
+  }
+}
@@ -0,0 +1,300 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static java.lang.String.format;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+import ffx.numerics.Potential;
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.bonded.Polymer;
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.ResidueState;
+import ffx.potential.bonded.Rotamer;
+import ffx.potential.bonded.RotamerLibrary;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Independent copies of the system under rotamer optimization, each with its own Potential, that
+ * allow several self, pair or triple energies to be computed concurrently within one process. Copy
+ * 0 is the original system, while copies 1 and above are additional MolecularAssembly instances
+ * loaded from the same file (ideally with a small number of threads each).
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class PotentialCopies {
+
+  private static final Logger logger = Logger.getLogger(PotentialCopies.class.getName());
+  /** The additional copies of the system. */
+  private final MolecularAssembly[] assemblies;
+  /** Maps each residue of the original system to the same residue of each additional copy. */
+  private final Map<Residue, Residue>[] residueMaps;
+  /** ParallelTeam with one thread per copy (including the original). */
+  private final ParallelTeam parallelTeam;
+
+  /**
+   * PotentialCopies constructor.
+   *
+   * @param assemblies Additional copies of the system under optimization.
+   */
+  @SuppressWarnings("unchecked")
+  public PotentialCopies(MolecularAssembly[] assemblies) {
+    this.assemblies = assemblies;
+    int n = assemblies.length;
+    residueMaps = new Map[n];
+    for (int i = 0; i < n; i++) {
+      residueMaps[i] = new IdentityHashMap<>();
+    }
+    parallelTeam = new ParallelTeam(n + 1);
+  }
+
+  /**
+   * Number of systems that can compute energies concurrently, including the original.
+   *
+   * @return The number of copies.
+   */
+  public int size() {
+    return assemblies.length + 1;
+  }
+
+  /**
+   * Load the coordinates and rotamers of the original system into each copy. This must be called
+   * before each energy expansion, because earlier optimizations (e.g. of a previous box) may have
+   * moved the original system.
+   *
+   * @param original The original system.
+   * @param residues The residues with rotamers of the original system.
+   * @param library The rotamer library.
+   * @return false if a copy does not match the original system.
+   */
+  public boolean synchronize(MolecularAssembly original, List<Residue> residues,
+      RotamerLibrary library) {
+    Atom[] atoms = original.getAtomArray();
+    for (int c = 0; c < assemblies.length; c++) {
+      MolecularAssembly assembly = assemblies[c];
+      Atom[] copyAtoms = assembly.getAtomArray();
+      if (copyAtoms.length != atoms.length) {
+        logger.info(format(" Copy %d has %d atoms rather than %d.", c + 1, copyAtoms.length,
+            atoms.length));
+        return false;
+      }
+      for (int i = 0; i < atoms.length; i++) {
+        copyAtoms[i].setXYZ(atoms[i].getXYZ(null));
+        copyAtoms[i].setUse(true);
+      }
+
+      // Map residues using their chain and residue number.
+      Map<String, Residue> copyResidues = new HashMap<>();
+      for (Polymer polymer : assembly.getChains()) {
+        for (Residue residue : polymer.getResidues()) {
+          copyResidues.put(residueKey(residue), residue);
+        }
+      }
+      Map<Residue, Residue> residueMap = residueMaps[c];
+      residueMap.clear();
+      for (Residue residue : residues) {
+        Residue copy = copyResidues.get(residueKey(residue));
+        if (copy == null || residue.getTitrationUtils() != null) {
+          logger.info(format(" Residue %s cannot be copied.", residue));
+          return false;
+        }
+        Rotamer[] rotamers = residue.getRotamers();
+        if (rotamers.length > 0 && rotamers[0].isState) {
+          // Original coordinate rotamers are built from the coordinates when they were defined.
+          ResidueState current = residue.storeState();
+          residue.revertState(rotamers[0].originalState);
+          if (!copyCoordinates(residue, copy)) {
+            residue.revertState(current);
+            return false;
+          }
+          copy.setRotamers(library);
+          residue.revertState(current);
+          copyCoordinates(residue, copy);
+        } else {
+          copy.setRotamers(library);
+        }
+        Rotamer[] copyRotamers = copy.getRotamers();
+        if (copyRotamers == null || copyRotamers.length != rotamers.length) {
+          logger.info(format(" Residue %s has different rotamers in copy %d.", residue, c + 1));
+          return false;
+        }
+        residueMap.put(residue, copy);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the residues of a copy that correspond to residues of the original system.
+   *
+   * @param residues Residues of the original system.
+   * @param copy The copy index (0 for the original system).
+   * @return The residues of the copy.
+   */
+  public Residue[] getResidues(Residue[] residues, int copy) {
+    if (copy == 0) {
+      return residues;
+    }
+    Map<Residue, Residue> residueMap = residueMaps[copy - 1];
+    Residue[] copyResidues = new Residue[residues.length];
+    for (int i = 0; i < residues.length; i++) {
+      copyResidues[i] = residueMap.get(residues[i]);
+    }
+    return copyResidues;
+  }
+
+  /**
+   * Get an additional copy of the system.
+   *
+   * @param copy The copy index (1 or above).
+   * @return The MolecularAssembly of the copy.
+   */
+  public MolecularAssembly getAssembly(int copy) {
+    return assemblies[copy - 1];
+  }
+
+  /**
+   * Get the Potential of an additional copy. Its energy is computed through the energy function of
+   * RotamerOptimization, like that of the original system.
+   *
+   * @param copy The copy index (1 or above).
+   * @return The Potential of the copy.
+   */
+  public Potential getPotential(int copy) {
+    return assemblies[copy - 1].getPotentialEnergy();
+  }
+
+  /**
+   * Get the ForceFieldEnergy of an additional copy.
+   *
+   * @param copy The copy index (1 or above).
+   * @return The ForceFieldEnergy of the copy.
+   */
+  public ForceFieldEnergy getForceFieldEnergy(int copy) {
+    return assemblies[copy - 1].getPotentialEnergy();
+  }
+
+  /**
+   * Compute a range of energy jobs concurrently, with each thread using its own copy.
+   *
+   * @param lb The first job.
+   * @param ub The last job.
+   * @param job The energy job.
+   * @throws Exception If an exception occurs computing a job.
+   */
+  public void execute(int lb, int ub, EnergyJob job) throws Exception {
+    parallelTeam.execute(new ParallelRegion() {
+      @Override
+      public void run() throws Exception {
+        execute(lb, ub, new IntegerForLoop() {
+          @Override
+          public IntegerSchedule schedule() {
+            return IntegerSchedule.dynamic();
+          }
+
+          @Override
+          public void run(int first, int last) {
+            int copy = getThreadIndex();
+            for (int key = first; key <= last; key++) {
+              job.compute(key, copy);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Shut down the ParallelTeam and the Potential of each copy.
+   */
+  public void destroy() {
+    try {
+      parallelTeam.shutdown();
+    } catch (Exception e) {
+      logger.warning(format(" Exception shutting down the potential copies team: %s", e));
+    }
+    for (MolecularAssembly assembly : assemblies) {
+      assembly.getPotentialEnergy().destroy();
+    }
+  }
+
+  /**
+   * Copy the coordinates of a residue into the same residue of a copy.
+   *
+   * @param residue The residue of the original system.
+   * @param copy The residue of the copy.
+   * @return false if the residues have different atoms.
+   */
+  private static boolean copyCoordinates(Residue residue, Residue copy) {
+    List<Atom> atoms = residue.getAtomList();
+    List<Atom> copyAtoms = copy.getAtomList();
+    if (atoms.size() != copyAtoms.size()) {
+      return false;
+    }
+    for (int i = 0; i < atoms.size(); i++) {
+      copyAtoms.get(i).setXYZ(atoms.get(i).getXYZ(null));
+    }
+    return true;
+  }
+
+  private static String residueKey(Residue residue) {
+    return residue.getChainID() + " " + residue.getResidueNumber();
+  }
+
+  /** An energy job that is computed using one of the copies. */
+  public interface EnergyJob {
+
+    /**
+     * Compute an energy job.
+     *
+     * @param key The job key.
+     * @param copy The copy index (0 for the original system).
+     */
+    void compute(int key, int copy);
+  }
+}
@@ -39,7 +39,6 @@ package ffx.algorithms.optimize.manybody;
 
 import static java.lang.String.format;
 
-import edu.rit.mp.DoubleBuf;
 import edu.rit.pj.Comm;
 import edu.rit.pj.IntegerSchedule;
 import edu.rit.pj.MultipleParallelException;
@@ -89,6 +88,9 @@ public class SelfEnergyRegion extends WorkerRegion {
    */
   private final boolean printFiles;
 
+  /** Self energies computed by this process. */
+  private final EnergyResultBuffer resultBuffer = new EnergyResultBuffer(3);
+
   private Set<Integer> keySet;
 
   public SelfEnergyRegion(RotamerOptimization rO, EnergyExpansion eE, EliminatedRotamers eR,
@@ -115,6 +117,24 @@ public class SelfEnergyRegion extends WorkerRegion {
 
   @Override
   public void finish() {
+    // Load the self energies computed by the other processes.
+    if (numProc > 1) {
+      try {
+        double[][] results = resultBuffer.allGather(world);
+        for (int p = 0; p < numProc; p++) {
+          if (p == rank) {
+            continue;
+          }
+          double[] result = results[p];
+          for (int r = 0; r < result.length; r += 3) {
+            processSelfEnergy((int) result[r], (int) result[r + 1], result[r + 2]);
+          }
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, " Exception communicating self energies.", e);
+      }
+    }
+
     // Pre-Prune if self-energy is Double.NaN.
     eR.prePruneSelves(residues);
 
@@ -165,25 +185,9 @@ public class SelfEnergyRegion extends WorkerRegion {
 
   @Override
   public void start() {
-
-    int numSelf = selfEnergyMap.size();
-    int remainder = numSelf % numProc;
-    // Set padded residue and rotamer to less than zero.
-    Integer[] padding = {-1, -1};
-
-    int padKey = numSelf;
-    while (remainder != 0) {
-      selfEnergyMap.put(padKey++, padding);
-      remainder = selfEnergyMap.size() % numProc;
-    }
-
-    numSelf = selfEnergyMap.size();
-    if (numSelf % numProc != 0) {
-      logger.severe(" Logic error padding self energies.");
-    }
-
     // Load the keySet of self energies.
     keySet = selfEnergyMap.keySet();
+    resultBuffer.clear();
 
     // Compute backbone energy.
     double backboneEnergy = 0.0;
@@ -196,95 +200,87 @@ public class SelfEnergyRegion extends WorkerRegion {
     eE.setBackboneEnergy(backboneEnergy);
   }
 
-  private class SelfEnergyLoop extends WorkerIntegerForLoop {
-
-    final DoubleBuf[] resultBuffer;
-    final DoubleBuf myBuffer;
-
-    SelfEnergyLoop() {
-      resultBuffer = new DoubleBuf[numProc];
-      for (int i = 0; i < numProc; i++) {
-        resultBuffer[i] = DoubleBuf.buffer(new double[3]);
+  /**
+   * Store a self energy and write it to the energy restart file.
+   *
+   * @param i The residue index.
+   * @param ri The rotamer index.
+   * @param energy The self energy.
+   */
+  private synchronized void processSelfEnergy(int i, int ri, double energy) {
+    if (Double.isNaN(energy)) {
+      logger.info(" Rotamer  eliminated: " + i + ", " + ri);
+      eR.eliminateRotamer(residues, i, ri, false);
+    }
+    eE.setSelf(i, ri, energy);
+    if (rank == 0 && writeEnergyRestart && printFiles) {
+      try {
+        EnergyRestartStore energyStore = rO.getEnergyRestartStore();
+        if (energyStore != null) {
+          energyStore.appendSelf(i, ri, energy);
+        } else if (energyWriter != null) {
+          energyWriter.append(format("Self %d %d: %16.8f", i, ri, energy));
+          energyWriter.newLine();
+          energyWriter.flush();
+        }
+      } catch (IOException ex) {
+        logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
       }
-      myBuffer = resultBuffer[rank];
     }
+  }
 
-    @Override
-    public void run(int lb, int ub) {
-      for (int key = lb; key <= ub; key++) {
-        Integer[] job = selfEnergyMap.get(key);
-        int i = job[0];
-        int ri = job[1];
-        // Initialize result.
-        myBuffer.put(0, i);
-        myBuffer.put(1, ri);
-        myBuffer.put(2, 0.0);
-
-        if (i >= 0 && ri >= 0) {
-          if (!eR.check(i, ri)) {
-            long time = -System.nanoTime();
-            Rotamer[] rotamers = residues[i].getRotamers();
-            double selfEnergy;
-            try {
-              selfEnergy = eE.computeSelfEnergy(residues, i, ri);
-              time += System.nanoTime();
-              logger.info(
-                  format(" Self %8s %-2d: %s in %6.4f (sec).", residues[i].toString(rotamers[ri]),
-                      ri, rO.formatEnergy(selfEnergy), time * 1.0e-9));
-            } catch (ArithmeticException ex) {
-              selfEnergy = Double.NaN;
-              time += System.nanoTime();
-              logger.info(format(" Self %8s %-2d:\t    pruned in %6.4f (sec).",
-                  residues[i].toString(rotamers[ri]), ri, time * 1.0e-9));
-            }
-            myBuffer.put(2, selfEnergy);
-          }
-        } else {
-          // allGather parallel command below requires resultBuffer
-          // to have no null elements. Therefore, the padded energies that
-          // enter this else statement must be given an energy of 0.
-          myBuffer.put(2, 0.0);
-        }
+  /**
+   * Jobs are handed out dynamically in small chunks, and each result is stored as soon as it is
+   * computed. Results are only shared with the other processes when the region finishes.
+   */
+  private class SelfEnergyLoop extends WorkerIntegerForLoop {
 
-        // All to All communication
-        if (numProc > 1) {
-          try {
-            world.allGather(myBuffer, resultBuffer);
-          } catch (Exception e) {
-            logger.log(Level.SEVERE, " Exception communicating self energies.", e);
-          }
+    @Override
+    public void run(int lb, int ub) throws Exception {
+      PotentialCopies potentialCopies = eE.getPotentialCopies();
+      if (potentialCopies != null) {
+        potentialCopies.execute(lb, ub, this::computeJob);
+      } else {
+        for (int key = lb; key <= ub; key++) {
+          computeJob(key, 0);
         }
+      }
+    }
 
-        // Process the self energy received from each process.
-        for (DoubleBuf doubleBuf : resultBuffer) {
-          int resI = (int) doubleBuf.get(0);
-          int rotI = (int) doubleBuf.get(1);
-          double energy = doubleBuf.get(2);
-          // Skip for padded result.
-          if (resI >= 0 && rotI >= 0) {
-            if (Double.isNaN(energy)) {
-              logger.info(" Rotamer  eliminated: " + resI + ", " + rotI);
-              eR.eliminateRotamer(residues, resI, rotI, false);
-            }
-            eE.setSelf(resI, rotI, energy);
-            if (rank == 0 && writeEnergyRestart && printFiles) {
-              try {
-                energyWriter.append(format("Self %d %d: %16.8f", resI, rotI, energy));
-                energyWriter.newLine();
-                energyWriter.flush();
-              } catch (IOException ex) {
-                logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
-              }
-            }
-          }
+    /**
+     * Compute one energy job.
+     *
+     * @param key The job key.
+     * @param copy The potential copy to use (0 for the original system).
+     */
+    private void computeJob(int key, int copy) {
+      Integer[] job = selfEnergyMap.get(key);
+      int i = job[0];
+      int ri = job[1];
+      double selfEnergy = 0.0;
+      if (!eR.check(i, ri)) {
+        long time = -System.nanoTime();
+        Rotamer[] rotamers = residues[i].getRotamers();
+        try {
+          selfEnergy = eE.computeSelfEnergy(residues, i, ri, copy);
+          time += System.nanoTime();
+          logger.info(
+              format(" Self %8s %-2d: %s in %6.4f (sec).", residues[i].toString(rotamers[ri]),
+                  ri, rO.formatEnergy(selfEnergy), time * 1.0e-9));
+        } catch (ArithmeticException ex) {
+          selfEnergy = Double.NaN;
+          time += System.nanoTime();
+          logger.info(format(" Self %8s %-2d:\t    pruned in %6.4f (sec).",
+              residues[i].toString(rotamers[ri]), ri, time * 1.0e-9));
         }
       }
+      processSelfEnergy(i, ri, selfEnergy);
+      resultBuffer.add(i, ri, selfEnergy);
     }
 
     @Override
     public IntegerSchedule schedule() {
-      // The schedule must be fixed.
-      return IntegerSchedule.fixed();
+      return IntegerSchedule.dynamic(eE.getEnergyChunkSize(keySet.size(), numProc));
     }
   }
 }
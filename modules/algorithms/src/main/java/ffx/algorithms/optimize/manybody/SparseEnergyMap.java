@@ -0,0 +1,259 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static java.lang.Integer.numberOfTrailingZeros;
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.util.Arrays.fill;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Open addressing hash map from packed residue and rotamer indices to energies. Keys are
+ * non-negative longs (see {@link #pack(int, int, int)}) and values are primitive doubles, so an
+ * entry costs two array slots rather than a chain of boxed arrays.
+ *
+ * <p>Writes are synchronized. Reads are lock free: keys and values are written with release
+ * semantics and read with acquire semantics, so a reader that finds a key also sees its energy,
+ * and energies may be looked up while other threads store new ones.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class SparseEnergyMap {
+
+  /** Number of bits used for each packed index. */
+  public static final int INDEX_BITS = 21;
+  /** Largest index that can be packed. */
+  public static final int MAX_INDEX = (1 << INDEX_BITS) - 1;
+  /** Marks an empty slot. */
+  private static final long EMPTY = -1L;
+  /** Golden ratio multiplier used to spread keys over the table. */
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+  /** Access to the elements of key arrays with memory ordering. */
+  private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+  /** Access to the elements of value arrays with memory ordering. */
+  private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(double[].class);
+  /** The current table. */
+  private volatile Table table;
+  /** Number of entries. */
+  private int size = 0;
+
+  /**
+   * SparseEnergyMap constructor.
+   *
+   * @param expectedSize The expected number of entries.
+   */
+  public SparseEnergyMap(int expectedSize) {
+    table = new Table(capacityFor(expectedSize));
+  }
+
+  /**
+   * Pack three indices into a single key.
+   *
+   * @param a The first index.
+   * @param b The second index.
+   * @param c The third index.
+   * @return The key.
+   * @throws ArrayIndexOutOfBoundsException If an index is negative or larger than MAX_INDEX.
+   */
+  public static long pack(int a, int b, int c) {
+    if ((a | b | c) < 0 || a > MAX_INDEX || b > MAX_INDEX || c > MAX_INDEX) {
+      throw new ArrayIndexOutOfBoundsException(
+          " Index out of range for a sparse energy key: " + a + ", " + b + ", " + c);
+    }
+    return ((long) a << (2 * INDEX_BITS)) | ((long) b << INDEX_BITS) | c;
+  }
+
+  /**
+   * Get the energy stored for a key.
+   *
+   * @param key The key.
+   * @return The energy, or 0.0 if no energy has been stored.
+   */
+  public double get(long key) {
+    Table t = table;
+    int slot = t.find(key);
+    return slot < 0 ? 0.0 : (double) VALUES.getAcquire(t.values, slot);
+  }
+
+  /**
+   * Check if an energy has been stored for a key.
+   *
+   * @param key The key.
+   * @return true if the key is present.
+   */
+  public boolean contains(long key) {
+    return table.find(key) >= 0;
+  }
+
+  /**
+   * Store an energy.
+   *
+   * @param key The key.
+   * @param value The energy.
+   */
+  public synchronized void put(long key, double value) {
+    Table t = table;
+    int slot = t.find(key);
+    if (slot >= 0) {
+      VALUES.setRelease(t.values, slot, value);
+      return;
+    }
+    if (2 * (size + 1) > t.keys.length) {
+      t = t.resize(2 * t.keys.length);
+      table = t;
+    }
+    t.insert(key, value);
+    size++;
+  }
+
+  /**
+   * Remove all entries.
+   *
+   * @param expectedSize The expected number of entries to be stored next.
+   */
+  public synchronized void clear(int expectedSize) {
+    table = new Table(capacityFor(expectedSize));
+    size = 0;
+  }
+
+  /**
+   * Get the number of entries.
+   *
+   * @return The number of entries.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Smallest power of two table size that keeps the load factor at or below one half.
+   *
+   * @param expectedSize The expected number of entries.
+   * @return The table size.
+   */
+  private static int capacityFor(int expectedSize) {
+    long n = Math.max(16L, 2L * expectedSize);
+    n = 1L << (64 - numberOfLeadingZeros(n - 1));
+    if (n > (1 << 30)) {
+      throw new IllegalArgumentException(
+          " Too many entries for a sparse energy map: " + expectedSize);
+    }
+    return (int) n;
+  }
+
+  /** Keys and values using linear probing. */
+  private static class Table {
+
+    /** Keys, or EMPTY. */
+    private final long[] keys;
+    /** Values. */
+    private final double[] values;
+    /** Bits to shift the mixed key to obtain a slot. */
+    private final int shift;
+
+    /**
+     * Table constructor.
+     *
+     * @param capacity The number of slots (a power of two).
+     */
+    Table(int capacity) {
+      keys = new long[capacity];
+      values = new double[capacity];
+      fill(keys, EMPTY);
+      // Use the top log2(capacity) bits of the mixed key.
+      shift = 64 - numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * Find the slot holding a key.
+     *
+     * @param key The key.
+     * @return The slot, or -1 if the key is not present.
+     */
+    int find(long key) {
+      int mask = keys.length - 1;
+      int slot = (int) ((key * MIX) >>> shift) & mask;
+      while (true) {
+        long k = (long) KEYS.getAcquire(keys, slot);
+        if (k == key) {
+          return slot;
+        }
+        if (k == EMPTY) {
+          return -1;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    /**
+     * Insert a key that is not present.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    void insert(long key, double value) {
+      int mask = keys.length - 1;
+      int slot = (int) ((key * MIX) >>> shift) & mask;
+      while (keys[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      // Publish the value before the key, so a concurrent reader never sees the key without it.
+      VALUES.setRelease(values, slot, value);
+      KEYS.setRelease(keys, slot, key);
+    }
+
+    /**
+     * Copy the entries into a larger table.
+     *
+     * @param capacity The number of slots in the new table.
+     * @return The new table.
+     */
+    Table resize(int capacity) {
+      Table t = new Table(capacity);
+      for (int i = 0; i < keys.length; i++) {
+        if (keys[i] != EMPTY) {
+          t.insert(keys[i], values[i]);
+        }
+      }
+      return t;
+    }
+  }
+}
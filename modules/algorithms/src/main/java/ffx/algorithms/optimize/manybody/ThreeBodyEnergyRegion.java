@@ -40,7 +40,6 @@ package ffx.algorithms.optimize.manybody;
 import static java.lang.String.format;
 import static org.apache.commons.math3.util.FastMath.min;
 
-import edu.rit.mp.DoubleBuf;
 import edu.rit.pj.Comm;
 import edu.rit.pj.IntegerSchedule;
 import edu.rit.pj.WorkerIntegerForLoop;
@@ -51,8 +50,6 @@ import ffx.potential.bonded.Rotamer;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -70,8 +67,8 @@ public class ThreeBodyEnergyRegion extends WorkerRegion {
    * subsets of this list.
    */
   private final List<Residue> allResiduesList;
-  /** Map of 3-body energy values to compute. */
-  private final Map<Integer, Integer[]> threeBodyEnergyMap;
+  /** 3-body energy values to compute, stored as consecutive (i, ri, j, rj, k, rk) tuples. */
+  private final int[] threeBodyJobs;
   /** Writes energies to restart file. */
   private final BufferedWriter energyWriter;
   /** World Parallel Java communicator. */
@@ -97,7 +94,8 @@ public class ThreeBodyEnergyRegion extends WorkerRegion {
    */
   private final boolean printFiles;
 
-  private Set<Integer> keySet;
+  /** Triple energies computed by this process. */
+  private final EnergyResultBuffer resultBuffer = new EnergyResultBuffer(7);
 
   public ThreeBodyEnergyRegion(RotamerOptimization rotamerOptimization, DistanceMatrix dM,
       EnergyExpansion eE, EliminatedRotamers eR, Residue[] residues, List<Residue> allResiduesList,
@@ -119,12 +117,31 @@ public class ThreeBodyEnergyRegion extends WorkerRegion {
     this.writeEnergyRestart = writeEnergyRestart;
     this.printFiles = printFiles;
 
-    this.threeBodyEnergyMap = eE.getThreeBodyEnergyMap();
-    logger.info(format(" Number of 3-Body energies to calculate: %d", threeBodyEnergyMap.size()));
+    this.threeBodyJobs = eE.getThreeBodyJobs();
+    logger.info(format(" Number of 3-Body energies to calculate: %d", threeBodyJobs.length / 6));
   }
 
   @Override
   public void finish() {
+    // Load the triple energies computed by the other processes.
+    if (numProc > 1) {
+      try {
+        double[][] results = resultBuffer.allGather(world);
+        for (int p = 0; p < numProc; p++) {
+          if (p == rank) {
+            continue;
+          }
+          double[] result = results[p];
+          for (int r = 0; r < result.length; r += 7) {
+            process3BodyEnergy((int) result[r], (int) result[r + 1], (int) result[r + 2],
+                (int) result[r + 3], (int) result[r + 4], (int) result[r + 5], result[r + 6]);
+          }
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, " Exception communicating triple energies.", e);
+      }
+    }
+
     // Print what we've got so far.
     if (master && verbose) {
       for (int i = 0; i < residues.length; i++) {
@@ -163,185 +180,164 @@ public class ThreeBodyEnergyRegion extends WorkerRegion {
 
   @Override
   public void run() throws Exception {
-    if (!keySet.isEmpty()) {
-      execute(0, keySet.size() - 1, new ThreeBodyEnergyLoop());
+    int nJobs = threeBodyJobs.length / 6;
+    if (nJobs > 0) {
+      execute(0, nJobs - 1, new ThreeBodyEnergyLoop());
     }
   }
 
   @Override
   public void start() {
-    int numTriple = threeBodyEnergyMap.size();
-    int remainder = numTriple % numProc;
-    // Set padded residue and rotamer to less than zero.
-    Integer[] padding = {-1, -1, -1, -1, -1, -1};
+    resultBuffer.clear();
+  }
 
-    int padKey = numTriple;
-    while (remainder != 0) {
-      threeBodyEnergyMap.put(padKey++, padding);
-      remainder = threeBodyEnergyMap.size() % numProc;
+  /**
+   * Store a triple energy and write it to the energy restart file.
+   *
+   * @param i The first residue index.
+   * @param ri The first rotamer index.
+   * @param j The second residue index.
+   * @param rj The second rotamer index.
+   * @param k The third residue index.
+   * @param rk The third rotamer index.
+   * @param energy The triple energy.
+   */
+  private synchronized void process3BodyEnergy(int i, int ri, int j, int rj, int k, int rk,
+      double energy) {
+    if (!Double.isFinite(energy)) {
+      logger.info(" Rotamer pair eliminated: " + i + ", " + ri + ", " + j + ", " + rj);
+      eR.eliminateRotamerPair(residues, i, ri, j, rj, false);
     }
-
-    numTriple = threeBodyEnergyMap.size();
-    if (numTriple % numProc != 0) {
-      logger.severe(" Logic error padding triple energies.");
+    eE.set3Body(residues, i, ri, j, rj, k, rk, energy);
+    if (rank == 0 && writeEnergyRestart && printFiles) {
+      try {
+        EnergyRestartStore energyStore = rO.getEnergyRestartStore();
+        if (energyStore != null) {
+          energyStore.appendTriple(i, ri, j, rj, k, rk, energy);
+        } else if (energyWriter != null) {
+          energyWriter.append(
+              format("Triple %d %d, %d %d, %d %d: %16.8f", i, ri, j, rj, k, rk, energy));
+          energyWriter.newLine();
+          energyWriter.flush();
+        }
+      } catch (IOException ex) {
+        logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
+      }
     }
-
-    // Load the keySet of triple energies.
-    keySet = threeBodyEnergyMap.keySet();
   }
 
+  /**
+   * Jobs are handed out dynamically in small chunks, and each result is stored as soon as it is
+   * computed. Results are only shared with the other processes when the region finishes.
+   */
   private class ThreeBodyEnergyLoop extends WorkerIntegerForLoop {
 
-    final DoubleBuf[] resultBuffer;
-    final DoubleBuf myBuffer;
-
-    ThreeBodyEnergyLoop() {
-      resultBuffer = new DoubleBuf[numProc];
-      for (int i = 0; i < numProc; i++) {
-        resultBuffer[i] = DoubleBuf.buffer(new double[7]);
+    @Override
+    public void run(int lb, int ub) throws Exception {
+      PotentialCopies potentialCopies = eE.getPotentialCopies();
+      if (potentialCopies != null) {
+        potentialCopies.execute(lb, ub, this::computeJob);
+      } else {
+        for (int key = lb; key <= ub; key++) {
+          computeJob(key, 0);
+        }
       }
-      myBuffer = resultBuffer[rank];
     }
 
-    @Override
-    public void run(int lb, int ub) {
-      for (int key = lb; key <= ub; key++) {
-        long time = -System.nanoTime();
-        Integer[] job = threeBodyEnergyMap.get(key);
-        int i = job[0];
-        int ri = job[1];
-        int j = job[2];
-        int rj = job[3];
-        int k = job[4];
-        int rk = job[5];
+    /**
+     * Compute one energy job.
+     *
+     * @param key The job key.
+     * @param copy The potential copy to use (0 for the original system).
+     */
+    private void computeJob(int key, int copy) {
+      long time = -System.nanoTime();
+      int n = 6 * key;
+      int i = threeBodyJobs[n];
+      int ri = threeBodyJobs[n + 1];
+      int j = threeBodyJobs[n + 2];
+      int rj = threeBodyJobs[n + 3];
+      int k = threeBodyJobs[n + 4];
+      int rk = threeBodyJobs[n + 5];
 
-        myBuffer.put(0, i);
-        myBuffer.put(1, ri);
-        myBuffer.put(2, j);
-        myBuffer.put(3, rj);
-        myBuffer.put(4, k);
-        myBuffer.put(5, rk);
-        myBuffer.put(6, 0.0);
+      // Initialize result.
+      double result = 0.0;
+      if ((!eR.check(i, ri) || !eR.check(j, rj) || !eR.check(k, rk) || !eR.check(i, ri, j, rj)
+          || !eR.check(i, ri, k, rk) || !eR.check(j, rj, k, rk))) {
 
-        // Initialize result.
-        if (i >= 0 && ri >= 0 && j >= 0 && rj >= 0 && k >= 0 && rk >= 0) {
-          if ((!eR.check(i, ri) || !eR.check(j, rj) || !eR.check(k, rk) || !eR.check(i, ri, j, rj)
-              || !eR.check(i, ri, k, rk) || !eR.check(j, rj, k, rk))) {
+        Residue residueI = residues[i];
+        Residue residueJ = residues[j];
+        Residue residueK = residues[k];
 
-            Residue residueI = residues[i];
-            Residue residueJ = residues[j];
-            Residue residueK = residues[k];
+        Rotamer[] rotI = residueI.getRotamers();
+        Rotamer[] rotJ = residueJ.getRotamers();
+        Rotamer[] rotK = residueK.getRotamers();
 
-            Rotamer[] rotI = residueI.getRotamers();
-            Rotamer[] rotJ = residueJ.getRotamers();
-            Rotamer[] rotK = residueK.getRotamers();
+        int indexI = allResiduesList.indexOf(residueI);
+        int indexJ = allResiduesList.indexOf(residueJ);
+        int indexK = allResiduesList.indexOf(residueK);
 
-            int indexI = allResiduesList.indexOf(residueI);
-            int indexJ = allResiduesList.indexOf(residueJ);
-            int indexK = allResiduesList.indexOf(residueK);
+        double rawDist = dM.getRawNBodyDistance(indexI, ri, indexJ, rj, indexK, rk);
+        double dIJ = dM.checkDistMatrix(indexI, ri, indexJ, rj);
+        double dIK = dM.checkDistMatrix(indexI, ri, indexK, rk);
+        double dJK = dM.checkDistMatrix(indexJ, rj, indexK, rk);
+        double minDist = min(min(dIJ, dIK), dJK);
 
-            double rawDist = dM.getRawNBodyDistance(indexI, ri, indexJ, rj, indexK, rk);
-            double dIJ = dM.checkDistMatrix(indexI, ri, indexJ, rj);
-            double dIK = dM.checkDistMatrix(indexI, ri, indexK, rk);
-            double dJK = dM.checkDistMatrix(indexJ, rj, indexK, rk);
-            double minDist = min(min(dIJ, dIK), dJK);
-
-            double resDist = dM.get3BodyResidueDistance(indexI, ri, indexJ, rj, indexK, rk);
-            String resDistString = "     large";
-            if (resDist < Double.MAX_VALUE) {
-              resDistString = format("%5.3f", resDist);
-            }
-
-            String distString = "     large";
-            if (rawDist < Double.MAX_VALUE) {
-              distString = format("%10.3f", rawDist);
-            }
-
-            double threeBodyEnergy;
-            if (minDist < superpositionThreshold) {
-              threeBodyEnergy = Double.NaN;
-              logger.info(format(
-                  " 3-Body %8s %-2d, %8s %-2d, %8s %-2d:\t    NaN      at %13.6f Ang (%s Ang by residue) < %5.3f Ang.",
-                  residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                  residueK.toString(rotK[rk]), rk, minDist, resDistString, superpositionThreshold));
-            } else if (dM.checkTriDistThreshold(indexI, ri, indexJ, rj, indexK, rk)) {
-              // Set the two-body energy to 0.0 for separation distances larger than the two-body
-              // cutoff.
-              threeBodyEnergy = 0.0;
-              time += System.nanoTime();
-              logger.fine(format(
-                  " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue) in %6.4f (sec).",
-                  residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                  residueK.toString(rotK[rk]), rk, rO.formatEnergy(threeBodyEnergy), distString,
-                  resDistString, time * 1.0e-9));
-            } else {
-              try {
-                threeBodyEnergy = eE.compute3BodyEnergy(residues, i, ri, j, rj, k, rk);
-                time += System.nanoTime();
-                logger.info(format(
-                    " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue) in %6.4f (sec).",
-                    residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                    residueK.toString(rotK[rk]), rk, rO.formatEnergy(threeBodyEnergy), distString,
-                    resDistString, time * 1.0e-9));
-              } catch (ArithmeticException ex) {
-                threeBodyEnergy = Double.NaN;
-                time += System.nanoTime();
-                logger.info(format(
-                    " 3-Body %8s %-2d, %8s %-2d, %8s %-2d:\t    NaN      at %s Ang (%s Ang by residue) in %6.4f (sec).",
-                    residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                    residueK.toString(rotK[rk]), rk, distString, resDistString, time * 1.0e-9));
-              }
-            }
-            myBuffer.put(6, threeBodyEnergy);
-          }
+        double resDist = dM.get3BodyResidueDistance(indexI, ri, indexJ, rj, indexK, rk);
+        String resDistString = "     large";
+        if (resDist < Double.MAX_VALUE) {
+          resDistString = format("%5.3f", resDist);
         }
 
-        // All to All communication
-        if (numProc > 1) {
-          try {
-            world.allGather(myBuffer, resultBuffer);
-          } catch (Exception e) {
-            logger.log(Level.SEVERE, " Exception communicating pair energies.", e);
-          }
+        String distString = "     large";
+        if (rawDist < Double.MAX_VALUE) {
+          distString = format("%10.3f", rawDist);
         }
 
-        // Process the three-body energy received from each process.
-        for (DoubleBuf doubleBuf : resultBuffer) {
-          int resI = (int) doubleBuf.get(0);
-          int rotI = (int) doubleBuf.get(1);
-          int resJ = (int) doubleBuf.get(2);
-          int rotJ = (int) doubleBuf.get(3);
-          int resK = (int) doubleBuf.get(4);
-          int rotK = (int) doubleBuf.get(5);
-          double energy = doubleBuf.get(6);
-          // Skip for padded result.
-          if (resI >= 0 && rotI >= 0 && resJ >= 0 && rotJ >= 0 && resK >= 0 && rotK >= 0) {
-            if (!Double.isFinite(energy)) {
-              logger.info(
-                  " Rotamer pair eliminated: " + resI + ", " + rotI + ", " + resJ + ", " + rotJ);
-              eR.eliminateRotamerPair(residues, resI, rotI, resJ, rotJ, false);
-            }
-            eE.set3Body(residues, resI, rotI, resJ, rotJ, resK, rotK, energy);
-            if (rank == 0 && writeEnergyRestart && printFiles) {
-              try {
-                energyWriter.append(
-                    format("Triple %d %d, %d %d, %d %d: %16.8f", resI, rotI, resJ, rotJ, resK, rotK,
-                        energy));
-                energyWriter.newLine();
-                energyWriter.flush();
-              } catch (IOException ex) {
-                logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
-              }
-            }
+        double threeBodyEnergy;
+        if (minDist < superpositionThreshold) {
+          threeBodyEnergy = Double.NaN;
+          logger.info(format(
+              " 3-Body %8s %-2d, %8s %-2d, %8s %-2d:\t    NaN      at %13.6f Ang (%s Ang by residue) < %5.3f Ang.",
+              residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+              residueK.toString(rotK[rk]), rk, minDist, resDistString, superpositionThreshold));
+        } else if (dM.checkTriDistThreshold(indexI, ri, indexJ, rj, indexK, rk)) {
+          // Set the two-body energy to 0.0 for separation distances larger than the two-body
+          // cutoff.
+          threeBodyEnergy = 0.0;
+          time += System.nanoTime();
+          logger.fine(format(
+              " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue) in %6.4f (sec).",
+              residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+              residueK.toString(rotK[rk]), rk, rO.formatEnergy(threeBodyEnergy), distString,
+              resDistString, time * 1.0e-9));
+        } else {
+          try {
+            threeBodyEnergy = eE.compute3BodyEnergy(residues, i, ri, j, rj, k, rk, copy);
+            time += System.nanoTime();
+            logger.info(format(
+                " 3-Body %8s %-2d, %8s %-2d, %8s %-2d: %s at %s Ang (%s Ang by residue) in %6.4f (sec).",
+                residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+                residueK.toString(rotK[rk]), rk, rO.formatEnergy(threeBodyEnergy), distString,
+                resDistString, time * 1.0e-9));
+          } catch (ArithmeticException ex) {
+            threeBodyEnergy = Double.NaN;
+            time += System.nanoTime();
+            logger.info(format(
+                " 3-Body %8s %-2d, %8s %-2d, %8s %-2d:\t    NaN      at %s Ang (%s Ang by residue) in %6.4f (sec).",
+                residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+                residueK.toString(rotK[rk]), rk, distString, resDistString, time * 1.0e-9));
           }
         }
+        result = threeBodyEnergy;
       }
+      process3BodyEnergy(i, ri, j, rj, k, rk, result);
+      resultBuffer.add(i, ri, j, rj, k, rk, result);
     }
 
     @Override
     public IntegerSchedule schedule() {
-      // The schedule must be fixed.
-      return IntegerSchedule.fixed();
+      return IntegerSchedule.dynamic(eE.getEnergyChunkSize(threeBodyJobs.length / 6, numProc));
     }
   }
 }
@@ -39,7 +39,6 @@ package ffx.algorithms.optimize.manybody;
 
 import static java.lang.String.format;
 
-import edu.rit.mp.DoubleBuf;
 import edu.rit.pj.Comm;
 import edu.rit.pj.IntegerSchedule;
 import edu.rit.pj.WorkerIntegerForLoop;
@@ -99,6 +98,9 @@ public class TwoBodyEnergyRegion extends WorkerRegion {
    */
   private final boolean printFiles;
 
+  /** Pair energies computed by this process. */
+  private final EnergyResultBuffer resultBuffer = new EnergyResultBuffer(5);
+
   private Set<Integer> keySet;
 
   public TwoBodyEnergyRegion(RotamerOptimization rotamerOptimization, DistanceMatrix dM,
@@ -129,6 +131,25 @@ public class TwoBodyEnergyRegion extends WorkerRegion {
 
   @Override
   public void finish() {
+    // Load the pair energies computed by the other processes.
+    if (numProc > 1) {
+      try {
+        double[][] results = resultBuffer.allGather(world);
+        for (int p = 0; p < numProc; p++) {
+          if (p == rank) {
+            continue;
+          }
+          double[] result = results[p];
+          for (int r = 0; r < result.length; r += 5) {
+            process2BodyEnergy((int) result[r], (int) result[r + 1], (int) result[r + 2],
+                (int) result[r + 3], result[r + 4]);
+          }
+        }
+      } catch (IOException e) {
+        logger.log(Level.SEVERE, " Exception communicating pair energies.", e);
+      }
+    }
+
     // Pre-Prune if pair-energy is Double.NaN.
     eR.prePrunePairs(residues);
 
@@ -173,157 +194,137 @@ public class TwoBodyEnergyRegion extends WorkerRegion {
 
   @Override
   public void start() {
-    int numPair = twoBodyEnergyMap.size();
-    int remainder = numPair % numProc;
-
-    // Set padded residue and rotamer to less than zero.
-    Integer[] padding = {-1, -1, -1, -1};
+    // Load the keySet of pair energies.
+    keySet = twoBodyEnergyMap.keySet();
+    resultBuffer.clear();
+  }
 
-    int padKey = numPair;
-    while (remainder != 0) {
-      twoBodyEnergyMap.put(padKey++, padding);
-      remainder = twoBodyEnergyMap.size() % numProc;
+  /**
+   * Store a pair energy and write it to the energy restart file.
+   *
+   * @param i The first residue index.
+   * @param ri The first rotamer index.
+   * @param j The second residue index.
+   * @param rj The second rotamer index.
+   * @param energy The pair energy.
+   */
+  private synchronized void process2BodyEnergy(int i, int ri, int j, int rj, double energy) {
+    if (!Double.isFinite(energy)) {
+      logger.info(" Rotamer pair eliminated: " + i + ", " + ri + ", " + j + ", " + rj);
+      eR.eliminateRotamerPair(residues, i, ri, j, rj, false);
     }
-
-    numPair = twoBodyEnergyMap.size();
-    if (numPair % numProc != 0) {
-      logger.severe(" Logic error padding pair energies.");
+    eE.set2Body(i, ri, j, rj, energy);
+    if (rank == 0 && writeEnergyRestart && printFiles) {
+      try {
+        EnergyRestartStore energyStore = rO.getEnergyRestartStore();
+        if (energyStore != null) {
+          energyStore.appendPair(i, ri, j, rj, energy);
+        } else if (energyWriter != null) {
+          energyWriter.append(format("Pair %d %d, %d %d: %16.8f", i, ri, j, rj, energy));
+          energyWriter.newLine();
+          energyWriter.flush();
+        }
+      } catch (IOException ex) {
+        logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
+      }
     }
-
-    // Load the keySet of pair energies.
-    keySet = twoBodyEnergyMap.keySet();
   }
 
+  /**
+   * Jobs are handed out dynamically in small chunks, and each result is stored as soon as it is
+   * computed. Results are only shared with the other processes when the region finishes.
+   */
   private class TwoBodyEnergyLoop extends WorkerIntegerForLoop {
 
-    final DoubleBuf[] resultBuffer;
-    final DoubleBuf myBuffer;
-
-    TwoBodyEnergyLoop() {
-      resultBuffer = new DoubleBuf[numProc];
-      for (int i = 0; i < numProc; i++) {
-        resultBuffer[i] = DoubleBuf.buffer(new double[5]);
+    @Override
+    public void run(int lb, int ub) throws Exception {
+      PotentialCopies potentialCopies = eE.getPotentialCopies();
+      if (potentialCopies != null) {
+        potentialCopies.execute(lb, ub, this::computeJob);
+      } else {
+        for (int key = lb; key <= ub; key++) {
+          computeJob(key, 0);
+        }
       }
-      myBuffer = resultBuffer[rank];
     }
 
-    @Override
-    public void run(int lb, int ub) {
-      for (int key = lb; key <= ub; key++) {
-        long time = -System.nanoTime();
-        Integer[] job = twoBodyEnergyMap.get(key);
-        int i = job[0];
-        int ri = job[1];
-        int j = job[2];
-        int rj = job[3];
-
-        myBuffer.put(0, i);
-        myBuffer.put(1, ri);
-        myBuffer.put(2, j);
-        myBuffer.put(3, rj);
-        myBuffer.put(4, 0.0);
+    /**
+     * Compute one energy job.
+     *
+     * @param key The job key.
+     * @param copy The potential copy to use (0 for the original system).
+     */
+    private void computeJob(int key, int copy) {
+      long time = -System.nanoTime();
+      Integer[] job = twoBodyEnergyMap.get(key);
+      int i = job[0];
+      int ri = job[1];
+      int j = job[2];
+      int rj = job[3];
 
-        // Initialize result.
-        if (i >= 0 && ri >= 0 && j >= 0 && rj >= 0) {
-          if (!eR.check(i, ri) || !eR.check(j, rj) || !eR.check(i, ri, j, rj)) {
-            Residue residueI = residues[i];
-            Residue residueJ = residues[j];
-            Rotamer[] rotI = residues[i].getRotamers();
-            Rotamer[] rotJ = residues[j].getRotamers();
-            int indexI = allResiduesList.indexOf(residueI);
-            int indexJ = allResiduesList.indexOf(residueJ);
-            double resDist = dM.getResidueDistance(indexI, ri, indexJ, rj);
-            String resDistString = "large";
-            if (resDist < Double.MAX_VALUE) {
-              resDistString = format("%5.3f", resDist);
-            }
-
-            double dist = dM.checkDistMatrix(indexI, ri, indexJ, rj);
-            String distString = "     large";
-            if (dist < Double.MAX_VALUE) {
-              distString = format("%10.3f", dist);
-            }
-
-            double twoBodyEnergy;
-            if (dist < superpositionThreshold) {
-              // Set the energy to NaN for superposed atoms.
-              twoBodyEnergy = Double.NaN;
-              logger.info(
-                  format(" Pair %8s %-2d, %8s %-2d:\t    NaN at %10.3f A (%s A by res) < %5.3f Ang",
-                      residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj, dist,
-                      resDist, superpositionThreshold));
-            } else if (dM.checkPairDistThreshold(indexI, ri, indexJ, rj)) {
-              // Set the two-body energy to 0.0 for separation distances larger than the two-body cutoff.
-              twoBodyEnergy = 0.0;
-              time += System.nanoTime();
-              logger.info(
-                  format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
-                      residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                      rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
-            } else {
-              try {
-                twoBodyEnergy = eE.compute2BodyEnergy(residues, i, ri, j, rj);
-                time += System.nanoTime();
-                logger.info(
-                    format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
-                        residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                        rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
-              } catch (EnergyException ex) {
-                twoBodyEnergy = ex.getEnergy();
-                time += System.nanoTime();
-                logger.info(
-                    format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
-                        residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
-                        rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
-              }
-            }
-            myBuffer.put(4, twoBodyEnergy);
-          }
+      // Initialize result.
+      double result = 0.0;
+      if (!eR.check(i, ri) || !eR.check(j, rj) || !eR.check(i, ri, j, rj)) {
+        Residue residueI = residues[i];
+        Residue residueJ = residues[j];
+        Rotamer[] rotI = residues[i].getRotamers();
+        Rotamer[] rotJ = residues[j].getRotamers();
+        int indexI = allResiduesList.indexOf(residueI);
+        int indexJ = allResiduesList.indexOf(residueJ);
+        double resDist = dM.getResidueDistance(indexI, ri, indexJ, rj);
+        String resDistString = "large";
+        if (resDist < Double.MAX_VALUE) {
+          resDistString = format("%5.3f", resDist);
         }
 
-        // All to All communication
-        if (numProc > 1) {
-          try {
-            world.allGather(myBuffer, resultBuffer);
-          } catch (Exception e) {
-            logger.log(Level.SEVERE, " Exception communicating pair energies.", e);
-          }
+        double dist = dM.checkDistMatrix(indexI, ri, indexJ, rj);
+        String distString = "     large";
+        if (dist < Double.MAX_VALUE) {
+          distString = format("%10.3f", dist);
         }
 
-        // Process the two-body energy received from each process.
-        for (DoubleBuf doubleBuf : resultBuffer) {
-          int resI = (int) doubleBuf.get(0);
-          int rotI = (int) doubleBuf.get(1);
-          int resJ = (int) doubleBuf.get(2);
-          int rotJ = (int) doubleBuf.get(3);
-          double energy = doubleBuf.get(4);
-          // Skip for padded result.
-          if (resI >= 0 && rotI >= 0 && resJ >= 0 && rotJ >= 0) {
-            if (!Double.isFinite(energy)) {
-              logger.info(
-                  " Rotamer pair eliminated: " + resI + ", " + rotI + ", " + resJ + ", " + rotJ);
-              eR.eliminateRotamerPair(residues, resI, rotI, resJ, rotJ, false);
-            }
-            eE.set2Body(resI, rotI, resJ, rotJ, energy);
-            if (rank == 0 && writeEnergyRestart && printFiles) {
-              try {
-                energyWriter.append(
-                    format("Pair %d %d, %d %d: %16.8f", resI, rotI, resJ, rotJ, energy));
-                energyWriter.newLine();
-                energyWriter.flush();
-              } catch (IOException ex) {
-                logger.log(Level.SEVERE, " Exception writing energy restart file.", ex);
-              }
-            }
+        double twoBodyEnergy;
+        if (dist < superpositionThreshold) {
+          // Set the energy to NaN for superposed atoms.
+          twoBodyEnergy = Double.NaN;
+          logger.info(
+              format(" Pair %8s %-2d, %8s %-2d:\t    NaN at %10.3f A (%s A by res) < %5.3f Ang",
+                  residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj, dist,
+                  resDist, superpositionThreshold));
+        } else if (dM.checkPairDistThreshold(indexI, ri, indexJ, rj)) {
+          // Set the two-body energy to 0.0 for separation distances larger than the two-body cutoff.
+          twoBodyEnergy = 0.0;
+          time += System.nanoTime();
+          logger.info(
+              format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
+                  residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+                  rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
+        } else {
+          try {
+            twoBodyEnergy = eE.compute2BodyEnergy(residues, i, ri, j, rj, copy);
+            time += System.nanoTime();
+            logger.info(
+                format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
+                    residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+                    rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
+          } catch (EnergyException ex) {
+            twoBodyEnergy = ex.getEnergy();
+            time += System.nanoTime();
+            logger.info(
+                format(" Pair %8s %-2d, %8s %-2d: %s at %s A (%s A by res) in %6.4f (sec).",
+                    residueI.toString(rotI[ri]), ri, residueJ.toString(rotJ[rj]), rj,
+                    rO.formatEnergy(twoBodyEnergy), distString, resDistString, time * 1.0e-9));
           }
         }
+        result = twoBodyEnergy;
       }
+      process2BodyEnergy(i, ri, j, rj, result);
+      resultBuffer.add(i, ri, j, rj, result);
     }
 
     @Override
     public IntegerSchedule schedule() {
-      // The schedule must be fixed.
-      return IntegerSchedule.fixed();
+      return IntegerSchedule.dynamic(eE.getEnergyChunkSize(keySet.size(), numProc));
     }
   }
 }
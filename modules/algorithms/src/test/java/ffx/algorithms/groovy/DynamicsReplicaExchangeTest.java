@@ -0,0 +1,156 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.groovy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import ffx.algorithms.dynamics.MolecularDynamics;
+import ffx.algorithms.dynamics.ReplicaExchange;
+import ffx.algorithms.misc.AlgorithmsTest;
+import ffx.numerics.Potential;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+/**
+ * Tests replica exchange molecular dynamics with all replicas hosted in a single process.
+ *
+ * @author Michael J. Schnieders
+ */
+public class DynamicsReplicaExchangeTest extends AlgorithmsTest {
+
+  @Test
+  public void testInProcessReplicas() throws IOException {
+    // Replica directories are written next to the structure, so work in a temporary directory.
+    Path directory = Files.createTempDirectory("DynamicsReplicaExchangeTest");
+    try {
+      File xyz = copyResource("acetamide.gk.xyz", directory);
+      copyResource("acetamide.gk.key", directory);
+
+      // Replica 1 continues from a restart file; replica 0 starts from the structure.
+      File replicaDirectory = directory.resolve("1").toFile();
+      assertTrue(replicaDirectory.mkdir());
+      File restart = copyResource("acetamide.gk.dyn", replicaDirectory.toPath());
+
+      String[] args = {
+          "-n", "10",
+          "-t", "298.15",
+          "-i", "VelocityVerlet",
+          "-b", "Bussi",
+          "-r", "0.001",
+          "-x",
+          "--nr", "2",
+          "--rs", "5",
+          xyz.getAbsolutePath()
+      };
+      binding.setVariable("args", args);
+
+      Dynamics dynamics = new Dynamics(binding).run();
+      algorithmsScript = dynamics;
+
+      // Replica 0 re-uses the active assembly and every replica potential can be destroyed.
+      List<Potential> potentials = dynamics.getPotentials();
+      assertEquals(2, potentials.size());
+      assertSame(dynamics.activeAssembly.getPotentialEnergy(), potentials.get(0));
+
+      MolecularDynamics[] replicas = dynamics.getReplicaDynamics();
+      assertNotNull(replicas);
+      assertEquals(2, replicas.length);
+      assertSame(dynamics.getMolecularDynamics(), replicas[0]);
+
+      // Each replica uses the restart file in its own directory.
+      File restart0 = directory.resolve("0").resolve("acetamide.gk.dyn").toFile();
+      assertEquals(restart0.getCanonicalPath(), replicas[0].getDynFile().getCanonicalPath());
+      assertEquals(restart.getCanonicalPath(), replicas[1].getDynFile().getCanonicalPath());
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+
+  /**
+   * With a flat temperature ladder every exchange is accepted, so after an odd number of cycles the
+   * two replicas have swapped places on the ladder.
+   */
+  @Test
+  public void testInProcessExchange() throws IOException {
+    Path directory = Files.createTempDirectory("DynamicsReplicaExchangeTest");
+    try {
+      File xyz = copyResource("acetamide.gk.xyz", directory);
+      copyResource("acetamide.gk.key", directory);
+
+      String[] args = {
+          "-n", "15",
+          "-t", "298.15",
+          "-i", "VelocityVerlet",
+          "-b", "Bussi",
+          "-r", "0.001",
+          "-x",
+          "-e", "0.0",
+          "--nr", "2",
+          "--rs", "5",
+          xyz.getAbsolutePath()
+      };
+      binding.setVariable("args", args);
+
+      Dynamics dynamics = new Dynamics(binding).run();
+      algorithmsScript = dynamics;
+
+      // Three cycles, each with one accepted exchange between temperatures 0 and 1.
+      ReplicaExchange replicaExchange = dynamics.getReplicaExchange();
+      assertNotNull(replicaExchange);
+      assertEquals(3, replicaExchange.getAcceptedExchanges());
+      assertEquals(1, replicaExchange.getTemperatureIndex(0));
+      assertEquals(0, replicaExchange.getTemperatureIndex(1));
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+
+  private File copyResource(String filename, Path directory) throws IOException {
+    File file = directory.resolve(filename).toFile();
+    FileUtils.copyFile(getResourceFile(filename), file);
+    return file;
+  }
+}
@@ -38,8 +38,14 @@
 package ffx.algorithms.groovy;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import ffx.algorithms.misc.AlgorithmsTest;
+import ffx.algorithms.optimize.manybody.EnergyRestartStore;
+import groovy.lang.Binding;
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
 /**
@@ -143,6 +149,38 @@ public class ManyBodyTest extends AlgorithmsTest {
     manyBody.getManyBodyOptions().getRestartFile().delete();
   }
 
+  /**
+   * Tests that dynamically scheduled many-body energies computed one job at a time reproduce the
+   * global optimization results obtained with the original static schedule.
+   */
+  @Test
+  public void testManyBodyGlobalSmallChunks() {
+    // This property will be cleared automatically after the test.
+    System.setProperty("ro-energyChunkSize", "1");
+
+    // Set-up the input arguments for the script.
+    String[] args = {
+        "-a", "2", "-L", "2", "--tC", "2", getResourcePath("5awl.pdb")
+    };
+    binding.setVariable("args", args);
+    binding.setVariable("baseDir", registerTemporaryDirectory().toFile());
+
+    // Evaluate the script.
+    ManyBody manyBody = new ManyBody(binding).run();
+    algorithmsScript = manyBody;
+
+    double expectedTotalPotential = -221.0842558097416;
+    double actualTotalPotential = manyBody.getPotential().getTotalEnergy();
+    assertEquals(expectedTotalPotential, actualTotalPotential, 1E-5);
+
+    double expectedApproximateEnergy = -212.4798252638091;
+    double actualApproximateEnergy = manyBody.getManyBodyOptions().getApproximate();
+    assertEquals(expectedApproximateEnergy, actualApproximateEnergy, 1E-5);
+
+    // Delete restart file.
+    manyBody.getManyBodyOptions().getRestartFile().delete();
+  }
+
   @Test
   public void testManyBodyHelp() {
     // Set-up the input arguments for the Biotype script.
@@ -223,6 +261,54 @@ public class ManyBodyTest extends AlgorithmsTest {
     assertEquals(expectedApproximateEnergy, actualApproximateEnergy, 1E-5);
   }
 
+  /**
+   * Tests that energies saved to a binary energy restart store are reloaded through the restart
+   * option and reproduce the global optimization results.
+   */
+  @Test
+  public void testManyBodyBinaryRestart() throws IOException {
+    // The restart store is written next to the structure, so work in a temporary directory.
+    File directory = registerTemporaryDirectory().toFile();
+    File pdb = new File(directory, "5awl.pdb");
+    FileUtils.copyFile(getResourceFile("5awl.pdb"), pdb);
+    FileUtils.copyFile(getResourceFile("5awl.properties"), new File(directory, "5awl.properties"));
+
+    // Compute the energies and save them to 5awl.brestart.
+    System.setProperty("ro-binaryEnergyRestart", "true");
+    String[] args = {"-a", "2", "-L", "2", "--tC", "2", pdb.getAbsolutePath()};
+    binding.setVariable("args", args);
+    binding.setVariable("baseDir", directory);
+    ManyBody manyBody = new ManyBody(binding).run();
+    File restart = manyBody.getManyBodyOptions().getRestartFile();
+    manyBody.destroyPotentials();
+    assertEquals("5awl.brestart", restart.getName());
+    assertTrue(EnergyRestartStore.isEnergyRestartStore(restart));
+    long length = restart.length();
+
+    // Reload the energies without the property, so the format is taken from the restart file.
+    System.clearProperty("ro-binaryEnergyRestart");
+    FileUtils.copyFile(getResourceFile("5awl.pdb"), pdb);
+    binding = new Binding();
+    args = new String[] {"-a", "2", "-L", "2", "--tC", "2", "--eR", restart.getAbsolutePath(),
+        pdb.getAbsolutePath()};
+    binding.setVariable("args", args);
+    binding.setVariable("baseDir", directory);
+    manyBody = new ManyBody(binding).run();
+    algorithmsScript = manyBody;
+
+    double expectedTotalPotential = -221.0842558097416;
+    double actualTotalPotential = manyBody.getPotential().getTotalEnergy();
+    assertEquals(expectedTotalPotential, actualTotalPotential, 1E-5);
+
+    double expectedApproximateEnergy = -212.4798252638091;
+    double actualApproximateEnergy = manyBody.getManyBodyOptions().getApproximate();
+    assertEquals(expectedApproximateEnergy, actualApproximateEnergy, 1E-5);
+
+    // Every energy was loaded from the store, so nothing was appended to it.
+    assertTrue(EnergyRestartStore.isEnergyRestartStore(restart));
+    assertEquals(length, restart.length());
+  }
+
   @Test
   public void testManyBodyTitration() {
     // Set-up the input arguments for the script.
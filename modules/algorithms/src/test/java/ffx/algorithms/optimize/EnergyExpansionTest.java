@@ -0,0 +1,204 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.algorithms.misc.AlgorithmsTest;
+import ffx.algorithms.optimize.manybody.EnergyExpansion;
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Polymer;
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.Rotamer;
+import ffx.potential.bonded.RotamerLibrary;
+import ffx.potential.utils.PotentialsUtils;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Test that alternative ways of computing the many-body energy expansion reproduce the self and
+ * pair energies of the reference calculation.
+ *
+ * @author Michael J. Schnieders
+ */
+public class EnergyExpansionTest extends AlgorithmsTest {
+
+  /** Number of chignolin residues to optimize. */
+  private static final int N_RESIDUES = 4;
+  private static final double TOLERANCE = 1.0e-6;
+
+  /**
+   * Self and pair energies computed concurrently with a potential copy must equal those computed
+   * serially by the original system.
+   */
+  @Test
+  public void testPotentialCopies() {
+    Expansion serial = computeExpansion(1);
+    Expansion copies = computeExpansion(2);
+    compare(serial, copies);
+  }
+
+  /**
+   * Pair energies computed directly from the interactions between two residues must equal those
+   * from the subtraction scheme (the energy of the pair minus both self energies and the backbone).
+   */
+  @Test
+  public void testDirectPairEnergies() {
+    // Direct pair energies require a pairwise additive potential.
+    System.setProperty("polarization", "none");
+    System.setProperty("ro-directPairEnergies", "false");
+    Expansion subtraction = computeExpansion(1);
+    System.setProperty("ro-directPairEnergies", "true");
+    Expansion direct = computeExpansion(1);
+    assertTrue(" The potential should be pairwise additive.", direct.pairwiseAdditive);
+    compare(subtraction, direct);
+  }
+
+  /**
+   * Compare two energy expansions.
+   *
+   * @param expected The reference expansion.
+   * @param actual The expansion to test.
+   */
+  private static void compare(Expansion expected, Expansion actual) {
+    int nRes = expected.self.length;
+    assertEquals(nRes, actual.self.length);
+    for (int i = 0; i < nRes; i++) {
+      int nRotI = expected.self[i].length;
+      assertEquals(nRotI, actual.self[i].length);
+      for (int ri = 0; ri < nRotI; ri++) {
+        assertEquals(format(" Self energy (%d,%d)", i, ri), expected.self[i][ri],
+            actual.self[i][ri], TOLERANCE);
+        for (int j = i + 1; j < nRes; j++) {
+          int nRotJ = expected.self[j].length;
+          for (int rj = 0; rj < nRotJ; rj++) {
+            assertEquals(format(" Pair energy (%d,%d) (%d,%d)", i, ri, j, rj),
+                expected.pair[i][ri][j][rj], actual.pair[i][ri][j][rj], TOLERANCE);
+          }
+        }
+      }
+    }
+    assertEquals(" Optimized energy", expected.energy, actual.energy, TOLERANCE);
+  }
+
+  /**
+   * Compute the self and pair energies of the first chignolin residues without pruning.
+   *
+   * @param nCopies The number of systems used to compute energies (1 for serial).
+   * @return The energy expansion.
+   */
+  private Expansion computeExpansion(int nCopies) {
+    String structure = getResourcePath("5awl.pdb");
+    PotentialsUtils potentialUtils = new PotentialsUtils();
+    MolecularAssembly molecularAssembly = potentialUtils.openQuietly(structure);
+    ForceFieldEnergy forceFieldEnergy = molecularAssembly.getPotentialEnergy();
+
+    RotamerLibrary rLib = new RotamerLibrary(true);
+    List<Residue> residueList = new ArrayList<>();
+    Polymer[] polymers = molecularAssembly.getChains();
+    List<Residue> residues = polymers[0].getResidues();
+    for (int i = 0; i < N_RESIDUES; i++) {
+      Residue residue = residues.get(i);
+      Rotamer[] rotamers = residue.setRotamers(rLib);
+      if (rotamers != null) {
+        if (rotamers.length == 1) {
+          RotamerLibrary.applyRotamer(residue, rotamers[0]);
+        }
+        residueList.add(residue);
+      }
+    }
+
+    RotamerOptimization rotamerOptimization =
+        new RotamerOptimization(molecularAssembly, forceFieldEnergy, null);
+    rotamerOptimization.setRotamerLibrary(rLib);
+    rotamerOptimization.setThreeBodyEnergy(false);
+    rotamerOptimization.setPruning(0);
+    rotamerOptimization.setWriteEnergyRestart(false);
+    rotamerOptimization.setResidues(residueList);
+    if (nCopies > 1) {
+      MolecularAssembly[] copies = new MolecularAssembly[nCopies - 1];
+      for (int i = 0; i < nCopies - 1; i++) {
+        copies[i] = potentialUtils.openQuietly(structure);
+      }
+      rotamerOptimization.setPotentialCopies(copies);
+    }
+
+    Expansion expansion = new Expansion();
+    expansion.pairwiseAdditive = forceFieldEnergy.isPairwiseAdditive();
+    try {
+      expansion.energy = rotamerOptimization.optimize(RotamerOptimization.Algorithm.ALL);
+      EnergyExpansion eE = rotamerOptimization.getEnergyExpansion();
+      int nRes = residueList.size();
+      expansion.self = new double[nRes][];
+      expansion.pair = new double[nRes][][][];
+      for (int i = 0; i < nRes; i++) {
+        int nRotI = residueList.get(i).getRotamers().length;
+        expansion.self[i] = new double[nRotI];
+        expansion.pair[i] = new double[nRotI][nRes][];
+        for (int ri = 0; ri < nRotI; ri++) {
+          expansion.self[i][ri] = eE.getSelf(i, ri);
+          for (int j = i + 1; j < nRes; j++) {
+            int nRotJ = residueList.get(j).getRotamers().length;
+            expansion.pair[i][ri][j] = new double[nRotJ];
+            for (int rj = 0; rj < nRotJ; rj++) {
+              expansion.pair[i][ri][j][rj] = eE.get2Body(i, ri, j, rj);
+            }
+          }
+        }
+      }
+    } finally {
+      // Destroy the potential copies and the original system.
+      rotamerOptimization.setPotentialCopies(null);
+      forceFieldEnergy.destroy();
+    }
+    return expansion;
+  }
+
+  /** Self and pair energies, and the optimized energy. */
+  private static class Expansion {
+
+    boolean pairwiseAdditive;
+    double energy;
+    double[][] self;
+    double[][][][] pair;
+  }
+}
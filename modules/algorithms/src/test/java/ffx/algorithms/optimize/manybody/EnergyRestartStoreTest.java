@@ -0,0 +1,218 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ffx.algorithms.misc.AlgorithmsTest;
+import ffx.algorithms.optimize.manybody.EnergyRestartStore.Entries;
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.Residue.ResidueType;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test writing and reloading the binary energy restart store.
+ *
+ * @author Michael J. Schnieders
+ */
+public class EnergyRestartStoreTest extends AlgorithmsTest {
+
+  private static final double TWO_BODY_CUTOFF = 2.0;
+  private static final double THREE_BODY_CUTOFF = 5.0;
+
+  private List<Residue> residues;
+  private File file;
+
+  @Before
+  public void before() {
+    residues = new ArrayList<>();
+    residues.add(new Residue("LEU", 1, ResidueType.AA));
+    residues.add(new Residue("PHE", 2, ResidueType.AA));
+    residues.add(new Residue("TRP", 3, ResidueType.AA));
+    file = new File(registerTemporaryDirectory().toFile(), "energy.restart");
+  }
+
+  /** Self, 2-body and 3-body records and box markers must survive a round trip. */
+  @Test
+  public void testRoundTrip() throws IOException {
+    try (EnergyRestartStore store = open()) {
+      store.appendSelf(0, 1, -1.25);
+      store.appendBox(0, new int[] {0, 0, 0});
+      store.appendSelf(1, 2, 3.5);
+      store.appendPair(0, 1, 1, 2, -0.75);
+      store.appendTriple(0, 1, 1, 2, 2, 3, 0.125);
+      store.appendBox(1, new int[] {1, 0, 1});
+      store.appendSelf(2, 0, 7.0);
+      store.appendPair(1, 0, 2, 4, 2.5);
+    }
+    assertTrue(EnergyRestartStore.isEnergyRestartStore(file));
+
+    // Without a box, every energy is loaded in the order it was written.
+    Entries[] entries = load(-1, null);
+    assertEquals(3, entries[0].size());
+    assertEquals(2, entries[1].size());
+    assertEquals(1, entries[2].size());
+    assertEntry(entries[0], 0, -1.25, 0, 1);
+    assertEntry(entries[0], 1, 3.5, 1, 2);
+    assertEntry(entries[0], 2, 7.0, 2, 0);
+    assertEntry(entries[1], 0, -0.75, 0, 1, 1, 2);
+    assertEntry(entries[1], 1, 2.5, 1, 0, 2, 4);
+    assertEntry(entries[2], 0, 0.125, 0, 1, 1, 2, 2, 3);
+
+    // Only the records that follow a box marker belong to that box.
+    entries = load(0, new int[] {0, 0, 0});
+    assertEquals(1, entries[0].size());
+    assertEquals(1, entries[1].size());
+    assertEquals(1, entries[2].size());
+    assertEntry(entries[0], 0, 3.5, 1, 2);
+
+    entries = load(1, new int[] {1, 0, 1});
+    assertEquals(1, entries[0].size());
+    assertEquals(1, entries[1].size());
+    assertTrue(entries[2].isEmpty());
+    assertEntry(entries[0], 0, 7.0, 2, 0);
+    assertEntry(entries[1], 0, 2.5, 1, 0, 2, 4);
+
+    // A box that was not written is not found.
+    assertNull(load(1, new int[] {0, 0, 0}));
+    assertNull(load(2, new int[] {1, 0, 1}));
+  }
+
+  /**
+   * A record left incomplete at the end of the file must be skipped on reload and overwritten by
+   * the next append.
+   */
+  @Test
+  public void testTruncatedRecord() throws IOException {
+    try (EnergyRestartStore store = open()) {
+      store.appendSelf(0, 0, 1.0);
+      store.appendSelf(0, 1, 2.0);
+    }
+    // Remove part of the last record to mimic an interrupted run.
+    long length = file.length();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      raf.setLength(length - 10);
+    }
+
+    Entries[] entries = load(-1, null);
+    assertEquals(1, entries[0].size());
+    assertEntry(entries[0], 0, 1.0, 0, 0);
+
+    try (EnergyRestartStore store = open()) {
+      store.appendSelf(0, 2, 3.0);
+    }
+    assertEquals(length, file.length());
+
+    entries = load(-1, null);
+    assertEquals(2, entries[0].size());
+    assertEntry(entries[0], 0, 1.0, 0, 0);
+    assertEntry(entries[0], 1, 3.0, 0, 2);
+  }
+
+  /**
+   * A store written with different cutoffs must be reopened for appending, as it is reloaded, while
+   * a store written for different residues is rejected.
+   */
+  @Test
+  public void testDifferentCutoffs() throws IOException {
+    try (EnergyRestartStore store = open()) {
+      store.appendSelf(0, 0, 1.0);
+    }
+    try (EnergyRestartStore store = EnergyRestartStore.open(file, residues, 1.5, 1.5)) {
+      store.appendSelf(1, 0, 2.0);
+    }
+    Entries[] entries = EnergyRestartStore.load(file, residues, 1.5, 1.5, -1, null);
+    assertEquals(2, entries[0].size());
+    assertEntry(entries[0], 0, 1.0, 0, 0);
+    assertEntry(entries[0], 1, 2.0, 1, 0);
+
+    residues.remove(2);
+    try (EnergyRestartStore store = open()) {
+      fail(" Expected an exception for a store written for different residues.");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  /**
+   * Open the energy restart store for the test residues.
+   *
+   * @return The energy restart store.
+   * @throws IOException If the store cannot be opened.
+   */
+  private EnergyRestartStore open() throws IOException {
+    return EnergyRestartStore.open(file, residues, TWO_BODY_CUTOFF, THREE_BODY_CUTOFF);
+  }
+
+  /**
+   * Load the energies of the energy restart store.
+   *
+   * @param box The box to load (or -1 to load all energies).
+   * @param cellIndices The cell indices of the box.
+   * @return The self, 2-body and 3-body energies.
+   * @throws IOException If the store cannot be read.
+   */
+  private Entries[] load(int box, int[] cellIndices) throws IOException {
+    return EnergyRestartStore.load(file, residues, TWO_BODY_CUTOFF, THREE_BODY_CUTOFF, box,
+        cellIndices);
+  }
+
+  /**
+   * Check the energy and indices of an entry.
+   *
+   * @param entries The entries.
+   * @param entry The entry to check.
+   * @param energy The expected energy.
+   * @param indices The expected residue and rotamer indices.
+   */
+  private static void assertEntry(Entries entries, int entry, double energy, int... indices) {
+    assertEquals(energy, entries.getEnergy(entry), 0.0);
+    for (int n = 0; n < indices.length; n++) {
+      assertEquals(indices[n], entries.getIndex(entry, n));
+    }
+  }
+}
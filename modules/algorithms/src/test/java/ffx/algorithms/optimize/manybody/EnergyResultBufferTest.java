@@ -0,0 +1,183 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import edu.rit.mp.ChannelGroup;
+import edu.rit.pj.Comm;
+import edu.rit.util.PrintStreamLogger;
+import ffx.algorithms.misc.AlgorithmsTest;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Constructor;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Test sharing many-body energy results between processes.
+ *
+ * @author Michael J. Schnieders
+ */
+public class EnergyResultBufferTest extends AlgorithmsTest {
+
+  /** Number of values in each result (i, ri, j, rj, energy). */
+  private static final int WIDTH = 5;
+
+  /** A single process receives its own results, and clear removes them. */
+  @Test
+  public void testAllGatherSingleProcess() throws Exception {
+    Comm world = Comm.world();
+    assertEquals(1, world.size());
+    EnergyResultBuffer buffer = new EnergyResultBuffer(WIDTH);
+    for (int n = 0; n < 3; n++) {
+      buffer.add(result(0, n));
+    }
+    double[][] all = buffer.allGather(world);
+    assertEquals(1, all.length);
+    assertArrayEquals(expected(0, 3), all[0], 0.0);
+
+    buffer.clear();
+    all = buffer.allGather(world);
+    assertEquals(0, all[0].length);
+  }
+
+  /**
+   * Three processes connected over the loopback interface each receive the results of every
+   * process. Rank 0 has no results, and rank 2 has more results than the initial capacity.
+   */
+  @Test
+  public void testAllGatherMultipleProcesses() throws Exception {
+    int[] counts = {0, 3, 100};
+    int numProc = counts.length;
+    ChannelGroup[] channelGroups = new ChannelGroup[numProc];
+    Comm[] comms = createComms(channelGroups);
+    ExecutorService executor = Executors.newFixedThreadPool(numProc);
+    try {
+      List<Future<double[][]>> futures = new ArrayList<>();
+      for (int rank = 0; rank < numProc; rank++) {
+        Comm comm = comms[rank];
+        int count = counts[rank];
+        futures.add(executor.submit(() -> {
+          EnergyResultBuffer buffer = new EnergyResultBuffer(WIDTH);
+          for (int n = 0; n < count; n++) {
+            buffer.add(result(comm.rank(), n));
+          }
+          return buffer.allGather(comm);
+        }));
+      }
+      for (int rank = 0; rank < numProc; rank++) {
+        double[][] all = futures.get(rank).get(60, TimeUnit.SECONDS);
+        assertEquals(numProc, all.length);
+        for (int i = 0; i < numProc; i++) {
+          assertArrayEquals(" Results of rank " + i + " received by rank " + rank,
+              expected(i, counts[i]), all[i], 0.0);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      for (ChannelGroup channelGroup : channelGroups) {
+        channelGroup.close();
+      }
+    }
+  }
+
+  /**
+   * Create communicators for processes that listen on the loopback interface, as Comm.init does
+   * for processes on different nodes.
+   *
+   * @param channelGroups Filled with the channel group of each rank, which must be closed.
+   * @return A communicator for each rank.
+   * @throws Exception If a communicator could not be created.
+   */
+  private static Comm[] createComms(ChannelGroup[] channelGroups) throws Exception {
+    int size = channelGroups.length;
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    InetSocketAddress[] addresses = new InetSocketAddress[size];
+    // Discard the messages logged when the listening sockets are closed.
+    PrintStreamLogger quiet =
+        new PrintStreamLogger(new PrintStream(OutputStream.nullOutputStream()));
+    for (int rank = 0; rank < size; rank++) {
+      channelGroups[rank] = new ChannelGroup(new InetSocketAddress(loopback, 0), quiet);
+      addresses[rank] = channelGroups[rank].listenAddress();
+    }
+    Constructor<Comm> constructor = Comm.class.getDeclaredConstructor(int.class, int.class,
+        String.class, ChannelGroup.class, InetSocketAddress[].class);
+    constructor.setAccessible(true);
+    Comm[] comms = new Comm[size];
+    for (int rank = 0; rank < size; rank++) {
+      comms[rank] = constructor.newInstance(size, rank, loopback.getHostName(), channelGroups[rank],
+          addresses);
+    }
+    return comms;
+  }
+
+  /**
+   * A result that identifies the process and job that computed it.
+   *
+   * @param rank The rank of the process.
+   * @param n The index of the result.
+   * @return The result.
+   */
+  private static double[] result(int rank, int n) {
+    return new double[] {rank, n, n + 1, n + 2, -0.5 * n - rank};
+  }
+
+  /**
+   * The flattened results of a process.
+   *
+   * @param rank The rank of the process.
+   * @param count The number of results.
+   * @return The results.
+   */
+  private static double[] expected(int rank, int count) {
+    double[] expected = new double[count * WIDTH];
+    for (int n = 0; n < count; n++) {
+      System.arraycopy(result(rank, n), 0, expected, n * WIDTH, WIDTH);
+    }
+    return expected;
+  }
+}
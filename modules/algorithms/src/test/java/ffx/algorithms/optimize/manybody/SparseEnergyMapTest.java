@@ -0,0 +1,191 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.algorithms.optimize.manybody;
+
+import static ffx.algorithms.optimize.manybody.SparseEnergyMap.MAX_INDEX;
+import static ffx.algorithms.optimize.manybody.SparseEnergyMap.pack;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import ffx.algorithms.misc.AlgorithmsTest;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Test the open addressing map used for sparse many-body energies.
+ *
+ * @author Michael J. Schnieders
+ */
+public class SparseEnergyMapTest extends AlgorithmsTest {
+
+  /** Stored energies are returned, overwritten and absent keys return zero. */
+  @Test
+  public void testPutGet() {
+    SparseEnergyMap map = new SparseEnergyMap(4);
+    long key = pack(1, 2, 3);
+    assertFalse(map.contains(key));
+    assertEquals(0.0, map.get(key), 0.0);
+
+    map.put(key, -1.5);
+    assertTrue(map.contains(key));
+    assertEquals(-1.5, map.get(key), 0.0);
+    assertEquals(1, map.size());
+
+    // Overwriting an energy does not add an entry.
+    map.put(key, 2.5);
+    assertEquals(2.5, map.get(key), 0.0);
+    assertEquals(1, map.size());
+
+    // An energy of zero is still present.
+    long zero = pack(3, 2, 1);
+    map.put(zero, 0.0);
+    assertTrue(map.contains(zero));
+    assertEquals(2, map.size());
+    assertFalse(map.contains(pack(1, 2, 4)));
+  }
+
+  /** Growing the table well beyond the expected size keeps every entry. */
+  @Test
+  public void testResize() {
+    SparseEnergyMap map = new SparseEnergyMap(1);
+    int n = 50;
+    for (int a = 0; a < n; a++) {
+      for (int b = 0; b < n; b++) {
+        map.put(pack(a, b, a + b), energy(a, b));
+      }
+    }
+    assertEquals(n * n, map.size());
+    for (int a = 0; a < n; a++) {
+      for (int b = 0; b < n; b++) {
+        long key = pack(a, b, a + b);
+        assertTrue(map.contains(key));
+        assertEquals(energy(a, b), map.get(key), 0.0);
+        assertFalse(map.contains(pack(a, b, a + b + 1)));
+      }
+    }
+  }
+
+  /** Clearing removes every entry and the map can be reused. */
+  @Test
+  public void testClear() {
+    SparseEnergyMap map = new SparseEnergyMap(8);
+    for (int a = 0; a < 100; a++) {
+      map.put(pack(a, 0, 0), a);
+    }
+    assertEquals(100, map.size());
+    map.clear(8);
+    assertEquals(0, map.size());
+    for (int a = 0; a < 100; a++) {
+      assertFalse(map.contains(pack(a, 0, 0)));
+      assertEquals(0.0, map.get(pack(a, 0, 0)), 0.0);
+    }
+    map.put(pack(7, 0, 0), 3.0);
+    assertEquals(1, map.size());
+    assertEquals(3.0, map.get(pack(7, 0, 0)), 0.0);
+  }
+
+  /** Packed keys are unique and non-negative, and indices out of range are rejected. */
+  @Test
+  public void testPack() {
+    int[] indices = {0, 1, 2, MAX_INDEX - 1, MAX_INDEX};
+    Set<Long> keys = new HashSet<>();
+    for (int a : indices) {
+      for (int b : indices) {
+        for (int c : indices) {
+          long key = pack(a, b, c);
+          assertTrue(key >= 0);
+          assertTrue(keys.add(key));
+        }
+      }
+    }
+    assertNotEquals(pack(0, 0, MAX_INDEX), pack(0, 1, 0));
+
+    int[][] invalid = {{-1, 0, 0}, {0, -1, 0}, {0, 0, -1}, {MAX_INDEX + 1, 0, 0},
+        {0, MAX_INDEX + 1, 0}, {0, 0, MAX_INDEX + 1}, {Integer.MIN_VALUE, 0, 0}};
+    for (int[] index : invalid) {
+      try {
+        pack(index[0], index[1], index[2]);
+        fail(" Expected an exception for indices " + index[0] + ", " + index[1] + ", " + index[2]);
+      } catch (ArrayIndexOutOfBoundsException e) {
+        // Expected.
+      }
+    }
+  }
+
+  /** A reader that finds a key while a writer is storing entries also sees its energy. */
+  @Test
+  public void testConcurrentRead() throws InterruptedException {
+    SparseEnergyMap map = new SparseEnergyMap(1);
+    int n = 200;
+    Thread writer = new Thread(() -> {
+      for (int a = 0; a < n; a++) {
+        for (int b = 0; b < n; b++) {
+          map.put(pack(a, b, 0), energy(a, b));
+        }
+      }
+    });
+    writer.start();
+    int mismatches = 0;
+    while (writer.isAlive()) {
+      for (int a = 0; a < n; a++) {
+        long key = pack(a, a, 0);
+        if (map.contains(key) && map.get(key) != energy(a, a)) {
+          mismatches++;
+        }
+      }
+    }
+    writer.join();
+    assertEquals(0, mismatches);
+    assertEquals(n * n, map.size());
+  }
+
+  /**
+   * A distinct, non-zero energy for a pair of indices.
+   *
+   * @param a The first index.
+   * @param b The second index.
+   * @return The energy.
+   */
+  private static double energy(int a, int b) {
+    return 1.0 + a + 1.0e-3 * b;
+  }
+}
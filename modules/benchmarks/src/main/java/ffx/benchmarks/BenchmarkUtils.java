@@ -0,0 +1,129 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.benchmarks;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.utils.PotentialsUtils;
+
+import java.io.File;
+
+import static java.lang.String.format;
+
+/**
+ * Utilities shared by the JMH benchmarks to load the example structures bundled with Force Field X.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public final class BenchmarkUtils {
+
+  /**
+   * The System property that specifies the location of the examples directory.
+   */
+  public static final String EXAMPLES_PROPERTY = "ffx.examples";
+
+  /**
+   * Default locations of the examples directory relative to the working directory.
+   */
+  private static final String[] EXAMPLES_DIRECTORIES = {"examples", "../../examples"};
+
+  private BenchmarkUtils() {
+  }
+
+  /**
+   * Locate an example structure.
+   *
+   * @param filename The name of a file in the examples directory.
+   * @return The example file.
+   */
+  public static File getExample(String filename) {
+    String examples = System.getProperty(EXAMPLES_PROPERTY);
+    if (examples != null) {
+      File file = new File(examples, filename);
+      if (file.exists()) {
+        return file;
+      }
+    } else {
+      for (String directory : EXAMPLES_DIRECTORIES) {
+        File file = new File(directory, filename);
+        if (file.exists()) {
+          return file;
+        }
+      }
+    }
+    throw new IllegalArgumentException(format(" Example %s was not found (set -D%s to the examples directory).",
+        filename, EXAMPLES_PROPERTY));
+  }
+
+  /**
+   * Open an example structure and create its ForceFieldEnergy using the requested number of threads.
+   *
+   * @param filename The name of a file in the examples directory.
+   * @param nThreads The number of threads for the Parallel Java team.
+   * @param properties Optional key/value pairs of force field properties (e.g. "scf-algorithm", "CG").
+   * @return The MolecularAssembly, whose potential is a ForceFieldEnergy.
+   */
+  public static MolecularAssembly openExample(String filename, int nThreads, String... properties) {
+    System.setProperty("pj.nt", Integer.toString(nThreads));
+    for (int i = 0; i + 1 < properties.length; i += 2) {
+      System.setProperty(properties[i], properties[i + 1]);
+    }
+    PotentialsUtils potentialsUtils = new PotentialsUtils();
+    MolecularAssembly molecularAssembly = potentialsUtils.open(getExample(filename).getAbsolutePath());
+    for (int i = 0; i + 1 < properties.length; i += 2) {
+      System.clearProperty(properties[i]);
+    }
+    return molecularAssembly;
+  }
+
+  /**
+   * Destroy the potential of an assembly opened by {@link #openExample(String, int, String...)}.
+   *
+   * @param molecularAssembly The MolecularAssembly.
+   */
+  public static void close(MolecularAssembly molecularAssembly) {
+    if (molecularAssembly == null) {
+      return;
+    }
+    ForceFieldEnergy forceFieldEnergy = molecularAssembly.getPotentialEnergy();
+    if (forceFieldEnergy != null) {
+      forceFieldEnergy.destroy();
+    }
+  }
+}
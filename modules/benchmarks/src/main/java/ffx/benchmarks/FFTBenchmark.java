@@ -0,0 +1,147 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.benchmarks;
+
+import edu.rit.pj.ParallelTeam;
+import ffx.numerics.fft.Complex;
+import ffx.numerics.fft.Complex3DParallel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the 1D mixed radix FFT and the parallel 3D FFT used by particle mesh Ewald.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FFTBenchmark {
+
+  /**
+   * The FFT dimension (a mix of powers of 2, 3 and 5, plus a factor of 7).
+   */
+  @Param({"64", "80", "90", "96", "120", "128", "144", "168"})
+  public int n;
+
+  /**
+   * The number of threads for the 3D FFT.
+   */
+  @Param({"1", "8"})
+  public int threads;
+
+  private Complex complex;
+  private double[] data1D;
+  private ParallelTeam parallelTeam;
+  private Complex3DParallel complex3D;
+  private double[] data3D;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(1);
+    complex = new Complex(n);
+    data1D = new double[2 * n];
+    for (int i = 0; i < data1D.length; i++) {
+      data1D[i] = random.nextDouble();
+    }
+    parallelTeam = new ParallelTeam(threads);
+    complex3D = new Complex3DParallel(n, n, n, parallelTeam);
+    data3D = new double[2 * n * n * n];
+    for (int i = 0; i < data3D.length; i++) {
+      data3D[i] = random.nextDouble();
+    }
+    double[] recip = new double[n * n * n];
+    for (int i = 0; i < recip.length; i++) {
+      recip[i] = random.nextDouble();
+    }
+    complex3D.setRecip(recip);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    parallelTeam.shutdown();
+  }
+
+  @Benchmark
+  public double[] fft1D() {
+    complex.fft(data1D, 0, 2);
+    return data1D;
+  }
+
+  @Benchmark
+  public double[] fft3D() {
+    complex3D.fft(data3D);
+    return data3D;
+  }
+
+  @Benchmark
+  public double[] convolution3D() {
+    complex3D.convolution(data3D);
+    return data3D;
+  }
+
+  @Benchmark
+  public double[] realFFT3D() {
+    complex3D.realFFT(data3D);
+    return data3D;
+  }
+
+  @Benchmark
+  public double[] realConvolution3D() {
+    complex3D.realConvolution(data3D);
+    return data3D;
+  }
+}
@@ -0,0 +1,107 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.benchmarks;
+
+import ffx.numerics.estimator.MultistateBennettAcceptanceRatio;
+import ffx.numerics.estimator.MultistateBennettAcceptanceRatio.HarmonicOscillatorsTestCase;
+import ffx.numerics.estimator.MultistateBennettAcceptanceRatio.SeedType;
+import ffx.utilities.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark the MBAR free energy estimator on sampled harmonic oscillator data.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MBARBenchmark {
+
+  /**
+   * The number of samples per state.
+   */
+  @Param({"1000", "10000"})
+  public int samples;
+
+  /**
+   * The seed used for the MBAR iterations.
+   */
+  @Param({"ZEROS", "BAR"})
+  public String seed;
+
+  private final double[] O_k = {1, 2, 3, 4};
+  private final double[] temperatures = {1 / Constants.R};
+  private double[][][] u_kln;
+  private SeedType seedType;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    double[] K_k = {0.5, 1.0, 1.5, 2.0};
+    int[] N_k = new int[O_k.length];
+    Arrays.fill(N_k, samples);
+    HarmonicOscillatorsTestCase testCase = new HarmonicOscillatorsTestCase(O_k, K_k, 1.0);
+    u_kln = (double[][][]) testCase.sample(N_k, "u_kln", 0L)[1];
+    seedType = SeedType.valueOf(seed);
+  }
+
+  @Benchmark
+  public double[] estimate() {
+    MultistateBennettAcceptanceRatio mbar = new MultistateBennettAcceptanceRatio(O_k, u_kln,
+        temperatures, 1.0e-7, seedType);
+    return mbar.getBinEnergies();
+  }
+}
@@ -0,0 +1,138 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.benchmarks;
+
+import ffx.numerics.multipole.CoulombTensorGlobal;
+import ffx.numerics.multipole.CoulombTensorQI;
+import ffx.numerics.multipole.EwaldTensorGlobal;
+import ffx.numerics.multipole.EwaldTensorQI;
+import ffx.numerics.multipole.MultipoleTensor;
+import ffx.numerics.multipole.PolarizableMultipole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+/**
+ * Benchmark generation of Coulomb and Ewald multipole tensors in the global and quasi-internal (QI)
+ * frames, and the permanent multipole energy and gradient of a single pair.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MultipoleTensorBenchmark {
+
+  /**
+   * The tensor implementation.
+   */
+  @Param({"COULOMB_GLOBAL", "COULOMB_QI", "EWALD_GLOBAL", "EWALD_QI"})
+  public String tensor;
+
+  /**
+   * The tensor order.
+   */
+  @Param({"4", "5", "6"})
+  public int order;
+
+  /**
+   * The Ewald coefficient.
+   */
+  private static final double BETA = 0.545;
+
+  private MultipoleTensor multipoleTensor;
+  private double[] r;
+  private final PolarizableMultipole mI = new PolarizableMultipole(
+      new double[] {-0.51966, 0.06979, 0.02651, -0.18677, 0.09848, 0.01023, -0.10871, 0.03041,
+          -0.00529, 0.00231}, new double[3], new double[3]);
+  private final PolarizableMultipole mK = new PolarizableMultipole(
+      new double[] {0.25983, 0.03009, 0.0, -0.05961, -0.00385, 0.00126, 0.00259, 0.0, -0.00346,
+          0.0}, new double[3], new double[3]);
+  private final double[] Gi = new double[3];
+  private final double[] Gk = new double[3];
+  private final double[] Ti = new double[3];
+  private final double[] Tk = new double[3];
+
+  @Setup(Level.Trial)
+  public void setup() {
+    double[] separation = {2.97, 2.98, 1.4};
+    switch (tensor) {
+      case "COULOMB_QI" -> multipoleTensor = new CoulombTensorQI(order);
+      case "EWALD_GLOBAL" -> multipoleTensor = new EwaldTensorGlobal(order, BETA);
+      case "EWALD_QI" -> multipoleTensor = new EwaldTensorQI(order, BETA);
+      default -> multipoleTensor = new CoulombTensorGlobal(order);
+    }
+    if (tensor.endsWith("QI")) {
+      // The QI frame places the separation vector along the Z-axis.
+      double length = sqrt(separation[0] * separation[0] + separation[1] * separation[1]
+          + separation[2] * separation[2]);
+      r = new double[] {0.0, 0.0, length};
+    } else {
+      r = separation;
+    }
+  }
+
+  @Benchmark
+  public MultipoleTensor generateTensor() {
+    multipoleTensor.generateTensor(r);
+    return multipoleTensor;
+  }
+
+  @Benchmark
+  public double multipoleEnergyAndGradient() {
+    multipoleTensor.generateTensor(r);
+    return multipoleTensor.multipoleEnergyAndGradient(mI, mK, Gi, Gk, Ti, Tk);
+  }
+}
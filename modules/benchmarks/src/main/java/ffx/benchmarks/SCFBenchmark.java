@@ -0,0 +1,114 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.benchmarks;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark convergence of the mutual induced dipoles by the preconditioned conjugate gradient
+ * (PCGSolver) and successive over-relaxation SCF algorithms. Bonded and van der Waals terms are
+ * turned off so that the timing is dominated by the electrostatics.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SCFBenchmark {
+
+  /**
+   * The example structure.
+   */
+  @Param({"waterbox.xyz"})
+  public String structure;
+
+  /**
+   * The SCF algorithm.
+   */
+  @Param({"CG", "SOR", "TCG"})
+  public String algorithm;
+
+  /**
+   * The number of threads.
+   */
+  @Param({"1", "8"})
+  public int threads;
+
+  private MolecularAssembly molecularAssembly;
+  private ForceFieldEnergy forceFieldEnergy;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    molecularAssembly = BenchmarkUtils.openExample(structure, threads,
+        "scf-algorithm", algorithm, "polarization", "mutual",
+        "bondterm", "false", "angleterm", "false", "strbndterm", "false", "ureyterm", "false",
+        "opbendterm", "false", "torsionterm", "false", "pitorsterm", "false", "tortorterm", "false",
+        "improperterm", "false", "vdwterm", "false");
+    forceFieldEnergy = molecularAssembly.getPotentialEnergy();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    BenchmarkUtils.close(molecularAssembly);
+  }
+
+  @Benchmark
+  public double energy() {
+    return forceFieldEnergy.energy(false, false);
+  }
+}
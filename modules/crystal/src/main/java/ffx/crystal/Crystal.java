@@ -46,15 +46,13 @@ import static ffx.numerics.math.ScalarMath.mod;
 import static ffx.utilities.Constants.AVOGADRO;
 import static ffx.utilities.PropertyGroup.UnitCellAndSpaceGroup;
 import static ffx.utilities.StringUtils.padRight;
+import static java.lang.Math.rint;
 import static java.lang.String.format;
-import static org.apache.commons.math3.util.FastMath.abs;
 import static org.apache.commons.math3.util.FastMath.acos;
 import static org.apache.commons.math3.util.FastMath.cbrt;
 import static org.apache.commons.math3.util.FastMath.cos;
-import static org.apache.commons.math3.util.FastMath.floor;
 import static org.apache.commons.math3.util.FastMath.min;
 import static org.apache.commons.math3.util.FastMath.random;
-import static org.apache.commons.math3.util.FastMath.signum;
 import static org.apache.commons.math3.util.FastMath.sin;
 import static org.apache.commons.math3.util.FastMath.sqrt;
 import static org.apache.commons.math3.util.FastMath.toDegrees;
@@ -276,6 +274,12 @@ public class Crystal {
    * Flag to indicate an aperiodic system.
    */
   private boolean aperiodic;
+  /**
+   * Flag to indicate all lattice angles are 90 degrees (i.e. cubic, tetragonal or orthorhombic
+   * lattices), which allows the minimum image convention to be applied independently along each
+   * axis.
+   */
+  private boolean orthogonal;
 
   /**
    * The Crystal class encapsulates the lattice parameters and space group. Methods are available to
@@ -1012,21 +1016,75 @@ public class Crystal {
     if (aperiodic) {
       return x * x + y * y + z * z;
     }
-    double xf = x * A00 + y * A10 + z * A20;
-    double yf = x * A01 + y * A11 + z * A21;
-    double zf = x * A02 + y * A12 + z * A22;
-    xf = floor(abs(xf) + 0.5) * signum(-xf) + xf;
-    yf = floor(abs(yf) + 0.5) * signum(-yf) + yf;
-    zf = floor(abs(zf) + 0.5) * signum(-zf) + zf;
-    x = xf * Ai00 + yf * Ai10 + zf * Ai20;
-    y = xf * Ai01 + yf * Ai11 + zf * Ai21;
-    z = xf * Ai02 + yf * Ai12 + zf * Ai22;
+    if (orthogonal) {
+      x -= a * rint(x * A00);
+      y -= b * rint(y * A11);
+      z -= c * rint(z * A22);
+    } else {
+      double xf = x * A00 + y * A10 + z * A20;
+      double yf = x * A01 + y * A11 + z * A21;
+      double zf = x * A02 + y * A12 + z * A22;
+      xf -= rint(xf);
+      yf -= rint(yf);
+      zf -= rint(zf);
+      x = xf * Ai00 + yf * Ai10 + zf * Ai20;
+      y = xf * Ai01 + yf * Ai11 + zf * Ai21;
+      z = xf * Ai02 + yf * Ai12 + zf * Ai22;
+    }
     xyz[0] = x;
     xyz[1] = y;
     xyz[2] = z;
     return x * x + y * y + z * z;
   }
 
+  /**
+   * Apply the minimum image convention to a batch of separation vectors. The lattice type is
+   * checked once per batch, rather than once per separation vector.
+   *
+   * @param dx input x-distances that are over-written.
+   * @param dy input y-distances that are over-written.
+   * @param dz input z-distances that are over-written.
+   * @param r2 the output distances squared.
+   * @param n  the number of separation vectors.
+   */
+  public void image(final double[] dx, final double[] dy, final double[] dz, final double[] r2,
+      final int n) {
+    if (aperiodic) {
+      for (int i = 0; i < n; i++) {
+        r2[i] = dx[i] * dx[i] + dy[i] * dy[i] + dz[i] * dz[i];
+      }
+    } else if (orthogonal) {
+      for (int i = 0; i < n; i++) {
+        double x = dx[i] - a * rint(dx[i] * A00);
+        double y = dy[i] - b * rint(dy[i] * A11);
+        double z = dz[i] - c * rint(dz[i] * A22);
+        dx[i] = x;
+        dy[i] = y;
+        dz[i] = z;
+        r2[i] = x * x + y * y + z * z;
+      }
+    } else {
+      for (int i = 0; i < n; i++) {
+        double x = dx[i];
+        double y = dy[i];
+        double z = dz[i];
+        double xf = x * A00 + y * A10 + z * A20;
+        double yf = x * A01 + y * A11 + z * A21;
+        double zf = x * A02 + y * A12 + z * A22;
+        xf -= rint(xf);
+        yf -= rint(yf);
+        zf -= rint(zf);
+        x = xf * Ai00 + yf * Ai10 + zf * Ai20;
+        y = xf * Ai01 + yf * Ai11 + zf * Ai21;
+        z = xf * Ai02 + yf * Ai12 + zf * Ai22;
+        dx[i] = x;
+        dy[i] = y;
+        dz[i] = z;
+        r2[i] = x * x + y * y + z * z;
+      }
+    }
+  }
+
   /**
    * Apply the minimum image convention.
    *
@@ -1039,12 +1097,18 @@ public class Crystal {
     if (aperiodic) {
       return dx * dx + dy * dy + dz * dz;
     }
+    if (orthogonal) {
+      dx -= a * rint(dx * A00);
+      dy -= b * rint(dy * A11);
+      dz -= c * rint(dz * A22);
+      return dx * dx + dy * dy + dz * dz;
+    }
     double xf = dx * A00 + dy * A10 + dz * A20;
     double yf = dx * A01 + dy * A11 + dz * A21;
     double zf = dx * A02 + dy * A12 + dz * A22;
-    xf = floor(abs(xf) + 0.5) * signum(-xf) + xf;
-    yf = floor(abs(yf) + 0.5) * signum(-yf) + yf;
-    zf = floor(abs(zf) + 0.5) * signum(-zf) + zf;
+    xf -= rint(xf);
+    yf -= rint(yf);
+    zf -= rint(zf);
     dx = xf * Ai00 + yf * Ai10 + zf * Ai20;
     dy = xf * Ai01 + yf * Ai11 + zf * Ai21;
     dz = xf * Ai02 + yf * Ai12 + zf * Ai22;
@@ -1498,6 +1562,9 @@ public class Crystal {
     A12 = A[1][2];
     A22 = A[2][2];
 
+    // The minimum image convention can be applied independently along each axis.
+    orthogonal = alpha == 90.0 && beta == 90.0 && gamma == 90.0;
+
     // Reciprocal basis vector lengths
     double aStar = 1.0 / sqrt(A00 * A00 + A10 * A10 + A20 * A20);
     double bStar = 1.0 / sqrt(A01 * A01 + A11 * A11 + A21 * A21);
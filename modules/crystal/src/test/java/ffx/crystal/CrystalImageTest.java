@@ -0,0 +1,156 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.crystal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import ffx.utilities.FFXTest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Test the minimum image convention of the Crystal class.
+ */
+@RunWith(Parameterized.class)
+public class CrystalImageTest extends FFXTest {
+
+  private final String info;
+  private final Crystal crystal;
+  private final int n = 1000;
+  private final double tolerance = 1.0e-10;
+
+  public CrystalImageTest(String info, double a, double b, double c, double alpha, double beta,
+      double gamma, String sg) {
+    this.info = info;
+    this.crystal = new Crystal(a, b, c, alpha, beta, gamma, sg);
+  }
+
+  @Parameters
+  public static Collection<Object[]> data() {
+    return Arrays.asList(
+        new Object[][] {
+            {"Triclinic (3TRW)", 28.38, 31.73, 36.75, 90.12, 99.61, 96.52, "P-1"},
+            {"Cubic (3RN4)", 92.69, 92.69, 92.69, 90.0, 90.0, 90.0, "P23"},
+            {"Orthorhombic (2WLD)", 79.09, 94.81, 100.85, 90.0, 90.0, 90.0, "P222"},
+            {"Monoclinic (3V0E)", 50.85, 38.60, 89.83, 90.0, 103.99, 90.0, "P2"},
+            {"Hexagonal (4DAC)", 63.67, 63.67, 40.40, 90.0, 90.0, 120.0, "P6"},
+            {"P1 Box", 54.99, 41.91, 41.91, 90.0, 90.0, 90.0, "P1"}
+        });
+  }
+
+  /**
+   * The batched, array and scalar minimum image methods must agree, and the imaged vector must
+   * differ from the original vector by a lattice translation.
+   */
+  @Test
+  public void imageTest() {
+    Random random = new Random(1);
+    double[] dx = new double[n];
+    double[] dy = new double[n];
+    double[] dz = new double[n];
+    double[] r2 = new double[n];
+    double range = 3.0 * Math.max(crystal.a, Math.max(crystal.b, crystal.c));
+    for (int i = 0; i < n; i++) {
+      dx[i] = (random.nextDouble() - 0.5) * range;
+      dy[i] = (random.nextDouble() - 0.5) * range;
+      dz[i] = (random.nextDouble() - 0.5) * range;
+    }
+    double[] x = Arrays.copyOf(dx, n);
+    double[] y = Arrays.copyOf(dy, n);
+    double[] z = Arrays.copyOf(dz, n);
+    crystal.image(dx, dy, dz, r2, n);
+
+    double[] xyz = new double[3];
+    double[] translation = new double[3];
+    double[] frac = new double[3];
+    for (int i = 0; i < n; i++) {
+      double expected = crystal.image(x[i], y[i], z[i]);
+      assertEquals(info + " Scalar image " + i, expected, r2[i], tolerance);
+      xyz[0] = x[i];
+      xyz[1] = y[i];
+      xyz[2] = z[i];
+      assertEquals(info + " Array image " + i, expected, crystal.image(xyz), tolerance);
+      assertEquals(info + " Image X " + i, xyz[0], dx[i], tolerance);
+      assertEquals(info + " Image Y " + i, xyz[1], dy[i], tolerance);
+      assertEquals(info + " Image Z " + i, xyz[2], dz[i], tolerance);
+
+      translation[0] = x[i] - dx[i];
+      translation[1] = y[i] - dy[i];
+      translation[2] = z[i] - dz[i];
+      crystal.toFractionalCoordinates(translation, frac);
+      for (int j = 0; j < 3; j++) {
+        assertEquals(info + " Lattice translation " + i, Math.rint(frac[j]), frac[j], 1.0e-8);
+      }
+    }
+  }
+
+  /**
+   * For lattices with 90 degree angles, the image must be the shortest of the neighboring images.
+   */
+  @Test
+  public void orthogonalMinimumImageTest() {
+    if (crystal.alpha != 90.0 || crystal.beta != 90.0 || crystal.gamma != 90.0) {
+      return;
+    }
+    Random random = new Random(2);
+    for (int i = 0; i < n; i++) {
+      double x = (random.nextDouble() - 0.5) * 3.0 * crystal.a;
+      double y = (random.nextDouble() - 0.5) * 3.0 * crystal.b;
+      double z = (random.nextDouble() - 0.5) * 3.0 * crystal.c;
+      double r2 = crystal.image(x, y, z);
+      double min = Double.MAX_VALUE;
+      for (int ia = -2; ia <= 2; ia++) {
+        for (int ib = -2; ib <= 2; ib++) {
+          for (int ic = -2; ic <= 2; ic++) {
+            double tx = x + ia * crystal.a;
+            double ty = y + ib * crystal.b;
+            double tz = z + ic * crystal.c;
+            min = Math.min(min, tx * tx + ty * ty + tz * tz);
+          }
+        }
+      }
+      assertEquals(info + " Minimum image " + i, min, r2, 1.0e-8);
+    }
+  }
+}
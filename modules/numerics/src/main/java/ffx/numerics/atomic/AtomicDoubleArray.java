@@ -61,6 +61,7 @@ public interface AtomicDoubleArray {
     return switch (atomicDoubleArrayImpl) {
       case ADDER -> new AdderDoubleArray(size);
       case PJ -> new PJDoubleArray(size);
+      case SPARSE -> new SparseDoubleArray(threads, size);
       // MULTI is the default.
       default -> new MultiDoubleArray(threads, size);
     };
@@ -161,11 +162,12 @@ public interface AtomicDoubleArray {
   void sub(int threadID, int index, double value);
 
   /**
-   * AtomicDoubleArray implementations (ADDER, MULTI, PJ).
+   * AtomicDoubleArray implementations (ADDER, MULTI, PJ, SPARSE).
    */
   enum AtomicDoubleArrayImpl {
     ADDER,
     MULTI,
-    PJ
+    PJ,
+    SPARSE
   }
 }
@@ -104,6 +104,8 @@ public class AtomicDoubleArray3D {
     atomicDoubleArray[2] = z;
     if (x instanceof MultiDoubleArray) {
       this.atomicDoubleArrayImpl = AtomicDoubleArrayImpl.MULTI;
+    } else if (x instanceof SparseDoubleArray) {
+      this.atomicDoubleArrayImpl = AtomicDoubleArrayImpl.SPARSE;
     } else if (x instanceof AdderDoubleArray) {
       this.atomicDoubleArrayImpl = AtomicDoubleArrayImpl.ADDER;
     } else {
@@ -216,20 +218,30 @@ public class AtomicDoubleArray3D {
    */
   public void reduce(int lb, int ub) {
     // Nothing to do for PJ and Adder.
-    if (Objects.requireNonNull(atomicDoubleArrayImpl) == AtomicDoubleArrayImpl.MULTI) {
+    if (isPerThread()) {
       atomicDoubleArray[0].reduce(lb, ub);
       atomicDoubleArray[1].reduce(lb, ub);
       atomicDoubleArray[2].reduce(lb, ub);
     }
   }
 
+  /**
+   * Check if the implementation stores a separate array for each thread that must be reduced.
+   *
+   * @return true for the MULTI and SPARSE implementations.
+   */
+  private boolean isPerThread() {
+    AtomicDoubleArrayImpl impl = Objects.requireNonNull(atomicDoubleArrayImpl);
+    return impl == AtomicDoubleArrayImpl.MULTI || impl == AtomicDoubleArrayImpl.SPARSE;
+  }
+
   /**
    * Perform a reduction on the entire array.
    *
    * @param parallelTeam ParallelTeam to use.
    */
   public void reduce(ParallelTeam parallelTeam) {
-    if (Objects.requireNonNull(atomicDoubleArrayImpl) == AtomicDoubleArrayImpl.MULTI) {
+    if (isPerThread()) {
       parallelRegion3D.setOperation(Operation.REDUCE);
       try {
         parallelTeam.execute(parallelRegion3D);
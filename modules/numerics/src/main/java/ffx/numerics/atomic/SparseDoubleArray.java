@@ -0,0 +1,270 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.numerics.atomic;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The SparseDoubleArray stores a full size double array for each thread like the MultiDoubleArray,
+ * but also tracks which fixed size blocks of each array a thread has written to. Only touched blocks
+ * are zeroed by <code>reset</code> and summed by <code>reduce</code>, which avoids O(nThreads *
+ * size) memory traffic when each thread only updates a subset of the array (e.g. for a spatially
+ * sorted decomposition of atoms).
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class SparseDoubleArray implements AtomicDoubleArray {
+
+  private static final Logger logger = Logger.getLogger(SparseDoubleArray.class.getName());
+
+  /**
+   * The base 2 logarithm of the block size.
+   */
+  private static final int BLOCK_SHIFT = 6;
+
+  /**
+   * The number of entries in each block.
+   */
+  private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+  private final int threadCount;
+
+  /**
+   * Storage of the array.
+   * <p>
+   * First dimension is the thread. Second dimension is the value.
+   */
+  private final double[][] array;
+
+  /**
+   * Flags for the blocks of the array each thread has written to.
+   * <p>
+   * First dimension is the thread. Second dimension is the block.
+   */
+  private final boolean[][] touched;
+
+  private int size;
+
+  /**
+   * Constructor for SparseDoubleArray.
+   *
+   * @param nThreads the number of threads.
+   * @param size the size of the array.
+   */
+  public SparseDoubleArray(int nThreads, int size) {
+    this.size = size;
+    threadCount = nThreads;
+    array = new double[nThreads][size];
+    touched = new boolean[nThreads][numberOfBlocks(size)];
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void add(int threadID, int index, double value) {
+    touched[threadID][index >>> BLOCK_SHIFT] = true;
+    array[threadID][index] += value;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void alloc(int size) {
+    this.size = size;
+    for (int i = 0; i < threadCount; i++) {
+      if (array[i].length < size) {
+        array[i] = new double[size];
+        touched[i] = new boolean[numberOfBlocks(size)];
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double get(int index) {
+    return array[0][index];
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Reduce the contributions from each thread into array[0], skipping blocks that a thread has not
+   * written to.
+   */
+  @Override
+  public void reduce(int lb, int ub) {
+    double[] gx = array[0];
+    boolean[] touched0 = touched[0];
+    int firstBlock = lb >>> BLOCK_SHIFT;
+    int lastBlock = ub >>> BLOCK_SHIFT;
+    for (int block = firstBlock; block <= lastBlock; block++) {
+      int start = Math.max(lb, block << BLOCK_SHIFT);
+      int end = Math.min(ub, (block << BLOCK_SHIFT) + BLOCK_SIZE - 1);
+      for (int t = 1; t < threadCount; t++) {
+        if (!touched[t][block]) {
+          continue;
+        }
+        // The block of array[0] must be zeroed by the next reset.
+        touched0[block] = true;
+        double[] gxt = array[t];
+        for (int i = start; i <= end; i++) {
+          gx[i] += gxt[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Reduce the contributions from each thread into array[0];
+   */
+  @Override
+  public void reduce(ParallelTeam parallelTeam, int lb, int ub) {
+    try {
+      parallelTeam.execute(
+          new ParallelRegion() {
+            @Override
+            public void run() throws Exception {
+              execute(
+                  lb,
+                  ub,
+                  new IntegerForLoop() {
+                    @Override
+                    public void run(int first, int last) {
+                      reduce(first, last);
+                    }
+                  });
+            }
+          });
+    } catch (Exception e) {
+      logger.log(Level.WARNING, " Exception reducing a SparseDoubleArray", e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * As for the MultiDoubleArray, the entire array of the thread is reset. However, only blocks the
+   * thread has written to are zeroed.
+   */
+  @Override
+  public void reset(int threadID, int lb, int ub) {
+    double[] values = array[threadID];
+    boolean[] blocks = touched[threadID];
+    for (int block = 0; block < blocks.length; block++) {
+      if (blocks[block]) {
+        int start = block << BLOCK_SHIFT;
+        int end = Math.min(values.length, start + BLOCK_SIZE);
+        Arrays.fill(values, start, end, 0.0);
+        blocks[block] = false;
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset(ParallelTeam parallelTeam, int lb, int ub) {
+    try {
+      parallelTeam.execute(
+          new ParallelRegion() {
+            @Override
+            public void run() throws Exception {
+              execute(
+                  0,
+                  threadCount - 1,
+                  new IntegerForLoop() {
+                    @Override
+                    public void run(int first, int last) {
+                      for (int i = first; i <= last; i++) {
+                        reset(i, lb, ub);
+                      }
+                    }
+                  });
+            }
+          });
+    } catch (Exception e) {
+      logger.log(Level.WARNING, " Exception resetting a SparseDoubleArray", e);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void scale(int threadID, int index, double value) {
+    // Scaling an untouched (zero) entry leaves it zero.
+    array[threadID][index] *= value;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void set(int threadID, int index, double value) {
+    touched[threadID][index >>> BLOCK_SHIFT] = true;
+    array[threadID][index] = value;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void sub(int threadID, int index, double value) {
+    touched[threadID][index >>> BLOCK_SHIFT] = true;
+    array[threadID][index] -= value;
+  }
+
+  /**
+   * The number of blocks needed to cover an array.
+   *
+   * @param size the size of the array.
+   * @return the number of blocks.
+   */
+  private static int numberOfBlocks(int size) {
+    return (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+  }
+}
@@ -47,6 +47,7 @@ import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static java.lang.String.format;
 import static java.util.Objects.requireNonNullElseGet;
 
 /**
@@ -61,6 +62,11 @@ import static java.util.Objects.requireNonNullElseGet;
  * int nextY = 2*nX <br>
  * int nextZ = 2*nX*nY <br>
  *
+ * <p>If the input is purely real and nX is even, the <code>realFFT</code>, <code>realIFFT</code> and
+ * <code>realConvolution</code> methods use a real-to-complex transform along X and only compute the
+ * nX/2 + 1 non-redundant X frequencies of the Hermitian spectrum, which roughly halves the work.
+ * The half-spectrum is stored in place using the layout above (i.e. at x = 0 .. nX/2).
+ *
  * @author Michal J. Schnieders
  * @see Complex
  * @since 1.0
@@ -83,6 +89,17 @@ public class Complex3DParallel {
   private final FFTRegion fftRegion;
   private final IFFTRegion ifftRegion;
   private final ConvolutionRegion convRegion;
+  /**
+   * The index of the Nyquist frequency along the X-axis (nX / 2).
+   */
+  private final int halfX;
+  /**
+   * Real FFTs along the X-axis for each thread, or null if nX is odd.
+   */
+  private final Real[] realFFTX;
+  private final RealFFTRegion realFFTRegion;
+  private final RealIFFTRegion realIFFTRegion;
+  private final RealConvolutionRegion realConvRegion;
   public double[] input;
 
   /**
@@ -136,6 +153,23 @@ public class Complex3DParallel {
     ifftRegion = new IFFTRegion();
     convRegion = new ConvolutionRegion();
     convolutionTime = new long[threadCount];
+
+    // The real-to-complex transform along X uses a complex FFT of length nX / 2.
+    halfX = nX / 2;
+    if (nX % 2 == 0) {
+      realFFTX = new Real[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        realFFTX[i] = new Real(nX);
+      }
+      realFFTRegion = new RealFFTRegion();
+      realIFFTRegion = new RealIFFTRegion();
+      realConvRegion = new RealConvolutionRegion();
+    } else {
+      realFFTX = null;
+      realFFTRegion = null;
+      realIFFTRegion = null;
+      realConvRegion = null;
+    }
   }
 
   /**
@@ -317,6 +351,65 @@ public class Complex3DParallel {
     }
   }
 
+  /**
+   * Compute the 3D convolution of purely real input in parallel. Only the nX/2 + 1 non-redundant X
+   * frequencies are transformed and multiplied by the reciprocal space array. On return the real part
+   * of each grid point holds the result and the imaginary part is zero.
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void realConvolution(final double[] input) {
+    checkRealInput();
+    this.input = input;
+    try {
+      parallelTeam.execute(realConvRegion);
+    } catch (Exception e) {
+      String message = "Fatal exception evaluating a real convolution.\n";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  /**
+   * Compute the 3D FFT of purely real input in parallel. On return, the Hermitian half-spectrum is
+   * stored at x = 0 .. nX/2 and the remaining X frequencies are undefined; they can be recovered from
+   * F(nX - x, nY - y, nZ - z) = conj(F(x, y, z)).
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void realFFT(final double[] input) {
+    checkRealInput();
+    this.input = input;
+    try {
+      parallelTeam.execute(realFFTRegion);
+    } catch (Exception e) {
+      String message = " Fatal exception evaluating the real FFT.\n";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  /**
+   * Compute the inverse 3D FFT of a Hermitian spectrum in parallel. Only the half-spectrum stored at x
+   * = 0 .. nX/2 is used; each coefficient with 0 &lt; x &lt; nX/2 implicitly includes its conjugate
+   * partner at nX - x, and only the real part of the x = 0 and x = nX/2 planes contributes. On return
+   * the real part of each grid point holds the result and the imaginary part is zero.
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void realIFFT(final double[] input) {
+    checkRealInput();
+    this.input = input;
+    try {
+      parallelTeam.execute(realIFFTRegion);
+    } catch (Exception e) {
+      String message = "Fatal exception evaluating the real inverse FFT.\n";
+      logger.log(Level.SEVERE, message, e);
+      System.exit(-1);
+    }
+  }
+
   /**
    * Setter for the field <code>recip</code>.
    *
@@ -336,6 +429,51 @@ public class Complex3DParallel {
     }
   }
 
+  /**
+   * The real-to-complex methods require an even X-dimension.
+   *
+   * @return true if the <code>realFFT</code>, <code>realIFFT</code> and <code>realConvolution</code>
+   *     methods are available.
+   */
+  public boolean supportsRealInput() {
+    return realFFTX != null;
+  }
+
+  private void checkRealInput() {
+    if (realFFTX == null) {
+      throw new IllegalStateException(
+          format(" A real-to-complex FFT requires an even X-dimension (%d).", nX));
+    }
+  }
+
+  /**
+   * Move the real parts of an X-row stored in the complex layout to the first nX contiguous
+   * locations, as required by the real FFT.
+   *
+   * @param data the grid.
+   * @param offset the beginning of the row.
+   */
+  private void packRow(double[] data, int offset) {
+    for (int x = 1; x < nX; x++) {
+      data[offset + x] = data[offset + 2 * x];
+    }
+  }
+
+  /**
+   * Move the nX contiguous real values produced by the inverse real FFT back into the complex layout,
+   * zeroing the imaginary parts.
+   *
+   * @param data the grid.
+   * @param offset the beginning of the row.
+   */
+  private void unpackRow(double[] data, int offset) {
+    for (int x = nXm1; x >= 0; x--) {
+      int index = offset + 2 * x;
+      data[index] = data[offset + x];
+      data[index + 1] = 0.0;
+    }
+  }
+
   /**
    * An external ParallelRegion can be used as follows: <code>
    * start() {
@@ -629,4 +767,249 @@ public class Complex3DParallel {
       localFFTZ = fftZ[getThreadIndex()];
     }
   }
+
+  /**
+   * Real-to-complex 3D FFT: real FFTs along X followed by complex FFTs along Y and Z for the nX/2 + 1
+   * non-redundant X frequencies.
+   */
+  private class RealFFTRegion extends ParallelRegion {
+
+    private final RealFFTXYLoop[] realFFTXYLoop;
+    private final HalfFFTZLoop[] halfFFTZLoop;
+
+    private RealFFTRegion() {
+      realFFTXYLoop = new RealFFTXYLoop[threadCount];
+      halfFFTZLoop = new HalfFFTZLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        realFFTXYLoop[i] = new RealFFTXYLoop();
+        halfFFTZLoop[i] = new HalfFFTZLoop(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      try {
+        execute(0, nZm1, realFFTXYLoop[threadIndex]);
+        execute(0, nYm1, halfFFTZLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+    }
+  }
+
+  /**
+   * Complex-to-real 3D inverse FFT of a Hermitian half-spectrum.
+   */
+  private class RealIFFTRegion extends ParallelRegion {
+
+    private final HalfFFTZLoop[] halfIFFTZLoop;
+    private final RealIFFTXYLoop[] realIFFTXYLoop;
+
+    private RealIFFTRegion() {
+      halfIFFTZLoop = new HalfFFTZLoop[threadCount];
+      realIFFTXYLoop = new RealIFFTXYLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        halfIFFTZLoop[i] = new HalfFFTZLoop(true);
+        realIFFTXYLoop[i] = new RealIFFTXYLoop();
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      try {
+        execute(0, nYm1, halfIFFTZLoop[threadIndex]);
+        execute(0, nZm1, realIFFTXYLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+    }
+  }
+
+  /**
+   * Convolution of real input using the half-spectrum.
+   */
+  private class RealConvolutionRegion extends ParallelRegion {
+
+    private final RealFFTXYLoop[] realFFTXYLoop;
+    private final HalfFFTZIZLoop[] halfFFTZIZLoop;
+    private final RealIFFTXYLoop[] realIFFTXYLoop;
+
+    private RealConvolutionRegion() {
+      realFFTXYLoop = new RealFFTXYLoop[threadCount];
+      halfFFTZIZLoop = new HalfFFTZIZLoop[threadCount];
+      realIFFTXYLoop = new RealIFFTXYLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        realFFTXYLoop[i] = new RealFFTXYLoop();
+        halfFFTZIZLoop[i] = new HalfFFTZIZLoop();
+        realIFFTXYLoop[i] = new RealIFFTXYLoop();
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      convolutionTime[threadIndex] -= System.nanoTime();
+      try {
+        execute(0, nZm1, realFFTXYLoop[threadIndex]);
+        execute(0, nYm1, halfFFTZIZLoop[threadIndex]);
+        execute(0, nZm1, realIFFTXYLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+      convolutionTime[threadIndex] += System.nanoTime();
+    }
+  }
+
+  private class RealFFTXYLoop extends IntegerForLoop {
+
+    private Real localRealFFTX;
+    private Complex localFFTY;
+
+    @Override
+    public void run(final int lb, final int ub) {
+      for (int z = lb; z <= ub; z++) {
+        for (int offset = z * strideZ, y = 0; y < nY; y++, offset += strideY) {
+          packRow(input, offset);
+          localRealFFTX.fft(input, offset);
+        }
+        for (int offset = z * strideZ, x = 0; x <= halfX; x++, offset += strideX) {
+          localFFTY.fft(input, offset, strideY);
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+
+    @Override
+    public void start() {
+      localRealFFTX = realFFTX[getThreadIndex()];
+      localFFTY = fftY[getThreadIndex()];
+    }
+  }
+
+  private class RealIFFTXYLoop extends IntegerForLoop {
+
+    private final int nyquist = 2 * halfX + 1;
+    private Real localRealFFTX;
+    private Complex localFFTY;
+
+    @Override
+    public void run(final int lb, final int ub) {
+      for (int z = lb; z <= ub; z++) {
+        for (int offset = z * strideZ, x = 0; x <= halfX; x++, offset += strideX) {
+          localFFTY.ifft(input, offset, strideY);
+        }
+        for (int offset = z * strideZ, y = 0; y < nY; y++, offset += strideY) {
+          // The zero and Nyquist frequencies of a real sequence are real.
+          input[offset + 1] = 0.0;
+          input[offset + nyquist] = 0.0;
+          localRealFFTX.ifft(input, offset);
+          unpackRow(input, offset);
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+
+    @Override
+    public void start() {
+      localRealFFTX = realFFTX[getThreadIndex()];
+      localFFTY = fftY[getThreadIndex()];
+    }
+  }
+
+  private class HalfFFTZLoop extends IntegerForLoop {
+
+    private final boolean inverse;
+    private final double[] work;
+    private Complex localFFTZ;
+
+    private HalfFFTZLoop(boolean inverse) {
+      this.inverse = inverse;
+      work = new double[nZ2];
+    }
+
+    @Override
+    public void run(final int lb, final int ub) {
+      for (int y = lb; y <= ub; y++) {
+        for (int offset = y * strideY, x = 0; x <= halfX; x++, offset += strideX) {
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            work[i] = input[z];
+            work[i + 1] = input[z + 1];
+          }
+          if (inverse) {
+            localFFTZ.ifft(work, 0, 2);
+          } else {
+            localFFTZ.fft(work, 0, 2);
+          }
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            input[z] = work[i];
+            input[z + 1] = work[i + 1];
+          }
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+
+    @Override
+    public void start() {
+      localFFTZ = fftZ[getThreadIndex()];
+    }
+  }
+
+  private class HalfFFTZIZLoop extends IntegerForLoop {
+
+    private final double[] work;
+    private Complex localFFTZ;
+
+    private HalfFFTZIZLoop() {
+      work = new double[nZ2];
+    }
+
+    @Override
+    public void run(final int lb, final int ub) {
+      for (int y = lb; y <= ub; y++) {
+        for (int offset = y * strideY, x = 0; x <= halfX; x++, offset += strideX) {
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            work[i] = input[z];
+            work[i + 1] = input[z + 1];
+          }
+          localFFTZ.fft(work, 0, 2);
+          // The reciprocal space array is ordered by y, then x, then z.
+          for (int i = 0, index = (y * nX + x) * nZ; i < nZ2; i += 2) {
+            double r = recip[index++];
+            work[i] *= r;
+            work[i + 1] *= r;
+          }
+          localFFTZ.ifft(work, 0, 2);
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            input[z] = work[i];
+            input[z + 1] = work[i + 1];
+          }
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+
+    @Override
+    public void start() {
+      localFFTZ = fftZ[getThreadIndex()];
+    }
+  }
 }
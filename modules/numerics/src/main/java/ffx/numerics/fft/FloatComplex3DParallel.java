@@ -0,0 +1,387 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.numerics.fft;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+
+import javax.annotation.Nullable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Objects.requireNonNullElseGet;
+
+/**
+ * Compute the 3D FFT of complex, single precision input of arbitrary dimensions in parallel.
+ *
+ * <p>The grid is stored in single precision using the same layout as {@link Complex3DParallel},
+ * which halves its memory footprint and bandwidth. Each XY-plane or Z-line is copied into a double
+ * precision work array before being transformed by the 1D mixed radix {@link Complex} FFT, so all
+ * arithmetic is done in double precision and only the stored values are rounded.
+ *
+ * @author Michael J. Schnieders
+ * @see Complex3DParallel
+ * @since 1.0
+ */
+public class FloatComplex3DParallel {
+
+  private static final Logger logger = Logger.getLogger(FloatComplex3DParallel.class.getName());
+  private final int nX, nY, nZ;
+  private final int nZ2;
+  private final int strideY, strideZ;
+  private final int nYm1, nZm1;
+  private final double[] recip;
+  private final long[] convolutionTime;
+  private final int threadCount;
+  private final ParallelTeam parallelTeam;
+  private final IntegerSchedule schedule;
+  private final FFTRegion fftRegion;
+  private final IFFTRegion ifftRegion;
+  private final ConvolutionRegion convRegion;
+  private float[] input;
+
+  /**
+   * Initialize the 3D FFT for a complex, single precision 3D matrix.
+   *
+   * @param nX           X-dimension.
+   * @param nY           Y-dimension.
+   * @param nZ           Z-dimension.
+   * @param parallelTeam A ParallelTeam instance.
+   * @since 1.0
+   */
+  public FloatComplex3DParallel(int nX, int nY, int nZ, ParallelTeam parallelTeam) {
+    this(nX, nY, nZ, parallelTeam, null);
+  }
+
+  /**
+   * Initialize the 3D FFT for a complex, single precision 3D matrix.
+   *
+   * @param nX              X-dimension.
+   * @param nY              Y-dimension.
+   * @param nZ              Z-dimension.
+   * @param parallelTeam    A ParallelTeam instance.
+   * @param integerSchedule The IntegerSchedule to use.
+   * @since 1.0
+   */
+  public FloatComplex3DParallel(int nX, int nY, int nZ, ParallelTeam parallelTeam,
+                                @Nullable IntegerSchedule integerSchedule) {
+    this.nX = nX;
+    this.nY = nY;
+    this.nZ = nZ;
+    this.parallelTeam = parallelTeam;
+    recip = new double[nX * nY * nZ];
+    nZ2 = 2 * nZ;
+    strideY = 2 * nX;
+    strideZ = strideY * nY;
+    nYm1 = nY - 1;
+    nZm1 = nZ - 1;
+    threadCount = parallelTeam.getThreadCount();
+    schedule = requireNonNullElseGet(integerSchedule, IntegerSchedule::fixed);
+    fftRegion = new FFTRegion();
+    ifftRegion = new IFFTRegion();
+    convRegion = new ConvolutionRegion();
+    convolutionTime = new long[threadCount];
+  }
+
+  /**
+   * Compute the 3D FFT, perform a multiplication in reciprocal space, and the inverse 3D FFT in
+   * parallel.
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void convolution(final float[] input) {
+    this.input = input;
+    try {
+      parallelTeam.execute(convRegion);
+    } catch (Exception e) {
+      String message = "Fatal exception evaluating a single precision convolution.\n";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  /**
+   * Compute the 3D FFT in parallel.
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void fft(final float[] input) {
+    this.input = input;
+    try {
+      parallelTeam.execute(fftRegion);
+    } catch (Exception e) {
+      String message = " Fatal exception evaluating the single precision FFT.\n";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  public long[] getTimings() {
+    return convolutionTime;
+  }
+
+  /**
+   * Compute the inverse 3D FFT in parallel.
+   *
+   * @param input The input array must be of size 2 * nX * nY * nZ.
+   * @since 1.0
+   */
+  public void ifft(final float[] input) {
+    this.input = input;
+    try {
+      parallelTeam.execute(ifftRegion);
+    } catch (Exception e) {
+      String message = "Fatal exception evaluating the single precision inverse FFT.\n";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  public void initTiming() {
+    for (int i = 0; i < threadCount; i++) {
+      convolutionTime[i] = 0;
+    }
+  }
+
+  /**
+   * Setter for the field <code>recip</code>.
+   *
+   * @param recip The recip array must be of size nX * nY * nZ.
+   */
+  public void setRecip(double[] recip) {
+    // Reorder the reciprocal space data into the order it is needed by the convolution routine.
+    int index = 0;
+    for (int offset = 0, y = 0; y < nY; y++) {
+      for (int x = 0; x < nX; x++, offset += 1) {
+        for (int i = 0, z = offset; i < nZ; i++, z += nX * nY) {
+          this.recip[index++] = recip[z];
+        }
+      }
+    }
+  }
+
+  private class FFTRegion extends ParallelRegion {
+
+    private final XYLoop[] xyLoop;
+    private final ZLoop[] zLoop;
+
+    private FFTRegion() {
+      xyLoop = new XYLoop[threadCount];
+      zLoop = new ZLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        xyLoop[i] = new XYLoop(false);
+        zLoop[i] = new ZLoop(false, false);
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      try {
+        execute(0, nZm1, xyLoop[threadIndex]);
+        execute(0, nYm1, zLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+    }
+  }
+
+  private class IFFTRegion extends ParallelRegion {
+
+    private final ZLoop[] zLoop;
+    private final XYLoop[] xyLoop;
+
+    private IFFTRegion() {
+      zLoop = new ZLoop[threadCount];
+      xyLoop = new XYLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        zLoop[i] = new ZLoop(false, true);
+        xyLoop[i] = new XYLoop(true);
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      try {
+        execute(0, nYm1, zLoop[threadIndex]);
+        execute(0, nZm1, xyLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+    }
+  }
+
+  private class ConvolutionRegion extends ParallelRegion {
+
+    private final XYLoop[] fftXYLoop;
+    private final ZLoop[] fftZIZLoop;
+    private final XYLoop[] ifftXYLoop;
+
+    private ConvolutionRegion() {
+      fftXYLoop = new XYLoop[threadCount];
+      fftZIZLoop = new ZLoop[threadCount];
+      ifftXYLoop = new XYLoop[threadCount];
+      for (int i = 0; i < threadCount; i++) {
+        fftXYLoop[i] = new XYLoop(false);
+        fftZIZLoop[i] = new ZLoop(true, false);
+        ifftXYLoop[i] = new XYLoop(true);
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      convolutionTime[threadIndex] -= System.nanoTime();
+      try {
+        execute(0, nZm1, fftXYLoop[threadIndex]);
+        execute(0, nYm1, fftZIZLoop[threadIndex]);
+        execute(0, nZm1, ifftXYLoop[threadIndex]);
+      } catch (Exception e) {
+        logger.severe(e.toString());
+      }
+      convolutionTime[threadIndex] += System.nanoTime();
+    }
+  }
+
+  /**
+   * Transform each XY-plane after copying it into a double precision work array.
+   */
+  private class XYLoop extends IntegerForLoop {
+
+    private final boolean inverse;
+    private final double[] plane;
+    private final Complex fftX;
+    private final Complex fftY;
+
+    private XYLoop(boolean inverse) {
+      this.inverse = inverse;
+      plane = new double[strideZ];
+      fftX = new Complex(nX);
+      fftY = new Complex(nY);
+    }
+
+    @Override
+    public void run(final int lb, final int ub) {
+      for (int z = lb; z <= ub; z++) {
+        int planeOffset = z * strideZ;
+        for (int i = 0; i < strideZ; i++) {
+          plane[i] = input[planeOffset + i];
+        }
+        if (inverse) {
+          for (int offset = 0, x = 0; x < nX; x++, offset += 2) {
+            fftY.ifft(plane, offset, strideY);
+          }
+          for (int offset = 0, y = 0; y < nY; y++, offset += strideY) {
+            fftX.ifft(plane, offset, 2);
+          }
+        } else {
+          for (int offset = 0, y = 0; y < nY; y++, offset += strideY) {
+            fftX.fft(plane, offset, 2);
+          }
+          for (int offset = 0, x = 0; x < nX; x++, offset += 2) {
+            fftY.fft(plane, offset, strideY);
+          }
+        }
+        for (int i = 0; i < strideZ; i++) {
+          input[planeOffset + i] = (float) plane[i];
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+  }
+
+  /**
+   * Transform each Z-line after copying it into a double precision work array. For a convolution,
+   * the line is transformed, multiplied by the reciprocal space array and transformed back.
+   */
+  private class ZLoop extends IntegerForLoop {
+
+    private final boolean convolution;
+    private final boolean inverse;
+    private final double[] work;
+    private final Complex fftZ;
+
+    private ZLoop(boolean convolution, boolean inverse) {
+      this.convolution = convolution;
+      this.inverse = inverse;
+      work = new double[nZ2];
+      fftZ = new Complex(nZ);
+    }
+
+    @Override
+    public void run(final int lb, final int ub) {
+      int index = nX * nZ * lb;
+      for (int offset = lb * strideY, y = lb; y <= ub; y++) {
+        for (int x = 0; x < nX; x++, offset += 2) {
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            work[i] = input[z];
+            work[i + 1] = input[z + 1];
+          }
+          if (convolution) {
+            fftZ.fft(work, 0, 2);
+            for (int i = 0; i < nZ2; i += 2) {
+              double r = recip[index++];
+              work[i] *= r;
+              work[i + 1] *= r;
+            }
+            fftZ.ifft(work, 0, 2);
+          } else if (inverse) {
+            fftZ.ifft(work, 0, 2);
+          } else {
+            fftZ.fft(work, 0, 2);
+          }
+          for (int i = 0, z = offset; i < nZ2; i += 2, z += strideZ) {
+            input[z] = (float) work[i];
+            input[z + 1] = (float) work[i + 1];
+          }
+        }
+      }
+    }
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+  }
+}
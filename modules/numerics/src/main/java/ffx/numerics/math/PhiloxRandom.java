@@ -0,0 +1,230 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.numerics.math;
+
+import static org.apache.commons.math3.util.FastMath.PI;
+import static org.apache.commons.math3.util.FastMath.cos;
+import static org.apache.commons.math3.util.FastMath.log;
+import static org.apache.commons.math3.util.FastMath.sin;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The PhiloxRandom class is a counter-based random number generator using the Philox4x32-10
+ * bijection. Each block of four random 32-bit integers is a pure function of the seed, a counter
+ * (for example the molecular dynamics step) and an index (for example the degree of freedom).
+ * Random numbers can therefore be generated in any order and by any number of threads, and are
+ * reproducible regardless of how the work is divided. The uniform and normal methods re-use a work
+ * array, so threads drawing concurrently should each use an instance with the same seed.
+ *
+ * @author Michael J. Schnieders
+ * @see <a href="https://doi.org/10.1145/2063384.2063405">J. K. Salmon, M. A. Moraes, R. O. Dror
+ *     and D. E. Shaw, "Parallel Random Numbers: As Easy as 1, 2, 3", Proceedings of the
+ *     International Conference for High Performance Computing, Networking, Storage and Analysis
+ *     (2011)</a>
+ * @since 1.0
+ */
+public class PhiloxRandom {
+
+  private static final int M0 = 0xD2511F53;
+  private static final int M1 = 0xCD9E8D57;
+  private static final int W0 = 0x9E3779B9;
+  private static final int W1 = 0xBB67AE85;
+  private static final int ROUNDS = 10;
+  /**
+   * Scale a 53-bit integer onto the unit interval.
+   */
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  /**
+   * The low 32 bits of the seed.
+   */
+  private int key0;
+  /**
+   * The high 32 bits of the seed.
+   */
+  private int key1;
+  /**
+   * The seed.
+   */
+  private long seed;
+  /**
+   * Work array for one block of four random integers, re-used to avoid an allocation per draw.
+   */
+  private final int[] work = new int[4];
+
+  /**
+   * Construct a PhiloxRandom instance with a random seed.
+   */
+  public PhiloxRandom() {
+    this(ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Construct a PhiloxRandom instance.
+   *
+   * @param seed The seed.
+   */
+  public PhiloxRandom(long seed) {
+    setSeed(seed);
+  }
+
+  /**
+   * Get the seed.
+   *
+   * @return The seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Set the seed.
+   *
+   * @param seed The seed.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+    key0 = (int) seed;
+    key1 = (int) (seed >>> 32);
+  }
+
+  /**
+   * Compute the block of four random 32-bit integers for a counter and index.
+   *
+   * @param counter The counter (for example the time step).
+   * @param index   The index (for example the degree of freedom).
+   * @param block   The four random integers.
+   */
+  public void block(long counter, long index, int[] block) {
+    philox((int) counter, (int) (counter >>> 32), (int) index, (int) (index >>> 32), key0, key1,
+        block);
+  }
+
+  /**
+   * Compute two uniform random numbers on the open interval (0, 1) for a counter and index.
+   *
+   * @param counter  The counter (for example the time step).
+   * @param index    The index (for example the degree of freedom).
+   * @param uniforms The two uniform random numbers.
+   */
+  public void uniforms(long counter, long index, double[] uniforms) {
+    int[] block = work;
+    block(counter, index, block);
+    uniforms[0] = toUniform(block[0], block[1]);
+    uniforms[1] = toUniform(block[2], block[3]);
+  }
+
+  /**
+   * Compute two independent standard normal random numbers for a counter and index using the
+   * Box-Muller transform.
+   *
+   * @param counter   The counter (for example the time step).
+   * @param index     The index (for example the degree of freedom).
+   * @param gaussians The two normal random numbers.
+   */
+  public void gaussians(long counter, long index, double[] gaussians) {
+    int[] block = work;
+    block(counter, index, block);
+    double r = sqrt(-2.0 * log(toUniform(block[0], block[1])));
+    double theta = 2.0 * PI * toUniform(block[2], block[3]);
+    gaussians[0] = r * cos(theta);
+    gaussians[1] = r * sin(theta);
+  }
+
+  /**
+   * Compute a standard normal random number for a counter and index.
+   *
+   * @param counter The counter (for example the time step).
+   * @param index   The index (for example the degree of freedom).
+   * @return A normal random number.
+   */
+  public double gaussian(long counter, long index) {
+    int[] block = work;
+    block(counter, index, block);
+    double r = sqrt(-2.0 * log(toUniform(block[0], block[1])));
+    return r * cos(2.0 * PI * toUniform(block[2], block[3]));
+  }
+
+  /**
+   * The Philox4x32 bijection with 10 rounds.
+   *
+   * @param c0    Counter word 0.
+   * @param c1    Counter word 1.
+   * @param c2    Counter word 2.
+   * @param c3    Counter word 3.
+   * @param k0    Key word 0.
+   * @param k1    Key word 1.
+   * @param block The four output words.
+   */
+  static void philox(int c0, int c1, int c2, int c3, int k0, int k1, int[] block) {
+    for (int round = 0; round < ROUNDS; round++) {
+      if (round > 0) {
+        k0 += W0;
+        k1 += W1;
+      }
+      long p0 = (M0 & 0xFFFFFFFFL) * (c0 & 0xFFFFFFFFL);
+      long p1 = (M1 & 0xFFFFFFFFL) * (c2 & 0xFFFFFFFFL);
+      int hi0 = (int) (p0 >>> 32);
+      int lo0 = (int) p0;
+      int hi1 = (int) (p1 >>> 32);
+      int lo1 = (int) p1;
+      c0 = hi1 ^ c1 ^ k0;
+      c1 = lo1;
+      c2 = hi0 ^ c3 ^ k1;
+      c3 = lo0;
+    }
+    block[0] = c0;
+    block[1] = c1;
+    block[2] = c2;
+    block[3] = c3;
+  }
+
+  /**
+   * Convert two random 32-bit integers to a double on the open interval (0, 1).
+   *
+   * @param a The first random integer.
+   * @param b The second random integer.
+   * @return A uniform random number.
+   */
+  private static double toUniform(int a, int b) {
+    long bits = ((a & 0xFFFFFFFFL) << 21) ^ ((b & 0xFFFFFFFFL) >>> 11);
+    return (bits + 0.5) * DOUBLE_UNIT;
+  }
+}
@@ -42,6 +42,7 @@ import ffx.numerics.fft.FFTTestSuite;
 import ffx.numerics.func1d.QuasiLinearSwitchTest;
 import ffx.numerics.integrate.Integrate1DTest;
 import ffx.numerics.integrate.IntegrationTest;
+import ffx.numerics.math.PhiloxRandomTest;
 import ffx.numerics.math.SquareRootTest;
 import ffx.numerics.multipole.MultipoleTestSuite;
 import ffx.numerics.special.ErfTest;
@@ -61,6 +62,7 @@ import org.junit.runners.Suite.SuiteClasses;
     MBARHarmonicOscillatorsTest.class,
     ModifiedBesselTest.class,
     MultipoleTestSuite.class,
+    PhiloxRandomTest.class,
     SquareRootTest.class,
     UniformBSplineTest.class,
     QuasiLinearSwitchTest.class
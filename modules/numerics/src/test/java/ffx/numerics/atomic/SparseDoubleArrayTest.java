@@ -0,0 +1,88 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.numerics.atomic;
+
+import ffx.utilities.FFXTest;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the SparseDoubleArray against the MultiDoubleArray.
+ */
+public class SparseDoubleArrayTest extends FFXTest {
+
+  /**
+   * Each thread writes to a subset of the array over several reset / reduce cycles, including
+   * cycles where blocks touched previously are no longer written.
+   */
+  @Test
+  public void testSparseReduction() {
+    int nThreads = 4;
+    int size = 1000;
+    AtomicDoubleArray multi = new MultiDoubleArray(nThreads, size);
+    AtomicDoubleArray sparse = new SparseDoubleArray(nThreads, size);
+    Random random = new Random(1);
+    for (int cycle = 0; cycle < 5; cycle++) {
+      for (int t = 0; t < nThreads; t++) {
+        multi.reset(t, 0, size - 1);
+        sparse.reset(t, 0, size - 1);
+      }
+      int nWrites = (cycle % 2 == 0) ? 20 : 200;
+      for (int t = 0; t < nThreads; t++) {
+        for (int n = 0; n < nWrites; n++) {
+          int index = random.nextInt(size);
+          double value = random.nextDouble();
+          multi.add(t, index, value);
+          sparse.add(t, index, value);
+          index = random.nextInt(size);
+          multi.sub(t, index, value);
+          sparse.sub(t, index, value);
+        }
+      }
+      multi.reduce(0, 499);
+      sparse.reduce(0, 499);
+      multi.reduce(500, size - 1);
+      sparse.reduce(500, size - 1);
+      for (int i = 0; i < size; i++) {
+        assertEquals(" Cycle " + cycle + " index " + i, multi.get(i), sparse.get(i), 1.0e-12);
+      }
+    }
+  }
+}
@@ -128,4 +128,53 @@ public class Complex3DParallelTest extends FFXTest {
       assertEquals(info, orig, actual, tolerance);
     }
   }
+
+  /** Test of the realFFT method against the complex FFT, of class Complex3DParallel. */
+  @Test
+  public void testRealFft() {
+    double[] complexData = Arrays.copyOf(data, data.length);
+    Complex3DParallel complex3D = new Complex3DParallel(nx, ny, nz, parallelTeam);
+    complex3D.fft(complexData);
+    complex3D.realFFT(data);
+    for (int z = 0; z < nz; z++) {
+      for (int y = 0; y < ny; y++) {
+        for (int x = 0; x <= nx / 2; x++) {
+          int index = Complex3D.iComplex3D(x, y, z, nx, ny);
+          assertEquals(info, complexData[index] / tot, data[index] / tot, tolerance);
+          assertEquals(info, complexData[index + 1] / tot, data[index + 1] / tot, tolerance);
+        }
+      }
+    }
+    complex3D.realIFFT(data);
+    for (int i = 0; i < tot; i++) {
+      int index = i * 2;
+      assertEquals(info, expected[i], data[index] / tot, tolerance);
+      assertEquals(info, 0.0, data[index + 1], 0.0);
+    }
+  }
+
+  /** Test of the realConvolution method against the complex convolution, of class Complex3DParallel. */
+  @Test
+  public void testRealConvolution() {
+    // A reciprocal space array that is symmetric with respect to (x, y, z) -> (-x, -y, -z).
+    for (int z = 0, i = 0; z < nz; z++) {
+      int kz = Math.min(z, nz - z);
+      for (int y = 0; y < ny; y++) {
+        int ky = Math.min(y, ny - y);
+        for (int x = 0; x < nx; x++, i++) {
+          int kx = Math.min(x, nx - x);
+          recip[i] = 1.0 / (1.0 + kx * kx + ky * ky + kz * kz);
+        }
+      }
+    }
+    double[] complexData = Arrays.copyOf(data, data.length);
+    Complex3DParallel complex3D = new Complex3DParallel(nx, ny, nz, parallelTeam);
+    complex3D.setRecip(recip);
+    complex3D.convolution(complexData);
+    complex3D.realConvolution(data);
+    for (int i = 0; i < tot; i++) {
+      int index = i * 2;
+      assertEquals(info, complexData[index] / tot, data[index] / tot, tolerance);
+    }
+  }
 }
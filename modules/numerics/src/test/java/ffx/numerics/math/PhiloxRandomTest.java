@@ -0,0 +1,103 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.numerics.math;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import ffx.utilities.FFXTest;
+import org.junit.Test;
+
+/**
+ * Test the PhiloxRandom counter-based random number generator.
+ *
+ * @author Michael J. Schnieders
+ */
+public class PhiloxRandomTest extends FFXTest {
+
+  /**
+   * Compare to the Philox4x32-10 known answer tests of the Random123 library.
+   */
+  @Test
+  public void knownAnswerTest() {
+    int[] block = new int[4];
+    PhiloxRandom.philox(0, 0, 0, 0, 0, 0, block);
+    assertArrayEquals(new int[] {0x6627e8d5, 0xe169c58d, 0xbc57ac4c, 0x9b00dbd8}, block);
+    PhiloxRandom.philox(-1, -1, -1, -1, -1, -1, block);
+    assertArrayEquals(new int[] {0x408f276d, 0x41c83b0e, 0xa20bc7c6, 0x6d5451fd}, block);
+    PhiloxRandom.philox(0x243f6a88, 0x85a308d3, 0x13198a2e, 0x03707344, 0xa4093822, 0x299f31d0,
+        block);
+    assertArrayEquals(new int[] {0xd16cfe09, 0x94fdcceb, 0x5001e420, 0x24126ea1}, block);
+  }
+
+  /**
+   * Random numbers depend only on the seed, counter and index.
+   */
+  @Test
+  public void reproducibilityTest() {
+    PhiloxRandom random = new PhiloxRandom(42);
+    double[] first = new double[2];
+    double[] second = new double[2];
+    random.gaussians(7, 11, first);
+    random.gaussians(8, 11, second);
+    random.gaussians(7, 11, second);
+    assertArrayEquals(first, second, 0.0);
+    assertEquals(first[0], random.gaussian(7, 11), 0.0);
+  }
+
+  /**
+   * The normal random numbers should have zero mean and unit variance.
+   */
+  @Test
+  public void gaussianMomentsTest() {
+    PhiloxRandom random = new PhiloxRandom(2024);
+    int n = 100000;
+    double[] gaussians = new double[2];
+    double sum = 0.0;
+    double sum2 = 0.0;
+    for (int i = 0; i < n; i++) {
+      random.gaussians(1, i, gaussians);
+      sum += gaussians[0] + gaussians[1];
+      sum2 += gaussians[0] * gaussians[0] + gaussians[1] * gaussians[1];
+    }
+    double mean = sum / (2 * n);
+    double variance = sum2 / (2 * n) - mean * mean;
+    assertEquals(0.0, mean, 0.01);
+    assertEquals(1.0, variance, 0.02);
+  }
+}
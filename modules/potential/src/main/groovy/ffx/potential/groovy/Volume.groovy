@@ -265,8 +265,8 @@ class Volume extends PotentialScript {
         index++
       }
 
-      // Note that the VolumeRegion code is currently limited to a single thread.
-      int nThreads = 1
+      // Large systems are split into spatial domains that are computed concurrently.
+      int nThreads = ParallelTeam.getDefaultThreadCount()
       ConnollyRegion connollyRegion = new ConnollyRegion(atoms, radii, nThreads)
       // For solvent excluded volume.
       connollyRegion.setExclude(exclude)
@@ -299,6 +299,7 @@ class Volume extends PotentialScript {
       // Set JUnit testing variables based on output volume and surface area
       totalVolume = connollyRegion.getVolume()
       totalSurfaceArea = connollyRegion.getSurfaceArea()
+      connollyRegion.destroy()
     }
 
     return this
@@ -271,10 +271,9 @@ class VolumeArc extends PotentialScript {
                 index++
               }
 
-              // Note that the VolumeRegion code is currently limited to a single thread.
-              ParallelTeam parallelTeam = new ParallelTeam(1)
+              // Large systems are split into spatial domains that are computed concurrently.
               ConnollyRegion connollyRegion = new ConnollyRegion(atoms, radii,
-                  parallelTeam.getThreadCount())
+                  ParallelTeam.getDefaultThreadCount())
               // For solvent excluded volume.
               connollyRegion.setExclude(exclude)
               // For molecular surface.
@@ -304,6 +303,7 @@ class VolumeArc extends PotentialScript {
               // Set JUnit testing variables based on output volume and surface area
               totalVolume = connollyRegion.getVolume()
               totalSurfaceArea = connollyRegion.getSurfaceArea()
+              connollyRegion.destroy()
             }
           }
         }
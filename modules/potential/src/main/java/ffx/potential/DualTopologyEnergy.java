@@ -49,6 +49,7 @@ import ffx.potential.bonded.Atom;
 import ffx.potential.bonded.LambdaInterface;
 import ffx.potential.parameters.ForceField;
 import ffx.potential.utils.EnergyException;
+import ffx.utilities.FFXProperty;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -60,6 +61,7 @@ import static ffx.crystal.SymOp.applyCartesianSymOp;
 import static ffx.crystal.SymOp.applyCartesianSymRot;
 import static ffx.crystal.SymOp.invertSymOp;
 import static ffx.potential.utils.Superpose.rmsd;
+import static ffx.utilities.PropertyGroup.PotentialFunctionSelection;
 import static ffx.utilities.StringUtils.parseAtomRanges;
 import static java.lang.Double.parseDouble;
 import static java.lang.String.format;
@@ -204,6 +206,22 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
   private final int[] molecule2;
   /** Utilize a provided SymOp */
   private boolean useSymOp = false;
+  /**
+   * Evaluate bonded terms and van der Waals interactions among atoms not undergoing alchemy once,
+   * rather than once per topology.
+   */
+  @FFXProperty(name = "shared-environment", clazz = Boolean.class,
+      propertyGroup = PotentialFunctionSelection, defaultValue = "false", description = """
+      If true, a dual topology evaluates the bonded terms and van der Waals interactions among atoms
+      that are not undergoing alchemy once, rather than once per topology. The environment must be
+      described by identical parameters in both topologies. This is not supported with symmetry
+      operators or lambda torsions.
+      """)
+  private final boolean sharedEnvironment;
+  /** Energy of the environment shared by both topologies (kcal/mol). */
+  private double environmentEnergy = 0;
+  /** Gradient of the environment shared by both topologies, in the ordering of topology 1. */
+  private final double[] ge1;
 
   /**
    * Constructor for DualTopologyEnergy.
@@ -391,6 +409,21 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
 
     this.switchFunction = switchFunction;
     logger.info(format("\n Dual topology using switching function:\n  %s", switchFunction));
+
+    // The shared environment must be described by identical parameters in both topologies.
+    boolean shared = forceField1.getBoolean("SHARED_ENVIRONMENT", false);
+    if (shared && (useSymOp || forceField1.getBoolean("TORSION_LAMBDATERM", false)
+        || forceField2.getBoolean("TORSION_LAMBDATERM", false))) {
+      logger.info(" A shared environment is not supported with symmetry operators or lambda torsions.");
+      shared = false;
+    }
+    sharedEnvironment = shared;
+    if (sharedEnvironment) {
+      ge1 = new double[nActive1 * 3];
+      logger.info(" Bonded and van der Waals terms of the shared environment are evaluated once.");
+    } else {
+      ge1 = null;
+    }
   }
 
   /**
@@ -564,10 +597,78 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
       parallelTeam.execute(energyRegion);
     } catch (Exception ex) {
       throw new EnergyException(format(" Exception in calculating dual-topology energy: %s", ex));
+    } finally {
+      restoreEnvironmentTerms();
     }
     return totalEnergy;
   }
 
+  /**
+   * Evaluate the energy of a single configuration at a series of lambda values, as needed for
+   * BAR or MBAR post-processing. If both topologies are described by a ForceFieldEnergy, each
+   * topology re-evaluates only its lambda dependent terms and the valence restraint energies are
+   * computed once. The current lambda value is restored before returning.
+   *
+   * @param x       Scaled coordinates.
+   * @param lambdas The lambda values to evaluate.
+   * @return The dual-topology energy at each lambda value.
+   */
+  public double[] energyAtLambdas(double[] x, double[] lambdas) {
+    int nLambdas = lambdas.length;
+    double[] energies = new double[nLambdas];
+    double currentLambda = lambda;
+    if (useSymOp || !(potential1 instanceof ForceFieldEnergy)
+        || !(potential2 instanceof ForceFieldEnergy)) {
+      for (int i = 0; i < nLambdas; i++) {
+        setLambda(lambdas[i]);
+        energies[i] = energy(x, false);
+      }
+      setLambda(currentLambda);
+      return energies;
+    }
+
+    ForceFieldEnergy ffE1 = (ForceFieldEnergy) potential1;
+    ForceFieldEnergy ffE2 = (ForceFieldEnergy) potential2;
+    double[] oneMinusLambdas = new double[nLambdas];
+    for (int i = 0; i < nLambdas; i++) {
+      oneMinusLambdas[i] = 1.0 - lambdas[i];
+    }
+
+    unpackCoordinates(x);
+    try {
+      double[] energies1 = ffE1.energyAtLambdas(x1, lambdas);
+      double[] energies2 = ffE2.energyAtLambdas(x2, oneMinusLambdas);
+
+      // The valence restraint terms are not scaled by lambda within each topology.
+      double restraint1 = 0.0;
+      if (doValenceRestraint1) {
+        ffE1.setLambdaBondedTerms(true, useFirstSystemBondedEnergy);
+        restraint1 = ffE1.energy(x1, false);
+        ffE1.setLambdaBondedTerms(false, false);
+      }
+      double restraint2 = 0.0;
+      if (doValenceRestraint2) {
+        ffE2.setLambdaBondedTerms(true, useFirstSystemBondedEnergy);
+        restraint2 = ffE2.energy(x2, false);
+        ffE2.setLambdaBondedTerms(false, false);
+      }
+
+      // Apply the dual-topology scaling for the total energy at each lambda.
+      for (int i = 0; i < nLambdas; i++) {
+        double f1 = switchFunction.valueAt(lambdas[i]);
+        double f2 = switchFunction.valueAt(oneMinusLambdas[i]);
+        if (!useFirstSystemBondedEnergy) {
+          energies[i] = f1 * energies1[i] + f2 * restraint1 + f2 * energies2[i] + f1 * restraint2;
+        } else {
+          energies[i] = f1 * energies1[i] + f2 * restraint1 + f2 * energies2[i] - f2 * restraint2;
+        }
+      }
+    } finally {
+      scaleCoordinates(x);
+    }
+    return energies;
+  }
+
   /**
    * {@inheritDoc}
    *
@@ -593,6 +694,8 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
       parallelTeam.execute(energyRegion);
     } catch (Exception ex) {
       throw new EnergyException(format(" Exception in calculating dual-topology energy: %s", ex));
+    } finally {
+      restoreEnvironmentTerms();
     }
     return totalEnergy;
   }
@@ -1355,6 +1458,71 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
     @Override
     public void start() {
       unpackCoordinates(x);
+      if (sharedEnvironment) {
+        // Evaluate the shared environment once using topology 1.
+        forceFieldEnergy1.setEnvironmentTerms(true, false);
+        if (gradient) {
+          environmentEnergy = forceFieldEnergy1.energyAndGradient(x1, ge1, verbose);
+        } else {
+          environmentEnergy = forceFieldEnergy1.energy(x1, verbose);
+        }
+        // Each topology then evaluates only its unique terms.
+        forceFieldEnergy1.setEnvironmentTerms(false, true);
+        forceFieldEnergy2.setEnvironmentTerms(false, true);
+      }
+    }
+  }
+
+  /**
+   * Re-enable all terms of both topologies after a shared environment evaluation. This is called
+   * from a finally block so that an exception during the evaluation does not leave either
+   * ForceFieldEnergy with its environment or unique terms disabled.
+   */
+  private void restoreEnvironmentTerms() {
+    if (sharedEnvironment) {
+      forceFieldEnergy1.setEnvironmentTerms(true, true);
+      forceFieldEnergy2.setEnvironmentTerms(true, true);
+    }
+  }
+
+  /**
+   * Add the shared environment energy and gradient to the unique terms of topology 1.
+   *
+   * @param gradient If true, add the environment gradient.
+   */
+  private void addEnvironment1(boolean gradient) {
+    energy1 += environmentEnergy;
+    if (gradient) {
+      for (int i = 0; i < nActive1 * 3; i++) {
+        g1[i] += ge1[i];
+      }
+    }
+  }
+
+  /**
+   * Add the shared environment energy and gradient to the unique terms of topology 2. Shared
+   * atoms appear in the same order in both topologies.
+   *
+   * @param gradient If true, add the environment gradient.
+   */
+  private void addEnvironment2(boolean gradient) {
+    energy2 += environmentEnergy;
+    if (gradient) {
+      int index1 = 0;
+      for (int i = 0; i < nActive2; i++) {
+        if (!sharedAtoms2[i]) {
+          continue;
+        }
+        while (!sharedAtoms1[index1]) {
+          index1++;
+        }
+        int i3 = i * 3;
+        int j3 = index1 * 3;
+        g2[i3] += ge1[j3];
+        g2[i3 + 1] += ge1[j3 + 1];
+        g2[i3 + 2] += ge1[j3 + 2];
+        index1++;
+      }
     }
   }
 
@@ -1369,6 +1537,9 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
         fill(gl1, 0.0);
         fill(rgl1, 0.0);
         energy1 = potential1.energyAndGradient(x1, g1, verbose);
+        if (sharedEnvironment) {
+          addEnvironment1(true);
+        }
         dEdL_1 = lambdaInterface1.getdEdL();
         d2EdL2_1 = lambdaInterface1.getd2EdL2();
         lambdaInterface1.getdEdXdL(gl1);
@@ -1396,6 +1567,9 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
         }
       } else {
         energy1 = potential1.energy(x1, verbose);
+        if (sharedEnvironment) {
+          addEnvironment1(false);
+        }
         if (doValenceRestraint1 && potential1 instanceof ForceFieldEnergy) {
           ForceFieldEnergy ffE1 = (ForceFieldEnergy) potential1;
           ffE1.setLambdaBondedTerms(true, useFirstSystemBondedEnergy);
@@ -1453,6 +1627,9 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
 
         // Compute the energy and gradient of topology 2.
         energy2 = potential2.energyAndGradient(x2, g2, verbose);
+        if (sharedEnvironment) {
+          addEnvironment2(true);
+        }
         dEdL_2 = -lambdaInterface2.getdEdL();
         d2EdL2_2 = lambdaInterface2.getd2EdL2();
         lambdaInterface2.getdEdXdL(gl2);
@@ -1513,6 +1690,9 @@ public class DualTopologyEnergy implements CrystalPotential, LambdaInterface {
         }
       } else {
         energy2 = potential2.energy(x2, verbose);
+        if (sharedEnvironment) {
+          addEnvironment2(false);
+        }
         if (doValenceRestraint2 && potential2 instanceof ForceFieldEnergy) {
           ForceFieldEnergy ffE2 = (ForceFieldEnergy) potential2;
           ffE2.setLambdaBondedTerms(true, useFirstSystemBondedEnergy);
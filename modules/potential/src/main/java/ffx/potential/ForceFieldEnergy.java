@@ -67,6 +67,8 @@ import ffx.potential.bonded.LambdaInterface;
 import ffx.potential.bonded.MSNode;
 import ffx.potential.bonded.MultiResidue;
 import ffx.potential.bonded.OutOfPlaneBend;
+import ffx.potential.bonded.PackedBondedTerms;
+import ffx.potential.bonded.PackedBondedTerms.TermType;
 import ffx.potential.bonded.PiOrbitalTorsion;
 import ffx.potential.bonded.RelativeSolvation;
 import ffx.potential.bonded.RelativeSolvation.SolvationLibrary;
@@ -131,6 +133,7 @@ import static ffx.utilities.PropertyGroup.PotentialFunctionSelection;
 import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
 import static java.lang.String.format;
+import static java.util.Arrays.fill;
 import static java.util.Arrays.sort;
 import static org.apache.commons.io.FilenameUtils.removeExtension;
 import static org.apache.commons.math3.util.FastMath.PI;
@@ -325,6 +328,16 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
    * Indicates application of lambda scaling to all Torsion based energy terms.
    */
   private final boolean lambdaTorsions;
+  /**
+   * Indicates use of packed (structure-of-arrays) kernels for bond, angle, Urey-Bradley and torsion terms.
+   */
+  @FFXProperty(name = "packed-bonded", clazz = Boolean.class, propertyGroup = PotentialFunctionSelection,
+      defaultValue = "false", description = """
+      Specifies evaluation of bond, angle, Urey-Bradley and torsion terms using allocation-free kernels
+      over primitive index, parameter and coordinate arrays. The packed kernels are not used for
+      lambda dependent systems.
+      """)
+  private final boolean packedBonded;
   /**
    * Relative solvation term (TODO: needs further testing).
    */
@@ -354,6 +367,32 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
    * Indicates all bonded energy terms should be evaluated if lambdaBondedTerms is true.
    */
   boolean lambdaAllBondedTerms = false;
+  /**
+   * Indicates only energy terms that depend on lambda should be evaluated, with all other terms
+   * reused from the previous evaluation of the same coordinates.
+   */
+  private boolean lambdaDependentOnly = false;
+  /**
+   * Indicates energy terms that involve only atoms not undergoing alchemy (the environment shared
+   * between dual topologies) should be evaluated.
+   */
+  private boolean includeEnvironmentTerms = true;
+  /**
+   * Indicates energy terms that involve at least one atom undergoing alchemy should be evaluated.
+   * Restraints, the neural network term and electrostatics are always treated as unique terms.
+   */
+  private boolean includeUniqueTerms = true;
+  /**
+   * If not null, only bonded terms and van der Waals interactions that involve at least one flagged
+   * atom are evaluated.
+   */
+  private boolean[] localAtoms = null;
+  /**
+   * If not null, only bonded terms and nonbonded interactions that involve both an atom flagged in
+   * pairAtomsA and an atom flagged in pairAtomsB are evaluated.
+   */
+  private boolean[] pairAtomsA = null;
+  private boolean[] pairAtomsB = null;
 
   /**
    * Flag to indicate proper shutdown of the ForceFieldEnergy.
@@ -961,6 +1000,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
     restrainPositionTerm = forceField.getBoolean("RESTRAINTERM", false);
     comTerm = forceField.getBoolean("COMRESTRAINTERM", false);
     lambdaTorsions = forceField.getBoolean("TORSION_LAMBDATERM", false);
+    packedBonded = forceField.getBoolean("PACKED_BONDED", false);
     printOnFailure = forceField.getBoolean("PRINT_ON_FAILURE", false);
 
     if (properties.containsKey("restrain-groups")) {
@@ -1934,19 +1974,26 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       restrainPositionTime = 0;
       restraintTorsionTime = 0;
 
-      // Zero out the potential energy of each bonded term.
-      nnEnergy = 0.0;
-      bondEnergy = 0.0;
-      angleEnergy = 0.0;
-      stretchBendEnergy = 0.0;
-      ureyBradleyEnergy = 0.0;
-      outOfPlaneBendEnergy = 0.0;
-      torsionEnergy = 0.0;
-      angleTorsionEnergy = 0.0;
-      stretchTorsionEnergy = 0.0;
-      piOrbitalTorsionEnergy = 0.0;
-      torsionTorsionEnergy = 0.0;
-      improperTorsionEnergy = 0.0;
+      // Lambda independent force field bonded terms are reused if only lambda dependent terms are requested.
+      boolean reuseBondedTerms = lambdaDependentOnly && !lambdaTorsions;
+      if (!reuseBondedTerms) {
+        // Zero out the potential energy of each bonded term.
+        bondEnergy = 0.0;
+        angleEnergy = 0.0;
+        stretchBendEnergy = 0.0;
+        ureyBradleyEnergy = 0.0;
+        outOfPlaneBendEnergy = 0.0;
+        torsionEnergy = 0.0;
+        angleTorsionEnergy = 0.0;
+        stretchTorsionEnergy = 0.0;
+        piOrbitalTorsionEnergy = 0.0;
+        torsionTorsionEnergy = 0.0;
+        improperTorsionEnergy = 0.0;
+
+        // Zero out bond and angle RMSDs.
+        bondRMSD = 0.0;
+        angleRMSD = 0.0;
+      }
       totalBondedEnergy = 0.0;
 
       // Zero out potential energy of restraint terms
@@ -1955,10 +2002,6 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       restraintTorsionEnergy = 0.0;
       restrainEnergy = 0.0;
 
-      // Zero out bond and angle RMSDs.
-      bondRMSD = 0.0;
-      angleRMSD = 0.0;
-
       // Zero out the potential energy of each non-bonded term.
       vanDerWaalsEnergy = 0.0;
       permanentMultipoleEnergy = 0.0;
@@ -1970,9 +2013,14 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       // Zero out the solvation energy.
       solvationEnergy = 0.0;
 
-      // Zero out the relative solvation energy (sequence optimization)
-      relativeSolvationEnergy = 0.0;
-      nRelativeSolvations = 0;
+      if (!lambdaDependentOnly) {
+        // Zero out the neural network energy.
+        nnEnergy = 0.0;
+
+        // Zero out the relative solvation energy (sequence optimization)
+        relativeSolvationEnergy = 0.0;
+        nRelativeSolvations = 0;
+      }
 
       esvBias = 0.0;
 
@@ -1990,6 +2038,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       // Computed the bonded energy terms in parallel.
       try {
         bondedRegion.setGradient(gradient);
+        bondedRegion.setReuseForceFieldTerms(reuseBondedTerms);
         parallelTeam.execute(bondedRegion);
       } catch (RuntimeException ex) {
         logger.warning("Runtime exception during bonded term calculation.");
@@ -1999,7 +2048,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         logger.severe(ex.toString());
       }
 
-      if (!lambdaBondedTerms) {
+      if (!lambdaBondedTerms && includeUniqueTerms && pairAtomsA == null) {
         // Compute restraint terms.
         if (ncsTerm) {
           ncsTime = -System.nanoTime();
@@ -2025,12 +2074,14 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         }
 
         // Compute the neural network term.
-        if (nnTerm) {
+        if (nnTerm && !lambdaDependentOnly) {
           nnTime = -System.nanoTime();
           nnEnergy = aniEnergy.energy(gradient, print);
           nnTime += System.nanoTime();
         }
+      }
 
+      if (!lambdaBondedTerms) {
         // Compute non-bonded terms.
         if (vanderWaalsTerm) {
           vanDerWaalsTime = -System.nanoTime();
@@ -2039,7 +2090,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
           vanDerWaalsTime += System.nanoTime();
         }
 
-        if (multipoleTerm) {
+        if (multipoleTerm && includeUniqueTerms) {
           electrostaticTime = -System.nanoTime();
           totalMultipoleEnergy = particleMeshEwald.energy(gradient, print);
           permanentMultipoleEnergy = particleMeshEwald.getPermanentEnergy();
@@ -2052,7 +2103,8 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         }
       }
 
-      if (relativeSolvationTerm) {
+      if (relativeSolvationTerm && !lambdaDependentOnly && includeUniqueTerms
+          && pairAtomsA == null) {
         List<Residue> residuesList = molecularAssembly.getResidueList();
         for (Residue residue : residuesList) {
           if (residue instanceof MultiResidue) {
@@ -2080,7 +2132,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
               + restraintTorsionEnergy;
       totalNonBondedEnergy = vanDerWaalsEnergy + totalMultipoleEnergy + relativeSolvationEnergy;
       totalEnergy = totalBondedEnergy + totalNonBondedEnergy + solvationEnergy;
-      if (esvTerm) {
+      if (esvTerm && includeUniqueTerms && pairAtomsA == null) {
         esvBias = esvSystem.getBiasEnergy();
         totalEnergy += esvBias;
       }
@@ -2139,6 +2191,157 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
     return e;
   }
 
+  /**
+   * Compute the energy of the terms that depend on the coordinates of the given atoms. Bonded terms,
+   * restraint bonds and restraint torsions are only evaluated if they include at least one of the
+   * atoms, as are van der Waals interactions. Position, center of mass, group and NCS restraints,
+   * the neural network term and electrostatics are evaluated for the full system. Terms that involve
+   * none of the atoms are omitted, so the difference between the local energy before and after a
+   * move of only these atoms equals the change in total potential energy.
+   *
+   * <p>Polarization couples every atom, so electrostatics are not evaluated incrementally.
+   *
+   * @param atoms The atoms that are moved.
+   * @return The local energy.
+   */
+  public double getLocalEnergy(Atom[] atoms) {
+    boolean[] local = new boolean[nAtoms];
+    for (Atom atom : atoms) {
+      local[atom.getXyzIndex() - 1] = true;
+    }
+    localAtoms = local;
+    if (vanderWaals != null) {
+      vanderWaals.setLocalAtoms(local);
+    }
+    try {
+      return energy(false, false);
+    } finally {
+      localAtoms = null;
+      if (vanderWaals != null) {
+        vanderWaals.setLocalAtoms(null);
+      }
+    }
+  }
+
+  /**
+   * Check if the interaction energy between two sets of atoms can be evaluated directly, which
+   * requires that every energy term is a sum over bonded terms and atom pairs. Polarization,
+   * implicit solvent, reciprocal space, the neural network term, lambda, the extended system and
+   * restraints on groups of atoms couple more than two atoms.
+   *
+   * @return true if the potential is pairwise additive.
+   * @see #getInteractionEnergy(Atom[], Atom[])
+   */
+  public boolean isPairwiseAdditive() {
+    if (lambdaTerm || esvTerm || nnTerm || ncsTerm || comTerm || restrainGroupTerm) {
+      return false;
+    }
+    return !multipoleTerm || particleMeshEwald.isPairwiseAdditive();
+  }
+
+  /**
+   * Compute the interaction energy between two disjoint sets of atoms: bonded terms that include an
+   * atom from each set, plus the van der Waals and real space permanent electrostatic interactions
+   * between atoms of the two sets. Restraints on single atoms and all terms within either set are
+   * omitted, so the interaction energy of two side-chain rotamers is obtained without evaluating the
+   * rest of the system.
+   *
+   * @param atomsA The first set of atoms.
+   * @param atomsB The second set of atoms.
+   * @return The interaction energy.
+   * @throws IllegalStateException If the potential is not pairwise additive.
+   * @see #isPairwiseAdditive()
+   */
+  public double getInteractionEnergy(Atom[] atomsA, Atom[] atomsB) {
+    if (!isPairwiseAdditive()) {
+      throw new IllegalStateException(" The potential energy is not pairwise additive.");
+    }
+    boolean[] flagsA = new boolean[nAtoms];
+    for (Atom atom : atomsA) {
+      flagsA[atom.getXyzIndex() - 1] = true;
+    }
+    boolean[] flagsB = new boolean[nAtoms];
+    for (Atom atom : atomsB) {
+      flagsB[atom.getXyzIndex() - 1] = true;
+    }
+    pairAtomsA = flagsA;
+    pairAtomsB = flagsB;
+    if (vanderWaals != null) {
+      vanderWaals.setPairAtoms(flagsA, flagsB);
+    }
+    if (particleMeshEwald != null) {
+      particleMeshEwald.setPairAtoms(flagsA, flagsB);
+    }
+    try {
+      return energy(false, false);
+    } finally {
+      pairAtomsA = null;
+      pairAtomsB = null;
+      if (vanderWaals != null) {
+        vanderWaals.setPairAtoms(null, null);
+      }
+      if (particleMeshEwald != null) {
+        particleMeshEwald.setPairAtoms(null, null);
+      }
+    }
+  }
+
+  /**
+   * Evaluate the energy of a single configuration at a series of lambda values, as needed for
+   * BAR or MBAR post-processing. The lambda independent bonded terms, neural network term and the
+   * van der Waals interactions between hard atoms are computed only once, while the remaining lambda
+   * dependent terms are re-evaluated at each lambda. The current lambda value is restored before
+   * returning.
+   *
+   * @param x       Scaled coordinates.
+   * @param lambdas The lambda values to evaluate.
+   * @return The energy at each lambda value.
+   */
+  public double[] energyAtLambdas(double[] x, double[] lambdas) {
+    assert Arrays.stream(x).allMatch(Double::isFinite);
+    int nLambdas = lambdas.length;
+    double[] energies = new double[nLambdas];
+    if (nLambdas == 0) {
+      return energies;
+    }
+
+    // Unscale the coordinates.
+    unscaleCoordinates(x);
+
+    // Set coordinates.
+    setCoordinates(x);
+
+    if (!lambdaTerm) {
+      fill(energies, energy(false, false));
+      scaleCoordinates(x);
+      return energies;
+    }
+
+    double currentLambda = lambda;
+    try {
+      setLambda(lambdas[0]);
+      energies[0] = energy(false, false);
+      lambdaDependentOnly = true;
+      if (vanderWaalsTerm) {
+        vanderWaals.setSoftcoreOnly(true);
+      }
+      for (int i = 1; i < nLambdas; i++) {
+        setLambda(lambdas[i]);
+        energies[i] = energy(false, false);
+      }
+    } finally {
+      lambdaDependentOnly = false;
+      if (vanderWaalsTerm) {
+        vanderWaals.setSoftcoreOnly(false);
+      }
+      setLambda(currentLambda);
+      // Rescale the coordinates.
+      scaleCoordinates(x);
+    }
+
+    return energies;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -4068,10 +4271,15 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
    * Log out all bonded energy terms.
    */
   public void logBondedTerms() {
+    // The packed bonded kernels do not update the state of individual terms.
+    boolean packed = bondedRegion.isPacked();
     if (bondTerm && nBonds > 0) {
       logger.info("\n Bond Stretching Interactions:");
       Bond[] bonds = getBonds();
       for (Bond bond : bonds) {
+        if (packed) {
+          bond.update();
+        }
         logger.info(" Bond \t" + bond.toString());
       }
     }
@@ -4080,6 +4288,9 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       logger.info("\n Angle Bending Interactions:");
       Angle[] angles = getAngles();
       for (Angle angle : angles) {
+        if (packed) {
+          angle.update();
+        }
         logger.info(" Angle \t" + angle.toString());
       }
     }
@@ -4095,6 +4306,9 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       logger.info("\n Urey-Bradley Interactions:");
       UreyBradley[] ureyBradleys = getUreyBradleys();
       for (UreyBradley ureyBradley : ureyBradleys) {
+        if (packed) {
+          ureyBradley.update();
+        }
         logger.info("Urey-Bradley \t" + ureyBradley.toString());
       }
     }
@@ -4109,6 +4323,9 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       logger.info("\n Torsion Angle Interactions:");
       Torsion[] torsions = getTorsions();
       for (Torsion torsion : torsions) {
+        if (packed) {
+          torsion.update();
+        }
         logger.info(" Torsion \t" + torsion.toString());
       }
     }
@@ -4173,6 +4390,23 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
     this.lambdaAllBondedTerms = lambdaAllBondedTerms;
   }
 
+  /**
+   * Select energy terms based on whether they involve atoms undergoing alchemy. Bonded terms and
+   * van der Waals interactions among atoms not undergoing alchemy form an environment that is
+   * identical between dual topologies, and can be evaluated once for both.
+   *
+   * @param includeEnvironment If true, terms that involve only environment atoms are evaluated.
+   * @param includeUnique      If true, terms that involve an atom undergoing alchemy, as well as
+   *                           restraints and electrostatics, are evaluated.
+   */
+  void setEnvironmentTerms(boolean includeEnvironment, boolean includeUnique) {
+    this.includeEnvironmentTerms = includeEnvironment;
+    this.includeUniqueTerms = includeUnique;
+    if (vanderWaals != null) {
+      vanderWaals.setEnvironmentPairs(includeEnvironment, includeUnique);
+    }
+  }
+
   /**
    * Return the non-bonded components of energy (vdW, electrostatics).
    *
@@ -4409,9 +4643,19 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
     // Retraint energy parallel loops.
     private final BondedTermLoop[] restraintBondLoops;
     private final BondedTermLoop[] rTorsLoops;
+    // Packed bonded terms and their parallel loops.
+    private final PackedBondedTerms packedTerms;
+    private final PackedCoordinateLoop[] packedCoordinateLoops;
+    private final PackedTermLoop[] packedBondLoops;
+    private final PackedTermLoop[] packedAngleLoops;
+    private final PackedTermLoop[] packedUreyBradleyLoops;
+    private final PackedTermLoop[] packedTorsionLoops;
+    private final BondedTermLoop[] inPlaneAngleLoops;
     private final AtomicDoubleArray3D grad;
     // Flag to indicate gradient computation.
     private boolean gradient = false;
+    // Flag to indicate the force field bonded terms are reused from the previous evaluation.
+    private boolean reuseForceFieldTerms = false;
     private AtomicDoubleArrayImpl atomicDoubleArrayImpl;
     private AtomicDoubleArray3D lambdaGrad;
 
@@ -4461,6 +4705,26 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       // Allocate memory for restrain energy terms.
       restraintBondLoops = new BondedTermLoop[nThreads];
 
+      // Pack bond, angle, Urey-Bradley and torsion terms into primitive arrays.
+      if (packedBonded && !lambdaTerm) {
+        packedTerms = new PackedBondedTerms(nAtoms, bonds, angles, ureyBradleys, torsions);
+        logger.fine(format("  Bonded using packed kernels for %d bonds, %d angles,"
+                + " %d Urey-Bradleys and %d torsions.", packedTerms.getCount(TermType.BOND),
+            packedTerms.getCount(TermType.ANGLE),
+            packedTerms.getCount(TermType.UREY_BRADLEY), packedTerms.getCount(TermType.TORSION)));
+      } else {
+        if (packedBonded) {
+          logger.info(" Packed bonded kernels are not used for lambda dependent systems.");
+        }
+        packedTerms = null;
+      }
+      packedCoordinateLoops = new PackedCoordinateLoop[nThreads];
+      packedBondLoops = new PackedTermLoop[nThreads];
+      packedAngleLoops = new PackedTermLoop[nThreads];
+      packedUreyBradleyLoops = new PackedTermLoop[nThreads];
+      packedTorsionLoops = new PackedTermLoop[nThreads];
+      inPlaneAngleLoops = new BondedTermLoop[nThreads];
+
       // Define how the gradient will be accumulated.
       atomicDoubleArrayImpl = AtomicDoubleArrayImpl.MULTI;
       ForceField forceField = molecularAssembly.getForceField();
@@ -4482,6 +4746,14 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
 
     @Override
     public void finish() {
+      // Restraint energy values.
+      restraintBondEnergy = sharedRestraintBondEnergy.get();
+      restraintTorsionEnergy = sharedRestTorsEnergy.get();
+
+      if (reuseForceFieldTerms) {
+        return;
+      }
+
       // Finalize bond and angle RMSD values.
       if (bondTerm) {
         bondRMSD = sqrt(sharedBondRMSD.get() / bonds.length);
@@ -4503,10 +4775,6 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       angleTorsionEnergy = sharedAngleTorsionEnergy.get();
       torsionTorsionEnergy = sharedTorsionTorsionEnergy.get();
       ureyBradleyEnergy = sharedUreyBradleyEnergy.get();
-
-      // Load shared restraint energy values.
-      restraintBondEnergy = sharedRestraintBondEnergy.get();
-      restraintTorsionEnergy = sharedRestTorsEnergy.get();
     }
 
     @Override
@@ -4521,28 +4789,120 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         execute(0, nAtoms - 1, gradInitLoops[threadID]);
       }
 
+      // Evaluate force field bonded energy terms, unless they are reused from the previous evaluation.
+      if (!reuseForceFieldTerms) {
+        evaluateForceFieldTerms(threadID);
+      }
+
+      // Evaluate restraint terms in parallel.
+      if (restraintBondTerm) {
+        if (restraintBondLoops[threadID] == null) {
+          restraintBondLoops[threadID] = new BondedTermLoop(restraintBonds,
+              sharedRestraintBondEnergy);
+        }
+        if (threadID == 0) {
+          restraintBondTime = -System.nanoTime();
+        }
+        execute(0, nRestraintBonds - 1, restraintBondLoops[threadID]);
+        if (threadID == 0) {
+          restraintBondTime += System.nanoTime();
+        }
+      }
+
+      if (restraintTorsionTerm) {
+        if (rTorsLoops[threadID] == null) {
+          rTorsLoops[threadID] = new BondedTermLoop(restraintTorsions, sharedRestTorsEnergy);
+        }
+        if (threadID == 0) {
+          restraintTorsionTime = -System.nanoTime();
+        }
+        execute(0, nRestaintTorsions - 1, rTorsLoops[threadID]);
+        if (threadID == 0) {
+          restraintTorsionTime += System.nanoTime();
+        }
+      }
+
+      // Reduce the Gradient and load it into Atom instances.
+      if (gradient) {
+        if (gradReduceLoops[threadID] == null) {
+          gradReduceLoops[threadID] = new GradReduceLoop();
+        }
+        execute(0, nAtoms - 1, gradReduceLoops[threadID]);
+      }
+    }
+
+    public void setGradient(boolean gradient) {
+      this.gradient = gradient;
+    }
+
+    /**
+     * Set whether the force field bonded terms are reused from the previous evaluation.
+     *
+     * @param reuseForceFieldTerms If true, only restraint terms are evaluated.
+     */
+    void setReuseForceFieldTerms(boolean reuseForceFieldTerms) {
+      this.reuseForceFieldTerms = reuseForceFieldTerms;
+    }
+
+    /**
+     * Evaluate the force field bonded energy terms.
+     *
+     * @param threadID The thread index.
+     * @throws Exception If an exception occurs within a parallel loop.
+     */
+    private void evaluateForceFieldTerms(int threadID) throws Exception {
+      // The packed kernels evaluate every term, so local and pair evaluations use the term loops.
+      boolean packed = packedTerms != null && localAtoms == null && pairAtomsA == null;
+
+      // Load coordinates into the packed bonded term arrays.
+      if (packed) {
+        if (packedCoordinateLoops[threadID] == null) {
+          packedCoordinateLoops[threadID] = new PackedCoordinateLoop();
+        }
+        execute(0, nAtoms - 1, packedCoordinateLoops[threadID]);
+      }
+
       // Evaluate force field bonded energy terms in parallel.
       if (angleTerm) {
-        if (angleLoops[threadID] == null) {
-          angleLoops[threadID] = new BondedTermLoop(angles, sharedAngleEnergy, sharedAngleRMSD);
-        }
         if (threadID == 0) {
           angleTime = -System.nanoTime();
         }
-        execute(0, nAngles - 1, angleLoops[threadID]);
+        if (packed) {
+          if (packedAngleLoops[threadID] == null) {
+            packedAngleLoops[threadID] = new PackedTermLoop(TermType.ANGLE, sharedAngleEnergy,
+                sharedAngleRMSD);
+            inPlaneAngleLoops[threadID] = new BondedTermLoop(packedTerms.getUnpackedAngles(),
+                sharedAngleEnergy, sharedAngleRMSD);
+          }
+          execute(0, packedTerms.getCount(TermType.ANGLE) - 1, packedAngleLoops[threadID]);
+          execute(0, packedTerms.getUnpackedAngles().length - 1, inPlaneAngleLoops[threadID]);
+        } else {
+          if (angleLoops[threadID] == null) {
+            angleLoops[threadID] = new BondedTermLoop(angles, sharedAngleEnergy, sharedAngleRMSD);
+          }
+          execute(0, nAngles - 1, angleLoops[threadID]);
+        }
         if (threadID == 0) {
           angleTime += System.nanoTime();
         }
       }
 
       if (bondTerm) {
-        if (bondLoops[threadID] == null) {
-          bondLoops[threadID] = new BondedTermLoop(bonds, sharedBondEnergy, sharedBondRMSD);
-        }
         if (threadID == 0) {
           bondTime = -System.nanoTime();
         }
-        execute(0, nBonds - 1, bondLoops[threadID]);
+        if (packed) {
+          if (packedBondLoops[threadID] == null) {
+            packedBondLoops[threadID] = new PackedTermLoop(TermType.BOND, sharedBondEnergy,
+                sharedBondRMSD);
+          }
+          execute(0, packedTerms.getCount(TermType.BOND) - 1, packedBondLoops[threadID]);
+        } else {
+          if (bondLoops[threadID] == null) {
+            bondLoops[threadID] = new BondedTermLoop(bonds, sharedBondEnergy, sharedBondRMSD);
+          }
+          execute(0, nBonds - 1, bondLoops[threadID]);
+        }
         if (threadID == 0) {
           bondTime += System.nanoTime();
         }
@@ -4604,13 +4964,21 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       }
 
       if (torsionTerm) {
-        if (torsionLoops[threadID] == null) {
-          torsionLoops[threadID] = new BondedTermLoop(torsions, sharedTorsionEnergy);
-        }
         if (threadID == 0) {
           torsionTime = -System.nanoTime();
         }
-        execute(0, nTorsions - 1, torsionLoops[threadID]);
+        if (packed) {
+          if (packedTorsionLoops[threadID] == null) {
+            packedTorsionLoops[threadID] = new PackedTermLoop(TermType.TORSION, sharedTorsionEnergy,
+                null);
+          }
+          execute(0, packedTerms.getCount(TermType.TORSION) - 1, packedTorsionLoops[threadID]);
+        } else {
+          if (torsionLoops[threadID] == null) {
+            torsionLoops[threadID] = new BondedTermLoop(torsions, sharedTorsionEnergy);
+          }
+          execute(0, nTorsions - 1, torsionLoops[threadID]);
+        }
         if (threadID == 0) {
           torsionTime += System.nanoTime();
         }
@@ -4658,57 +5026,35 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       }
 
       if (ureyBradleyTerm) {
-        if (ureyBradleyLoops[threadID] == null) {
-          ureyBradleyLoops[threadID] = new BondedTermLoop(ureyBradleys, sharedUreyBradleyEnergy);
-        }
         if (threadID == 0) {
           ureyBradleyTime = -System.nanoTime();
         }
-        execute(0, nUreyBradleys - 1, ureyBradleyLoops[threadID]);
-        if (threadID == 0) {
-          ureyBradleyTime += System.nanoTime();
-        }
-      }
-
-      // Evaluate restraint terms in parallel.
-      if (restraintBondTerm) {
-        if (restraintBondLoops[threadID] == null) {
-          restraintBondLoops[threadID] = new BondedTermLoop(restraintBonds,
-              sharedRestraintBondEnergy);
-        }
-        if (threadID == 0) {
-          restraintBondTime = -System.nanoTime();
-        }
-        execute(0, nRestraintBonds - 1, restraintBondLoops[threadID]);
-        if (threadID == 0) {
-          restraintBondTime += System.nanoTime();
-        }
-      }
-
-      if (restraintTorsionTerm) {
-        if (rTorsLoops[threadID] == null) {
-          rTorsLoops[threadID] = new BondedTermLoop(restraintTorsions, sharedRestTorsEnergy);
-        }
-        if (threadID == 0) {
-          restraintTorsionTime = -System.nanoTime();
+        if (packed) {
+          if (packedUreyBradleyLoops[threadID] == null) {
+            packedUreyBradleyLoops[threadID] = new PackedTermLoop(TermType.UREY_BRADLEY,
+                sharedUreyBradleyEnergy, null);
+          }
+          execute(0, packedTerms.getCount(TermType.UREY_BRADLEY) - 1,
+              packedUreyBradleyLoops[threadID]);
+        } else {
+          if (ureyBradleyLoops[threadID] == null) {
+            ureyBradleyLoops[threadID] = new BondedTermLoop(ureyBradleys, sharedUreyBradleyEnergy);
+          }
+          execute(0, nUreyBradleys - 1, ureyBradleyLoops[threadID]);
         }
-        execute(0, nRestaintTorsions - 1, rTorsLoops[threadID]);
         if (threadID == 0) {
-          restraintTorsionTime += System.nanoTime();
-        }
-      }
-
-      // Reduce the Gradient and load it into Atom instances.
-      if (gradient) {
-        if (gradReduceLoops[threadID] == null) {
-          gradReduceLoops[threadID] = new GradReduceLoop();
+          ureyBradleyTime += System.nanoTime();
         }
-        execute(0, nAtoms - 1, gradReduceLoops[threadID]);
       }
     }
 
-    public void setGradient(boolean gradient) {
-      this.gradient = gradient;
+    /**
+     * Indicates if bond, angle, Urey-Bradley and torsion terms are evaluated by packed kernels.
+     *
+     * @return True if the packed bonded kernels are in use.
+     */
+    boolean isPacked() {
+      return packedTerms != null;
     }
 
     @Override
@@ -4794,12 +5140,64 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
       }
     }
 
+    private class PackedCoordinateLoop extends IntegerForLoop {
+
+      @Override
+      public void run(int first, int last) throws Exception {
+        packedTerms.loadCoordinates(atoms, first, last);
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+
+    private class PackedTermLoop extends IntegerForLoop {
+
+      private final TermType termType;
+      private final SharedDouble sharedEnergy;
+      private final SharedDouble sharedRMSD;
+      private final double[] localRMSD = new double[1];
+      private double localEnergy;
+      private int threadID;
+
+      PackedTermLoop(TermType termType, SharedDouble sharedEnergy, SharedDouble sharedRMSD) {
+        this.termType = termType;
+        this.sharedEnergy = sharedEnergy;
+        this.sharedRMSD = sharedRMSD;
+      }
+
+      @Override
+      public void finish() {
+        sharedEnergy.addAndGet(localEnergy);
+        if (sharedRMSD != null) {
+          sharedRMSD.addAndGet(localRMSD[0]);
+        }
+      }
+
+      @Override
+      public void run(int first, int last) throws Exception {
+        localEnergy += packedTerms.energy(termType, first, last, gradient, threadID, grad,
+            sharedRMSD != null ? localRMSD : null);
+      }
+
+      @Override
+      public void start() {
+        localEnergy = 0.0;
+        localRMSD[0] = 0.0;
+        threadID = getThreadIndex();
+      }
+    }
+
     private class BondedTermLoop extends IntegerForLoop {
 
       private final BondedTerm[] terms;
       private final SharedDouble sharedEnergy;
       private final SharedDouble sharedRMSD;
       private final boolean computeRMSD;
+      // Restraints are always evaluated as unique terms, since they may differ between topologies.
+      private final boolean restraintTerms;
       private double localEnergy;
       private double localRMSD;
       private int threadID;
@@ -4813,6 +5211,7 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         this.sharedEnergy = sharedEnergy;
         this.sharedRMSD = sharedRMSD;
         computeRMSD = (sharedRMSD != null);
+        restraintTerms = (terms instanceof RestraintBond[] || terms instanceof RestraintTorsion[]);
       }
 
       @Override
@@ -4845,6 +5244,13 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
            */
           boolean used = !lambdaBondedTerms || lambdaAllBondedTerms || (term.applyLambda()
               && !term.isLambdaScaled());
+          // Select environment or unique terms for a dual topology with a shared environment.
+          used = used && (term.applyLambda() || restraintTerms ? includeUniqueTerms
+              : includeEnvironmentTerms);
+          // Select terms that involve a local atom.
+          used = used && (localAtoms == null || isLocal(term));
+          // Select terms that involve an atom from each of the two pair sets.
+          used = used && (pairAtomsA == null || isPair(term));
           if (used) {
             localEnergy += term.energy(gradient, threadID, grad, lambdaGrad);
             if (computeRMSD) {
@@ -4861,6 +5267,38 @@ public class ForceFieldEnergy implements CrystalPotential, LambdaInterface {
         localRMSD = 0.0;
         threadID = getThreadIndex();
       }
+
+      /**
+       * Check if a bonded term involves at least one local atom.
+       *
+       * @param term The bonded term.
+       * @return true if the term involves a local atom.
+       */
+      private boolean isLocal(BondedTerm term) {
+        for (Atom atom : term.getAtoms()) {
+          if (localAtoms[atom.getXyzIndex() - 1]) {
+            return true;
+          }
+        }
+        return false;
+      }
+
+      /**
+       * Check if a bonded term involves an atom from each of the two pair sets.
+       *
+       * @param term The bonded term.
+       * @return true if the term involves both sets.
+       */
+      private boolean isPair(BondedTerm term) {
+        boolean a = false;
+        boolean b = false;
+        for (Atom atom : term.getAtoms()) {
+          int i = atom.getXyzIndex() - 1;
+          a = a || pairAtomsA[i];
+          b = b || pairAtomsB[i];
+        }
+        return a && b;
+      }
     }
   }
 }
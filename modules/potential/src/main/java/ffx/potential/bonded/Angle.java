@@ -462,6 +462,15 @@ public class Angle extends BondedTerm {
     this.rigidScale = rigidScale;
   }
 
+  /**
+   * Getter for the field <code>rigidScale</code>.
+   *
+   * @return a double.
+   */
+  public double getRigidScale() {
+    return rigidScale;
+  }
+
   /**
    * {@inheritDoc}
    *
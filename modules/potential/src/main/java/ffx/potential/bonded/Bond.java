@@ -399,6 +399,15 @@ public class Bond extends BondedTerm {
     this.rigidScale = rigidScale;
   }
 
+  /**
+   * Getter for the field <code>rigidScale</code>.
+   *
+   * @return a double.
+   */
+  public double getRigidScale() {
+    return rigidScale;
+  }
+
   /**
    * {@inheritDoc}
    *
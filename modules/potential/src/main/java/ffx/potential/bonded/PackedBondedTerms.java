@@ -0,0 +1,549 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.bonded;
+
+import ffx.numerics.atomic.AtomicDoubleArray3D;
+import ffx.potential.parameters.AngleType;
+import ffx.potential.parameters.AngleType.AngleMode;
+import ffx.potential.parameters.BondType;
+import ffx.potential.parameters.TorsionType;
+import ffx.potential.parameters.UreyBradleyType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static ffx.potential.bonded.Torsion.TORSION_TOLERANCE;
+import static org.apache.commons.math3.util.FastMath.acos;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+import static org.apache.commons.math3.util.FastMath.toDegrees;
+
+/**
+ * The PackedBondedTerms class flattens Bond, Angle, Urey-Bradley and Torsion terms into primitive
+ * atom index and parameter arrays (a structure-of-arrays layout).
+ * <p>
+ * The packed kernels evaluate each term type over a flat coordinate array without creating
+ * temporary objects, which avoids the virtual dispatch and Double3 allocations of the per-object
+ * {@link BondedTerm#energy(boolean, int, AtomicDoubleArray3D, AtomicDoubleArray3D)} path.
+ * <p>
+ * Packed terms do not update the value and energy fields of the underlying BondedTerm instances.
+ * Lambda dependent terms are not supported; callers are expected to use the per-object path for
+ * alchemical simulations. In-plane angles are not packed and are returned by
+ * {@link #getUnpackedAngles()} for evaluation through the per-object path.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class PackedBondedTerms {
+
+  /**
+   * The bonded term types supported by the packed kernels.
+   */
+  public enum TermType {
+    BOND, ANGLE, UREY_BRADLEY, TORSION
+  }
+
+  /**
+   * Number of atoms.
+   */
+  private final int nAtoms;
+  /**
+   * Flat atomic coordinates [x0, y0, z0, x1, y1, z1, ...].
+   */
+  private final double[] xyz;
+  /**
+   * Flags to indicate if each atom is used.
+   */
+  private final boolean[] use;
+
+  // Bond parameters.
+  private final int nBonds;
+  private final int[] bondAtoms;
+  private final double[] bondForceConstant;
+  private final double[] bondDistance;
+  private final double[] bondCubic;
+  private final double[] bondQuartic;
+  private final double[] bondFlatBottom;
+
+  // Normal (i.e. not in-plane) angle parameters.
+  private final int nAngles;
+  private final int[] angleAtoms;
+  private final double[] angleForceConstant;
+  private final double[] angleIdeal;
+  private final double[] angleCubic;
+  private final double[] angleQuartic;
+  private final double[] anglePentic;
+  private final double[] angleSextic;
+  private final Angle[] unpackedAngles;
+
+  // Urey-Bradley parameters.
+  private final int nUreyBradleys;
+  private final int[] ureyBradleyAtoms;
+  private final double[] ureyBradleyForceConstant;
+  private final double[] ureyBradleyDistance;
+  private final double[] ureyBradleyCubic;
+  private final double[] ureyBradleyQuartic;
+
+  // Torsion parameters; the Fourier terms of torsion i are stored in [torsionOffset[i], torsionOffset[i + 1]).
+  private final int nTorsions;
+  private final int[] torsionAtoms;
+  private final int[] torsionOffset;
+  private final double[] torsionAmplitude;
+  private final double[] torsionCosine;
+  private final double[] torsionSine;
+
+  /**
+   * Construct packed arrays for the supplied bonded terms.
+   *
+   * @param nAtoms The number of atoms in the system.
+   * @param bonds The bonds to pack (may be null).
+   * @param angles The angles to pack (may be null).
+   * @param ureyBradleys The Urey-Bradley terms to pack (may be null).
+   * @param torsions The torsions to pack (may be null).
+   */
+  public PackedBondedTerms(int nAtoms, Bond[] bonds, Angle[] angles, UreyBradley[] ureyBradleys,
+      Torsion[] torsions) {
+    this.nAtoms = nAtoms;
+    xyz = new double[nAtoms * 3];
+    use = new boolean[nAtoms];
+
+    // Pack bonds.
+    nBonds = bonds == null ? 0 : bonds.length;
+    bondAtoms = new int[nBonds * 2];
+    bondForceConstant = new double[nBonds];
+    bondDistance = new double[nBonds];
+    bondCubic = new double[nBonds];
+    bondQuartic = new double[nBonds];
+    bondFlatBottom = new double[nBonds];
+    for (int i = 0; i < nBonds; i++) {
+      Bond bond = bonds[i];
+      BondType bondType = bond.bondType;
+      bondAtoms[i * 2] = bond.getAtom(0).getIndex() - 1;
+      bondAtoms[i * 2 + 1] = bond.getAtom(1).getIndex() - 1;
+      bondForceConstant[i] = bondType.bondUnit * bond.getRigidScale() * bondType.forceConstant;
+      bondDistance[i] = bondType.distance;
+      bondCubic[i] = bondType.cubic;
+      bondQuartic[i] = bondType.quartic;
+      if (bondType.bondFunction.hasFlatBottom()) {
+        bondFlatBottom[i] = bondType.flatBottomRadius;
+      }
+    }
+
+    // Pack normal angles; in-plane angles are left for the per-object path.
+    List<Angle> normal = new ArrayList<>();
+    List<Angle> inPlane = new ArrayList<>();
+    if (angles != null) {
+      for (Angle angle : angles) {
+        if (angle.getAngleMode() == AngleMode.NORMAL) {
+          normal.add(angle);
+        } else {
+          inPlane.add(angle);
+        }
+      }
+    }
+    unpackedAngles = inPlane.toArray(new Angle[0]);
+    nAngles = normal.size();
+    angleAtoms = new int[nAngles * 3];
+    angleForceConstant = new double[nAngles];
+    angleIdeal = new double[nAngles];
+    angleCubic = new double[nAngles];
+    angleQuartic = new double[nAngles];
+    anglePentic = new double[nAngles];
+    angleSextic = new double[nAngles];
+    for (int i = 0; i < nAngles; i++) {
+      Angle angle = normal.get(i);
+      AngleType angleType = angle.angleType;
+      for (int j = 0; j < 3; j++) {
+        angleAtoms[i * 3 + j] = angle.getAtom(j).getIndex() - 1;
+      }
+      angleForceConstant[i] = angleType.angleUnit * angle.getRigidScale() * angleType.forceConstant;
+      angleIdeal[i] = angleType.angle[angle.nh];
+      angleCubic[i] = angleType.cubic;
+      angleQuartic[i] = angleType.quartic;
+      anglePentic[i] = angleType.pentic;
+      angleSextic[i] = angleType.sextic;
+    }
+
+    // Pack Urey-Bradley terms.
+    nUreyBradleys = ureyBradleys == null ? 0 : ureyBradleys.length;
+    ureyBradleyAtoms = new int[nUreyBradleys * 2];
+    ureyBradleyForceConstant = new double[nUreyBradleys];
+    ureyBradleyDistance = new double[nUreyBradleys];
+    ureyBradleyCubic = new double[nUreyBradleys];
+    ureyBradleyQuartic = new double[nUreyBradleys];
+    for (int i = 0; i < nUreyBradleys; i++) {
+      UreyBradley ureyBradley = ureyBradleys[i];
+      UreyBradleyType ureyBradleyType = ureyBradley.ureyBradleyType;
+      ureyBradleyAtoms[i * 2] = ureyBradley.getAtom(0).getIndex() - 1;
+      ureyBradleyAtoms[i * 2 + 1] = ureyBradley.getAtom(2).getIndex() - 1;
+      ureyBradleyForceConstant[i] = ureyBradleyType.ureyUnit * ureyBradley.getRigidScale()
+          * ureyBradleyType.forceConstant;
+      ureyBradleyDistance[i] = ureyBradleyType.distance;
+      ureyBradleyCubic[i] = ureyBradleyType.cubic;
+      ureyBradleyQuartic[i] = ureyBradleyType.quartic;
+    }
+
+    // Pack torsions.
+    nTorsions = torsions == null ? 0 : torsions.length;
+    torsionAtoms = new int[nTorsions * 4];
+    torsionOffset = new int[nTorsions + 1];
+    int nFourier = 0;
+    for (int i = 0; i < nTorsions; i++) {
+      torsionOffset[i] = nFourier;
+      nFourier += torsions[i].torsionType.terms;
+    }
+    torsionOffset[nTorsions] = nFourier;
+    torsionAmplitude = new double[nFourier];
+    torsionCosine = new double[nFourier];
+    torsionSine = new double[nFourier];
+    for (int i = 0; i < nTorsions; i++) {
+      Torsion torsion = torsions[i];
+      TorsionType torsionType = torsion.torsionType;
+      for (int j = 0; j < 4; j++) {
+        torsionAtoms[i * 4 + j] = torsion.getAtom(j).getIndex() - 1;
+      }
+      double scale = torsion.getTorsionScale() * torsionType.torsionUnit;
+      int offset = torsionOffset[i];
+      for (int j = 0; j < torsionType.terms; j++) {
+        torsionAmplitude[offset + j] = scale * torsionType.amplitude[j];
+        torsionCosine[offset + j] = torsionType.cosine[j];
+        torsionSine[offset + j] = torsionType.sine[j];
+      }
+    }
+  }
+
+  /**
+   * Get the number of packed terms of the given type.
+   *
+   * @param termType The term type.
+   * @return The number of packed terms.
+   */
+  public int getCount(TermType termType) {
+    return switch (termType) {
+      case BOND -> nBonds;
+      case ANGLE -> nAngles;
+      case UREY_BRADLEY -> nUreyBradleys;
+      case TORSION -> nTorsions;
+    };
+  }
+
+  /**
+   * Angles that could not be packed (i.e. in-plane angles).
+   *
+   * @return The unpacked angles.
+   */
+  public Angle[] getUnpackedAngles() {
+    return unpackedAngles;
+  }
+
+  /**
+   * Copy coordinates and use flags for a range of atoms into the packed arrays.
+   *
+   * @param atoms The atoms of the system.
+   * @param first The first atom to load.
+   * @param last The last atom to load (inclusive).
+   */
+  public void loadCoordinates(Atom[] atoms, int first, int last) {
+    for (int i = first; i <= last; i++) {
+      Atom atom = atoms[i];
+      int i3 = i * 3;
+      xyz[i3] = atom.getX();
+      xyz[i3 + 1] = atom.getY();
+      xyz[i3 + 2] = atom.getZ();
+      use[i] = atom.getUse();
+    }
+  }
+
+  /**
+   * Get the number of atoms.
+   *
+   * @return The number of atoms.
+   */
+  public int getNumberOfAtoms() {
+    return nAtoms;
+  }
+
+  /**
+   * Evaluate a range of packed terms of one type.
+   *
+   * @param termType The term type.
+   * @param first The first term to evaluate.
+   * @param last The last term to evaluate (inclusive).
+   * @param gradient If true, compute the gradient.
+   * @param threadID The thread ID.
+   * @param grad The gradient array.
+   * @param rmsd If not null, the squared deviations from ideal values are added to rmsd[0].
+   * @return The energy of the evaluated terms.
+   */
+  public double energy(TermType termType, int first, int last, boolean gradient, int threadID,
+      AtomicDoubleArray3D grad, double[] rmsd) {
+    return switch (termType) {
+      case BOND -> stretchEnergy(bondAtoms, bondForceConstant, bondDistance, bondCubic, bondQuartic,
+          bondFlatBottom, first, last, gradient, threadID, grad, rmsd);
+      case UREY_BRADLEY -> stretchEnergy(ureyBradleyAtoms, ureyBradleyForceConstant,
+          ureyBradleyDistance, ureyBradleyCubic, ureyBradleyQuartic, null, first, last, gradient,
+          threadID, grad, rmsd);
+      case ANGLE -> angleEnergy(first, last, gradient, threadID, grad, rmsd);
+      case TORSION -> torsionEnergy(first, last, gradient, threadID, grad);
+    };
+  }
+
+  /**
+   * Bond and Urey-Bradley stretch kernel (a Taylor expansion of the Morse potential through the
+   * fourth power of the deviation).
+   */
+  private double stretchEnergy(int[] ids, double[] k, double[] r0, double[] cubic,
+      double[] quartic, double[] flatBottom, int first, int last, boolean gradient, int threadID,
+      AtomicDoubleArray3D grad, double[] rmsd) {
+    double energy = 0.0;
+    double sumDv2 = 0.0;
+    for (int t = first; t <= last; t++) {
+      int ia = ids[t * 2];
+      int ib = ids[t * 2 + 1];
+      if (!use[ia] && !use[ib]) {
+        continue;
+      }
+      int ia3 = ia * 3;
+      int ib3 = ib * 3;
+      double xab = xyz[ia3] - xyz[ib3];
+      double yab = xyz[ia3 + 1] - xyz[ib3 + 1];
+      double zab = xyz[ia3 + 2] - xyz[ib3 + 2];
+      double r = sqrt(xab * xab + yab * yab + zab * zab);
+      double dv = r - r0[t];
+      if (flatBottom != null && flatBottom[t] > 0.0) {
+        if (dv > 0) {
+          dv = max(0, dv - flatBottom[t]);
+        } else if (dv < 0) {
+          dv = min(0, dv + flatBottom[t]);
+        }
+      }
+      double dv2 = dv * dv;
+      energy += k[t] * dv2 * (1.0 + cubic[t] * dv + quartic[t] * dv2);
+      sumDv2 += dv2;
+      if (gradient && r > 0.0) {
+        double dedr = 2.0 * k[t] * dv * (1.0 + 1.5 * cubic[t] * dv + 2.0 * quartic[t] * dv2);
+        double de = dedr / r;
+        double gx = xab * de;
+        double gy = yab * de;
+        double gz = zab * de;
+        grad.add(threadID, ia, gx, gy, gz);
+        grad.sub(threadID, ib, gx, gy, gz);
+      }
+    }
+    if (rmsd != null) {
+      rmsd[0] += sumDv2;
+    }
+    return energy;
+  }
+
+  /**
+   * Normal angle bending kernel.
+   */
+  private double angleEnergy(int first, int last, boolean gradient, int threadID,
+      AtomicDoubleArray3D grad, double[] rmsd) {
+    double energy = 0.0;
+    double sumDv2 = 0.0;
+    for (int t = first; t <= last; t++) {
+      int t3 = t * 3;
+      int ia = angleAtoms[t3];
+      int ib = angleAtoms[t3 + 1];
+      int ic = angleAtoms[t3 + 2];
+      if (!use[ia] && !use[ib] && !use[ic]) {
+        continue;
+      }
+      int ia3 = ia * 3;
+      int ib3 = ib * 3;
+      int ic3 = ic * 3;
+      double xab = xyz[ia3] - xyz[ib3];
+      double yab = xyz[ia3 + 1] - xyz[ib3 + 1];
+      double zab = xyz[ia3 + 2] - xyz[ib3 + 2];
+      double xcb = xyz[ic3] - xyz[ib3];
+      double ycb = xyz[ic3 + 1] - xyz[ib3 + 1];
+      double zcb = xyz[ic3 + 2] - xyz[ib3 + 2];
+      double rab2 = xab * xab + yab * yab + zab * zab;
+      double rcb2 = xcb * xcb + ycb * ycb + zcb * zcb;
+      if (rab2 == 0.0 || rcb2 == 0.0) {
+        continue;
+      }
+      double dot = xab * xcb + yab * ycb + zab * zcb;
+      double cosine = min(1.0, max(-1.0, dot / sqrt(rab2 * rcb2)));
+      double dv = toDegrees(acos(cosine)) - angleIdeal[t];
+      double dv2 = dv * dv;
+      double dv3 = dv2 * dv;
+      double dv4 = dv2 * dv2;
+      double k = angleForceConstant[t];
+      energy += k * dv2 * (1.0 + angleCubic[t] * dv + angleQuartic[t] * dv2
+          + anglePentic[t] * dv3 + angleSextic[t] * dv4);
+      sumDv2 += dv2;
+      if (gradient) {
+        double deddt = k * dv * toDegrees(2.0 + 3.0 * angleCubic[t] * dv
+            + 4.0 * angleQuartic[t] * dv2 + 5.0 * anglePentic[t] * dv3
+            + 6.0 * angleSextic[t] * dv4);
+        // p = vcb x vab
+        double xp = ycb * zab - zcb * yab;
+        double yp = zcb * xab - xcb * zab;
+        double zp = xcb * yab - ycb * xab;
+        double rp = max(sqrt(xp * xp + yp * yp + zp * zp), 0.000001);
+        double terma = -deddt / (rab2 * rp);
+        double termc = deddt / (rcb2 * rp);
+        // ga = (vab x p) * terma
+        double gax = (yab * zp - zab * yp) * terma;
+        double gay = (zab * xp - xab * zp) * terma;
+        double gaz = (xab * yp - yab * xp) * terma;
+        // gc = (vcb x p) * termc
+        double gcx = (ycb * zp - zcb * yp) * termc;
+        double gcy = (zcb * xp - xcb * zp) * termc;
+        double gcz = (xcb * yp - ycb * xp) * termc;
+        grad.add(threadID, ia, gax, gay, gaz);
+        grad.sub(threadID, ib, gax + gcx, gay + gcy, gaz + gcz);
+        grad.add(threadID, ic, gcx, gcy, gcz);
+      }
+    }
+    if (rmsd != null) {
+      rmsd[0] += sumDv2;
+    }
+    return energy;
+  }
+
+  /**
+   * Fourier series torsion kernel.
+   */
+  private double torsionEnergy(int first, int last, boolean gradient, int threadID,
+      AtomicDoubleArray3D grad) {
+    double energy = 0.0;
+    for (int t = first; t <= last; t++) {
+      int t4 = t * 4;
+      int ia = torsionAtoms[t4];
+      int ib = torsionAtoms[t4 + 1];
+      int ic = torsionAtoms[t4 + 2];
+      int id = torsionAtoms[t4 + 3];
+      if (!use[ia] && !use[ib] && !use[ic] && !use[id]) {
+        continue;
+      }
+      int ia3 = ia * 3;
+      int ib3 = ib * 3;
+      int ic3 = ic * 3;
+      int id3 = id * 3;
+      double xba = xyz[ib3] - xyz[ia3];
+      double yba = xyz[ib3 + 1] - xyz[ia3 + 1];
+      double zba = xyz[ib3 + 2] - xyz[ia3 + 2];
+      double xcb = xyz[ic3] - xyz[ib3];
+      double ycb = xyz[ic3 + 1] - xyz[ib3 + 1];
+      double zcb = xyz[ic3 + 2] - xyz[ib3 + 2];
+      double xdc = xyz[id3] - xyz[ic3];
+      double ydc = xyz[id3 + 1] - xyz[ic3 + 1];
+      double zdc = xyz[id3 + 2] - xyz[ic3 + 2];
+      // t = vba x vcb
+      double xt = yba * zcb - zba * ycb;
+      double yt = zba * xcb - xba * zcb;
+      double zt = xba * ycb - yba * xcb;
+      // u = vcb x vdc
+      double xu = ycb * zdc - zcb * ydc;
+      double yu = zcb * xdc - xcb * zdc;
+      double zu = xcb * ydc - ycb * xdc;
+      double rt2 = max(xt * xt + yt * yt + zt * zt, TORSION_TOLERANCE);
+      double ru2 = max(xu * xu + yu * yu + zu * zu, TORSION_TOLERANCE);
+      double rr = sqrt(rt2 * ru2);
+      double rcb = max(sqrt(xcb * xcb + ycb * ycb + zcb * zcb), TORSION_TOLERANCE);
+      double cosine = (xt * xu + yt * yu + zt * zu) / rr;
+      // vcb . (t x u)
+      double sine = (xcb * (yt * zu - zt * yu) + ycb * (zt * xu - xt * zu)
+          + zcb * (xt * yu - yt * xu)) / (rcb * rr);
+
+      int offset = torsionOffset[t];
+      int n = torsionOffset[t + 1] - offset;
+      double e = torsionAmplitude[offset] * (1.0 + cosine * torsionCosine[offset]
+          + sine * torsionSine[offset]);
+      double dedphi = torsionAmplitude[offset] * (cosine * torsionSine[offset]
+          - sine * torsionCosine[offset]);
+      double cosprev = cosine;
+      double sinprev = sine;
+      for (int i = 1; i < n; i++) {
+        int j = offset + i;
+        double cosn = cosine * cosprev - sine * sinprev;
+        double sinn = sine * cosprev + cosine * sinprev;
+        e += torsionAmplitude[j] * (1.0 + cosn * torsionCosine[j] + sinn * torsionSine[j]);
+        dedphi += torsionAmplitude[j] * (1.0 + i) * (cosn * torsionSine[j] - sinn * torsionCosine[j]);
+        cosprev = cosn;
+        sinprev = sinn;
+      }
+      energy += e;
+
+      if (gradient) {
+        double xca = xyz[ic3] - xyz[ia3];
+        double yca = xyz[ic3 + 1] - xyz[ia3 + 1];
+        double zca = xyz[ic3 + 2] - xyz[ia3 + 2];
+        double xdb = xyz[id3] - xyz[ib3];
+        double ydb = xyz[id3 + 1] - xyz[ib3 + 1];
+        double zdb = xyz[id3 + 2] - xyz[ib3 + 2];
+        // dedt = (t x vcb) * dedphi / (rt2 * rcb)
+        double st = dedphi / (rt2 * rcb);
+        double xdt = (yt * zcb - zt * ycb) * st;
+        double ydt = (zt * xcb - xt * zcb) * st;
+        double zdt = (xt * ycb - yt * xcb) * st;
+        // dedu = (u x vcb) * -dedphi / (ru2 * rcb)
+        double su = -dedphi / (ru2 * rcb);
+        double xdu = (yu * zcb - zu * ycb) * su;
+        double ydu = (zu * xcb - xu * zcb) * su;
+        double zdu = (xu * ycb - yu * xcb) * su;
+        // ga = dedt x vcb
+        double gax = ydt * zcb - zdt * ycb;
+        double gay = zdt * xcb - xdt * zcb;
+        double gaz = xdt * ycb - ydt * xcb;
+        // gb = vca x dedt + dedu x vdc
+        double gbx = yca * zdt - zca * ydt + ydu * zdc - zdu * ydc;
+        double gby = zca * xdt - xca * zdt + zdu * xdc - xdu * zdc;
+        double gbz = xca * ydt - yca * xdt + xdu * ydc - ydu * xdc;
+        // gc = dedt x vba + vdb x dedu
+        double gcx = ydt * zba - zdt * yba + ydb * zdu - zdb * ydu;
+        double gcy = zdt * xba - xdt * zba + zdb * xdu - xdb * zdu;
+        double gcz = xdt * yba - ydt * xba + xdb * ydu - ydb * xdu;
+        // gd = dedu x vcb
+        double gdx = ydu * zcb - zdu * ycb;
+        double gdy = zdu * xcb - xdu * zcb;
+        double gdz = xdu * ycb - ydu * xcb;
+        grad.add(threadID, ia, gax, gay, gaz);
+        grad.add(threadID, ib, gbx, gby, gbz);
+        grad.add(threadID, ic, gcx, gcy, gcz);
+        grad.add(threadID, id, gdx, gdy, gdz);
+      }
+    }
+    return energy;
+  }
+}
@@ -96,7 +96,7 @@ public class Torsion extends BondedTerm implements LambdaInterface {
   /**
    * Set the tolerance for minimum distance and angle values.
    */
-  private static final double TORSION_TOLERANCE = 1.0e-4;
+  static final double TORSION_TOLERANCE = 1.0e-4;
 
 
   /**
@@ -170,4 +170,13 @@ public class UreyBradley extends BondedTerm {
   public void setRigidScale(double rigidScale) {
     this.rigidScale = rigidScale;
   }
+
+  /**
+   * Getter for the field <code>rigidScale</code>.
+   *
+   * @return a double.
+   */
+  public double getRigidScale() {
+    return rigidScale;
+  }
 }
@@ -0,0 +1,550 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.crystal.Crystal;
+
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+import static java.util.Arrays.sort;
+import static org.apache.commons.math3.util.FastMath.cbrt;
+import static org.apache.commons.math3.util.FastMath.floor;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+import static org.apache.commons.math3.util.FastMath.rint;
+
+/**
+ * The ClusterPairList groups the atoms of the asymmetric unit into spatially compact clusters of a
+ * fixed size and collects interacting cluster pairs from the atomic Verlet lists.
+ * <p>
+ * Atoms are binned into columns along the a- and b-axes, sorted along the c-axis within each column,
+ * and consecutive runs of <code>clusterSize</code> atoms form a cluster (the last cluster of a column
+ * is padded). Coordinates are stored in structure-of-arrays form by cluster slot so that a cluster
+ * can be loaded into the lanes of a vector register.
+ * <p>
+ * For each i-cluster, every j-cluster that it interacts with is stored together with a periodic
+ * shift and a bit mask of the atom pairs (bit <code>p * clusterSize + q</code> for slot p of the
+ * i-cluster and slot q of the j-cluster) that interact with full strength. Atom pairs subject to a
+ * 1-2, 1-3 or 1-4 scale factor other than one, or to special 1-4 parameters, are stored separately.
+ * The periodic shift of each pair is fixed when the list is built, which is valid while atoms move
+ * less than half the Verlet list buffer and the cutoff plus buffer is less than the interfacial
+ * radius of the unit cell.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class ClusterPairList {
+
+  /**
+   * Offset used to encode lattice translations as positive integers.
+   */
+  private static final long SHIFT_OFFSET = 1L << 20;
+  /**
+   * The number of atoms per cluster.
+   */
+  final int clusterSize;
+  /**
+   * The number of clusters.
+   */
+  int nClusters;
+  /**
+   * The number of cluster slots (nClusters * clusterSize).
+   */
+  int nSlots;
+  /**
+   * The atom index of each slot, or -1 for a padding slot.
+   */
+  int[] slotAtom = new int[0];
+  /**
+   * The slot of each atom.
+   */
+  int[] atomSlot = new int[0];
+  /**
+   * The vdW class of each slot (padding slots use class 0).
+   */
+  int[] slotClass = new int[0];
+  /**
+   * The reduced x-coordinate of each slot.
+   */
+  double[] x = new double[0];
+  /**
+   * The reduced y-coordinate of each slot.
+   */
+  double[] y = new double[0];
+  /**
+   * The reduced z-coordinate of each slot.
+   */
+  double[] z = new double[0];
+  /**
+   * The number of cluster pairs for each i-cluster.
+   */
+  int[] pairCount = new int[0];
+  /**
+   * The j-cluster of each cluster pair [nClusters][pairCount].
+   */
+  int[][] pairCluster = new int[0][];
+  /**
+   * The Cartesian shift applied to the j-cluster of each cluster pair [nClusters][3 * pairCount].
+   */
+  double[][] pairShift = new double[0][];
+  /**
+   * The interaction bit mask of each cluster pair [nClusters][pairCount].
+   */
+  long[][] pairMask = new long[0][];
+  /**
+   * The number of scaled atom pairs for each i-cluster.
+   */
+  int[] scaledCount = new int[0];
+  /**
+   * The i and k atoms of each scaled atom pair [nClusters][2 * scaledCount].
+   */
+  int[][] scaledAtoms = new int[0][];
+  /**
+   * The shift (x, y, z), scale factor, inverse Rmin and epsilon of each scaled atom pair
+   * [nClusters][6 * scaledCount].
+   */
+  double[][] scaledParameters = new double[0][];
+  /**
+   * The Verlet list rebuild count the cluster pairs were built from.
+   */
+  private long rebuildCount = -1;
+
+  /**
+   * Constructor for the ClusterPairList class.
+   *
+   * @param clusterSize The number of atoms per cluster (at most 8).
+   */
+  public ClusterPairList(int clusterSize) {
+    if (clusterSize < 1 || clusterSize > 8) {
+      throw new IllegalArgumentException(" The cluster size must be between 1 and 8.");
+    }
+    this.clusterSize = clusterSize;
+  }
+
+  /**
+   * Get the number of clusters.
+   *
+   * @return The number of clusters.
+   */
+  public int getNumberOfClusters() {
+    return nClusters;
+  }
+
+  /**
+   * Get the total number of cluster pairs.
+   *
+   * @return The number of cluster pairs.
+   */
+  public long getNumberOfClusterPairs() {
+    long count = 0;
+    for (int i = 0; i < nClusters; i++) {
+      count += pairCount[i];
+    }
+    return count;
+  }
+
+  /**
+   * Check if the cluster pairs are stale with respect to the Verlet lists.
+   *
+   * @param neighborList The NeighborList the cluster pairs are built from.
+   * @return True if the clusters must be reassigned and the cluster pairs rebuilt.
+   */
+  public boolean isStale(NeighborList neighborList) {
+    return rebuildCount != neighborList.getRebuildCount();
+  }
+
+  /**
+   * Sort atoms into clusters. This should be followed by a call to {@link #buildPairs} for all
+   * clusters.
+   *
+   * @param neighborList The NeighborList the cluster pairs will be built from.
+   * @param crystal      The crystal (only P1 or aperiodic systems are supported).
+   * @param xyz          The reduced coordinates of the asymmetric unit [3 * nAtoms].
+   * @param atomClass    The vdW class of each atom.
+   * @param nAtoms       The number of atoms.
+   */
+  public void assignClusters(NeighborList neighborList, Crystal crystal, double[] xyz,
+      int[] atomClass, int nAtoms) {
+    rebuildCount = neighborList.getRebuildCount();
+
+    // Compute fractional coordinates along the axes used for binning.
+    double[] fa = new double[nAtoms];
+    double[] fb = new double[nAtoms];
+    double[] fc = new double[nAtoms];
+    double widthA, widthB, volume;
+    if (crystal.aperiodic()) {
+      double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+      double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+      for (int i = 0; i < nAtoms; i++) {
+        for (int j = 0; j < 3; j++) {
+          min[j] = min(min[j], xyz[i * 3 + j]);
+          max[j] = max(max[j], xyz[i * 3 + j]);
+        }
+      }
+      double[] range = new double[3];
+      for (int j = 0; j < 3; j++) {
+        range[j] = max(max[j] - min[j], 1.0);
+      }
+      for (int i = 0; i < nAtoms; i++) {
+        int i3 = i * 3;
+        fa[i] = (xyz[i3] - min[0]) / range[0];
+        fb[i] = (xyz[i3 + 1] - min[1]) / range[1];
+        fc[i] = (xyz[i3 + 2] - min[2]) / range[2];
+      }
+      widthA = range[0];
+      widthB = range[1];
+      volume = range[0] * range[1] * range[2];
+    } else {
+      double[] cart = new double[3];
+      double[] frac = new double[3];
+      for (int i = 0; i < nAtoms; i++) {
+        int i3 = i * 3;
+        cart[0] = xyz[i3];
+        cart[1] = xyz[i3 + 1];
+        cart[2] = xyz[i3 + 2];
+        crystal.toFractionalCoordinates(cart, frac);
+        fa[i] = frac[0] - floor(frac[0]);
+        fb[i] = frac[1] - floor(frac[1]);
+        fc[i] = frac[2] - floor(frac[2]);
+      }
+      widthA = 2.0 * crystal.interfacialRadiusA;
+      widthB = 2.0 * crystal.interfacialRadiusB;
+      volume = crystal.volume;
+    }
+
+    // Columns are sized so that a cluster is approximately cubic.
+    double columnWidth = cbrt(clusterSize * volume / max(nAtoms, 1));
+    int nA = max(1, (int) (widthA / columnWidth));
+    int nB = max(1, (int) (widthB / columnWidth));
+    int nColumns = nA * nB;
+
+    // Counting sort of atoms by column.
+    int[] column = new int[nAtoms];
+    int[] columnStart = new int[nColumns + 1];
+    for (int i = 0; i < nAtoms; i++) {
+      int ia = min(nA - 1, (int) (fa[i] * nA));
+      int ib = min(nB - 1, (int) (fb[i] * nB));
+      column[i] = ia * nB + ib;
+      columnStart[column[i] + 1]++;
+    }
+    for (int c = 0; c < nColumns; c++) {
+      columnStart[c + 1] += columnStart[c];
+    }
+    int[] next = copyOf(columnStart, nColumns);
+    long[] keys = new long[nAtoms];
+    for (int i = 0; i < nAtoms; i++) {
+      // Order atoms within a column by their c-axis fractional coordinate.
+      long quantized = min((long) (fc[i] * Integer.MAX_VALUE), Integer.MAX_VALUE);
+      keys[next[column[i]]++] = (quantized << 32) | i;
+    }
+
+    // Count the clusters, including padding at the end of each column.
+    int count = 0;
+    for (int c = 0; c < nColumns; c++) {
+      int n = columnStart[c + 1] - columnStart[c];
+      count += (n + clusterSize - 1) / clusterSize;
+    }
+    nClusters = count;
+    nSlots = nClusters * clusterSize;
+    if (slotAtom.length < nSlots) {
+      int size = nSlots + nSlots / 10 + clusterSize;
+      slotAtom = new int[size];
+      slotClass = new int[size];
+      x = new double[size];
+      y = new double[size];
+      z = new double[size];
+    }
+    if (atomSlot.length < nAtoms) {
+      atomSlot = new int[nAtoms];
+    }
+    fill(slotAtom, -1);
+    fill(slotClass, 0);
+
+    // Assign atoms to slots.
+    int slot = 0;
+    for (int c = 0; c < nColumns; c++) {
+      int start = columnStart[c];
+      int end = columnStart[c + 1];
+      sort(keys, start, end);
+      for (int j = start; j < end; j++) {
+        int atom = (int) (keys[j] & 0xFFFFFFFFL);
+        slotAtom[slot] = atom;
+        atomSlot[atom] = slot;
+        slot++;
+      }
+      // Pad the last cluster of the column.
+      int remainder = slot % clusterSize;
+      if (remainder != 0) {
+        slot += clusterSize - remainder;
+      }
+    }
+    updateCoordinates(xyz, atomClass);
+
+    if (pairCount.length < nClusters) {
+      int size = nClusters + nClusters / 10 + 1;
+      pairCount = new int[size];
+      pairCluster = new int[size][];
+      pairShift = new double[size][];
+      pairMask = new long[size][];
+      scaledCount = new int[size];
+      scaledAtoms = new int[size][];
+      scaledParameters = new double[size][];
+    }
+  }
+
+  /**
+   * Load the current reduced coordinates and vdW classes into the cluster slots.
+   *
+   * @param xyz       The reduced coordinates of the asymmetric unit [3 * nAtoms].
+   * @param atomClass The vdW class of each atom.
+   */
+  public void updateCoordinates(double[] xyz, int[] atomClass) {
+    for (int slot = 0; slot < nSlots; slot++) {
+      int atom = slotAtom[slot];
+      if (atom < 0) {
+        x[slot] = 0.0;
+        y[slot] = 0.0;
+        z[slot] = 0.0;
+      } else {
+        int a3 = atom * 3;
+        x[slot] = xyz[a3];
+        y[slot] = xyz[a3 + 1];
+        z[slot] = xyz[a3 + 2];
+        slotClass[slot] = atomClass[atom];
+      }
+    }
+  }
+
+  /**
+   * Build the cluster pairs for a range of i-clusters from the atomic Verlet lists.
+   *
+   * @param lb          The first i-cluster.
+   * @param ub          The last i-cluster.
+   * @param crystal     The crystal used to apply the minimum image convention.
+   * @param list        The Verlet lists of the asymmetric unit [nAtoms][nNeighbors].
+   * @param xyz         The reduced coordinates of the asymmetric unit [3 * nAtoms].
+   * @param atomClass   The vdW class of each atom.
+   * @param maskingRules The masking rules for 1-2, 1-3 and 1-4 interactions.
+   * @param vdwForm     The van der Waals functional form.
+   * @param builder     Thread local work space.
+   */
+  public void buildPairs(int lb, int ub, Crystal crystal, int[][] list, double[] xyz,
+      int[] atomClass, MaskingInterface maskingRules, VanDerWaalsForm vdwForm, PairBuilder builder) {
+    builder.init(nClusters, atomSlot.length);
+    final double[] dx = builder.dx;
+    final double[] frac = builder.frac;
+    final double[] mask = builder.mask;
+    final boolean[] vdw14 = builder.vdw14;
+    final boolean aperiodic = crystal.aperiodic();
+    for (int ci = lb; ci <= ub; ci++) {
+      builder.nEntries = 0;
+      builder.nScaled = 0;
+      for (int p = 0; p < clusterSize; p++) {
+        int i = slotAtom[ci * clusterSize + p];
+        if (i < 0) {
+          continue;
+        }
+        maskingRules.applyMask(i, vdw14, mask);
+        int i3 = i * 3;
+        double xi = xyz[i3];
+        double yi = xyz[i3 + 1];
+        double zi = xyz[i3 + 2];
+        int classI = atomClass[i];
+        for (int k : list[i]) {
+          double scale = mask[k];
+          if (scale <= 0.0) {
+            continue;
+          }
+          int k3 = k * 3;
+          double xr = xi - xyz[k3];
+          double yr = yi - xyz[k3 + 1];
+          double zr = zi - xyz[k3 + 2];
+          dx[0] = xr;
+          dx[1] = yr;
+          dx[2] = zr;
+          crystal.image(dx);
+          // The shift that is added to atom k to recover the minimum image separation.
+          double sx = xr - dx[0];
+          double sy = yr - dx[1];
+          double sz = zr - dx[2];
+          long key = 0;
+          if (!aperiodic) {
+            dx[0] = sx;
+            dx[1] = sy;
+            dx[2] = sz;
+            crystal.toFractionalCoordinates(dx, frac);
+            key = ((long) rint(frac[0]) + SHIFT_OFFSET) << 42
+                | ((long) rint(frac[1]) + SHIFT_OFFSET) << 21
+                | ((long) rint(frac[2]) + SHIFT_OFFSET);
+          }
+          int classK = atomClass[k];
+          double irv = vdwForm.getCombinedInverseRmin(classI, classK);
+          double eps = vdwForm.getCombinedEps(classI, classK);
+          boolean special = false;
+          if (vdw14[k]) {
+            double irv14 = vdwForm.getCombinedInverseRmin14(classI, classK);
+            double eps14 = vdwForm.getCombinedEps14(classI, classK);
+            special = irv14 != irv || eps14 != eps;
+            irv = irv14;
+            eps = eps14;
+          }
+          if (scale == 1.0 && !special) {
+            int slotK = atomSlot[k];
+            int cj = slotK / clusterSize;
+            int q = slotK - cj * clusterSize;
+            builder.addBit(cj, key, sx, sy, sz, p * clusterSize + q);
+          } else {
+            builder.addScaled(i, k, sx, sy, sz, scale, irv, eps);
+          }
+        }
+        maskingRules.removeMask(i, vdw14, mask);
+      }
+
+      // Store the cluster pairs and scaled pairs of this i-cluster.
+      int n = builder.nEntries;
+      pairCount[ci] = n;
+      if (pairCluster[ci] == null || pairCluster[ci].length < n) {
+        pairCluster[ci] = new int[n];
+        pairMask[ci] = new long[n];
+        pairShift[ci] = new double[3 * n];
+      }
+      arraycopy(builder.entryCluster, 0, pairCluster[ci], 0, n);
+      arraycopy(builder.entryMask, 0, pairMask[ci], 0, n);
+      arraycopy(builder.entryShift, 0, pairShift[ci], 0, 3 * n);
+      builder.clearHeads();
+
+      int s = builder.nScaled;
+      scaledCount[ci] = s;
+      if (scaledAtoms[ci] == null || scaledAtoms[ci].length < 2 * s) {
+        scaledAtoms[ci] = new int[2 * s];
+        scaledParameters[ci] = new double[6 * s];
+      }
+      arraycopy(builder.scaledAtoms, 0, scaledAtoms[ci], 0, 2 * s);
+      arraycopy(builder.scaledParameters, 0, scaledParameters[ci], 0, 6 * s);
+    }
+  }
+
+  /**
+   * Thread local work space used to build cluster pairs.
+   */
+  public static class PairBuilder {
+
+    private final double[] dx = new double[3];
+    private final double[] frac = new double[3];
+    private double[] mask = new double[0];
+    private boolean[] vdw14 = new boolean[0];
+    /**
+     * The first entry for each j-cluster, or -1.
+     */
+    private int[] head = new int[0];
+    private int nEntries;
+    private int[] entryCluster = new int[64];
+    private long[] entryKey = new long[64];
+    private long[] entryMask = new long[64];
+    private int[] entryNext = new int[64];
+    private double[] entryShift = new double[3 * 64];
+    private int nScaled;
+    private int[] scaledAtoms = new int[2 * 16];
+    private double[] scaledParameters = new double[6 * 16];
+
+    private void init(int nClusters, int nAtoms) {
+      if (head.length < nClusters) {
+        head = new int[nClusters + nClusters / 10 + 1];
+        fill(head, -1);
+      }
+      if (mask.length < nAtoms) {
+        mask = new double[nAtoms];
+        fill(mask, 1.0);
+        vdw14 = new boolean[nAtoms];
+      }
+    }
+
+    private void addBit(int cj, long key, double sx, double sy, double sz, int bit) {
+      int e = head[cj];
+      while (e >= 0 && entryKey[e] != key) {
+        e = entryNext[e];
+      }
+      if (e < 0) {
+        e = nEntries++;
+        if (e == entryCluster.length) {
+          int size = 2 * e;
+          entryCluster = copyOf(entryCluster, size);
+          entryKey = copyOf(entryKey, size);
+          entryMask = copyOf(entryMask, size);
+          entryNext = copyOf(entryNext, size);
+          entryShift = copyOf(entryShift, 3 * size);
+        }
+        entryCluster[e] = cj;
+        entryKey[e] = key;
+        entryMask[e] = 0L;
+        entryNext[e] = head[cj];
+        int e3 = 3 * e;
+        entryShift[e3] = sx;
+        entryShift[e3 + 1] = sy;
+        entryShift[e3 + 2] = sz;
+        head[cj] = e;
+      }
+      entryMask[e] |= 1L << bit;
+    }
+
+    private void addScaled(int i, int k, double sx, double sy, double sz, double scale,
+        double irv, double eps) {
+      int s = nScaled++;
+      if (2 * s + 2 > scaledAtoms.length) {
+        scaledAtoms = copyOf(scaledAtoms, 4 * s + 2);
+        scaledParameters = copyOf(scaledParameters, 12 * s + 6);
+      }
+      scaledAtoms[2 * s] = i;
+      scaledAtoms[2 * s + 1] = k;
+      int s6 = 6 * s;
+      scaledParameters[s6] = sx;
+      scaledParameters[s6 + 1] = sy;
+      scaledParameters[s6 + 2] = sz;
+      scaledParameters[s6 + 3] = scale;
+      scaledParameters[s6 + 4] = irv;
+      scaledParameters[s6 + 5] = eps;
+    }
+
+    private void clearHeads() {
+      for (int e = 0; e < nEntries; e++) {
+        head[entryCluster[e]] = -1;
+      }
+    }
+  }
+}
@@ -785,6 +785,8 @@ public class GeneralizedKirkwood implements LambdaInterface {
           radii[index] = atom.getVDWType().radius / 2.0;
           index++;
         }
+        // The surface is built between GK parallel regions, so its spatial domains use the same
+        // number of threads. The result does not depend on the number of domains.
         ConnollyRegion connollyRegion = new ConnollyRegion(atoms, radii, threadCount);
         // connollyRegion.setProbe(probe);
         // connollyRegion.setExclude(0.0);
@@ -1011,7 +1013,10 @@ public class GeneralizedKirkwood implements LambdaInterface {
           cut2,
           nativeEnvironmentApproximation,
           born);
-      parallelTeam.execute(bornRadiiRegion);
+      // When only a few atoms moved, the cached descreening integrals may be updated instead.
+      if (!bornRadiiRegion.updateIncrementally()) {
+        parallelTeam.execute(bornRadiiRegion);
+      }
     } catch (Exception e) {
       String message = "Fatal exception computing Born radii.";
       logger.log(Level.SEVERE, message, e);
@@ -1052,6 +1057,15 @@ public class GeneralizedKirkwood implements LambdaInterface {
     }
   }
 
+  /**
+   * Release resources held by the cavitation model.
+   */
+  public void destroy() {
+    if (chandlerCavitation != null) {
+      chandlerCavitation.destroy();
+    }
+  }
+
   /**
    * getBaseRadii.
    *
@@ -1368,6 +1382,15 @@ public class GeneralizedKirkwood implements LambdaInterface {
     return bornRadiiRegion.getBorn();
   }
 
+  /**
+   * Get the Born integral of each atom prior to the tanh rescaling.
+   *
+   * @return The unscaled Born integrals, or null if the tanh correction is not used.
+   */
+  public double[] getUnscaledBornIntegral() {
+    return bornRadiiRegion.getUnscaledBornIntegral();
+  }
+
   /**
    * Setter for element-specific HCT overlap scale factors
    *
@@ -47,6 +47,7 @@ import edu.rit.pj.reduction.SharedInteger;
 import edu.rit.util.Range;
 import ffx.crystal.Crystal;
 import ffx.potential.bonded.Atom;
+import ffx.utilities.FFXProperty;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -59,6 +60,7 @@ import java.util.logging.Logger;
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
 import static java.util.Arrays.copyOf;
+import static ffx.utilities.PropertyGroup.NonBondedCutoff;
 import static java.util.Arrays.fill;
 import static org.apache.commons.math3.util.FastMath.floor;
 import static org.apache.commons.math3.util.FastMath.min;
@@ -86,6 +88,11 @@ import static org.apache.commons.math3.util.FastMath.sqrt;
  *       <code>(4/3*Pi*Rcut^3)/(neighborCells*Vcell)</code>
  *       About 1/3 as many interactions are contained in the Verlet lists compared to
  *       the total amount in the neighboring cells.
+ *   <li>Optionally, when only a few atoms have moved more than half the buffer, the lists can be
+ *       updated incrementally. Each list is built from the reference position of each atom, which
+ *       is only updated for atoms that moved. Therefore, only moving atoms are re-assigned to cells
+ *       and only the lists of atoms in cells that neighbor the old or new cell of a moving atom
+ *       are rebuilt.
  * </ol>
  *
  * @author Michael J. Schnieders
@@ -174,8 +181,13 @@ public class NeighborList extends ParallelRegion {
   private int nAtoms;
   /** Reduced coordinates for each symmetry copy. [nSymm][3*nAtoms] */
   private double[][] coordinates;
-  /** The Cartesian coordinates of the asymmetric unit when the list was last rebuilt. */
+  /**
+   * The Cartesian coordinates of the asymmetric unit when the list was last rebuilt. Following an
+   * incremental update, only the coordinates of atoms that moved are updated.
+   */
   private double[] previous;
+  /** Flag for each atom that moved more than half the buffer since its list was built. */
+  private boolean[] moved;
   /** The Verlet lists. [nSymm][nAtoms][nNeighbors] */
   private int[][][] lists;
   /** Number of interactions per atom. */
@@ -206,6 +218,30 @@ public class NeighborList extends ParallelRegion {
   private final boolean includeInactivePairs = true;
   /** Disable updates to the NeighborList; use with caution. */
   private boolean disableUpdates = false;
+  /** The number of times the Verlet lists have been rebuilt. */
+  private long rebuildCount = 0;
+  @FFXProperty(name = "neighbor-list-incremental", clazz = Boolean.class, propertyGroup = NonBondedCutoff, defaultValue = "false",
+      description = """
+          If true, when only a small fraction of atoms have moved more than half the neighbor-list buffer,
+          only those atoms are re-assigned to cells and only the lists of atoms in nearby cells are rebuilt.
+          This is only applied to systems with a single symmetry operator; otherwise, all lists are rebuilt.
+          """)
+  private boolean incremental = false;
+  /**
+   * The maximum fraction of atoms whose lists are rebuilt by an incremental update. Above this
+   * fraction, all lists are rebuilt.
+   */
+  private static final double MAX_INCREMENTAL_FRACTION = 0.5;
+  /** True if the current update is incremental. */
+  private boolean incrementalUpdate = false;
+  /** The lists that can be updated incrementally, or null if a full rebuild is required. */
+  private int[][][] incrementalLists = null;
+  /** Flag for each cell that neighbors a moving atom. */
+  private boolean[] dirtyCells;
+  /** The atoms whose lists are rebuilt by an incremental update. */
+  private int[] dirtyAtoms = new int[0];
+  /** The number of atoms whose lists are rebuilt by an incremental update. */
+  private int nDirtyAtoms;
 
   /**
    * Constructor for the NeighborList class.
@@ -309,6 +345,9 @@ public class NeighborList extends ParallelRegion {
     if (!forceRebuild && !sharedMotion.get()) {
       return;
     }
+    rebuildCount++;
+    // Following a full rebuild, the lists can be updated incrementally.
+    incrementalLists = (nSymm == 1) ? lists : null;
 
     // Collect interactions.
     atomsWithIteractions = 0;
@@ -335,12 +374,16 @@ public class NeighborList extends ParallelRegion {
 
     // Update the pair-wise schedule.
     long scheduleTime = -System.nanoTime();
-    pairwiseSchedule.updateRanges(sharedCount.get(), atomsWithIteractions, listCount);
+    int totalCount = incrementalUpdate ? asymmetricUnitCount : sharedCount.get();
+    pairwiseSchedule.updateRanges(totalCount, atomsWithIteractions, listCount);
     scheduleTime += System.nanoTime();
 
     if (logger.isLoggable(Level.FINE)) {
       time = System.nanoTime() - time;
       StringBuilder sb = new StringBuilder();
+      if (incrementalUpdate) {
+        sb.append(format("   Incremental Update:     %6d atoms\n", nDirtyAtoms));
+      }
       sb.append(format("   Motion Check:           %6.4f sec\n", motionTime * 1e-9));
       sb.append(format("   List Initialization:    %6.4f sec\n", initTime * 1e-9));
       sb.append(format("   Assign Atoms to Cells:  %6.4f sec\n", assignAtomsToCellsTime * 1e-9));
@@ -360,6 +403,16 @@ public class NeighborList extends ParallelRegion {
     return cutoff;
   }
 
+  /**
+   * Returns the number of times the Verlet lists have been rebuilt, which allows structures derived
+   * from the lists to detect when they are stale.
+   *
+   * @return The number of Verlet list rebuilds.
+   */
+  public long getRebuildCount() {
+    return rebuildCount;
+  }
+
   /**
    * If disableUpdates true, disable updating the neighbor list upon motion. Use with caution; best
    * recommendation is to only use if all atoms have a coordinate restraint.
@@ -370,6 +423,17 @@ public class NeighborList extends ParallelRegion {
     this.disableUpdates = disableUpdate;
   }
 
+  /**
+   * If incremental is true, the Verlet lists are updated incrementally when only a small fraction
+   * of atoms have moved more than half the buffer.
+   *
+   * @param incremental Enable incremental updates of the neighbor list.
+   */
+  public void setIncremental(boolean incremental) {
+    this.incremental = incremental;
+    incrementalLists = null;
+  }
+
   /**
    * Return the Verlet list.
    *
@@ -416,6 +480,17 @@ public class NeighborList extends ParallelRegion {
       if (forceRebuild || sharedMotion.get()) {
         // Complete some initializations.
         barrier(listInitBarrierAction);
+        if (incrementalUpdate) {
+          // Only rebuild the lists of atoms near moving atoms.
+          if (threadIndex == 0) {
+            verletListTime = -System.nanoTime();
+          }
+          execute(0, nDirtyAtoms - 1, verletListLoop[threadIndex]);
+          if (threadIndex == 0) {
+            verletListTime += System.nanoTime();
+          }
+          return;
+        }
         // Assign atoms to cells.
         if (threadIndex == 0) {
           assignAtomsToCellsTime = -System.nanoTime();
@@ -502,6 +577,7 @@ public class NeighborList extends ParallelRegion {
     // Allocate memory for fractional coordinates and subcell pointers for each atom.
     if (previous == null || previous.length < 3 * nAtoms) {
       previous = new double[3 * nAtoms];
+      moved = new boolean[nAtoms];
       listCount = new int[nAtoms];
       pairwiseSchedule = new PairwiseSchedule(threadCount, nAtoms, ranges);
     } else {
@@ -524,6 +600,64 @@ public class NeighborList extends ParallelRegion {
     if (print) {
       domainDecomposition.log();
     }
+
+    // The cells and lists must be rebuilt before the next incremental update.
+    incrementalLists = null;
+  }
+
+  /**
+   * Prepare an incremental update by moving the reference position of each moving atom to its
+   * current position, re-assigning moving atoms to cells and collecting the atoms in cells that
+   * neighbor the old or new cell of a moving atom.
+   *
+   * @return True if an incremental update should be used.
+   */
+  private boolean prepareIncrementalUpdate() {
+    if (!incremental || forceRebuild || nSymm != 1 || incrementalLists == null
+        || incrementalLists != lists) {
+      return false;
+    }
+    int nCells = domainDecomposition.getNumberOfCells();
+    if (dirtyCells == null || dirtyCells.length < nCells) {
+      dirtyCells = new boolean[nCells];
+    } else {
+      fill(dirtyCells, 0, nCells, false);
+    }
+    double[] current = coordinates[0];
+    double[] cart = new double[3];
+    double[] frac = new double[3];
+    for (int i = 0; i < nAtoms; i++) {
+      if (!moved[i]) {
+        continue;
+      }
+      int i3 = i * 3;
+      // Neighbors of the cell the atom is leaving.
+      domainDecomposition.markNeighborCells(i, dirtyCells);
+      previous[i3 + XX] = current[i3 + XX];
+      previous[i3 + YY] = current[i3 + YY];
+      previous[i3 + ZZ] = current[i3 + ZZ];
+      cart[0] = previous[i3 + XX];
+      cart[1] = previous[i3 + YY];
+      cart[2] = previous[i3 + ZZ];
+      crystal.toFractionalCoordinates(cart, frac);
+      domainDecomposition.moveAtomToCell(i, frac);
+      // Neighbors of the cell the atom is entering.
+      domainDecomposition.markNeighborCells(i, dirtyCells);
+    }
+
+    // Collect the atoms whose lists will be rebuilt.
+    if (dirtyAtoms.length < nAtoms) {
+      dirtyAtoms = new int[nAtoms];
+    }
+    nDirtyAtoms = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      if (domainDecomposition.isAtomInCell(i, dirtyCells)) {
+        dirtyAtoms[nDirtyAtoms++] = i;
+      }
+    }
+
+    // A full rebuild resets all reference positions and cells, so falling back is safe.
+    return nDirtyAtoms <= MAX_INCREMENTAL_FRACTION * nAtoms;
   }
 
   private void print() {
@@ -563,7 +697,8 @@ public class NeighborList extends ParallelRegion {
         double dy = previous[iY] - current[iY];
         double dz = previous[iZ] - current[iZ];
         double dr2 = crystal.image(dx, dy, dz);
-        if (dr2 > motion2) {
+        moved[i] = dr2 > motion2;
+        if (moved[i]) {
           if (logger.isLoggable(Level.FINE)) {
             logger.fine(format(" Motion detected for atom %d (%8.6f A).", i, sqrt(dr2)));
           }
@@ -584,6 +719,12 @@ public class NeighborList extends ParallelRegion {
       // Clear the list count.
       sharedCount.set(0);
 
+      incrementalUpdate = prepareIncrementalUpdate();
+      if (incrementalUpdate) {
+        initTime += System.nanoTime();
+        return;
+      }
+
       domainDecomposition.clear();
 
       // Allocate memory for neighbor lists.
@@ -714,8 +855,9 @@ public class NeighborList extends ParallelRegion {
       int nC = domainDecomposition.nC;
       for (iSymm = 0; iSymm < nSymm; iSymm++) {
         int[][] list = lists[iSymm];
-        // Loop over all atoms.
-        for (atomIndex = lb; atomIndex <= ub; atomIndex++) {
+        // Loop over all atoms, or only those selected for an incremental update.
+        for (int index = lb; index <= ub; index++) {
+          atomIndex = incrementalUpdate ? dirtyAtoms[index] : index;
           n = 0;
 
           if (iSymm == 0) {
@@ -798,7 +940,8 @@ public class NeighborList extends ParallelRegion {
 
     @Override
     public void start() {
-      xyz = coordinates[0];
+      // Lists are built from the reference coordinates of the asymmetric unit.
+      xyz = previous;
       count = 0;
       if (mask == null || mask.length < nAtoms) {
         mask = new double[nAtoms];
@@ -833,7 +976,7 @@ public class NeighborList extends ParallelRegion {
       final double xi = xyz[i3 + XX];
       final double yi = xyz[i3 + YY];
       final double zi = xyz[i3 + ZZ];
-      final double[] pair = coordinates[iSymm];
+      final double[] pair = iSymm == 0 ? xyz : coordinates[iSymm];
 
       // Loop over atoms in the "pair" cell.
       for (int j = 0; j < num; j++) {
@@ -1222,6 +1365,63 @@ public class NeighborList extends ParallelRegion {
     public Cell getCellForAtom(int i) {
       return cells[cellA[i]][cellB[i]][cellC[i]];
     }
+
+    /**
+     * Get the total number of sub-cells.
+     *
+     * @return The number of sub-cells.
+     */
+    public int getNumberOfCells() {
+      return nA * nB * nC;
+    }
+
+    /**
+     * Move an asymmetric unit atom to the sub-cell that contains its new fractional coordinates.
+     *
+     * @param i The index of the atom.
+     * @param frac The fractional coordinates of the atom.
+     */
+    public void moveAtomToCell(int i, double[] frac) {
+      getCellForAtom(i).remove(i, 0);
+      addAtomToCell(i, 0, frac);
+    }
+
+    /**
+     * Flag the sub-cells that are searched for neighbors of an asymmetric unit atom.
+     *
+     * @param i The index of the atom.
+     * @param dirty Flag for each sub-cell, indexed by (a * nB + b) * nC + c.
+     */
+    public void markNeighborCells(int i, boolean[] dirty) {
+      int a = cellA[i];
+      int b = cellB[i];
+      int c = cellC[i];
+      int aStart = nA == 1 ? a : a - nEdge;
+      int aStop = nA == 1 ? a : a + nEdge;
+      int bStart = nB == 1 ? b : b - nEdge;
+      int bStop = nB == 1 ? b : b + nEdge;
+      int cStart = nC == 1 ? c : c - nEdge;
+      int cStop = nC == 1 ? c : c + nEdge;
+      for (int ai = aStart; ai <= aStop; ai++) {
+        for (int bi = bStart; bi <= bStop; bi++) {
+          for (int ci = cStart; ci <= cStop; ci++) {
+            Cell cell = image(ai, bi, ci);
+            dirty[(cell.a * nB + cell.b) * nC + cell.c] = true;
+          }
+        }
+      }
+    }
+
+    /**
+     * Check if an asymmetric unit atom is in a flagged sub-cell.
+     *
+     * @param i The index of the atom.
+     * @param dirty Flag for each sub-cell, indexed by (a * nB + b) * nC + c.
+     * @return True if the atom is in a flagged sub-cell.
+     */
+    public boolean isAtomInCell(int i, boolean[] dirty) {
+      return dirty[(cellA[i] * nB + cellB[i]) * nC + cellC[i]];
+    }
   }
 
   /**
@@ -1310,6 +1510,16 @@ public class NeighborList extends ParallelRegion {
       return count;
     }
 
+    /**
+     * Remove an atom from the cell.
+     *
+     * @param atomIndex The atom index.
+     * @param symOpIndex The symmetry operator index.
+     */
+    public void remove(int atomIndex, int symOpIndex) {
+      list.removeIf(index -> index.i == atomIndex && index.iSymm == symOpIndex);
+    }
+
     /**
      * Clear the list of atoms in the cell.
      */
@@ -196,6 +196,10 @@ public class ParticleMeshEwald implements LambdaInterface {
   private final SORRegion sorRegion;
   private final OPTRegion optRegion;
   private final PCGSolver pcgSolver;
+  /**
+   * Truncated conjugate gradient solver (only allocated for the TCG SCF algorithm).
+   */
+  private final TCGSolver tcgSolver;
   private final ReciprocalSpace reciprocalSpace;
   private final ReciprocalEnergyRegion reciprocalEnergyRegion;
   private final RealSpaceEnergyRegion realSpaceEnergyRegion;
@@ -318,6 +322,10 @@ public class ParticleMeshEwald implements LambdaInterface {
    * Flag to indicate use of generalized Kirkwood.
    */
   private boolean generalizedKirkwoodTerm;
+  /**
+   * If true, the real space permanent energy is restricted to interactions between two sets of atoms.
+   */
+  private boolean pairSelection = false;
   /**
    * If true, compute coordinate gradient.
    */
@@ -330,6 +338,10 @@ public class ParticleMeshEwald implements LambdaInterface {
    * Number of generalized Kirkwood interactions.
    */
   private int gkInteractions;
+  /**
+   * Number of SCF cycles used to compute the most recent induced dipoles.
+   */
+  private int scfCycles = 0;
   /**
    * Generalized Kirkwood energy.
    */
@@ -396,6 +408,18 @@ public class ParticleMeshEwald implements LambdaInterface {
   private double[][] cartesianVacuumDipolePhiCR;
   private double[][] fractionalVacuumDipolePhi;
   private double[][] fractionalVacuumDipolePhiCR;
+  /**
+   * Dipoles, reciprocal space potential and zero permanent multipoles for the TCG gradient
+   * correction passes.
+   */
+  private double[][][] tcgDipole;
+  private double[][][] tcgDipoleCR;
+  private double[][][] tcgZeroMultipole;
+  private double[][] tcgZeroPhi;
+  private double[][] cartesianTCGDipolePhi;
+  private double[][] cartesianTCGDipolePhiCR;
+  private double[][] fractionalTCGDipolePhi;
+  private double[][] fractionalTCGDipolePhiCR;
   /**
    * AtomicDoubleArray implementation to use.
    */
@@ -534,7 +558,17 @@ public class ParticleMeshEwald implements LambdaInterface {
       scfAlgorithm = SCFAlgorithm.CG;
     }
 
+    if (scfAlgorithm == SCFAlgorithm.TCG && (lambdaTerm || forceField.getBoolean("GKTERM", false))) {
+      logger.info(" The TCG SCF algorithm does not support alchemical or implicit solvent terms; falling back to CG.");
+      scfAlgorithm = SCFAlgorithm.CG;
+    }
+
     pcgSolver = new PCGSolver(maxThreads, poleps, forceField, nAtoms);
+    if (scfAlgorithm == SCFAlgorithm.TCG) {
+      tcgSolver = new TCGSolver(maxThreads, forceField, nAtoms);
+    } else {
+      tcgSolver = null;
+    }
 
     alchemicalParameters = new AlchemicalParameters(forceField, lambdaTerm, nnTerm, polarization);
     if (nnTerm) {
@@ -579,6 +613,8 @@ public class ParticleMeshEwald implements LambdaInterface {
         sb.append(format("    SCF Algorithm:                     %8s\n", scfAlgorithm));
         if (scfAlgorithm == SCFAlgorithm.SOR) {
           sb.append(format("    SOR Parameter:                     %8.3f\n", sorRegion.getSOR()));
+        } else if (scfAlgorithm == SCFAlgorithm.TCG) {
+          sb.append(format("    TCG Order:                         %8d\n", tcgSolver.getOrder()));
         } else {
           sb.append(format("    CG Preconditioner Cut-Off:         %8.3f\n",
               pcgSolver.getPreconditionerCutoff()));
@@ -588,6 +624,8 @@ public class ParticleMeshEwald implements LambdaInterface {
               pcgSolver.getPreconditionerScale()));
           sb.append(
               format("    CG Preconditioner Mode:     %15s\n", pcgSolver.getPreconditionerMode()));
+          sb.append(
+              format("    CG Preconditioner Type:     %15s\n", pcgSolver.getPreconditionerType()));
         }
       }
       if (ewaldParameters.aewald > 0.0) {
@@ -759,6 +797,9 @@ public class ParticleMeshEwald implements LambdaInterface {
         logger.warning(" Exception in shutting down realSpaceTeam");
       }
     }
+    if (generalizedKirkwood != null) {
+      generalizedKirkwood.destroy();
+    }
   }
 
   /**
@@ -1055,10 +1096,48 @@ public class ParticleMeshEwald implements LambdaInterface {
     return polarizationEnergy;
   }
 
+  /**
+   * Get the number of SCF cycles used to compute the most recent induced dipoles.
+   *
+   * @return The number of SCF cycles.
+   */
+  public int getSCFCycles() {
+    return scfCycles;
+  }
+
   public Polarization getPolarizationType() {
     return polarization;
   }
 
+  /**
+   * Check if the electrostatic energy is a sum of independent pairwise interactions. This requires
+   * that polarization, implicit solvent, reciprocal space, the neural network term, lambda and the
+   * extended system are not in use.
+   *
+   * @return true if the energy is pairwise additive.
+   */
+  public boolean isPairwiseAdditive() {
+    return polarization == Polarization.NONE && !generalizedKirkwoodTerm
+        && !(reciprocalSpaceTerm && ewaldParameters.aewald > 0.0)
+        && !lambdaTerm && !esvTerm && !nnTerm;
+  }
+
+  /**
+   * Restrict the real space permanent energy to interactions between an atom of the first set and an
+   * atom of the second set. This is only supported if the energy is pairwise additive.
+   *
+   * @param pairAtomsA Flags for the first set of atoms, or null to evaluate all interactions.
+   * @param pairAtomsB Flags for the second set of atoms.
+   * @see #isPairwiseAdditive()
+   */
+  public void setPairAtoms(boolean[] pairAtomsA, boolean[] pairAtomsB) {
+    if (pairAtomsA != null && !isPairwiseAdditive()) {
+      throw new IllegalStateException(" The electrostatic energy is not pairwise additive.");
+    }
+    pairSelection = pairAtomsA != null && pairAtomsB != null;
+    realSpaceEnergyRegion.setPairAtoms(pairAtomsA, pairAtomsB);
+  }
+
   public ReciprocalSpace getReciprocalSpace() {
     return reciprocalSpace;
   }
@@ -1253,6 +1332,8 @@ public class ParticleMeshEwald implements LambdaInterface {
 
       if (scfAlgorithm == SCFAlgorithm.CG) {
         pcgSolver.allocateVectors(nAtoms);
+      } else if (tcgSolver != null) {
+        tcgSolver.allocateVectors(nAtoms);
       }
       pcgSolver.allocateLists(nSymm, nAtoms);
 
@@ -1783,8 +1864,10 @@ public class ParticleMeshEwald implements LambdaInterface {
    * @return return the total electrostatic energy (permanent + polarization).
    */
   private double computeEnergy(boolean print) {
-    // Find the permanent multipole potential, field, etc.
-    permanentMultipoleField();
+    // Find the permanent multipole potential, field, etc. The field is not needed for a pair selection.
+    if (!pairSelection) {
+      permanentMultipoleField();
+    }
 
     // Compute Born radii if necessary.
     if (generalizedKirkwoodTerm) {
@@ -1810,7 +1893,7 @@ public class ParticleMeshEwald implements LambdaInterface {
       }
 
       // Compute induced dipoles.
-      selfConsistentField(logger.isLoggable(Level.FINE));
+      scfCycles = selfConsistentField(logger.isLoggable(Level.FINE));
 
       if (esvTerm && polarization != Polarization.NONE) {
         for (int i = 0; i < nAtoms; i++) {
@@ -1867,7 +1950,7 @@ public class ParticleMeshEwald implements LambdaInterface {
         }
       }
 
-      if (scfPredictorParameters.scfPredictor != SCFPredictor.NONE) {
+      if (scfPredictorParameters.scfPredictor != SCFPredictor.NONE && scfAlgorithm != SCFAlgorithm.TCG) {
         scfPredictorParameters.saveMutualInducedDipoles(lambdaMode,
             inducedDipole, inducedDipoleCR, directDipole, directDipoleCR);
       }
@@ -1933,6 +2016,13 @@ public class ParticleMeshEwald implements LambdaInterface {
     interactions += realSpaceEnergyRegion.getInteractions();
     pmeTimings.realSpaceEnergyTotal += System.nanoTime();
 
+    // Apply the truncated conjugate gradient energy and gradient corrections.
+    double etcg = 0.0;
+    if (scfAlgorithm == SCFAlgorithm.TCG && polarization == Polarization.MUTUAL
+        && alchemicalParameters.doPolarization) {
+      etcg = tcgCorrection();
+    }
+
     if (generalizedKirkwoodTerm) {
       // Compute the polarization energy cost to polarize the induced dipoles
       // from vacuum to the SCRF values.
@@ -2074,8 +2164,8 @@ public class ParticleMeshEwald implements LambdaInterface {
     inducedSelfEnergy += eselfi;
     inducedReciprocalEnergy += erecipi;
     permanentMultipoleEnergy += eself + erecip + ereal;
-    polarizationEnergy += eselfi + erecipi + ereali;
-    totalMultipoleEnergy += ereal + eself + erecip + ereali + eselfi + erecipi;
+    polarizationEnergy += eselfi + erecipi + ereali + etcg;
+    totalMultipoleEnergy += ereal + eself + erecip + ereali + eselfi + erecipi + etcg;
 
     // Log some info.
     if (logger.isLoggable(Level.FINE)) {
@@ -2087,6 +2177,9 @@ public class ParticleMeshEwald implements LambdaInterface {
       sb.append(format(" Polarization Self-Energy:%16.8f\n", eselfi));
       sb.append(format(" Polarization Reciprocal: %16.8f\n", erecipi));
       sb.append(format(" Polarization Real Space: %16.8f\n", ereali));
+      if (scfAlgorithm == SCFAlgorithm.TCG) {
+        sb.append(format(" Polarization TCG:        %16.8f\n", etcg));
+      }
       if (generalizedKirkwoodTerm) {
         sb.append(format(" Generalized Kirkwood:    %16.8f\n", solvationEnergy));
       }
@@ -2096,6 +2189,109 @@ public class ParticleMeshEwald implements LambdaInterface {
     return permanentMultipoleEnergy + polarizationEnergy + solvationEnergy;
   }
 
+  /**
+   * Compute the TCG polarization energy correction and, if the gradient is requested, add the
+   * gradient correction terms that account for the coordinate dependence of the truncated Krylov
+   * subspace.
+   *
+   * @return The TCG polarization energy correction.
+   */
+  private double tcgCorrection() {
+    double energy = electric * alchemicalParameters.polarizationScale * tcgSolver.getEnergyCorrection();
+    if (!gradient) {
+      return energy;
+    }
+
+    if (tcgDipole == null || tcgDipole.length != nSymm || tcgDipole[0].length != nAtoms) {
+      tcgDipole = new double[nSymm][nAtoms][3];
+      tcgDipoleCR = new double[nSymm][nAtoms][3];
+      tcgZeroMultipole = new double[nSymm][nAtoms][10];
+      tcgZeroPhi = new double[nAtoms][tensorCount];
+      cartesianTCGDipolePhi = new double[nAtoms][tensorCount];
+      cartesianTCGDipolePhiCR = new double[nAtoms][tensorCount];
+      fractionalTCGDipolePhi = new double[nAtoms][tensorCount];
+      fractionalTCGDipolePhiCR = new double[nAtoms][tensorCount];
+    }
+
+    // For TCG2, compute the induced field of the preconditioned residual.
+    tcgSolver.prepareGradient(this);
+
+    // No permanent multipole energy or gradient.
+    AlchemicalParameters alchemicalParametersTCG = new AlchemicalParameters(
+        forceField, false, false, polarization);
+    alchemicalParametersTCG.permanentScale = 0.0;
+    alchemicalParametersTCG.doPermanentRealSpace = false;
+    alchemicalParametersTCG.polarizationScale = alchemicalParameters.polarizationScale;
+
+    int passes = tcgSolver.getGradientPasses();
+    for (int pass = 0; pass < passes; pass++) {
+      tcgSolver.loadGradientDipoles(pass, tcgDipole, tcgDipoleCR);
+      if (nSymm > 1) {
+        expandInducedDipolesRegion.init(atoms, crystal, tcgDipole, tcgDipoleCR);
+        expandInducedDipolesRegion.executeWith(parallelTeam);
+      }
+      if (pass == 0) {
+        // The permanent multipole / induced dipole correction uses the direct polarization kernel.
+        tcgGradientPass(Polarization.DIRECT, globalMultipole, fractionalMultipole,
+            cartesianMultipolePhi, fracMultipolePhi, alchemicalParametersTCG);
+      } else {
+        // The induced dipole / induced dipole corrections use the mutual polarization kernel
+        // without permanent multipoles.
+        tcgGradientPass(Polarization.MUTUAL, tcgZeroMultipole, tcgZeroMultipole,
+            tcgZeroPhi, tcgZeroPhi, alchemicalParametersTCG);
+      }
+    }
+    return energy;
+  }
+
+  /**
+   * Accumulate the polarization gradient due to the TCG gradient correction dipoles.
+   */
+  private void tcgGradientPass(Polarization polarizationTCG,
+      double[][][] multipole, double[][][] fracMultipole,
+      double[][] cartMultipolePhi, double[][] fracMultiPhi,
+      AlchemicalParameters alchemicalParametersTCG) {
+    if (reciprocalSpaceTerm && ewaldParameters.aewald > 0.0) {
+      reciprocalSpace.splineInducedDipoles(tcgDipole, tcgDipoleCR, use);
+      field.reset(parallelTeam);
+      fieldCR.reset(parallelTeam);
+      inducedDipoleFieldRegion.init(
+          atoms, crystal, use, molecule,
+          ipdamp, thole, coordinates, realSpaceNeighborParameters,
+          tcgDipole, tcgDipoleCR,
+          reciprocalSpaceTerm, reciprocalSpace,
+          lambdaMode, ewaldParameters,
+          field, fieldCR, pmeTimings);
+      inducedDipoleFieldRegion.executeWith(sectionTeam);
+      reciprocalSpace.computeInducedPhi(
+          cartesianTCGDipolePhi, cartesianTCGDipolePhiCR,
+          fractionalTCGDipolePhi, fractionalTCGDipolePhiCR);
+
+      reciprocalEnergyRegion.init(atoms, crystal, true, false, false, use,
+          multipole, fracMultipole, dMultipoledTirationESV, dMultipoledTautomerESV,
+          cartMultipolePhi, fracMultiPhi,
+          polarizationTCG, tcgDipole, tcgDipoleCR,
+          cartesianTCGDipolePhi, cartesianTCGDipolePhiCR,
+          fractionalTCGDipolePhi, fractionalTCGDipolePhiCR,
+          reciprocalSpace, alchemicalParametersTCG, extendedSystem,
+          grad, torque, null, null, shareddEdLambda, sharedd2EdLambda2);
+      reciprocalEnergyRegion.executeWith(parallelTeam);
+    }
+
+    pmeTimings.realSpaceEnergyTotal -= System.nanoTime();
+    realSpaceEnergyRegion.init(atoms, crystal, extendedSystem, false, coordinates, frame, axisAtom,
+        multipole, dMultipoledTirationESV, dMultipoledTautomerESV,
+        tcgDipole, tcgDipoleCR, use, molecule,
+        ip11, mask12, mask13, mask14, mask15, isSoft, ipdamp, thole, realSpaceNeighborParameters,
+        true, false, nnTerm, lambdaMode, polarizationTCG,
+        ewaldParameters, scaleParameters, alchemicalParametersTCG,
+        pmeTimings.realSpaceEnergyTime,
+        // Output
+        grad, torque, null, null, shareddEdLambda, sharedd2EdLambda2);
+    realSpaceEnergyRegion.executeWith(parallelTeam);
+    pmeTimings.realSpaceEnergyTotal += System.nanoTime();
+  }
+
   /**
    * Find the permanent multipole potential, field, etc.
    */
@@ -2201,7 +2397,8 @@ public class ParticleMeshEwald implements LambdaInterface {
     }
 
     // Predict the current self-consistent induced dipoles using information from previous steps.
-    if (scfPredictorParameters.scfPredictor != SCFPredictor.NONE) {
+    // The TCG algorithm always starts from zero induced dipoles and does not use a predictor.
+    if (scfPredictorParameters.scfPredictor != SCFPredictor.NONE && scfAlgorithm != SCFAlgorithm.TCG) {
       switch (scfPredictorParameters.scfPredictor) {
         case ASPC -> scfPredictorParameters.aspcPredictor(lambdaMode, inducedDipole, inducedDipoleCR);
         case LS -> scfPredictorParameters.leastSquaresPredictor(lambdaMode, inducedDipole, inducedDipoleCR);
@@ -2219,10 +2416,20 @@ public class ParticleMeshEwald implements LambdaInterface {
       return switch (scfAlgorithm) {
         case SOR -> scfBySOR(print, startTime);
         case EPT -> scfByEPT(print, startTime);
+        case TCG -> {
+          tcgSolver.init(atoms, polarizability, use, inducedDipole, inducedDipoleCR,
+              directDipole, directDipoleCR, field, fieldCR,
+              reciprocalSpaceTerm && ewaldParameters.aewald > 0.0 ? cartesianInducedDipolePhi : null,
+              cartesianInducedDipolePhiCR, fractionalInducedDipolePhi, fractionalInducedDipolePhiCR,
+              parallelTeam);
+          int cycles = tcgSolver.scfByTCG(print, startTime, this);
+          expandInducedDipoles();
+          yield cycles;
+        }
         default -> {
           // PCG
           pcgSolver.init(atoms, coordinates, polarizability, ipdamp, thole,
-              use, crystal, inducedDipole, inducedDipoleCR, directDipole, directDipoleCR,
+              use, molecule, crystal, inducedDipole, inducedDipoleCR, directDipole, directDipoleCR,
               field, fieldCR, ewaldParameters, soluteDielectric, parallelTeam,
               realSpaceNeighborParameters.realSpaceSchedule,
               pmeTimings.realSpaceSCFTime);
@@ -2882,6 +3089,11 @@ public class ParticleMeshEwald implements LambdaInterface {
     // Set object handles.
     esvTerm = true;
     extendedSystem = system;
+    if (scfAlgorithm == SCFAlgorithm.TCG) {
+      logger.info(" The TCG SCF algorithm does not support extended system variables; falling back to CG.");
+      scfAlgorithm = SCFAlgorithm.CG;
+      pcgSolver.allocateVectors(nAtoms);
+    }
     // Update atoms and reinitialize arrays for consistency with the ExtendedSystem.
     setAtoms(extendedSystem.getExtendedAtoms(), extendedSystem.getExtendedMolecule());
     // Allocate space for dM/dTitratonESV
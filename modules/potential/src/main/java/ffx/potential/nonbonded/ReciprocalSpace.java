@@ -44,6 +44,7 @@ import edu.rit.pj.ParallelTeam;
 import ffx.crystal.Crystal;
 import ffx.numerics.fft.Complex;
 import ffx.numerics.fft.Complex3DParallel;
+import ffx.numerics.fft.FloatComplex3DParallel;
 import ffx.potential.bonded.Atom;
 import ffx.potential.parameters.ForceField;
 import ffx.utilities.FFXProperty;
@@ -81,7 +82,9 @@ import static ffx.potential.parameters.MultipoleType.t300;
 import static java.lang.Math.fma;
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
+import static java.util.Arrays.fill;
 import static org.apache.commons.math3.util.FastMath.PI;
+import static org.apache.commons.math3.util.FastMath.abs;
 import static org.apache.commons.math3.util.FastMath.cos;
 import static org.apache.commons.math3.util.FastMath.exp;
 import static org.apache.commons.math3.util.FastMath.floor;
@@ -275,6 +278,78 @@ public class ReciprocalSpace {
   private SliceRegion sliceRegion;
   private RowRegion rowRegion;
   private Complex3DParallel complex3DFFT;
+  /**
+   * If true, the permanent multipole convolution uses a real-to-complex FFT.
+   */
+  @FFXProperty(name = "pme-real-fft", clazz = Boolean.class, propertyGroup = PropertyGroup.ParticleMeshEwald,
+      defaultValue = "false", description = """
+      If true, the reciprocal space convolution of the permanent multipole (or partial charge) density
+      uses a real-to-complex FFT that only transforms the non-redundant half of the Hermitian spectrum.
+      This requires an even grid dimension along the x-axis. The induced dipole convolution is unchanged,
+      because it already packs the induced dipoles and their chain rule terms into one complex grid.
+      """)
+  private final boolean realFFT;
+  /**
+   * True if the grid currently holds the purely real permanent multipole density.
+   */
+  private boolean permanentGrid = false;
+  /**
+   * If true, the PME grid is stored in single precision.
+   */
+  @FFXProperty(name = "pme-single-precision", clazz = Boolean.class, propertyGroup = PropertyGroup.ParticleMeshEwald,
+      defaultValue = "false", description = """
+      If true, the reciprocal space grid used for density spreading, the convolution and potential
+      interpolation is stored in single precision, which halves its memory footprint and bandwidth.
+      The FFTs, B-spline weights and the accumulation of the potential, field and forces remain in
+      double precision.
+      """)
+  private final boolean singlePrecision;
+  /**
+   * If true, the single precision potential is compared to the double precision potential.
+   */
+  @FFXProperty(name = "pme-precision-check", clazz = Boolean.class, propertyGroup = PropertyGroup.ParticleMeshEwald,
+      defaultValue = "false", description = """
+      If true and the pme-single-precision property is set, the reciprocal space potential computed using
+      the single precision grid is recomputed using a double precision grid, and the maximum and RMS errors
+      are logged. This is meant for validation and is expensive.
+      """)
+  private final boolean precisionCheck;
+  /**
+   * Single precision reciprocal space grid. [fftSpace]
+   */
+  private float[] floatGrid;
+  /**
+   * Single precision parallel convolution.
+   */
+  private FloatComplex3DParallel floatComplex3DFFT;
+  /**
+   * True if density is currently spread onto (and the potential interpolated from) the single
+   * precision grid.
+   */
+  private boolean useFloatGrid;
+  /**
+   * Lines of the double precision grid.
+   */
+  private final GridLines doubleGridLines = new DoubleGridLines();
+  /**
+   * Lines of the single precision grid.
+   */
+  private final GridLines floatGridLines = new FloatGridLines();
+  /**
+   * Lines of the grid in use, which are selected by setGridPrecision.
+   */
+  private GridLines gridLines = doubleGridLines;
+  /**
+   * Zero the single precision grid before density is spread onto it.
+   */
+  private final FloatGridInitRegion floatGridInitRegion;
+  /**
+   * The most recent permanent multipoles and induced dipoles, which are needed to recompute the
+   * potential in double precision for the precision check.
+   */
+  private double[][][] checkGlobalMultipoles, checkFracMultipoles;
+  private double[][][] checkInducedDipole, checkInducedDipoleCR;
+  private boolean[] checkPermanentUse, checkInducedUse;
   private GridMethod gridMethod;
   // Timing variables.
   private long bSplineTotal, splinePermanentTotal, splineInducedTotal;
@@ -350,6 +425,11 @@ public class ReciprocalSpace {
     }
 
     bSplineOrder = forceField.getInteger("PME_ORDER", DEFAULT_PME_ORDER);
+    realFFT = forceField.getBoolean("PME_REAL_FFT", false);
+    singlePrecision = forceField.getBoolean("PME_SINGLE_PRECISION", false);
+    precisionCheck = singlePrecision && forceField.getBoolean("PME_PRECISION_CHECK", false);
+    useFloatGrid = singlePrecision;
+    floatGridInitRegion = new FloatGridInitRegion();
 
     // Initialize convolution objects that may be re-allocated during NPT simulations.
     double density = initConvolution();
@@ -361,6 +441,15 @@ public class ReciprocalSpace {
       sb.append(format("    Mesh Density:                      %8.3f\n", density));
       sb.append(format("    Mesh Dimensions:              (%3d,%3d,%3d)\n", fftX, fftY, fftZ));
       sb.append(format("    Grid Method:                       %8s\n", gridMethod.toString()));
+      if (realFFT && complex3DFFT != null) {
+        sb.append(format("    Real-to-Complex FFT:               %8b\n", complex3DFFT.supportsRealInput()));
+      }
+      if (singlePrecision) {
+        sb.append(format("    Single Precision Grid:             %8b\n", true));
+        if (precisionCheck) {
+          sb.append(format("    Single Precision Check:            %8b\n", true));
+        }
+      }
       logger.info(sb.toString());
     }
 
@@ -550,6 +639,21 @@ public class ReciprocalSpace {
       logger.log(Level.SEVERE, message, e);
     }
     inducedPhiTotal += System.nanoTime();
+
+    if (precisionCheck && useFloatGrid && checkInducedDipole != null) {
+      // Recompute the induced potential using the double precision grid.
+      double[][] cartCheck = new double[cartInducedDipolePhi.length][cartInducedDipolePhi[0].length];
+      double[][] cartCRCheck = new double[cartInducedDipoleCRPhi.length][cartInducedDipoleCRPhi[0].length];
+      double[][] fracCheck = new double[fracInducedDipolePhi.length][fracInducedDipolePhi[0].length];
+      double[][] fracCRCheck = new double[fracInducedDipoleCRPhi.length][fracInducedDipoleCRPhi[0].length];
+      setGridPrecision(false);
+      splineInducedDipoles(checkInducedDipole, checkInducedDipoleCR, checkInducedUse);
+      performConvolution();
+      computeInducedPhi(cartCheck, cartCRCheck, fracCheck, fracCRCheck);
+      setGridPrecision(true);
+      logPrecisionError("Induced Dipole", cartInducedDipolePhi, cartCheck);
+      logPrecisionError("Induced Dipole CR", cartInducedDipoleCRPhi, cartCRCheck);
+    }
   }
 
   /**
@@ -568,6 +672,18 @@ public class ReciprocalSpace {
       logger.log(Level.SEVERE, message, e);
     }
     permanentPhiTotal += System.nanoTime();
+
+    if (precisionCheck && useFloatGrid && checkGlobalMultipoles != null) {
+      // Recompute the permanent potential using the double precision grid.
+      double[][] cartCheck = new double[cartPermanentPhi.length][cartPermanentPhi[0].length];
+      double[][] fracCheck = new double[fracPermanentPhi.length][fracPermanentPhi[0].length];
+      setGridPrecision(false);
+      splinePermanentMultipoles(checkGlobalMultipoles, checkFracMultipoles, checkPermanentUse);
+      performConvolution();
+      computePermanentPhi(cartCheck, fracCheck);
+      setGridPrecision(true);
+      logPrecisionError("Permanent", cartPermanentPhi, cartCheck);
+    }
   }
 
   /**
@@ -597,13 +713,28 @@ public class ReciprocalSpace {
     return fftZ;
   }
 
+  /**
+   * Check if the permanent multipole convolution uses the real-to-complex FFT.
+   *
+   * @return true if the real-to-complex FFT is used.
+   */
+  boolean getRealFFT() {
+    return realFFT && complex3DFFT != null && complex3DFFT.supportsRealInput();
+  }
+
   /**
    * Compute the reciprocal space field using a convolution.
    */
   public void performConvolution() {
     convTotal -= System.nanoTime();
     try {
-      complex3DFFT.convolution(splineGrid);
+      if (useFloatGrid) {
+        floatComplex3DFFT.convolution(floatGrid);
+      } else if (permanentGrid && realFFT && complex3DFFT.supportsRealInput()) {
+        complex3DFFT.realConvolution(splineGrid);
+      } else {
+        complex3DFFT.convolution(splineGrid);
+      }
     } catch (Exception e) {
       String message = "Fatal exception evaluating the convolution.";
       logger.log(Level.SEVERE, message, e);
@@ -637,6 +768,9 @@ public class ReciprocalSpace {
     if (complex3DFFT != null) {
       complex3DFFT.initTiming();
     }
+    if (floatComplex3DFFT != null) {
+      floatComplex3DFFT.initTiming();
+    }
   }
 
   /**
@@ -644,13 +778,13 @@ public class ReciprocalSpace {
    */
   public void printTimings() {
     if (logger.isLoggable(Level.FINE)) {
-      if (complex3DFFT != null) {
+      if (complex3DFFT != null || floatComplex3DFFT != null) {
         double total = (bSplineTotal + convTotal
             + splinePermanentTotal + permanentPhiTotal
             + splineInducedTotal + inducedPhiTotal) * toSeconds;
 
         logger.fine(format("\n Reciprocal Space: %7.4f (sec)", total));
-        long[] convTime = complex3DFFT.getTimings();
+        long[] convTime = useFloatGrid ? floatComplex3DFFT.getTimings() : complex3DFFT.getTimings();
         logger.fine("                           Direct Field    SCF Field");
         logger.fine(" Thread  B-Spline  3DConv  Spline  Phi     Spline  Phi      Count");
 
@@ -770,8 +904,17 @@ public class ReciprocalSpace {
   public void splineInducedDipoles(
       double[][][] inducedDipole, double[][][] inducedDipoleCR, boolean[] use) {
     splineInducedTotal -= System.nanoTime();
+    permanentGrid = false;
+    if (precisionCheck) {
+      checkInducedDipole = inducedDipole;
+      checkInducedDipoleCR = inducedDipoleCR;
+      checkInducedUse = use;
+    }
 
     try {
+      if (useFloatGrid) {
+        parallelTeam.execute(floatGridInitRegion);
+      }
       // Allocate memory if needed.
       if (inducedDipoleFrac == null ||
           inducedDipoleFrac.length != inducedDipole.length ||
@@ -846,8 +989,17 @@ public class ReciprocalSpace {
   public void splinePermanentMultipoles(double[][][] globalMultipoles, double[][][] fracMultipoles,
                                         boolean[] use) {
     splinePermanentTotal -= System.nanoTime();
+    permanentGrid = true;
+    if (precisionCheck) {
+      checkGlobalMultipoles = globalMultipoles;
+      checkFracMultipoles = fracMultipoles;
+      checkPermanentUse = use;
+    }
 
     try {
+      if (useFloatGrid) {
+        parallelTeam.execute(floatGridInitRegion);
+      }
       fractionalMultipoleRegion.setUse(use);
       fractionalMultipoleRegion.setPermanent(globalMultipoles, fracMultipoles);
       parallelTeam.execute(fractionalMultipoleRegion);
@@ -994,14 +1146,28 @@ public class ReciprocalSpace {
     fftSpace = fftX * fftY * fftZ * 2;
     boolean dimChanged = fftX != fftXCurrent || fftY != fftYCurrent || fftZ != fftZCurrent;
 
-    if (complex3DFFT == null || dimChanged) {
+    // The double precision grid is only needed in single precision mode to check the error.
+    boolean doubleGrid = !singlePrecision || precisionCheck;
+    if (doubleGrid && (complex3DFFT == null || dimChanged)) {
       complex3DFFT = new Complex3DParallel(fftX, fftY, fftZ, fftTeam, recipSchedule);
       if (splineGrid == null || splineGrid.length < fftSpace) {
         splineGrid = new double[fftSpace];
       }
       splineBuffer = DoubleBuffer.wrap(splineGrid);
     }
-    complex3DFFT.setRecip(generalizedInfluenceFunction());
+    if (singlePrecision && (floatComplex3DFFT == null || dimChanged)) {
+      floatComplex3DFFT = new FloatComplex3DParallel(fftX, fftY, fftZ, fftTeam, recipSchedule);
+      if (floatGrid == null || floatGrid.length < fftSpace) {
+        floatGrid = new float[fftSpace];
+      }
+    }
+    double[] influenceFunction = generalizedInfluenceFunction();
+    if (complex3DFFT != null) {
+      complex3DFFT.setRecip(influenceFunction);
+    }
+    if (floatComplex3DFFT != null) {
+      floatComplex3DFFT.setRecip(influenceFunction);
+    }
 
     switch (gridMethod) {
       case SPATIAL -> {
@@ -1030,10 +1196,348 @@ public class ReciprocalSpace {
         }
       }
     }
+    setGridPrecision(useFloatGrid);
 
     return density;
   }
 
+  /**
+   * Select the single or double precision grid for spreading density and interpolating the
+   * potential. The single precision grid is zeroed by the FloatGridInitRegion, so the grid
+   * initialization of the density regions is disabled when it is in use.
+   *
+   * @param useFloat if true, use the single precision grid.
+   */
+  private void setGridPrecision(boolean useFloat) {
+    useFloatGrid = useFloat;
+    gridLines = useFloat ? floatGridLines : doubleGridLines;
+    DoubleBuffer gridBuffer = useFloat ? null : splineBuffer;
+    if (spatialDensityRegion != null) {
+      spatialDensityRegion.setGridBuffer(gridBuffer);
+    }
+    if (rowRegion != null) {
+      rowRegion.setGridBuffer(gridBuffer);
+    }
+    if (sliceRegion != null) {
+      sliceRegion.setGridBuffer(gridBuffer);
+    }
+  }
+
+  /**
+   * Spreads density onto, and interpolates the potential from, lines of the reciprocal space grid
+   * along the x-axis. A single and a double precision implementation are selected once by
+   * setGridPrecision, so the loops over the grid do not test the grid precision.
+   */
+  private abstract class GridLines {
+
+    /**
+     * Spread the multipole density of an atom along a line of the grid.
+     *
+     * @param j The y index of the line.
+     * @param k The z index of the line.
+     * @param i0 The grid index preceding the first x index of the atom.
+     * @param splx The b-Spline coefficients along the x-axis.
+     * @param term0 The density coefficient of the b-Spline.
+     * @param term1 The density coefficient of the first derivative of the b-Spline.
+     * @param term2 The density coefficient of the second derivative of the b-Spline.
+     */
+    abstract void spreadMultipole(int j, int k, int i0, double[][] splx, double term0,
+        double term1, double term2);
+
+    /**
+     * Spread the fixed charge density of an atom along a line of the grid.
+     *
+     * @param j The y index of the line.
+     * @param k The z index of the line.
+     * @param i0 The grid index preceding the first x index of the atom.
+     * @param splx The b-Spline coefficients along the x-axis.
+     * @param term0 The density coefficient of the b-Spline.
+     */
+    abstract void spreadCharge(int j, int k, int i0, double[][] splx, double term0);
+
+    /**
+     * Spread the induced dipole density of an atom along a line of the grid. The density of the
+     * induced dipoles is stored in the real part of the grid, and the density of the chain rule
+     * dipoles in the imaginary part.
+     *
+     * @param j The y index of the line.
+     * @param k The z index of the line.
+     * @param i0 The grid index preceding the first x index of the atom.
+     * @param splx The b-Spline coefficients along the x-axis.
+     * @param term0 The induced density coefficient of the b-Spline.
+     * @param term1 The induced density coefficient of the first derivative of the b-Spline.
+     * @param termp0 The chain rule density coefficient of the b-Spline.
+     * @param termp1 The chain rule density coefficient of the first derivative of the b-Spline.
+     */
+    abstract void spreadInduced(int j, int k, int i0, double[][] splx, double term0, double term1,
+        double termp0, double termp1);
+
+    /**
+     * Interpolate the potential and its first three derivatives along a line of the grid.
+     *
+     * @param j The y index of the line.
+     * @param k The z index of the line.
+     * @param i0 The grid index preceding the first x index of the atom.
+     * @param splx The b-Spline coefficients along the x-axis.
+     * @param t The interpolated potential and derivatives.
+     */
+    abstract void interpolatePermanent(int j, int k, int i0, double[][] splx, double[] t);
+
+    /**
+     * Interpolate the potential and its first three derivatives along a line of the grid for both
+     * the real (induced) and imaginary (chain rule) parts of the grid.
+     *
+     * @param j The y index of the line.
+     * @param k The z index of the line.
+     * @param i0 The grid index preceding the first x index of the atom.
+     * @param splx The b-Spline coefficients along the x-axis.
+     * @param t The interpolated induced (0-3) and chain rule (4-7) potential and derivatives.
+     */
+    abstract void interpolateInduced(int j, int k, int i0, double[][] splx, double[] t);
+  }
+
+  /**
+   * Lines of the double precision grid.
+   */
+  private class DoubleGridLines extends GridLines {
+
+    @Override
+    void spreadMultipole(int j, int k, int i0, double[][] splx, double term0, double term1,
+        double term2) {
+      final double[] grid = splineGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double[] splxi = splx[ith1];
+        double updated = fma(splxi[0], term0, grid[ii]);
+        updated = fma(splxi[1], term1, updated);
+        updated = fma(splxi[2], term2, updated);
+        grid[ii] = updated;
+      }
+    }
+
+    @Override
+    void spreadCharge(int j, int k, int i0, double[][] splx, double term0) {
+      final double[] grid = splineGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        grid[ii] = fma(splx[ith1][0], term0, grid[ii]);
+      }
+    }
+
+    @Override
+    void spreadInduced(int j, int k, int i0, double[][] splx, double term0, double term1,
+        double termp0, double termp1) {
+      final double[] grid = splineGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double[] splxi = splx[ith1];
+        grid[ii] = fma(splxi[0], term0, fma(splxi[1], term1, grid[ii]));
+        grid[ii + 1] = fma(splxi[0], termp0, fma(splxi[1], termp1, grid[ii + 1]));
+      }
+    }
+
+    @Override
+    void interpolatePermanent(int j, int k, int i0, double[][] splx, double[] t) {
+      final double[] grid = splineGrid;
+      double t0 = 0.0;
+      double t1 = 0.0;
+      double t2 = 0.0;
+      double t3 = 0.0;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double tq = grid[ii];
+        final double[] splxi = splx[ith1];
+        t0 = fma(tq, splxi[0], t0);
+        t1 = fma(tq, splxi[1], t1);
+        t2 = fma(tq, splxi[2], t2);
+        t3 = fma(tq, splxi[3], t3);
+      }
+      t[0] = t0;
+      t[1] = t1;
+      t[2] = t2;
+      t[3] = t3;
+    }
+
+    @Override
+    void interpolateInduced(int j, int k, int i0, double[][] splx, double[] t) {
+      final double[] grid = splineGrid;
+      double t0 = 0.0;
+      double t1 = 0.0;
+      double t2 = 0.0;
+      double t3 = 0.0;
+      double t0p = 0.0;
+      double t1p = 0.0;
+      double t2p = 0.0;
+      double t3p = 0.0;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double tq = grid[ii];
+        final double tp = grid[ii + 1];
+        final double[] splxi = splx[ith1];
+        final double s0 = splxi[0];
+        final double s1 = splxi[1];
+        final double s2 = splxi[2];
+        final double s3 = splxi[3];
+        t0 = fma(tq, s0, t0);
+        t1 = fma(tq, s1, t1);
+        t2 = fma(tq, s2, t2);
+        t3 = fma(tq, s3, t3);
+        t0p = fma(tp, s0, t0p);
+        t1p = fma(tp, s1, t1p);
+        t2p = fma(tp, s2, t2p);
+        t3p = fma(tp, s3, t3p);
+      }
+      t[0] = t0;
+      t[1] = t1;
+      t[2] = t2;
+      t[3] = t3;
+      t[4] = t0p;
+      t[5] = t1p;
+      t[6] = t2p;
+      t[7] = t3p;
+    }
+  }
+
+  /**
+   * Lines of the single precision grid. Each value is accumulated in double precision and rounded
+   * once when it is stored.
+   */
+  private class FloatGridLines extends GridLines {
+
+    @Override
+    void spreadMultipole(int j, int k, int i0, double[][] splx, double term0, double term1,
+        double term2) {
+      final float[] grid = floatGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double[] splxi = splx[ith1];
+        double updated = fma(splxi[0], term0, grid[ii]);
+        updated = fma(splxi[1], term1, updated);
+        updated = fma(splxi[2], term2, updated);
+        grid[ii] = (float) updated;
+      }
+    }
+
+    @Override
+    void spreadCharge(int j, int k, int i0, double[][] splx, double term0) {
+      final float[] grid = floatGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        grid[ii] = (float) fma(splx[ith1][0], term0, grid[ii]);
+      }
+    }
+
+    @Override
+    void spreadInduced(int j, int k, int i0, double[][] splx, double term0, double term1,
+        double termp0, double termp1) {
+      final float[] grid = floatGrid;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double[] splxi = splx[ith1];
+        grid[ii] = (float) fma(splxi[0], term0, fma(splxi[1], term1, grid[ii]));
+        grid[ii + 1] = (float) fma(splxi[0], termp0, fma(splxi[1], termp1, grid[ii + 1]));
+      }
+    }
+
+    @Override
+    void interpolatePermanent(int j, int k, int i0, double[][] splx, double[] t) {
+      final float[] grid = floatGrid;
+      double t0 = 0.0;
+      double t1 = 0.0;
+      double t2 = 0.0;
+      double t3 = 0.0;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double tq = grid[ii];
+        final double[] splxi = splx[ith1];
+        t0 = fma(tq, splxi[0], t0);
+        t1 = fma(tq, splxi[1], t1);
+        t2 = fma(tq, splxi[2], t2);
+        t3 = fma(tq, splxi[3], t3);
+      }
+      t[0] = t0;
+      t[1] = t1;
+      t[2] = t2;
+      t[3] = t3;
+    }
+
+    @Override
+    void interpolateInduced(int j, int k, int i0, double[][] splx, double[] t) {
+      final float[] grid = floatGrid;
+      double t0 = 0.0;
+      double t1 = 0.0;
+      double t2 = 0.0;
+      double t3 = 0.0;
+      double t0p = 0.0;
+      double t1p = 0.0;
+      double t2p = 0.0;
+      double t3p = 0.0;
+      for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
+        final int i = mod(++i0, fftX);
+        final int ii = iComplex3D(i, j, k, fftX, fftY);
+        final double tq = grid[ii];
+        final double tp = grid[ii + 1];
+        final double[] splxi = splx[ith1];
+        final double s0 = splxi[0];
+        final double s1 = splxi[1];
+        final double s2 = splxi[2];
+        final double s3 = splxi[3];
+        t0 = fma(tq, s0, t0);
+        t1 = fma(tq, s1, t1);
+        t2 = fma(tq, s2, t2);
+        t3 = fma(tq, s3, t3);
+        t0p = fma(tp, s0, t0p);
+        t1p = fma(tp, s1, t1p);
+        t2p = fma(tp, s2, t2p);
+        t3p = fma(tp, s3, t3p);
+      }
+      t[0] = t0;
+      t[1] = t1;
+      t[2] = t2;
+      t[3] = t3;
+      t[4] = t0p;
+      t[5] = t1p;
+      t[6] = t2p;
+      t[7] = t3p;
+    }
+  }
+
+  /**
+   * Log the difference between the reciprocal space potential computed using the single and double
+   * precision grids.
+   *
+   * @param label a description of the potential.
+   * @param phi the single precision potential.
+   * @param phiCheck the double precision potential.
+   */
+  private void logPrecisionError(String label, double[][] phi, double[][] phiCheck) {
+    double maxError = 0.0;
+    double maxPhi = 0.0;
+    double sumSquared = 0.0;
+    int count = 0;
+    for (int i = 0; i < phi.length; i++) {
+      for (int j = 0; j < phi[i].length; j++) {
+        double error = abs(phi[i][j] - phiCheck[i][j]);
+        maxError = max(maxError, error);
+        maxPhi = max(maxPhi, abs(phiCheck[i][j]));
+        sumSquared += error * error;
+        count++;
+      }
+    }
+    double rmsError = count > 0 ? sqrt(sumSquared / count) : 0.0;
+    logger.info(format(" Single precision %s potential error: max %10.4e, RMS %10.4e (max |phi| %10.4e)",
+        label, maxError, rmsError, maxPhi));
+  }
+
   private int RowIndexZ(int i) {
     return i / fftY;
   }
@@ -1488,17 +1992,7 @@ public class ReciprocalSpace {
           final double term1 = fma(dx0qxz1, u0, qxy0 * u1);
           final double term2 = qxx0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            final double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            updated = fma(splxi[1], term1, updated);
-            updated = fma(splxi[2], term2, updated);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadMultipole(j, k, igrd0, splx, term0, term1, term2);
         }
       }
     }
@@ -1523,15 +2017,7 @@ public class ReciprocalSpace {
           final double u0 = splyi[0];
           final double term0 = c0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            final double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadCharge(j, k, igrd0, splx, term0);
         }
       }
     }
@@ -1610,18 +2096,7 @@ public class ReciprocalSpace {
           final double termp0 = fma(pz1, u0, py0 * u1);
           final double termp1 = px0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            final double current = splineBuffer.get(ii);
-            final double currenti = splineBuffer.get(ii + 1);
-            final double updated = fma(splxi[0], term0, fma(splxi[1], term1, current));
-            final double udpatedi = fma(splxi[0], termp0, fma(splxi[1], termp1, currenti));
-            splineBuffer.put(ii, updated);
-            splineBuffer.put(ii + 1, udpatedi);
-          }
+          gridLines.spreadInduced(j, k, igrd0, splx, term0, term1, termp0, termp1);
         }
       }
     }
@@ -1746,17 +2221,7 @@ public class ReciprocalSpace {
           final double term0 = fma(c0dz1qzz2, u0, fma(dy0qyz1, u1, qyy0 * u2));
           final double term1 = fma(dx0qxz1, u0, qxy0 * u1);
           final double term2 = qxx0 * u0;
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            updated = fma(splxi[1], term1, updated);
-            updated = fma(splxi[2], term2, updated);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadMultipole(j, k, igrd0, splx, term0, term1, term2);
         }
       }
     }
@@ -1810,15 +2275,7 @@ public class ReciprocalSpace {
           final double u0 = splyi[0];
           // Pieces of a multipole
           final double term0 = c0 * u0;
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadCharge(j, k, igrd0, splx, term0);
         }
       }
     }
@@ -1909,18 +2366,7 @@ public class ReciprocalSpace {
           final double term1 = dx0 * u0;
           final double termp0 = fma(pz1, u0, py0 * u1);
           final double termp1 = px0 * u0;
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            final double current = splineBuffer.get(ii);
-            final double currenti = splineBuffer.get(ii + 1);
-            final double updated = fma(splxi[0], term0, fma(splxi[1], term1, current));
-            final double udpatedi = fma(splxi[0], termp0, fma(splxi[1], termp1, currenti));
-            splineBuffer.put(ii, updated);
-            splineBuffer.put(ii + 1, udpatedi);
-          }
+          gridLines.spreadInduced(j, k, igrd0, splx, term0, term1, termp0, termp1);
         }
       }
     }
@@ -2054,17 +2500,7 @@ public class ReciprocalSpace {
           final double term1 = fma(dx0qxz1, u0, qxy0 * u1);
           final double term2 = qxx0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            updated = fma(splxi[1], term1, updated);
-            updated = fma(splxi[2], term2, updated);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadMultipole(j, k, igrd0, splx, term0, term1, term2);
         }
       }
     }
@@ -2111,15 +2547,7 @@ public class ReciprocalSpace {
           final double u0 = splyi[0];
           final double term0 = c0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            double current = splineBuffer.get(ii);
-            double updated = fma(splxi[0], term0, current);
-            splineBuffer.put(ii, updated);
-          }
+          gridLines.spreadCharge(j, k, igrd0, splx, term0);
         }
       }
     }
@@ -2205,18 +2633,7 @@ public class ReciprocalSpace {
           final double termp0 = fma(pz1, u0, py0 * u1);
           final double termp1 = px0 * u0;
           final int j = mod(++j0, fftY);
-          int i0 = igrd0;
-          for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-            final int i = mod(++i0, fftX);
-            final int ii = iComplex3D(i, j, k, fftX, fftY);
-            final double[] splxi = splx[ith1];
-            final double current = splineBuffer.get(ii);
-            final double currenti = splineBuffer.get(ii + 1);
-            final double updated = fma(splxi[0], term0, fma(splxi[1], term1, current));
-            final double udpatedi = fma(splxi[0], termp0, fma(splxi[1], termp1, currenti));
-            splineBuffer.put(ii, updated);
-            splineBuffer.put(ii + 1, udpatedi);
-          }
+          gridLines.spreadInduced(j, k, igrd0, splx, term0, term1, termp0, termp1);
         }
       }
     }
@@ -2293,6 +2710,9 @@ public class ReciprocalSpace {
 
     public class PermanentPhiLoop extends IntegerForLoop {
 
+      /** Interpolation of the potential and its derivatives along a line of the grid. */
+      private final double[] t = new double[4];
+
       @Override
       public void finish() {
         int threadIndex = getThreadIndex();
@@ -2344,21 +2764,11 @@ public class ReciprocalSpace {
             double tu03 = 0.0;
             for (int ith2 = 0; ith2 < bSplineOrder; ith2++) {
               final int j = mod(++j0, fftY);
-              int i0 = igrd0;
-              double t0 = 0.0;
-              double t1 = 0.0;
-              double t2 = 0.0;
-              double t3 = 0.0;
-              for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-                final int i = mod(++i0, fftX);
-                final int ii = iComplex3D(i, j, k, fftX, fftY);
-                final double tq = splineBuffer.get(ii);
-                final double[] splxi = splx[ith1];
-                t0 = fma(tq, splxi[0], t0);
-                t1 = fma(tq, splxi[1], t1);
-                t2 = fma(tq, splxi[2], t2);
-                t3 = fma(tq, splxi[3], t3);
-              }
+              gridLines.interpolatePermanent(j, k, igrd0, splx, t);
+              final double t0 = t[0];
+              final double t1 = t[1];
+              final double t2 = t[2];
+              final double t3 = t[3];
               final double[] splyi = sply[ith2];
               final double u0 = splyi[0];
               final double u1 = splyi[1];
@@ -2504,6 +2914,9 @@ public class ReciprocalSpace {
 
     public class InducedPhiLoop extends IntegerForLoop {
 
+      /** Interpolation of the potential and its derivatives along a line of the grid. */
+      private final double[] t = new double[8];
+
       @Override
       public void finish() {
         int threadIndex = getThreadIndex();
@@ -2585,34 +2998,15 @@ public class ReciprocalSpace {
             double tu03p = 0.0;
             for (int ith2 = 0; ith2 < bSplineOrder; ith2++) {
               final int j = mod(++j0, fftY);
-              int i0 = igrd0;
-              double t0 = 0.0;
-              double t1 = 0.0;
-              double t2 = 0.0;
-              double t3 = 0.0;
-              double t0p = 0.0;
-              double t1p = 0.0;
-              double t2p = 0.0;
-              double t3p = 0.0;
-              for (int ith1 = 0; ith1 < bSplineOrder; ith1++) {
-                final int i = mod(++i0, fftX);
-                final int ii = iComplex3D(i, j, k, fftX, fftY);
-                final double tq = splineBuffer.get(ii);
-                final double tp = splineBuffer.get(ii + 1);
-                final double[] splxi = splx[ith1];
-                final double s0 = splxi[0];
-                final double s1 = splxi[1];
-                final double s2 = splxi[2];
-                final double s3 = splxi[3];
-                t0 = fma(tq, s0, t0);
-                t1 = fma(tq, s1, t1);
-                t2 = fma(tq, s2, t2);
-                t3 = fma(tq, s3, t3);
-                t0p = fma(tp, s0, t0p);
-                t1p = fma(tp, s1, t1p);
-                t2p = fma(tp, s2, t2p);
-                t3p = fma(tp, s3, t3p);
-              }
+              gridLines.interpolateInduced(j, k, igrd0, splx, t);
+              final double t0 = t[0];
+              final double t1 = t[1];
+              final double t2 = t[2];
+              final double t3 = t[3];
+              final double t0p = t[4];
+              final double t1p = t[5];
+              final double t2p = t[6];
+              final double t3p = t[7];
               final double[] splyi = sply[ith2];
               final double u0 = splyi[0];
               final double u1 = splyi[1];
@@ -2774,6 +3168,48 @@ public class ReciprocalSpace {
     }
   }
 
+  /**
+   * Zero the single precision grid in parallel.
+   */
+  private class FloatGridInitRegion extends ParallelRegion {
+
+    private FloatGridInitLoop[] floatGridInitLoops;
+
+    @Override
+    public void start() {
+      if (floatGridInitLoops == null) {
+        int nThreads = getThreadCount();
+        floatGridInitLoops = new FloatGridInitLoop[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+          floatGridInitLoops[i] = new FloatGridInitLoop();
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int threadIndex = getThreadIndex();
+      try {
+        execute(0, fftSpace - 1, floatGridInitLoops[threadIndex]);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private class FloatGridInitLoop extends IntegerForLoop {
+
+      @Override
+      public void run(int lb, int ub) {
+        fill(floatGrid, lb, ub + 1, 0.0f);
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+  }
+
   private class FractionalMultipoleRegion extends ParallelRegion {
 
     private double[][][] globalMultipoles = null;
@@ -101,6 +101,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
   private final IntegerSchedule pairwiseSchedule;
   private final SharedInteger sharedInteractions;
   private final SharedDouble sharedEnergy;
+  private final SharedInteger sharedHardInteractions;
+  private final SharedDouble sharedHardEnergy;
   private final SharedDouble shareddEdL;
   private final SharedDouble sharedd2EdL2;
   private final VanDerWaalsRegion vanDerWaalsRegion;
@@ -119,6 +121,27 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
       at 0.9 of the vdw cutoff distance.
       """)
   private final double vdwTaper;
+  @FFXProperty(name = "vdw-cluster-pair", clazz = Boolean.class, propertyGroup = VanDerWaalsFunctionalForm, defaultValue = "false",
+      description = """
+          Evaluate van der Waals interactions using a cluster-pair kernel, which groups spatially nearby atoms
+          into clusters and evaluates each pair of clusters with SIMD instructions from the Java Vector API.
+          SIMD requires building with the ffx.vector Maven profile and starting the JVM with
+          "--add-modules jdk.incubator.vector"; otherwise a scalar cluster-pair kernel is used. The cluster-pair kernel is only used for P1 or aperiodic systems without
+          alchemical or extended system terms; otherwise the atomic neighbor-list kernel is used.
+          """)
+  private final boolean vdwClusterPair;
+  /**
+   * Atoms sorted into spatial clusters, and the list of interacting cluster pairs.
+   */
+  private ClusterPairList clusterPairList;
+  /**
+   * True if the cluster-pair kernel is used for the current evaluation.
+   */
+  private boolean useClusterPairs;
+  /**
+   * True if the cluster pairs must be rebuilt for the current evaluation.
+   */
+  private boolean rebuildClusterPairs;
 
   private final NonbondedCutoff nonbondedCutoff;
   private final MultiplicativeSwitch multiplicativeSwitch;
@@ -268,6 +291,38 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
    * Force building of the neighbor list.
    */
   private boolean forceNeighborListRebuild = true;
+  /**
+   * If true, only interactions that involve a softcore atom are evaluated, and the energy of all
+   * other interactions is reused from the most recent full evaluation.
+   */
+  private boolean softcoreOnly = false;
+  /**
+   * If false, interactions between two hard (environment) atoms are not evaluated.
+   */
+  private boolean includeEnvironmentPairs = true;
+  /**
+   * If false, interactions that involve at least one softcore (topology specific) atom are not
+   * evaluated.
+   */
+  private boolean includeUniquePairs = true;
+  /**
+   * If not null, only interactions that involve at least one flagged atom are evaluated.
+   */
+  private boolean[] localAtoms = null;
+  /**
+   * If not null, only interactions between an atom flagged in pairAtomsA and an atom flagged in
+   * pairAtomsB are evaluated.
+   */
+  private boolean[] pairAtomsA = null;
+  private boolean[] pairAtomsB = null;
+  /**
+   * Energy of interactions between hard atoms from the most recent full evaluation.
+   */
+  private double hardEnergy = 0.0;
+  /**
+   * Number of interactions between hard atoms from the most recent full evaluation.
+   */
+  private int hardInteractions = 0;
 
   public VanDerWaals() {
     // Empty constructor for use with VanDerWaalsTornado
@@ -277,6 +332,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     pairwiseSchedule = null;
     sharedInteractions = null;
     sharedEnergy = null;
+    sharedHardInteractions = null;
+    sharedHardEnergy = null;
     shareddEdL = null;
     sharedd2EdL2 = null;
     vanDerWaalsRegion = null;
@@ -285,6 +342,7 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     multiplicativeSwitch = null;
     vdwIndex = null;
     vdwTaper = VanDerWaalsForm.DEFAULT_VDW_TAPER;
+    vdwClusterPair = false;
   }
 
   /**
@@ -355,6 +413,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     threadCount = parallelTeam.getThreadCount();
     sharedInteractions = new SharedInteger();
     sharedEnergy = new SharedDouble();
+    sharedHardInteractions = new SharedInteger();
+    sharedHardEnergy = new SharedDouble();
     doLongRangeCorrection = forceField.getBoolean("VDW_CORRECTION", false);
     vanDerWaalsRegion = new VanDerWaalsRegion();
 
@@ -385,12 +445,17 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         atoms, neighborListCutoff, buff, parallelTeam);
     pairwiseSchedule = neighborList.getPairwiseSchedule();
     neighborLists = new int[nSymm][][];
+    vdwClusterPair = forceField.getBoolean("VDW_CLUSTER_PAIR", false);
+    if (vdwClusterPair) {
+      clusterPairList = new ClusterPairList(VanDerWaalsClusterKernel.getClusterSize());
+    }
 
     // Reduce and expand the coordinates of the asymmetric unit. Then build the first neighbor-list.
     buildNeighborList(atoms);
 
     // Then, optionally, prevent that neighbor list from ever updating.
     neighborList.setDisableUpdates(forceField.getBoolean("DISABLE_NEIGHBOR_UPDATES", false));
+    neighborList.setIncremental(forceField.getBoolean("NEIGHBOR_LIST_INCREMENTAL", false));
 
     logger.info(toString());
   }
@@ -504,6 +569,80 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     return sharedEnergy.get();
   }
 
+  /**
+   * Evaluate only interactions that involve a softcore atom, and reuse the energy of all other
+   * interactions from the most recent full evaluation. This is only valid while the coordinates are
+   * unchanged, and is used to evaluate a single configuration at a series of lambda values. Softcore
+   * only evaluation is not supported with extended system variables.
+   *
+   * @param softcoreOnly If true, only interactions that involve a softcore atom are evaluated.
+   */
+  public void setSoftcoreOnly(boolean softcoreOnly) {
+    this.softcoreOnly = softcoreOnly && lambdaTerm && !esvTerm;
+  }
+
+  /**
+   * Select the interactions that are evaluated based on whether they involve a softcore atom. A
+   * dual topology uses this to evaluate interactions between hard environment atoms, which are
+   * identical for both topologies, only once. The long-range correction is included with the unique
+   * interactions.
+   *
+   * @param includeEnvironment If true, interactions between two hard atoms are evaluated.
+   * @param includeUnique      If true, interactions that involve a softcore atom are evaluated.
+   */
+  public void setEnvironmentPairs(boolean includeEnvironment, boolean includeUnique) {
+    this.includeEnvironmentPairs = includeEnvironment;
+    this.includeUniquePairs = includeUnique;
+  }
+
+  /**
+   * Restrict evaluation to interactions that involve at least one of the flagged atoms. A hydrogen
+   * whose van der Waals site is reduced toward a flagged heavy atom is also included, since its site
+   * moves with the heavy atom. The long-range correction is not included for a local evaluation.
+   *
+   * @param localAtoms Flags for the local atoms, or null to evaluate all interactions.
+   */
+  public void setLocalAtoms(boolean[] localAtoms) {
+    this.localAtoms = includeReducedHydrogens(localAtoms);
+  }
+
+  /**
+   * Restrict evaluation to interactions between an atom of the first set and an atom of the second
+   * set, such as the interaction energy of two side-chain rotamers. Hydrogens are assigned to the set
+   * of the heavy atom their van der Waals site is reduced toward. The long-range correction is not
+   * included for a pair evaluation.
+   *
+   * @param pairAtomsA Flags for the first set of atoms, or null to evaluate all interactions.
+   * @param pairAtomsB Flags for the second set of atoms.
+   */
+  public void setPairAtoms(boolean[] pairAtomsA, boolean[] pairAtomsB) {
+    if (pairAtomsA == null || pairAtomsB == null) {
+      this.pairAtomsA = null;
+      this.pairAtomsB = null;
+      return;
+    }
+    this.pairAtomsA = includeReducedHydrogens(pairAtomsA);
+    this.pairAtomsB = includeReducedHydrogens(pairAtomsB);
+  }
+
+  /**
+   * Extend a set of flagged atoms to hydrogens whose van der Waals site is reduced toward a flagged
+   * heavy atom.
+   *
+   * @param flags Flags for a set of atoms, or null.
+   * @return The extended flags, or null.
+   */
+  private boolean[] includeReducedHydrogens(boolean[] flags) {
+    if (flags == null) {
+      return null;
+    }
+    boolean[] extended = new boolean[nAtoms];
+    for (int i = 0; i < nAtoms; i++) {
+      extended[i] = flags[i] || flags[reductionIndex[i]];
+    }
+    return extended;
+  }
+
   /**
    * getAlpha.
    *
@@ -827,6 +966,11 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
       sb.append(format("    Softcore Alpha:                       %5.3f\n", vdwLambdaAlpha));
       sb.append(format("    Lambda Exponent:                      %5.3f\n", vdwLambdaExponent));
     }
+    if (vdwClusterPair) {
+      sb.append(format("   Cluster-Pair Kernel:                  %6s\n",
+          VanDerWaalsClusterKernel.isVectorized() ? "SIMD" : "SCALAR"));
+      sb.append(format("    Cluster Size:                        %6d\n", clusterPairList.clusterSize));
+    }
     return sb.toString();
   }
 
@@ -965,6 +1109,38 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     forceNeighborListRebuild = false;
   }
 
+  /**
+   * The cluster-pair kernel requires a single symmetry operator, all atoms to be active and no
+   * alchemical, extended system or neural network terms. Under periodic boundary conditions, the
+   * minimum image of each pair within the neighbor-list cutoff must be unique so that a fixed lattice
+   * translation can be used for each cluster pair between neighbor-list rebuilds.
+   *
+   * @return True if the cluster-pair kernel can be used for the current evaluation.
+   */
+  private boolean clusterPairsSupported() {
+    if (!vdwClusterPair || lambdaTerm || esvTerm || nSymm != 1) {
+      return false;
+    }
+    // The cluster kernels mask pairs without a local atom, but do not select pairs between two sets.
+    if (pairAtomsA != null) {
+      return false;
+    }
+    if (!crystal.aperiodic()) {
+      double listCutoff = neighborList.getCutoff() + nonbondedCutoff.buff;
+      double minRadius = min(crystal.interfacialRadiusA,
+          min(crystal.interfacialRadiusB, crystal.interfacialRadiusC));
+      if (minRadius <= listCutoff) {
+        return false;
+      }
+    }
+    for (int i = 0; i < nAtoms; i++) {
+      if (!use[i] || (neuralNetwork != null && neuralNetwork[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Computes the long range van der Waals correction to the energy via numerical integration
    *
@@ -1187,6 +1363,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     private final InitializationLoop[] initializationLoop;
     private final ExpandLoop[] expandLoop;
     private final VanDerWaalsLoop[] vanDerWaalsLoop;
+    private final ClusterPairBuildLoop[] clusterPairBuildLoop;
+    private final ClusterPairLoop[] clusterPairLoop;
     private final ReductionLoop[] reductionLoop;
     private final NeighborListBarrier neighborListAction;
 
@@ -1203,6 +1381,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
       initializationLoop = new InitializationLoop[threadCount];
       expandLoop = new ExpandLoop[threadCount];
       vanDerWaalsLoop = new VanDerWaalsLoop[threadCount];
+      clusterPairBuildLoop = new ClusterPairBuildLoop[threadCount];
+      clusterPairLoop = new ClusterPairLoop[threadCount];
       reductionLoop = new ReductionLoop[threadCount];
       neighborListAction = new NeighborListBarrier();
       initializationTime = new long[threadCount];
@@ -1213,6 +1393,11 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
     @Override
     public void finish() {
       forceNeighborListRebuild = false;
+      if (!softcoreOnly && includeEnvironmentPairs && includeUniquePairs && localAtoms == null
+          && pairAtomsA == null) {
+        hardEnergy = sharedHardEnergy.get();
+        hardInteractions = sharedHardInteractions.get();
+      }
       vdwTimeTotal += System.nanoTime();
       // Log timings.
       if (logger.isLoggable(Level.FINE)) {
@@ -1228,7 +1413,7 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         int countMin = Integer.MAX_VALUE;
         int countMax = 0;
         for (int i = 0; i < threadCount; i++) {
-          int count = vanDerWaalsLoop[i].getCount();
+          int count = useClusterPairs ? clusterPairLoop[i].getCount() : vanDerWaalsLoop[i].getCount();
           long totalTime = initializationTime[i] + energyTime[i] + reductionTime[i];
           logger.fine(format("    %3d   %7.4f %7.4f %7.4f %7.4f %10d",
               i, initializationTime[i] * 1e-9, energyTime[i] * 1e-9,
@@ -1270,6 +1455,10 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         vanDerWaalsLoop[threadIndex] = new VanDerWaalsLoop();
         reductionLoop[threadIndex] = new ReductionLoop();
       }
+      if (vdwClusterPair && clusterPairLoop[threadIndex] == null) {
+        clusterPairBuildLoop[threadIndex] = new ClusterPairBuildLoop();
+        clusterPairLoop[threadIndex] = new ClusterPairLoop();
+      }
 
       // Initialize and expand coordinates.
       try {
@@ -1300,7 +1489,15 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         if (threadIndex == 0) {
           vdWLoopTotalTime = -System.nanoTime();
         }
-        execute(0, nAtoms - 1, vanDerWaalsLoop[threadIndex]);
+        if (useClusterPairs) {
+          int nClusters = clusterPairList.getNumberOfClusters();
+          if (rebuildClusterPairs) {
+            execute(0, nClusters - 1, clusterPairBuildLoop[threadIndex]);
+          }
+          execute(0, nClusters - 1, clusterPairLoop[threadIndex]);
+        } else {
+          execute(0, nAtoms - 1, vanDerWaalsLoop[threadIndex]);
+        }
         if (threadIndex == 0) {
           vdWLoopTotalTime += System.nanoTime();
         }
@@ -1345,13 +1542,19 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
       vdwTimeTotal = -System.nanoTime();
 
       // Initialize the shared variables.
-      if (doLongRangeCorrection) {
+      if (doLongRangeCorrection && includeUniquePairs && localAtoms == null && pairAtomsA == null) {
         longRangeCorrection = computeLongRangeCorrection();
         sharedEnergy.set(longRangeCorrection);
       } else {
         sharedEnergy.set(0.0);
       }
       sharedInteractions.set(0);
+      sharedHardEnergy.set(0.0);
+      sharedHardInteractions.set(0);
+      if (softcoreOnly) {
+        sharedEnergy.addAndGet(hardEnergy);
+        sharedInteractions.set(hardInteractions);
+      }
       if (lambdaTerm) {
         shareddEdL.set(0.0);
         sharedd2EdL2.set(0.0);
@@ -1570,8 +1773,18 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
 
       private final double[] dx_local;
       private final double[][] transOp;
+      /**
+       * Separation vectors between atom i and its neighbors, imaged as a batch.
+       */
+      private double[] dxBatch = new double[0];
+      private double[] dyBatch = new double[0];
+      private double[] dzBatch = new double[0];
+      private double[] r2Batch = new double[0];
       private int count;
       private double energy;
+      private int hardCount;
+      private double hardEnergy;
+      private boolean selectPairs;
       private int threadID;
       private double dEdL;
       private double d2EdL2;
@@ -1590,6 +1803,8 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         // Reduce the energy, interaction count and gradients into the shared variables.
         sharedEnergy.addAndGet(energy);
         sharedInteractions.addAndGet(count);
+        sharedHardEnergy.addAndGet(hardEnergy);
+        sharedHardInteractions.addAndGet(hardCount);
         if (lambdaTerm) {
           shareddEdL.addAndGet(dEdL);
           sharedd2EdL2.addAndGet(d2EdL2);
@@ -1610,7 +1825,7 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         double[] esvVdwPrefactori = new double[3];
         double[] esvVdwPrefactork = new double[3];
         for (int i = lb; i <= ub; i++) {
-          if (!use[i]) {
+          if (!use[i] || skipAtom(i, list[i])) {
             continue;
           }
           // Flag to indicate if atom i is effected by an extended system variable.
@@ -1659,7 +1874,25 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
           }
           // Loop over the neighbor list.
           final int[] neighbors = list[i];
-          for (final int k : neighbors) {
+          final int nNeighbors = neighbors.length;
+          if (dxBatch.length < nNeighbors) {
+            int size = nNeighbors + nNeighbors / 4;
+            dxBatch = new double[size];
+            dyBatch = new double[size];
+            dzBatch = new double[size];
+            r2Batch = new double[size];
+          }
+          // Compute the separation vectors between atom i and its neighbors using reduced coordinates.
+          for (int j = 0; j < nNeighbors; j++) {
+            int k3 = neighbors[j] * 3;
+            dxBatch[j] = xi - xyzS[k3];
+            dyBatch[j] = yi - xyzS[k3 + 1];
+            dzBatch[j] = zi - xyzS[k3 + 2];
+          }
+          // Apply the minimum image convention (if periodic).
+          crystal.image(dxBatch, dyBatch, dzBatch, r2Batch, nNeighbors);
+          for (int j = 0; j < nNeighbors; j++) {
+            final int k = neighbors[j];
             // Check that atom k is in use.
             // Do not compute vdW interactions between asymmetric unit neural network atoms.
             if (!use[k] || (iNN && neuralNetwork[k])) {
@@ -1670,17 +1903,10 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
             if (esvTerm) {
               esvSystem.getVdwPrefactor(k, esvVdwPrefactork);
             }
-            int k3 = k * 3;
-            // Atomic coordinates of atom k, including application of reduction factors.
-            final double xk = xyzS[k3++];
-            final double yk = xyzS[k3++];
-            final double zk = xyzS[k3];
-            // Compute the separation vector between atom i and k.
-            dx_local[0] = xi - xk;
-            dx_local[1] = yi - yk;
-            dx_local[2] = zi - zk;
-            // Apply the minimum image convention (if periodic).
-            final double r2 = crystal.image(dx_local);
+            dx_local[0] = dxBatch[j];
+            dx_local[1] = dyBatch[j];
+            dx_local[2] = dzBatch[j];
+            final double r2 = r2Batch[j];
             int classK = atomClass[k];
             double irv = vdwForm.getCombinedInverseRmin(classI, classK);
             if (vdw14[k]) {
@@ -1702,6 +1928,9 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
                   soft = true;
                 }
               }
+              if (selectPairs && skipPair(i, k, soft)) {
+                continue;
+              }
               // Hide these global variable names for thread safety.
               final double sc1, dsc1dL, d2sc1dL2;
               final double sc2, dsc2dL, d2sc2dL2;
@@ -1769,6 +1998,10 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
               }
               e += eik * taper * esvik;
               count++;
+              if (!soft) {
+                hardEnergy += eik * taper * esvik;
+                hardCount++;
+              }
               if (!gradient && !soft) {
                 continue;
               }
@@ -1869,7 +2102,7 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
 
           for (int i = lb; i <= ub; i++) {
             int i3 = i * 3;
-            if (!use[i]) {
+            if (!use[i] || skipAtom(i, list[i])) {
               continue;
             }
             final boolean esvi = esvTerm && esvSystem.isTitratingHydrogen(i);
@@ -1927,6 +2160,9 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
                 final double selfScale = (i == k) ? 0.5 : 1.0;
                 final double r = sqrt(r2);
                 boolean soft = isSoft[i] || softCorei[k];
+                if (selectPairs && skipPair(i, k, soft)) {
+                  continue;
+                }
                 if (soft) {
                   sc1 = lambdaFactorsLocal.sc1;
                   dsc1dL = lambdaFactorsLocal.dsc1dL;
@@ -1977,6 +2213,10 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
                 }
                 e += selfScale * eik * taper * esvik;
                 count++;
+                if (!soft) {
+                  hardEnergy += selfScale * eik * taper * esvik;
+                  hardCount++;
+                }
                 if (!gradient && !soft) {
                   continue;
                 }
@@ -2087,12 +2327,85 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
         return pairwiseSchedule;
       }
 
+      /**
+       * Check if all interactions of atom i are excluded by the softcore only, environment pair,
+       * local atom or atom pair selections.
+       *
+       * @param i         The atom index.
+       * @param neighbors The neighbors of atom i.
+       * @return true if atom i can be skipped.
+       */
+      private boolean skipAtom(int i, int[] neighbors) {
+        if (!selectPairs) {
+          return false;
+        }
+        if (pairAtomsA != null && !pairAtomsA[i] && !pairAtomsB[i]) {
+          return true;
+        }
+        if (localAtoms != null && !localAtoms[i]) {
+          boolean localNeighbor = false;
+          for (int k : neighbors) {
+            if (localAtoms[k]) {
+              localNeighbor = true;
+              break;
+            }
+          }
+          if (!localNeighbor) {
+            return true;
+          }
+        }
+        if (isSoft[i]) {
+          return !includeUniquePairs;
+        }
+        if (includeEnvironmentPairs && !softcoreOnly) {
+          return false;
+        }
+        // Only interactions with softcore neighbors remain.
+        if (!includeUniquePairs) {
+          return true;
+        }
+        boolean[] softCorei = softCore[HARD];
+        for (int k : neighbors) {
+          if (softCorei[k]) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      /**
+       * Check if the interaction between atoms i and k is excluded by the softcore only,
+       * environment pair, local atom or atom pair selections.
+       *
+       * @param i    The first atom index.
+       * @param k    The second atom index.
+       * @param soft True if the interaction is softcore.
+       * @return true if the interaction is skipped.
+       */
+      private boolean skipPair(int i, int k, boolean soft) {
+        if (localAtoms != null && !localAtoms[i] && !localAtoms[k]) {
+          return true;
+        }
+        if (pairAtomsA != null
+            && !(pairAtomsA[i] && pairAtomsB[k]) && !(pairAtomsB[i] && pairAtomsA[k])) {
+          return true;
+        }
+        if (!isSoft[i] && !isSoft[k]) {
+          return !includeEnvironmentPairs || softcoreOnly;
+        }
+        return !includeUniquePairs || (softcoreOnly && !soft);
+      }
+
       @Override
       public void start() {
         threadID = getThreadIndex();
         energyTime[threadID] = -System.nanoTime();
+        selectPairs = softcoreOnly || !includeEnvironmentPairs || !includeUniquePairs
+            || localAtoms != null || pairAtomsA != null;
         energy = 0.0;
         count = 0;
+        hardEnergy = 0.0;
+        hardCount = 0;
         if (lambdaTerm) {
           dEdL = 0.0;
           d2EdL2 = 0.0;
@@ -2146,6 +2459,69 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
 
     }
 
+    /**
+     * Build the cluster pairs from the atomic neighbor lists.
+     */
+    private class ClusterPairBuildLoop extends IntegerForLoop {
+
+      private final ClusterPairList.PairBuilder pairBuilder = new ClusterPairList.PairBuilder();
+
+      @Override
+      public void run(int lb, int ub) {
+        clusterPairList.buildPairs(lb, ub, crystal, neighborLists[0], reducedXYZ, atomClass,
+            VanDerWaals.this, vdwForm, pairBuilder);
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.dynamic(10);
+      }
+    }
+
+    /**
+     * Evaluate the Van der Waals energy and gradient using the cluster-pair kernel.
+     */
+    private class ClusterPairLoop extends IntegerForLoop {
+
+      private VanDerWaalsClusterKernel kernel;
+      private int threadID;
+
+      public int getCount() {
+        return kernel == null ? 0 : kernel.getCount();
+      }
+
+      @Override
+      public void start() {
+        threadID = getThreadIndex();
+        energyTime[threadID] = -System.nanoTime();
+        if (kernel == null) {
+          kernel = VanDerWaalsClusterKernel.create(clusterPairList, vdwForm, nonbondedCutoff,
+              multiplicativeSwitch);
+        }
+        kernel.start(gradient, localAtoms);
+      }
+
+      @Override
+      public void run(int lb, int ub) {
+        kernel.evaluate(lb, ub, gradient);
+      }
+
+      @Override
+      public void finish() {
+        sharedEnergy.addAndGet(kernel.getEnergy());
+        sharedInteractions.addAndGet(kernel.getCount());
+        if (gradient) {
+          kernel.reduce(threadID, grad, reductionIndex, reductionValue);
+        }
+        energyTime[threadID] += System.nanoTime();
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.dynamic(10);
+      }
+    }
+
     /**
      * Build the NeighborList.
      */
@@ -2155,6 +2531,16 @@ public class VanDerWaals implements MaskingInterface, LambdaInterface {
       public void run() throws Exception {
         neighborListTotalTime = -System.nanoTime();
         neighborList.buildList(reduced, neighborLists, null, forceNeighborListRebuild, false);
+        useClusterPairs = !forceNeighborListRebuild && clusterPairsSupported();
+        rebuildClusterPairs = false;
+        if (useClusterPairs) {
+          if (clusterPairList.isStale(neighborList)) {
+            clusterPairList.assignClusters(neighborList, crystal, reducedXYZ, atomClass, nAtoms);
+            rebuildClusterPairs = true;
+          } else {
+            clusterPairList.updateCoordinates(reducedXYZ, atomClass);
+          }
+        }
         neighborListTotalTime += System.nanoTime();
       }
     }
@@ -0,0 +1,583 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.numerics.atomic.AtomicDoubleArray3D;
+import ffx.numerics.switching.MultiplicativeSwitch;
+
+import java.lang.reflect.Constructor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Arrays.fill;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+/**
+ * The VanDerWaalsClusterKernel evaluates van der Waals interactions over the cluster pairs of a
+ * {@link ClusterPairList}. This class is the scalar implementation, which loops over the atom pairs
+ * of each cluster pair; {@link #create} returns a SIMD implementation based on the Java Vector API
+ * when the <code>jdk.incubator.vector</code> module is available.
+ * <p>
+ * The SIMD implementation is only compiled by the <code>ffx.vector</code> Maven profile, because
+ * every compilation against an incubator module emits a warning; it is therefore loaded by name.
+ * <p>
+ * Each instance holds thread local energy and gradient accumulators. Softcore (lambda) and extended
+ * system interactions are not supported. A local evaluation masks every atom pair that does not
+ * include a local atom.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class VanDerWaalsClusterKernel {
+
+  private static final Logger logger = Logger.getLogger(VanDerWaalsClusterKernel.class.getName());
+
+  /**
+   * Constructor of the SIMD kernel, or null if the jdk.incubator.vector module is not present in
+   * the boot layer or the SIMD kernel was not compiled.
+   */
+  private static final Constructor<? extends VanDerWaalsClusterKernel> SIMD_CONSTRUCTOR;
+  /**
+   * The number of double precision SIMD lanes.
+   */
+  private static final int SIMD_LANES;
+  /**
+   * True if the SIMD kernel is available.
+   */
+  private static final boolean VECTOR_API;
+
+  static {
+    Constructor<? extends VanDerWaalsClusterKernel> constructor = null;
+    int lanes = 0;
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      try {
+        Class<? extends VanDerWaalsClusterKernel> simd = Class.forName(
+            "ffx.potential.nonbonded.VanDerWaalsClusterKernelSIMD")
+            .asSubclass(VanDerWaalsClusterKernel.class);
+        constructor = simd.getDeclaredConstructor(ClusterPairList.class, VanDerWaalsForm.class,
+            NonbondedCutoff.class, MultiplicativeSwitch.class);
+        lanes = (Integer) simd.getDeclaredMethod("getLanes").invoke(null);
+      } catch (ClassNotFoundException e) {
+        logger.fine(" The SIMD van der Waals cluster kernel was not compiled.");
+        constructor = null;
+      } catch (ReflectiveOperationException | LinkageError e) {
+        logger.log(Level.FINE, " The SIMD van der Waals cluster kernel is not available.", e);
+        constructor = null;
+      }
+    }
+    SIMD_CONSTRUCTOR = constructor;
+    SIMD_LANES = lanes;
+    VECTOR_API = constructor != null;
+  }
+  /**
+   * The cluster size used by the scalar kernel.
+   */
+  private static final int SCALAR_CLUSTER_SIZE = 4;
+
+  /**
+   * The cluster pair list.
+   */
+  protected final ClusterPairList list;
+  /**
+   * The number of atoms per cluster.
+   */
+  protected final int clusterSize;
+  /**
+   * The number of vdW classes (maxClass + 1).
+   */
+  protected final int nClasses;
+  /**
+   * Combined inverse Rmin for each pair of classes [nClasses * nClasses].
+   */
+  protected final double[] irvTable;
+  /**
+   * Combined epsilon for each pair of classes [nClasses * nClasses].
+   */
+  protected final double[] epsTable;
+  /**
+   * The square of the cutoff.
+   */
+  protected final double off2;
+  /**
+   * The square of the distance where the multiplicative switch begins.
+   */
+  protected final double cut2;
+  /**
+   * Coefficients of the multiplicative switch polynomial.
+   */
+  protected final double c0, c1, c2, c3, c4, c5;
+  /**
+   * Buffered 14-7 or Lennard-Jones constants.
+   */
+  protected final double gamma, delta, t1n, gamma1;
+  /**
+   * The dispersive power (7 for Buffered 14-7 and 6 for Lennard-Jones).
+   */
+  protected final int dispersivePower;
+  /**
+   * The repulsive minus the dispersive power.
+   */
+  protected final int repDispPower;
+  /**
+   * Site gradient accumulated by cluster slot.
+   */
+  protected double[] gx, gy, gz;
+  /**
+   * The energy accumulated by this kernel.
+   */
+  protected double energy;
+  /**
+   * The number of interactions accumulated by this kernel.
+   */
+  protected int count;
+  /**
+   * Flags for the local atoms, or null to evaluate all interactions.
+   */
+  protected boolean[] localAtoms;
+  /**
+   * The local atoms of each cluster as a bit mask over its slots.
+   */
+  protected long[] localClusterBits;
+  /**
+   * The derivative of the energy with respect to r, divided by r, from the last call to pair.
+   */
+  private double dEdROverR;
+
+  /**
+   * Constructor for the VanDerWaalsClusterKernel class.
+   *
+   * @param list                 The cluster pair list.
+   * @param vdwForm              The van der Waals functional form.
+   * @param nonbondedCutoff      The cutoff.
+   * @param multiplicativeSwitch The multiplicative switch.
+   */
+  protected VanDerWaalsClusterKernel(ClusterPairList list, VanDerWaalsForm vdwForm,
+      NonbondedCutoff nonbondedCutoff, MultiplicativeSwitch multiplicativeSwitch) {
+    this.list = list;
+    clusterSize = list.clusterSize;
+    nClasses = vdwForm.maxClass + 1;
+    irvTable = new double[nClasses * nClasses];
+    epsTable = new double[nClasses * nClasses];
+    for (int i = 0; i < nClasses; i++) {
+      for (int k = 0; k < nClasses; k++) {
+        irvTable[i * nClasses + k] = vdwForm.getCombinedInverseRmin(i, k);
+        epsTable[i * nClasses + k] = vdwForm.getCombinedEps(i, k);
+      }
+    }
+    off2 = nonbondedCutoff.off2;
+    cut2 = nonbondedCutoff.cut2;
+    // Recover the polynomial coefficients from the derivatives of the switch at zero.
+    c0 = multiplicativeSwitch.taper(0.0);
+    c1 = multiplicativeSwitch.dtaper(0.0);
+    c2 = multiplicativeSwitch.secondDerivative(0.0) / 2.0;
+    c3 = multiplicativeSwitch.nthDerivative(0.0, 3) / 6.0;
+    c4 = multiplicativeSwitch.nthDerivative(0.0, 4) / 24.0;
+    c5 = multiplicativeSwitch.nthDerivative(0.0, 5) / 120.0;
+    gamma = vdwForm.gamma;
+    delta = vdwForm.delta;
+    t1n = vdwForm.t1n;
+    gamma1 = vdwForm.gamma1;
+    dispersivePower = vdwForm.dispersivePower;
+    repDispPower = vdwForm.repDispPower;
+  }
+
+  /**
+   * Create a kernel, using the Java Vector API if it is available.
+   *
+   * @param list                 The cluster pair list.
+   * @param vdwForm              The van der Waals functional form.
+   * @param nonbondedCutoff      The cutoff.
+   * @param multiplicativeSwitch The multiplicative switch.
+   * @return A VanDerWaalsClusterKernel.
+   */
+  public static VanDerWaalsClusterKernel create(ClusterPairList list, VanDerWaalsForm vdwForm,
+      NonbondedCutoff nonbondedCutoff, MultiplicativeSwitch multiplicativeSwitch) {
+    if (VECTOR_API && list.clusterSize == SIMD_LANES) {
+      try {
+        return SIMD_CONSTRUCTOR.newInstance(list, vdwForm, nonbondedCutoff, multiplicativeSwitch);
+      } catch (ReflectiveOperationException e) {
+        logger.log(Level.WARNING, " Falling back to the scalar van der Waals cluster kernel.", e);
+      }
+    }
+    return new VanDerWaalsClusterKernel(list, vdwForm, nonbondedCutoff, multiplicativeSwitch);
+  }
+
+  /**
+   * The cluster size to use with the kernels returned by {@link #create}. When the Java Vector API
+   * is available, the cluster size is the number of double precision vector lanes.
+   *
+   * @return The cluster size.
+   */
+  public static int getClusterSize() {
+    if (VECTOR_API) {
+      return SIMD_LANES;
+    }
+    return SCALAR_CLUSTER_SIZE;
+  }
+
+  /**
+   * Returns true if the kernels returned by {@link #create} use the Java Vector API.
+   *
+   * @return True for SIMD kernels.
+   */
+  public static boolean isVectorized() {
+    return VECTOR_API;
+  }
+
+  /**
+   * Initialize the thread local accumulators.
+   *
+   * @param gradient   If true, the gradient will be computed.
+   * @param localAtoms Flags for the local atoms, or null to evaluate all interactions.
+   */
+  public void start(boolean gradient, boolean[] localAtoms) {
+    energy = 0.0;
+    count = 0;
+    this.localAtoms = localAtoms;
+    if (localAtoms != null) {
+      int nClusters = list.getNumberOfClusters();
+      if (localClusterBits == null || localClusterBits.length < nClusters) {
+        localClusterBits = new long[nClusters];
+      }
+      int[] slotAtom = list.slotAtom;
+      for (int c = 0; c < nClusters; c++) {
+        int offset = c * clusterSize;
+        long bits = 0L;
+        for (int q = 0; q < clusterSize; q++) {
+          int i = slotAtom[offset + q];
+          if (i >= 0 && localAtoms[i]) {
+            bits |= 1L << q;
+          }
+        }
+        localClusterBits[c] = bits;
+      }
+    }
+    if (gradient) {
+      int nSlots = list.nSlots;
+      if (gx == null || gx.length < nSlots) {
+        gx = new double[nSlots];
+        gy = new double[nSlots];
+        gz = new double[nSlots];
+      } else {
+        fill(gx, 0, nSlots, 0.0);
+        fill(gy, 0, nSlots, 0.0);
+        fill(gz, 0, nSlots, 0.0);
+      }
+    }
+  }
+
+  /**
+   * Evaluate the interactions of a range of i-clusters.
+   *
+   * @param lb       The first i-cluster.
+   * @param ub       The last i-cluster.
+   * @param gradient If true, the gradient will be computed.
+   */
+  public void evaluate(int lb, int ub, boolean gradient) {
+    for (int ci = lb; ci <= ub; ci++) {
+      evaluateClusterPairs(ci, gradient);
+      evaluateScaledPairs(ci, gradient);
+    }
+  }
+
+  /**
+   * Add the site gradient accumulated by this kernel to the atomic gradient, distributing the
+   * gradient of reduced hydrogen sites onto the hydrogen and its heavy atom.
+   *
+   * @param threadID       The thread index.
+   * @param grad           The atomic gradient.
+   * @param reductionIndex The heavy atom index of each atom.
+   * @param reductionValue The reduction factor of each atom.
+   */
+  public void reduce(int threadID, AtomicDoubleArray3D grad, int[] reductionIndex,
+      double[] reductionValue) {
+    int[] slotAtom = list.slotAtom;
+    for (int slot = 0; slot < list.nSlots; slot++) {
+      int i = slotAtom[slot];
+      if (i < 0) {
+        continue;
+      }
+      double x = gx[slot];
+      double y = gy[slot];
+      double z = gz[slot];
+      if (x == 0.0 && y == 0.0 && z == 0.0) {
+        continue;
+      }
+      int redi = reductionIndex[i];
+      if (redi == i) {
+        grad.add(threadID, i, x, y, z);
+      } else {
+        double redv = reductionValue[i];
+        double rediv = 1.0 - redv;
+        grad.add(threadID, i, x * redv, y * redv, z * redv);
+        grad.add(threadID, redi, x * rediv, y * rediv, z * rediv);
+      }
+    }
+  }
+
+  /**
+   * Get the energy accumulated by this kernel.
+   *
+   * @return The energy.
+   */
+  public double getEnergy() {
+    return energy;
+  }
+
+  /**
+   * Get the number of interactions accumulated by this kernel.
+   *
+   * @return The number of interactions.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Evaluate the full strength interactions of an i-cluster with its j-clusters.
+   *
+   * @param ci       The i-cluster.
+   * @param gradient If true, the gradient will be computed.
+   */
+  protected void evaluateClusterPairs(int ci, boolean gradient) {
+    final double[] x = list.x;
+    final double[] y = list.y;
+    final double[] z = list.z;
+    final int[] slotClass = list.slotClass;
+    final int[] clusters = list.pairCluster[ci];
+    final long[] masks = list.pairMask[ci];
+    final double[] shifts = list.pairShift[ci];
+    final int n = list.pairCount[ci];
+    final int iOffset = ci * clusterSize;
+    double e = 0.0;
+    for (int pair = 0; pair < n; pair++) {
+      final long bits = localMask(ci, clusters[pair], masks[pair]);
+      if (bits == 0L) {
+        continue;
+      }
+      final int jOffset = clusters[pair] * clusterSize;
+      final double sx = shifts[3 * pair];
+      final double sy = shifts[3 * pair + 1];
+      final double sz = shifts[3 * pair + 2];
+      for (int p = 0; p < clusterSize; p++) {
+        final int iSlot = iOffset + p;
+        final double xi = x[iSlot];
+        final double yi = y[iSlot];
+        final double zi = z[iSlot];
+        final int classOffset = slotClass[iSlot] * nClasses;
+        double gxi = 0.0;
+        double gyi = 0.0;
+        double gzi = 0.0;
+        for (int q = 0; q < clusterSize; q++) {
+          if ((bits & (1L << (p * clusterSize + q))) == 0L) {
+            continue;
+          }
+          final int kSlot = jOffset + q;
+          final double dx = xi - x[kSlot] - sx;
+          final double dy = yi - y[kSlot] - sy;
+          final double dz = zi - z[kSlot] - sz;
+          final double r2 = dx * dx + dy * dy + dz * dz;
+          final int classIndex = classOffset + slotClass[kSlot];
+          final double irv = irvTable[classIndex];
+          if (r2 > off2 || irv <= 0.0) {
+            continue;
+          }
+          e += pair(r2, irv, epsTable[classIndex], 1.0, gradient);
+          count++;
+          if (gradient) {
+            final double de = dEdROverR;
+            final double gxk = de * dx;
+            final double gyk = de * dy;
+            final double gzk = de * dz;
+            gxi += gxk;
+            gyi += gyk;
+            gzi += gzk;
+            gx[kSlot] -= gxk;
+            gy[kSlot] -= gyk;
+            gz[kSlot] -= gzk;
+          }
+        }
+        if (gradient) {
+          gx[iSlot] += gxi;
+          gy[iSlot] += gyi;
+          gz[iSlot] += gzi;
+        }
+      }
+    }
+    energy += e;
+  }
+
+  /**
+   * Evaluate the scaled interactions (e.g. 1-4 interactions) of the atoms in an i-cluster.
+   *
+   * @param ci       The i-cluster.
+   * @param gradient If true, the gradient will be computed.
+   */
+  protected void evaluateScaledPairs(int ci, boolean gradient) {
+    final int n = list.scaledCount[ci];
+    if (n == 0) {
+      return;
+    }
+    final double[] x = list.x;
+    final double[] y = list.y;
+    final double[] z = list.z;
+    final int[] atomSlot = list.atomSlot;
+    final int[] atoms = list.scaledAtoms[ci];
+    final double[] parameters = list.scaledParameters[ci];
+    double e = 0.0;
+    for (int pair = 0; pair < n; pair++) {
+      final int i = atoms[2 * pair];
+      final int k = atoms[2 * pair + 1];
+      if (localAtoms != null && !localAtoms[i] && !localAtoms[k]) {
+        continue;
+      }
+      final int iSlot = atomSlot[i];
+      final int kSlot = atomSlot[k];
+      final int p6 = 6 * pair;
+      final double dx = x[iSlot] - x[kSlot] - parameters[p6];
+      final double dy = y[iSlot] - y[kSlot] - parameters[p6 + 1];
+      final double dz = z[iSlot] - z[kSlot] - parameters[p6 + 2];
+      final double r2 = dx * dx + dy * dy + dz * dz;
+      final double scale = parameters[p6 + 3];
+      final double irv = parameters[p6 + 4];
+      if (r2 > off2 || irv <= 0.0) {
+        continue;
+      }
+      e += pair(r2, irv, parameters[p6 + 5], scale, gradient);
+      count++;
+      if (gradient) {
+        final double de = dEdROverR;
+        final double gxk = de * dx;
+        final double gyk = de * dy;
+        final double gzk = de * dz;
+        gx[iSlot] += gxk;
+        gy[iSlot] += gyk;
+        gz[iSlot] += gzk;
+        gx[kSlot] -= gxk;
+        gy[kSlot] -= gyk;
+        gz[kSlot] -= gzk;
+      }
+    }
+    energy += e;
+  }
+
+  /**
+   * Remove the atom pairs of a cluster pair that do not include a local atom from its interaction
+   * mask.
+   *
+   * @param ci   The i-cluster.
+   * @param cj   The j-cluster.
+   * @param bits The interaction mask of the cluster pair.
+   * @return The interaction mask restricted to pairs with a local atom.
+   */
+  protected final long localMask(int ci, int cj, long bits) {
+    if (localAtoms == null) {
+      return bits;
+    }
+    final long iLocal = localClusterBits[ci];
+    final long jLocal = localClusterBits[cj];
+    if (iLocal == 0L && jLocal == 0L) {
+      return 0L;
+    }
+    final long rowBits = (1L << clusterSize) - 1L;
+    long mask = 0L;
+    for (int p = 0; p < clusterSize; p++) {
+      // A local i-atom interacts with the entire j-cluster; otherwise only with local j-atoms.
+      final long row = ((iLocal >>> p) & 1L) != 0L ? rowBits : jLocal;
+      mask |= row << (p * clusterSize);
+    }
+    return bits & mask;
+  }
+
+  /**
+   * Compute the energy of an atom pair. If the gradient is requested, the derivative of the energy
+   * with respect to r (divided by r) is stored in dEdROverR.
+   *
+   * @param r2       The squared separation distance.
+   * @param irv      The combined inverse Rmin.
+   * @param eps      The combined epsilon.
+   * @param scale    The mask scale factor.
+   * @param gradient If true, the derivative is computed.
+   * @return The energy.
+   */
+  private double pair(double r2, double irv, double eps, double scale, boolean gradient) {
+    final double ev = scale * eps;
+    final double r = sqrt(r2);
+    final double rho = r * irv;
+    final double rhoDisp1 = power(rho, dispersivePower - 1);
+    final double rhoDisp = rhoDisp1 * rho;
+    final double rhoDelta1 = power(rho + delta, dispersivePower - 1);
+    final double rhoDelta = rhoDelta1 * (rho + delta);
+    final double t1d = 1.0 / rhoDelta;
+    final double t2d = 1.0 / (rhoDisp + gamma);
+    final double t1 = t1n * t1d;
+    final double t2a = gamma1 * t2d;
+    final double t2 = t2a - 2.0;
+    final double eik = ev * t1 * t2;
+    double taper = 1.0;
+    double dtaper = 0.0;
+    if (r2 > cut2) {
+      taper = c0 + r * (c1 + r * (c2 + r * (c3 + r * (c4 + r * c5))));
+      dtaper = c1 + r * (2.0 * c2 + r * (3.0 * c3 + r * (4.0 * c4 + r * 5.0 * c5)));
+    }
+    if (gradient) {
+      final double dt1d_dr = repDispPower * rhoDelta1 * irv;
+      final double dt2d_dr = dispersivePower * rhoDisp1 * irv;
+      final double dt1_dr = t1 * dt1d_dr * t1d;
+      final double dt2_dr = t2a * dt2d_dr * t2d;
+      final double dedr = -ev * (dt1_dr * t2 + t1 * dt2_dr);
+      dEdROverR = (eik * dtaper + dedr * taper) / r;
+    }
+    return eik * taper;
+  }
+
+  /**
+   * Compute an integer power by repeated multiplication.
+   *
+   * @param x The base.
+   * @param n The exponent (at least 1).
+   * @return x^n
+   */
+  private static double power(double x, int n) {
+    double value = x;
+    for (int i = 1; i < n; i++) {
+      value *= x;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,206 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.numerics.switching.MultiplicativeSwitch;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.ADD;
+import static jdk.incubator.vector.VectorOperators.GT;
+import static jdk.incubator.vector.VectorOperators.LE;
+
+/**
+ * SIMD implementation of the {@link VanDerWaalsClusterKernel} using the Java Vector API. Each lane
+ * of a vector holds one atom of the j-cluster, so that each atom of the i-cluster is evaluated
+ * against the entire j-cluster at once. Lanes that are masked, beyond the cutoff or have a zero
+ * inverse Rmin are removed with vector masks.
+ * <p>
+ * This class must only be loaded when the <code>jdk.incubator.vector</code> module is present.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+final class VanDerWaalsClusterKernelSIMD extends VanDerWaalsClusterKernel {
+
+  /**
+   * The preferred species, limited to 8 lanes so that the interaction masks of a cluster pair fit
+   * into a long.
+   */
+  private static final VectorSpecies<Double> SPECIES =
+      DoubleVector.SPECIES_PREFERRED.length() <= 8 ? DoubleVector.SPECIES_PREFERRED
+          : DoubleVector.SPECIES_512;
+  private static final DoubleVector ZERO = DoubleVector.zero(SPECIES);
+  private static final DoubleVector ONE = DoubleVector.broadcast(SPECIES, 1.0);
+
+  /**
+   * Constructor for the VanDerWaalsClusterKernelSIMD class.
+   *
+   * @param list                 The cluster pair list.
+   * @param vdwForm              The van der Waals functional form.
+   * @param nonbondedCutoff      The cutoff.
+   * @param multiplicativeSwitch The multiplicative switch.
+   */
+  VanDerWaalsClusterKernelSIMD(ClusterPairList list, VanDerWaalsForm vdwForm,
+      NonbondedCutoff nonbondedCutoff, MultiplicativeSwitch multiplicativeSwitch) {
+    super(list, vdwForm, nonbondedCutoff, multiplicativeSwitch);
+  }
+
+  /**
+   * The number of double precision lanes.
+   *
+   * @return The number of lanes.
+   */
+  static int getLanes() {
+    return SPECIES.length();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void evaluateClusterPairs(int ci, boolean gradient) {
+    final double[] x = list.x;
+    final double[] y = list.y;
+    final double[] z = list.z;
+    final int[] slotClass = list.slotClass;
+    final int[] clusters = list.pairCluster[ci];
+    final long[] masks = list.pairMask[ci];
+    final double[] shifts = list.pairShift[ci];
+    final int n = list.pairCount[ci];
+    final int iOffset = ci * clusterSize;
+    final long rowBits = (1L << clusterSize) - 1L;
+    DoubleVector e = ZERO;
+    for (int pair = 0; pair < n; pair++) {
+      final long bits = localMask(ci, clusters[pair], masks[pair]);
+      if (bits == 0L) {
+        continue;
+      }
+      final int jOffset = clusters[pair] * clusterSize;
+      final DoubleVector xk = DoubleVector.fromArray(SPECIES, x, jOffset).add(shifts[3 * pair]);
+      final DoubleVector yk = DoubleVector.fromArray(SPECIES, y, jOffset).add(shifts[3 * pair + 1]);
+      final DoubleVector zk = DoubleVector.fromArray(SPECIES, z, jOffset).add(shifts[3 * pair + 2]);
+      DoubleVector gxk = ZERO;
+      DoubleVector gyk = ZERO;
+      DoubleVector gzk = ZERO;
+      for (int p = 0; p < clusterSize; p++) {
+        final long row = (bits >>> (p * clusterSize)) & rowBits;
+        if (row == 0L) {
+          continue;
+        }
+        final int iSlot = iOffset + p;
+        final DoubleVector dx = xk.neg().add(x[iSlot]);
+        final DoubleVector dy = yk.neg().add(y[iSlot]);
+        final DoubleVector dz = zk.neg().add(z[iSlot]);
+        final DoubleVector r2 = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+        final int classOffset = slotClass[iSlot] * nClasses;
+        final DoubleVector irv =
+            DoubleVector.fromArray(SPECIES, irvTable, classOffset, slotClass, jOffset);
+        final VectorMask<Double> m = VectorMask.fromLong(SPECIES, row)
+            .and(r2.compare(LE, off2)).and(irv.compare(GT, 0.0));
+        if (!m.anyTrue()) {
+          continue;
+        }
+        final DoubleVector ev =
+            DoubleVector.fromArray(SPECIES, epsTable, classOffset, slotClass, jOffset);
+        final DoubleVector r = r2.sqrt();
+        final DoubleVector rho = r.mul(irv);
+        final DoubleVector rhoDisp1 = power(rho, dispersivePower - 1);
+        final DoubleVector rhoDisp = rhoDisp1.mul(rho);
+        final DoubleVector rhoDelta0 = rho.add(delta);
+        final DoubleVector rhoDelta1 = power(rhoDelta0, dispersivePower - 1);
+        final DoubleVector rhoDelta = rhoDelta1.mul(rhoDelta0);
+        final DoubleVector t1d = ONE.div(rhoDelta);
+        final DoubleVector t2d = ONE.div(rhoDisp.add(gamma));
+        final DoubleVector t1 = t1d.mul(t1n);
+        final DoubleVector t2a = t2d.mul(gamma1);
+        final DoubleVector t2 = t2a.sub(2.0);
+        final DoubleVector eik = ev.mul(t1).mul(t2);
+        // Apply the multiplicative switch to lanes beyond the beginning of the taper.
+        DoubleVector taper = ONE;
+        DoubleVector dtaper = ZERO;
+        final VectorMask<Double> switched = r2.compare(GT, cut2).and(m);
+        if (switched.anyTrue()) {
+          taper = ONE.blend(r.mul(c5).add(c4).mul(r).add(c3).mul(r).add(c2).mul(r).add(c1)
+              .mul(r).add(c0), switched);
+          dtaper = ZERO.blend(r.mul(5.0 * c5).add(4.0 * c4).mul(r).add(3.0 * c3).mul(r)
+              .add(2.0 * c2).mul(r).add(c1), switched);
+        }
+        e = e.add(eik.mul(taper), m);
+        count += m.trueCount();
+        if (gradient) {
+          final DoubleVector dt1_dr = t1.mul(rhoDelta1).mul(irv).mul(t1d).mul(repDispPower);
+          final DoubleVector dt2_dr = t2a.mul(rhoDisp1).mul(irv).mul(t2d).mul(dispersivePower);
+          final DoubleVector dedr = ev.neg().mul(dt1_dr.mul(t2).add(t1.mul(dt2_dr)));
+          final DoubleVector de = ZERO.blend(eik.mul(dtaper).add(dedr.mul(taper)).div(r), m);
+          final DoubleVector gxi = de.mul(dx);
+          final DoubleVector gyi = de.mul(dy);
+          final DoubleVector gzi = de.mul(dz);
+          gx[iSlot] += gxi.reduceLanes(ADD);
+          gy[iSlot] += gyi.reduceLanes(ADD);
+          gz[iSlot] += gzi.reduceLanes(ADD);
+          gxk = gxk.sub(gxi);
+          gyk = gyk.sub(gyi);
+          gzk = gzk.sub(gzi);
+        }
+      }
+      if (gradient) {
+        DoubleVector.fromArray(SPECIES, gx, jOffset).add(gxk).intoArray(gx, jOffset);
+        DoubleVector.fromArray(SPECIES, gy, jOffset).add(gyk).intoArray(gy, jOffset);
+        DoubleVector.fromArray(SPECIES, gz, jOffset).add(gzk).intoArray(gz, jOffset);
+      }
+    }
+    energy += e.reduceLanes(ADD);
+  }
+
+  /**
+   * Compute an integer power by repeated multiplication.
+   *
+   * @param x The base.
+   * @param n The exponent (at least 1).
+   * @return x^n
+   */
+  private static DoubleVector power(DoubleVector x, int n) {
+    DoubleVector value = x;
+    for (int i = 1; i < n; i++) {
+      value = value.mul(x);
+    }
+    return value;
+  }
+}
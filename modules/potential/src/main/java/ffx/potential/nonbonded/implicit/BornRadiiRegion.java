@@ -44,18 +44,23 @@ import edu.rit.pj.reduction.SharedDoubleArray;
 import ffx.crystal.Crystal;
 import ffx.potential.bonded.Atom;
 import ffx.potential.parameters.ForceField;
+import ffx.utilities.FFXProperty;
 import org.apache.commons.configuration2.CompositeConfiguration;
 
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static ffx.potential.nonbonded.implicit.BornTanhRescaling.MAX_BORN_RADIUS;
 import static ffx.potential.nonbonded.implicit.BornTanhRescaling.tanhRescaling;
 import static ffx.potential.nonbonded.implicit.NeckIntegral.getNeckConstants;
+import static ffx.utilities.PropertyGroup.ImplicitSolvent;
 import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
+import static java.lang.Math.abs;
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
 import static java.util.Arrays.fill;
 import static org.apache.commons.math3.util.FastMath.PI;
 import static org.apache.commons.math3.util.FastMath.max;
@@ -75,6 +80,10 @@ public class BornRadiiRegion extends ParallelRegion {
   private static final double PI4_3 = 4.0 / 3.0 * PI;
   private static final double INVERSE_PI4_3 = 1.0 / PI4_3;
   private static final double PI_12 = PI / 12.0;
+  /** Maximum number of incremental updates before the descreening integrals are recomputed. */
+  private static final int MAX_INCREMENTAL_UPDATES = 100;
+  /** Maximum fraction of moved atoms for which an incremental update is attempted. */
+  private static final double MAX_MOVED_FRACTION = 0.1;
   private final BornRadiiLoop[] bornRadiiLoop;
   /** An ordered array of atoms in the system. */
   protected Atom[] atoms;
@@ -147,6 +156,43 @@ public class BornRadiiRegion extends ParallelRegion {
    * for the computing the derivative of the energy with respect to atomic coordinates.
    */
   private double[] unscaledBornIntegral;
+  /**
+   * If true, the descreening integral of each atom is cached so that when only a subset of atoms
+   * moves, just the pairs that include a moved atom are recomputed.
+   */
+  @FFXProperty(name = "incremental-born-radii", clazz = Boolean.class,
+      propertyGroup = ImplicitSolvent, defaultValue = "false", description = """
+      If true, the descreening integral of each atom is cached. When only a few atoms move (for
+      example during a Monte Carlo move), just the pairs that include a moved atom are recomputed,
+      along with the Born radii of atoms whose integral changed. A full evaluation is used with
+      symmetry operators, after a change in radii or use flags, when more than 10% of the atoms
+      moved and periodically to bound round-off drift.
+      """)
+  private final boolean incremental;
+  /**
+   * During an incremental update, a Born radius is only updated if it changes by more than this
+   * tolerance (Angstroms).
+   */
+  @FFXProperty(name = "born-radii-tolerance", propertyGroup = ImplicitSolvent, defaultValue = "0.0",
+      description = """
+      During an incremental Born radii update (see incremental-born-radii), a Born radius is only
+      updated if it changes by more than this tolerance (Angstroms).
+      """)
+  private final double bornTolerance;
+  /** Cached descreening integral of each atom. */
+  private double[] cachedIntegral;
+  /** Cached coordinates [x, y, z][nAtoms] used to compute the cached integrals. */
+  private double[][] cachedXYZ;
+  /** Cached parameters [base, descreen, overlap scale, neck scale][nAtoms]. */
+  private double[][] cachedParameters;
+  /** Cached atom use flags. */
+  private boolean[] cachedUse;
+  /** Flag for each atom that moved since the last update. */
+  private boolean[] moved;
+  /** Flag for each atom whose descreening integral changed during an incremental update. */
+  private boolean[] changed;
+  /** Number of incremental updates since the descreening integrals were last recomputed. */
+  private int incrementalUpdates;
 
   /**
    * BornRadiiRegion Constructor.
@@ -171,6 +217,8 @@ public class BornRadiiRegion extends ParallelRegion {
     if (verboseRadii && logger.isLoggable(Level.FINER)) {
       logger.finer(" Verbose Born radii.");
     }
+    incremental = forceField.getBoolean("INCREMENTAL_BORN_RADII", false);
+    bornTolerance = forceField.getDouble("BORN_RADII_TOLERANCE", 0.0);
 
     if (tanhCorrection) {
       unscaledBornIntegral = new double[nAtoms];
@@ -250,67 +298,229 @@ public class BornRadiiRegion extends ParallelRegion {
     }
 
     for (int i = 0; i < nAtoms; i++) {
-      final double baseRi = baseRadius[i];
-      if (!use[i]) {
-        born[i] = baseRi;
-      } else {
-        // A positive integral of 1/r^6 over the solute outside atom i.
-        double soluteIntegral = -sharedBorn.get(i);
-        if (tanhCorrection) {
-          // Scale up the integral to account for interstitial spaces.
-          unscaledBornIntegral[i] = soluteIntegral;
-          soluteIntegral = tanhRescaling(soluteIntegral, baseRi);
+      computeBornRadius(i, sharedBorn.get(i));
+    }
+
+    if (verboseRadii) {
+      // Only log the Born radii once.
+      logger.info(" Disabling verbose radii printing.");
+      verboseRadii = false;
+    }
+
+    // Cache the descreening integrals for incremental updates.
+    if (incremental) {
+      if (cachedIntegral == null || cachedIntegral.length != nAtoms) {
+        cachedIntegral = new double[nAtoms];
+        cachedXYZ = new double[3][];
+        moved = new boolean[nAtoms];
+        changed = new boolean[nAtoms];
+      }
+      for (int i = 0; i < nAtoms; i++) {
+        cachedIntegral[i] = sharedBorn.get(i);
+      }
+      for (int j = 0; j < 3; j++) {
+        cachedXYZ[j] = copyOf(sXYZ[0][j], nAtoms);
+      }
+      cachedParameters = new double[][] {copyOf(baseRadius, nAtoms),
+          copyOf(descreenRadius, nAtoms), copyOf(overlapScale, nAtoms), copyOf(neckScale, nAtoms)};
+      cachedUse = copyOf(use, nAtoms);
+      incrementalUpdates = 0;
+    }
+  }
+
+  /**
+   * Update the Born radii when only a subset of atoms has moved since the last evaluation. The
+   * cached descreening integrals are updated by removing the contribution of each pair that
+   * includes a moved atom at its previous coordinates and adding it back at the current
+   * coordinates. Only the Born radii of atoms whose integral changed are recomputed.
+   *
+   * <p>The incremental update is only available without symmetry operators, and it is
+   * abandoned in favor of a full evaluation if the solute parameters changed, too many atoms moved
+   * or the integrals have been updated incrementally too many times.
+   *
+   * @return true if the Born radii were updated incrementally, or false if a full evaluation is
+   *     required.
+   */
+  public boolean updateIncrementally() {
+    if (!incremental || usePerfectRadii || cachedIntegral == null) {
+      return false;
+    }
+    int nAtoms = atoms.length;
+    if (cachedIntegral.length != nAtoms || crystal.spaceGroup.symOps.size() > 1
+        || incrementalUpdates >= MAX_INCREMENTAL_UPDATES) {
+      return false;
+    }
+    if (!Arrays.equals(use, cachedUse) || !Arrays.equals(baseRadius, cachedParameters[0])
+        || !Arrays.equals(descreenRadius, cachedParameters[1])
+        || !Arrays.equals(overlapScale, cachedParameters[2])
+        || !Arrays.equals(neckScale, cachedParameters[3])) {
+      return false;
+    }
+
+    // Find the atoms that moved.
+    double[] x = sXYZ[0][0];
+    double[] y = sXYZ[0][1];
+    double[] z = sXYZ[0][2];
+    double[] cx = cachedXYZ[0];
+    double[] cy = cachedXYZ[1];
+    double[] cz = cachedXYZ[2];
+    int nMoved = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      moved[i] = x[i] != cx[i] || y[i] != cy[i] || z[i] != cz[i];
+      if (moved[i]) {
+        nMoved++;
+      }
+    }
+    if (nMoved == 0) {
+      return true;
+    }
+    if (nMoved > MAX_MOVED_FRACTION * nAtoms) {
+      return false;
+    }
+
+    // Replace the contribution of each pair that includes a moved atom.
+    fill(changed, false);
+    for (int i = 0; i < nAtoms; i++) {
+      if (!moved[i] || (!nativeEnvironmentApproximation && !use[i])) {
+        continue;
+      }
+      for (int k = 0; k < nAtoms; k++) {
+        // Pairs of moved atoms are only visited once.
+        if (k == i || (moved[k] && k < i) || (!nativeEnvironmentApproximation && !use[k])) {
+          continue;
+        }
+        descreenPair(i, k, cx[k] - cx[i], cy[k] - cy[i], cz[k] - cz[i], -1.0);
+        descreenPair(i, k, x[k] - x[i], y[k] - y[i], z[k] - z[i], 1.0);
+      }
+    }
+
+    for (int i = 0; i < nAtoms; i++) {
+      if (changed[i]) {
+        double previous = born[i];
+        double previousIntegral = tanhCorrection ? unscaledBornIntegral[i] : 0.0;
+        computeBornRadius(i, cachedIntegral[i]);
+        if (bornTolerance > 0.0 && abs(born[i] - previous) < bornTolerance) {
+          // Keep the previous radius and the unscaled integral used for its chain rule term.
+          born[i] = previous;
+          if (tanhCorrection) {
+            unscaledBornIntegral[i] = previousIntegral;
+          }
+        }
+      }
+      if (moved[i]) {
+        cx[i] = x[i];
+        cy[i] = y[i];
+        cz[i] = z[i];
+      }
+    }
+    incrementalUpdates++;
+    return true;
+  }
+
+  /**
+   * Add the mutual descreening of atoms i and k to the cached descreening integrals.
+   *
+   * @param i The index of the first atom.
+   * @param k The index of the second atom.
+   * @param xr The x-component of the separation vector from atom i to atom k.
+   * @param yr The y-component of the separation vector from atom i to atom k.
+   * @param zr The z-component of the separation vector from atom i to atom k.
+   * @param sign 1.0 to add the contribution, or -1.0 to remove it.
+   */
+  private void descreenPair(int i, int k, double xr, double yr, double zr, double sign) {
+    final double r2 = crystal.image(xr, yr, zr);
+    if (r2 > cut2) {
+      return;
+    }
+    final double r = sqrt(r2);
+    final double integralStartI = max(baseRadius[i], descreenRadius[i]) + descreenOffset;
+    final double integralStartK = max(baseRadius[k], descreenRadius[k]) + descreenOffset;
+    double mixedNeckScale = 0.5 * (neckScale[i] + neckScale[k]);
+    BornRadiiLoop loop = bornRadiiLoop[0];
+
+    // Atom i being descreeened by atom k.
+    double sk = overlapScale[k];
+    if (sk > 0.0) {
+      double descreenIK = loop.descreen(r, r2, integralStartI, descreenRadius[k], sk);
+      if (neckCorrection) {
+        descreenIK += loop.neckDescreen(r, integralStartI, descreenRadius[k], mixedNeckScale);
+      }
+      cachedIntegral[i] += sign * descreenIK;
+      changed[i] = true;
+    }
+
+    // Atom k being descreeened by atom i.
+    double si = overlapScale[i];
+    if (si > 0.0) {
+      double descreenKI = loop.descreen(r, r2, integralStartK, descreenRadius[i], si);
+      if (neckCorrection) {
+        descreenKI += loop.neckDescreen(r, integralStartK, descreenRadius[i], mixedNeckScale);
+      }
+      cachedIntegral[k] += sign * descreenKI;
+      changed[k] = true;
+    }
+  }
+
+  /**
+   * Compute the Born radius of an atom from its descreening integral.
+   *
+   * @param i The index of the atom.
+   * @param descreenIntegral The (negative) descreening integral of the atom.
+   */
+  private void computeBornRadius(int i, double descreenIntegral) {
+    final double baseRi = baseRadius[i];
+    if (!use[i]) {
+      born[i] = baseRi;
+    } else {
+      // A positive integral of 1/r^6 over the solute outside atom i.
+      double soluteIntegral = -descreenIntegral;
+      if (tanhCorrection) {
+        // Scale up the integral to account for interstitial spaces.
+        unscaledBornIntegral[i] = soluteIntegral;
+        soluteIntegral = tanhRescaling(soluteIntegral, baseRi);
+      }
+      // The total integral assumes no solute outside atom i, then subtracts away solute descreening.
+      double sum = PI4_3 / (baseRi * baseRi * baseRi) - soluteIntegral;
+      // Due to solute atomic overlaps, in rare cases the sum can be less than zero.
+      if (sum <= 0.0) {
+        born[i] = MAX_BORN_RADIUS;
+        if (verboseRadii) {
+          logger.info(format(
+              " Born Integral < 0 for atom %d; set Born radius to %12.6f (Base Radius: %12.6f)",
+              i + 1, born[i], baseRadius[i]));
         }
-        // The total integral assumes no solute outside atom i, then subtracts away solute descreening.
-        double sum = PI4_3 / (baseRi * baseRi * baseRi) - soluteIntegral;
-        // Due to solute atomic overlaps, in rare cases the sum can be less than zero.
-        if (sum <= 0.0) {
+      } else {
+        born[i] = pow(INVERSE_PI4_3 * sum, -oneThird);
+        if (born[i] < baseRi) {
+          born[i] = baseRi;
+          if (verboseRadii) {
+            logger.info(
+                format(" Born radius < Base Radius for atom %d: set Born radius to %12.6f", i + 1,
+                    baseRi));
+          }
+        } else if (born[i] > MAX_BORN_RADIUS) {
           born[i] = MAX_BORN_RADIUS;
           if (verboseRadii) {
-            logger.info(format(
-                " Born Integral < 0 for atom %d; set Born radius to %12.6f (Base Radius: %12.6f)",
-                i + 1, born[i], baseRadius[i]));
+            logger.info(
+                format(" Born radius > 50.0 Angstroms for atom %d: set Born radius to %12.6f",
+                    i + 1, baseRi));
+          }
+        } else if (isInfinite(born[i]) || isNaN(born[i])) {
+          born[i] = baseRi;
+          if (verboseRadii) {
+            logger.info(
+                format(" Born radius NaN / Infinite for atom %d; set Born radius to %12.6f", i + 1,
+                    baseRi));
           }
         } else {
-          born[i] = pow(INVERSE_PI4_3 * sum, -oneThird);
-          if (born[i] < baseRi) {
-            born[i] = baseRi;
-            if (verboseRadii) {
-              logger.info(
-                  format(" Born radius < Base Radius for atom %d: set Born radius to %12.6f", i + 1,
-                      baseRi));
-            }
-          } else if (born[i] > MAX_BORN_RADIUS) {
-            born[i] = MAX_BORN_RADIUS;
-            if (verboseRadii) {
-              logger.info(
-                  format(" Born radius > 50.0 Angstroms for atom %d: set Born radius to %12.6f",
-                      i + 1, baseRi));
-            }
-          } else if (isInfinite(born[i]) || isNaN(born[i])) {
-            born[i] = baseRi;
-            if (verboseRadii) {
-              logger.info(
-                  format(" Born radius NaN / Infinite for atom %d; set Born radius to %12.6f", i + 1,
-                      baseRi));
-            }
-          } else {
-            if (verboseRadii) {
-              logger.info(
-                  format(" Set Born radius for atom %d to %12.6f (Base Radius: %2.6f)", i + 1,
-                      born[i], baseRi));
-            }
+          if (verboseRadii) {
+            logger.info(
+                format(" Set Born radius for atom %d to %12.6f (Base Radius: %2.6f)", i + 1,
+                    born[i], baseRi));
           }
         }
       }
     }
-
-    if (verboseRadii) {
-      // Only log the Born radii once.
-      logger.info(" Disabling verbose radii printing.");
-      verboseRadii = false;
-    }
-
   }
 
   public void init(
@@ -348,6 +348,15 @@ public class ChandlerCavitation {
     return cavitationEnergy;
   }
 
+  /**
+   * Shut down the ParallelTeam used by the Connolly surface, if any.
+   */
+  public void destroy() {
+    if (connollyRegion != null) {
+      connollyRegion.destroy();
+    }
+  }
+
   public ConnollyRegion getConnollyRegion() {
     return connollyRegion;
   }
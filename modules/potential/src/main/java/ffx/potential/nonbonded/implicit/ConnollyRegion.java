@@ -46,6 +46,7 @@ import static ffx.numerics.math.DoubleMath.normalize;
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
 import static java.util.Arrays.fill;
+import static java.util.Arrays.sort;
 import static org.apache.commons.math3.util.FastMath.PI;
 import static org.apache.commons.math3.util.FastMath.abs;
 import static org.apache.commons.math3.util.FastMath.acos;
@@ -58,12 +59,14 @@ import static org.apache.commons.math3.util.FastMath.sin;
 import static org.apache.commons.math3.util.FastMath.sqrt;
 
 import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
 import edu.rit.pj.ParallelRegion;
 import edu.rit.pj.ParallelTeam;
 import edu.rit.pj.reduction.SharedDouble;
 import ffx.potential.bonded.Atom;
 import ffx.potential.utils.EnergyException;
 
+import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -377,6 +380,45 @@ public class ConnollyRegion extends ParallelRegion {
    * Array of atoms.
    */
   private Atom[] atoms;
+  /**
+   * Number of threads used for spatial domain decomposition.
+   */
+  private final int nThreads;
+  /**
+   * If non-null, only surface elements whose lowest numbered atom is owned (and the gradient of
+   * owned atoms) are accumulated. This is used by the ConnollyRegion instance of each spatial
+   * domain, whose halo atoms are owned by a neighboring domain.
+   */
+  private boolean[] owned = null;
+  /**
+   * For a spatial domain instance, the global index of each local atom.
+   */
+  private int[] domainAtoms = null;
+  /**
+   * For a spatial domain instance, the number of local atoms (the remaining entries are padding).
+   */
+  private int domainSize = 0;
+  /**
+   * ConnollyRegion instances for each spatial domain.
+   */
+  private ConnollyRegion[] domains = null;
+  /**
+   * ParallelTeam used to evaluate spatial domains concurrently.
+   */
+  private ParallelTeam domainTeam = null;
+  /**
+   * ParallelRegion used to evaluate spatial domains concurrently.
+   */
+  private DomainRegion domainRegion = null;
+  /**
+   * Area of the surface elements owned by each atom. The total is summed in order of atom index, so
+   * that it does not depend on how the atoms are split into spatial domains.
+   */
+  private final double[] ownerArea;
+  /**
+   * Volume of the surface elements owned by each atom.
+   */
+  private final double[] ownerVolume;
   /**
    * If true, compute the gradient
    */
@@ -448,16 +490,27 @@ public class ConnollyRegion extends ParallelRegion {
    * @param nThreads   Number of threads.
    */
   public ConnollyRegion(Atom[] atoms, double[] baseRadius, int nThreads) {
+    this(atoms, atoms.length, baseRadius, nThreads);
+  }
+
+  /**
+   * ConnollyRegion constructor.
+   *
+   * @param atoms      Array of atom instances (null for a spatial domain instance).
+   * @param nAtoms     Number of atoms.
+   * @param baseRadius Base radius for each atom (no added probe).
+   * @param nThreads   Number of threads.
+   */
+  private ConnollyRegion(Atom[] atoms, int nAtoms, double[] baseRadius, int nThreads) {
     this.atoms = atoms;
-    this.nAtoms = atoms.length;
+    this.nAtoms = nAtoms;
     this.baseRadius = baseRadius;
+    this.nThreads = max(1, nThreads);
 
     // Parallelization variables.
     parallelTeam = new ParallelTeam(1);
-    volumeLoop = new VolumeLoop[nThreads];
-    for (int i = 0; i < nThreads; i++) {
-      volumeLoop[i] = new VolumeLoop();
-    }
+    volumeLoop = new VolumeLoop[1];
+    volumeLoop[0] = new VolumeLoop();
     sharedVolume = new SharedDouble();
     sharedArea = new SharedDouble();
 
@@ -550,6 +603,10 @@ public class ConnollyRegion extends ParallelRegion {
     // Volume derivative variables.
     volumeGradient = new double[3][nAtoms];
     itab = new int[nAtoms];
+
+    // Area and volume of the surface elements owned by each atom.
+    ownerArea = new double[nAtoms];
+    ownerVolume = new double[nAtoms];
   }
 
   public double getExclude() {
@@ -605,17 +662,41 @@ public class ConnollyRegion extends ParallelRegion {
   }
 
   /**
-   * Execute the VolumeRegion with a private, single threaded ParallelTeam.
+   * Compute the volume and surface area (and optionally the volume gradient).
+   *
+   * <p>With a single thread, or a system that is too small to split, the whole surface is built
+   * with a private, single threaded ParallelTeam. Otherwise the atoms are split into slabs along
+   * their longest axis, and the surface of each slab (plus a halo of neighboring atoms) is built
+   * concurrently by a ConnollyRegion instance with its own workspace arrays. Each surface element
+   * is counted only by the slab that owns its lowest numbered atom. The area and volume are summed
+   * per atom in order of atom index, so the result does not depend on the number of slabs.
    */
   public void runVolume() {
     try {
-      parallelTeam.execute(this);
+      if (nThreads < 2 || !runDomains()) {
+        parallelTeam.execute(this);
+      }
     } catch (Exception e) {
       String message = " Fatal exception computing the Connolly surface area and volume.";
       logger.log(Level.SEVERE, message, e);
     }
   }
 
+  /**
+   * Shut down the ParallelTeam used for spatial domain decomposition.
+   */
+  public void destroy() {
+    if (domainTeam != null) {
+      try {
+        domainTeam.shutdown();
+      } catch (Exception ex) {
+        logger.warning(" Exception in shutting down the Connolly domain team");
+      }
+      domainTeam = null;
+      domainRegion = null;
+    }
+  }
+
   /**
    * Apply a random perturbation to the atomic coordinates to avoid numerical instabilities for
    * various linear, planar and symmetric structures.
@@ -630,6 +711,10 @@ public class ConnollyRegion extends ParallelRegion {
   public void start() {
     sharedVolume.set(0.0);
     sharedArea.set(0.0);
+    if (atoms == null) {
+      // The coordinates of a spatial domain instance are loaded by its parent.
+      return;
+    }
     double[] vector = new double[3];
     for (int i = 0; i < nAtoms; i++) {
       getRandomVector(vector);
@@ -640,6 +725,198 @@ public class ConnollyRegion extends ParallelRegion {
     }
   }
 
+  /**
+   * Split the system into slabs along its longest axis and compute the volume, area and gradient
+   * of each slab concurrently.
+   *
+   * @return false if the system is too small to be split into at least two slabs.
+   * @throws Exception if a domain calculation fails.
+   */
+  private boolean runDomains() throws Exception {
+    // Load the wiggled coordinates.
+    start();
+
+    // Find the largest radius and the longest axis of the atoms to be included.
+    double radmax = 0.0;
+    double[] minCoords = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+    double[] maxCoords = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    int nActive = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      if (baseRadius[i] == 0.0) {
+        continue;
+      }
+      nActive++;
+      radmax = max(radmax, baseRadius[i] + exclude);
+      for (int k = 0; k < 3; k++) {
+        minCoords[k] = min(minCoords[k], atomCoords[k][i]);
+        maxCoords[k] = max(maxCoords[k], atomCoords[k][i]);
+      }
+    }
+    if (nActive == 0) {
+      return false;
+    }
+    int axis = 0;
+    for (int k = 1; k < 3; k++) {
+      if (maxCoords[k] - minCoords[k] > maxCoords[axis] - minCoords[axis]) {
+        axis = k;
+      }
+    }
+
+    /*
+     The halo includes all atoms that can contribute to a probe, torus or lens correction
+     involving an owned atom. Slabs are required to be at least twice the width of the halo,
+     so that at most half of each slab's work is redundant.
+    */
+    double halo = 3.0 * (radmax + probe) + 2.0 * probe;
+    double extent = maxCoords[axis] - minCoords[axis];
+    int nDomains = min(nThreads, (int) (extent / (2.0 * halo)));
+    if (nDomains < 2) {
+      return false;
+    }
+
+    // Balance the slabs by atom count.
+    double[] coords = atomCoords[axis];
+    double[] sorted = new double[nActive];
+    int n = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      if (baseRadius[i] != 0.0) {
+        sorted[n++] = coords[i];
+      }
+    }
+    sort(sorted);
+    double[] bounds = new double[nDomains + 1];
+    bounds[0] = Double.NEGATIVE_INFINITY;
+    bounds[nDomains] = Double.POSITIVE_INFINITY;
+    for (int d = 1; d < nDomains; d++) {
+      bounds[d] = sorted[(d * nActive) / nDomains];
+    }
+
+    // Load the atoms of each slab and its halo into a ConnollyRegion instance.
+    if (domains == null || domains.length != nDomains) {
+      domains = new ConnollyRegion[nDomains];
+    }
+    int[] members = new int[nActive];
+    for (int d = 0; d < nDomains; d++) {
+      double lower = bounds[d];
+      double upper = bounds[d + 1];
+      int nMembers = 0;
+      for (int i = 0; i < nAtoms; i++) {
+        if (baseRadius[i] != 0.0 && coords[i] >= lower - halo && coords[i] < upper + halo) {
+          members[nMembers++] = i;
+        }
+      }
+      ConnollyRegion domain = domains[d];
+      if (domain == null || domain.nAtoms < nMembers) {
+        int capacity = max(nMembers + nMembers / 4, 1);
+        domain = new ConnollyRegion(null, capacity, new double[capacity], 1);
+        domain.owned = new boolean[capacity];
+        domain.domainAtoms = new int[capacity];
+        domains[d] = domain;
+      }
+      domain.loadDomain(this, members, nMembers, axis, lower, upper);
+    }
+
+    if (domainTeam == null) {
+      domainTeam = new ParallelTeam(nThreads);
+      domainRegion = new DomainRegion(domainTeam.getThreadCount());
+    }
+    domainRegion.nDomains = nDomains;
+    domainTeam.execute(domainRegion);
+
+    /*
+     Only the first concave face (over all slabs) with a spindle intersection is flagged for a
+     numerical lens correction, which is the face the serial code would flag.
+    */
+    VolumeLoop spindleLoop = null;
+    for (ConnollyRegion domain : domains) {
+      VolumeLoop loop = domain.volumeLoop[0];
+      if (loop.spindleFace >= 0
+          && (spindleLoop == null || Arrays.compare(loop.spindleKey, spindleLoop.spindleKey) < 0)) {
+        spindleLoop = loop;
+      }
+    }
+
+    // Collect the area, volume and gradient of the owned atoms of each slab.
+    fill(ownerArea, 0.0);
+    fill(ownerVolume, 0.0);
+    if (gradient) {
+      fill(volumeGradient[0], 0.0);
+      fill(volumeGradient[1], 0.0);
+      fill(volumeGradient[2], 0.0);
+    }
+    for (ConnollyRegion domain : domains) {
+      VolumeLoop loop = domain.volumeLoop[0];
+      loop.addLensCorrections(loop == spindleLoop);
+      for (int l = 0; l < domain.domainSize; l++) {
+        if (domain.owned[l]) {
+          int i = domain.domainAtoms[l];
+          ownerArea[i] = domain.ownerArea[l];
+          ownerVolume[i] = domain.ownerVolume[l];
+          if (gradient) {
+            for (int k = 0; k < 3; k++) {
+              volumeGradient[k][i] = domain.volumeGradient[k][l];
+            }
+          }
+        }
+      }
+    }
+    double area = 0.0;
+    double volume = 0.0;
+    for (int i = 0; i < nAtoms; i++) {
+      area += ownerArea[i];
+      volume += ownerVolume[i];
+    }
+    sharedArea.addAndGet(area);
+    sharedVolume.addAndGet(volume);
+    return true;
+  }
+
+  /**
+   * Load the atoms of a slab and its halo from the parent ConnollyRegion.
+   *
+   * @param parent   The parent ConnollyRegion.
+   * @param members  Global indices of the atoms in the slab or its halo (in ascending order).
+   * @param nMembers Number of atoms in the slab or its halo.
+   * @param axis     The axis normal to the slab.
+   * @param lower    The lower bound of the slab along the axis.
+   * @param upper    The upper bound of the slab along the axis.
+   */
+  private void loadDomain(
+      ConnollyRegion parent, int[] members, int nMembers, int axis, double lower, double upper) {
+    domainSize = nMembers;
+    probe = parent.probe;
+    exclude = parent.exclude;
+    gradient = parent.gradient;
+    for (int l = 0; l < nAtoms; l++) {
+      // Padding atoms have no radius, and sit on the first atom so the grid extent is unchanged.
+      int i = (l < nMembers) ? members[l] : members[0];
+      domainAtoms[l] = i;
+      baseRadius[l] = (l < nMembers) ? parent.baseRadius[i] : 0.0;
+      for (int k = 0; k < 3; k++) {
+        atomCoords[k][l] = parent.atomCoords[k][i];
+      }
+      double c = parent.atomCoords[axis][i];
+      owned[l] = l < nMembers && c >= lower && c < upper;
+    }
+  }
+
+  /**
+   * Compute the volume, area and gradient of a spatial domain instance on the calling thread.
+   */
+  private void runDomain() {
+    sharedVolume.set(0.0);
+    sharedArea.set(0.0);
+    VolumeLoop loop = volumeLoop[0];
+    if (domainSize == 0) {
+      nConcaveFaces = -1;
+      loop.spindleFace = -1;
+      return;
+    }
+    loop.start();
+    loop.run(0, nAtoms - 1);
+    loop.finish();
+  }
+
   /**
    * Construct the 3-dimensional random unit vector.
    *
@@ -665,6 +942,47 @@ public class ConnollyRegion extends ParallelRegion {
     vector[0] = s * x;
   }
 
+  /**
+   * Evaluate the ConnollyRegion instance of each spatial domain concurrently.
+   */
+  private class DomainRegion extends ParallelRegion {
+
+    private final DomainLoop[] domainLoop;
+    private int nDomains;
+
+    DomainRegion(int nThreads) {
+      domainLoop = new DomainLoop[nThreads];
+      for (int i = 0; i < nThreads; i++) {
+        domainLoop[i] = new DomainLoop();
+      }
+    }
+
+    @Override
+    public void run() throws Exception {
+      execute(0, nDomains - 1, domainLoop[getThreadIndex()]);
+    }
+  }
+
+  /**
+   * Evaluate a range of spatial domains.
+   */
+  private class DomainLoop extends IntegerForLoop {
+
+    private final IntegerSchedule schedule = IntegerSchedule.dynamic(1);
+
+    @Override
+    public IntegerSchedule schedule() {
+      return schedule;
+    }
+
+    @Override
+    public void run(int lb, int ub) {
+      for (int d = lb; d <= ub; d++) {
+        domains[d].runDomain();
+      }
+    }
+  }
+
   /**
    * Compute Volume energy for a range of atoms.
    *
@@ -672,9 +990,9 @@ public class ConnollyRegion extends ParallelRegion {
    */
   private class VolumeLoop extends IntegerForLoop {
     /**
-     * 3D grid for numeric volume derivatives.
+     * Dimensions of the 3D grid for numeric volume derivatives along y and z.
      */
-    private static final int MXCUBE = 30;
+    private int gridY, gridZ;
     /**
      * Maximum arcs for volume derivatives.
      */
@@ -686,6 +1004,27 @@ public class ConnollyRegion extends ParallelRegion {
 
     private double localVolume;
     private double localSurfaceArea;
+    /**
+     * Lens area correction of each owned concave face.
+     */
+    private double[] faceLensArea;
+    /**
+     * Lens volume correction of each owned concave face.
+     */
+    private double[] faceLensVolume;
+    /**
+     * The first owned concave face with a spindle intersection (or -1).
+     */
+    private int spindleFace = -1;
+    /**
+     * Numerical lens area and volume corrections of the spindle face, used if it is flagged.
+     */
+    private double spindleLensArea, spindleLensVolume;
+    /**
+     * Global atom numbers and placement of the spindle face, which order the concave faces as they
+     * are generated by the serial code.
+     */
+    private final int[] spindleKey = new int[4];
 
     @Override
     public void finish() {
@@ -697,6 +1036,14 @@ public class ConnollyRegion extends ParallelRegion {
     public void run(int lb, int ub) {
       setRadius();
       computeVolumeAndArea();
+      if (owned == null) {
+        // Without spatial domains, the spindle face is known and the total can be summed.
+        addLensCorrections(true);
+        for (int i = 0; i < nAtoms; i++) {
+          localSurfaceArea += ownerArea[i];
+          localVolume += ownerVolume[i];
+        }
+      }
       if (gradient) {
         computeVolumeGradient();
       }
@@ -805,6 +1152,91 @@ public class ConnollyRegion extends ParallelRegion {
       return foundTorus;
     }
 
+    /**
+     * Skip atoms that are completely inside another atom.
+     *
+     * <p>Atom j can only be inside atom i if their separation is less than the largest radius, so
+     * candidate pairs are found using a linked cell list. Pairs are visited in order of atom i, as
+     * in an all pairs loop, which gives identical results.
+     */
+    private void skipBuriedAtoms() {
+      double radmax = 0.0;
+      double[] minCoords = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+      double[] maxCoords = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+      for (int i = 0; i < nAtoms; i++) {
+        if (!skip[i]) {
+          radmax = max(radmax, radius[i]);
+          for (int k = 0; k < 3; k++) {
+            minCoords[k] = min(minCoords[k], atomCoords[k][i]);
+            maxCoords[k] = max(maxCoords[k], atomCoords[k][i]);
+          }
+        }
+      }
+      if (radmax <= 0.0) {
+        return;
+      }
+
+      // Cells are at least as wide as the largest radius; limit the number of cells to ~2 per atom.
+      int[] nCells = new int[3];
+      double width = radmax;
+      long totalCells = Long.MAX_VALUE;
+      while (totalCells > 2L * nAtoms + 27) {
+        totalCells = 1;
+        for (int k = 0; k < 3; k++) {
+          nCells[k] = (int) ((maxCoords[k] - minCoords[k]) / width) + 1;
+          totalCells *= nCells[k];
+        }
+        if (totalCells > 2L * nAtoms + 27) {
+          width *= 1.5;
+        }
+      }
+      int[] cellHead = new int[(int) totalCells];
+      int[] cellNext = new int[nAtoms];
+      int[][] cell = new int[3][nAtoms];
+      fill(cellHead, -1);
+      for (int i = nAtoms - 1; i >= 0; i--) {
+        if (skip[i]) {
+          continue;
+        }
+        for (int k = 0; k < 3; k++) {
+          cell[k][i] = min((int) ((atomCoords[k][i] - minCoords[k]) / width), nCells[k] - 1);
+        }
+        int c = cell[0][i] + nCells[0] * (cell[1][i] + nCells[1] * cell[2][i]);
+        cellNext[i] = cellHead[c];
+        cellHead[c] = i;
+      }
+
+      double[] ai = new double[3];
+      double[] aj = new double[3];
+      for (int i = 0; i < nAtoms - 1; i++) {
+        if (skip[i]) {
+          continue;
+        }
+        getVector(ai, atomCoords, i);
+        for (int cz = max(cell[2][i] - 1, 0); cz <= min(cell[2][i] + 1, nCells[2] - 1); cz++) {
+          for (int cy = max(cell[1][i] - 1, 0); cy <= min(cell[1][i] + 1, nCells[1] - 1); cy++) {
+            for (int cx = max(cell[0][i] - 1, 0); cx <= min(cell[0][i] + 1, nCells[0] - 1); cx++) {
+              for (int j = cellHead[cx + nCells[0] * (cy + nCells[1] * cz)]; j >= 0; j = cellNext[j]) {
+                if (j <= i || skip[j]) {
+                  continue;
+                }
+                getVector(aj, atomCoords, j);
+                double d2 = dist2(ai, aj);
+                double r2 = (radius[i] - radius[j]) * (radius[i] - radius[j]);
+                if (d2 < r2) {
+                  if (radius[i] < radius[j]) {
+                    skip[i] = true;
+                  } else {
+                    skip[j] = true;
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+
     /**
      * The nearby method finds all of the through-space neighbors of each atom for use in surface
      * area and volume calculations.
@@ -823,23 +1255,7 @@ public class ConnollyRegion extends ParallelRegion {
        * Ignore all atoms that are completely inside another atom;
        * may give nonsense results if this step is not taken.
        */
-      for (int i = 0; i < nAtoms - 1; i++) {
-        if (!skip[i]) {
-          getVector(ai, atomCoords, i);
-          for (int j = i + 1; j < nAtoms; j++) {
-            getVector(aj, atomCoords, j);
-            double d2 = dist2(ai, aj);
-            double r2 = (radius[i] - radius[j]) * (radius[i] - radius[j]);
-            if (!skip[j] && d2 < r2) {
-              if (radius[i] < radius[j]) {
-                skip[i] = true;
-              } else {
-                skip[j] = true;
-              }
-            }
-          }
-        }
-      }
+      skipBuriedAtoms();
 
       // Check for new coordinate minima and radii maxima.
       double radmax = 0.0;
@@ -2297,7 +2713,6 @@ public class ConnollyRegion extends ParallelRegion {
       double[] al = new double[3];
       double[][] dots = new double[3][maxdot];
       double[][] tdots = new double[3][maxdot];
-      double[] atomArea = new double[nAtoms];
       boolean[] ate = new boolean[maxop];
       boolean[] vip = new boolean[3];
       boolean[] cinsp = new boolean[1];
@@ -2312,7 +2727,6 @@ public class ConnollyRegion extends ParallelRegion {
       double[][] fncen = null;
       double[][][] fnvect = null;
       boolean[] badav = null;
-      boolean[] badt = null;
       boolean[][] fcins = null;
       boolean[][] fcint = null;
       boolean[][] fntrev = null;
@@ -2327,28 +2741,41 @@ public class ConnollyRegion extends ParallelRegion {
         fncen = new double[3][nConcaveFaces + 1];
         fnvect = new double[3][3][nConcaveFaces + 1];
         badav = new boolean[nConcaveFaces + 1];
-        badt = new boolean[nConcaveFaces + 1];
         fcins = new boolean[3][nConcaveFaces + 1];
         fcint = new boolean[3][nConcaveFaces + 1];
         fntrev = new boolean[3][nConcaveFaces + 1];
       }
+      faceLensArea = new double[nConcaveFaces + 1];
+      faceLensVolume = new double[nConcaveFaces + 1];
+      spindleFace = -1;
+
+      // The area and volume of each surface element are partitioned among the atoms that own them.
+      fill(ownerArea, 0.0);
+      fill(ownerVolume, 0.0);
 
       // Compute the volume of the interior polyhedron.
       double polyhedronVolume = 0.0;
       for (int i = 0; i <= nConcaveFaces; i++) {
-        polyhedronVolume += measurePrism(i);
+        int ia = concaveFaceAtom(i);
+        if (ownsAtom(ia)) {
+          double prism = measurePrism(i);
+          polyhedronVolume += prism;
+          ownerVolume[ia] += prism;
+        }
       }
 
-      // Compute the area and volume due to convex faces as well as
-      // the area partitioned among the atoms.
+      // Compute the area and volume due to convex faces.
       double convexFaceArea = 0.0;
       double convexFaceVolume = 0.0;
-      fill(atomArea, 0.0);
       double[] convexFaces = {0.0, 0.0};
       for (int i = 0; i <= nConvexFaces; i++) {
-        measureConvexFace(i, convexFaces);
         int ia = convexFaceAtomNumber[i];
-        atomArea[ia] += convexFaces[0];
+        if (!ownsAtom(ia)) {
+          continue;
+        }
+        measureConvexFace(i, convexFaces);
+        ownerArea[ia] += convexFaces[0];
+        ownerVolume[ia] += convexFaces[1];
         convexFaceArea += convexFaces[0];
         convexFaceVolume += convexFaces[1];
       }
@@ -2367,11 +2794,17 @@ public class ConnollyRegion extends ParallelRegion {
             enfs[ien] = i;
           }
         }
+        int ia = saddleFaceAtom(i);
+        if (!ownsAtom(ia)) {
+          continue;
+        }
         measureSaddleFace(i, saddle);
         double areas = saddle[0];
         double vols = saddle[1];
         double areasp = saddle[2];
         double volsp = saddle[3];
+        ownerArea[ia] += areas - areasp;
+        ownerVolume[ia] += vols - volsp;
         saddleFaceArea += areas;
         saddleFaceVolume += vols;
         spindleArea += areasp;
@@ -2386,9 +2819,15 @@ public class ConnollyRegion extends ParallelRegion {
       double concaveFaceVolume = 0.0;
       double[] concaveFaces = {0.0, 0.0};
       for (int i = 0; i <= nConcaveFaces; i++) {
+        int ia = concaveFaceAtom(i);
+        if (!ownsAtom(ia)) {
+          continue;
+        }
         measureConcaveFace(i, concaveFaces);
         double arean = concaveFaces[0];
         double voln = concaveFaces[1];
+        ownerArea[ia] += arean;
+        ownerVolume[ia] += voln;
         concaveFaceArea += arean;
         concaveFaceVolume += voln;
       }
@@ -2407,7 +2846,6 @@ public class ConnollyRegion extends ParallelRegion {
           cora[ifn] = 0.0;
           corv[ifn] = 0.0;
           badav[ifn] = false;
-          badt[ifn] = false;
           for (int k = 0; k < 3; k++) {
             nspt[k][ifn] = -1;
           }
@@ -2723,11 +3161,19 @@ public class ConnollyRegion extends ParallelRegion {
           }
         }
 
+        /*
+         Only the first concave face with a spindle intersection is flagged for a numerical lens
+         correction. For a spatial domain instance, the first face over all domains is found once
+         every domain is done, so lens corrections are applied later by addLensCorrections.
+        */
         outerLoop:
         for (int ifn = 0; ifn <= nConcaveFaces; ifn++) {
+          if (!ownsConcaveFace(ifn)) {
+            continue;
+          }
           for (int ke = 0; ke < 3; ke++) {
             if (nspt[ke][ifn] > 0) {
-              badt[ifn] = true;
+              setSpindleFace(ifn);
               break outerLoop;
             }
           }
@@ -2735,7 +3181,7 @@ public class ConnollyRegion extends ParallelRegion {
 
         double fourProbe2 = 4.0 * probe * probe;
         for (int ifn = 0; ifn <= nConcaveFaces; ifn++) {
-          if (nlap[ifn] <= -1) {
+          if (nlap[ifn] <= -1 || !ownsConcaveFace(ifn)) {
             continue;
           }
           // Gather all overlapping probes.
@@ -2837,7 +3283,11 @@ public class ConnollyRegion extends ParallelRegion {
           }
 
           // Use either the analytical or numerical correction.
-          boolean usenum = (nate > nlap[ifn] + 1 || neatmx > 1 || badt[ifn]);
+          if (ifn == spindleFace) {
+            spindleLensArea = coran;
+            spindleLensVolume = corvn;
+          }
+          boolean usenum = (nate > nlap[ifn] + 1 || neatmx > 1);
           if (usenum) {
             cora[ifn] = coran;
             corv[ifn] = corvn;
@@ -2849,6 +3299,8 @@ public class ConnollyRegion extends ParallelRegion {
           }
           lensArea += cora[ifn];
           lensVolume += corv[ifn];
+          faceLensArea[ifn] = cora[ifn];
+          faceLensVolume[ifn] = corv[ifn];
         }
       }
 
@@ -2884,18 +3336,58 @@ public class ConnollyRegion extends ParallelRegion {
         }
       }
 
-      // Finally, compute the total area and total volume.
-      double area = convexFaceArea + saddleFaceArea + concaveFaceArea - spindleArea - lensArea;
-      double volume =
-          convexFaceVolume
-              + saddleFaceVolume
-              + concaveFaceVolume
-              + polyhedronVolume
-              - spindleVolume
-              + lensVolume;
+    }
 
-      localVolume += volume;
-      localSurfaceArea += area;
+    /**
+     * Add the lens corrections of the owned concave faces to the area and volume of their atoms.
+     *
+     * @param flagSpindleFace If true, the numerical correction is used for the spindle face.
+     */
+    private void addLensCorrections(boolean flagSpindleFace) {
+      for (int ifn = 0; ifn <= nConcaveFaces; ifn++) {
+        int ia = concaveFaceAtom(ifn);
+        if (!ownsAtom(ia)) {
+          continue;
+        }
+        double area = faceLensArea[ifn];
+        double volume = faceLensVolume[ifn];
+        if (flagSpindleFace && ifn == spindleFace) {
+          area = spindleLensArea;
+          volume = spindleLensVolume;
+        }
+        ownerArea[ia] -= area;
+        ownerVolume[ia] += volume;
+      }
+    }
+
+    /**
+     * Record the first owned concave face with a spindle intersection. Concave faces are generated
+     * in order of their three atoms, with up to two probe placements per triple, so the key of the
+     * face orders it as in the serial code.
+     *
+     * @param ifn The concave face.
+     */
+    private void setSpindleFace(int ifn) {
+      spindleFace = ifn;
+      spindleLensArea = 0.0;
+      spindleLensVolume = 0.0;
+      int ip = concaveFaceProbe(ifn);
+      int ia = probeAtomNumbers[0][ip];
+      int ja = min(probeAtomNumbers[1][ip], probeAtomNumbers[2][ip]);
+      int ka = max(probeAtomNumbers[1][ip], probeAtomNumbers[2][ip]);
+      spindleKey[0] = globalAtom(ia);
+      spindleKey[1] = globalAtom(ja);
+      spindleKey[2] = globalAtom(ka);
+      // The second probe placement of a triple immediately follows the first.
+      spindleKey[3] = 0;
+      if (ifn > 0) {
+        int jp = concaveFaceProbe(ifn - 1);
+        if (probeAtomNumbers[0][jp] == ia
+            && min(probeAtomNumbers[1][jp], probeAtomNumbers[2][jp]) == ja
+            && max(probeAtomNumbers[1][jp], probeAtomNumbers[2][jp]) == ka) {
+          spindleKey[3] = 1;
+        }
+      }
     }
 
     /**
@@ -3122,6 +3614,74 @@ public class ConnollyRegion extends ParallelRegion {
       }
     }
 
+    /**
+     * An atom is owned unless this is a spatial domain instance and the atom is in its halo.
+     *
+     * @param ia The atom.
+     * @return true if the atom is owned.
+     */
+    private boolean ownsAtom(int ia) {
+      return owned == null || owned[ia];
+    }
+
+    /**
+     * A concave face is owned by the owner of its atom.
+     *
+     * @param ifn The concave face.
+     * @return true if the concave face is owned.
+     */
+    private boolean ownsConcaveFace(int ifn) {
+      return ownsAtom(concaveFaceAtom(ifn));
+    }
+
+    /**
+     * The atom of a saddle face is the lower numbered atom of its torus.
+     *
+     * @param iSaddleFace The saddle face.
+     * @return the atom of the saddle face.
+     */
+    private int saddleFaceAtom(int iSaddleFace) {
+      int iep = saddleConvexEdgeNumbers[0][iSaddleFace];
+      int it = circleTorusNumber[convexEdgeCircleNumber[iep]];
+      return min(torusAtomNumber[0][it], torusAtomNumber[1][it]);
+    }
+
+    /**
+     * The atom of a concave face is the lowest numbered of its three atoms.
+     *
+     * @param ifn The concave face.
+     * @return the atom of the concave face.
+     */
+    private int concaveFaceAtom(int ifn) {
+      int ia = nAtoms;
+      for (int ke = 0; ke < 3; ke++) {
+        int ien = concaveFaceEdgeNumbers[ke][ifn];
+        ia = min(ia, vertexAtomNumbers[concaveEdgeVertexNumbers[0][ien]]);
+      }
+      return ia;
+    }
+
+    /**
+     * The probe position of a concave face.
+     *
+     * @param ifn The concave face.
+     * @return the probe position.
+     */
+    private int concaveFaceProbe(int ifn) {
+      int ien = concaveFaceEdgeNumbers[0][ifn];
+      return vertexProbeNumber[concaveEdgeVertexNumbers[0][ien]];
+    }
+
+    /**
+     * The atom of the full system for an atom of this instance.
+     *
+     * @param ia The atom of this instance.
+     * @return the atom of the full system.
+     */
+    private int globalAtom(int ia) {
+      return (domainAtoms == null) ? ia : domainAtoms[ia];
+    }
+
     /**
      * The measpm method computes the volume of a single prism section of the full interior
      * polyhedron.
@@ -3605,7 +4165,7 @@ public class ConnollyRegion extends ParallelRegion {
      * @return the row major index.
      */
     private int index2(int i, int j, int k) {
-      return k + MXCUBE * (j + MXCUBE * i);
+      return k + gridZ * (j + gridY * i);
     }
 
     private void getVector(double[] ai, double[][] temp, int index) {
@@ -3633,7 +4193,6 @@ public class ConnollyRegion extends ParallelRegion {
     }
 
     private void computeVolumeGradient() {
-      int[][] cube = new int[2][MXCUBE * MXCUBE * MXCUBE];
       int[] inov = new int[MAXARC];
       double[] arci = new double[MAXARC];
       double[] arcf = new double[MAXARC];
@@ -3684,17 +4243,17 @@ public class ConnollyRegion extends ParallelRegion {
       double zstep = 0.0601;
 
       // Load the cubes based on coarse lattice; first of all set edge
-      // length to the maximum diameter of any atom.
+      // length to the maximum diameter of any atom; the lattice is sized to fit the system.
       double edge = 2.0 * rmax;
       int nx = (int) ((xmax - xmin) / edge);
       int ny = (int) ((ymax - ymin) / edge);
       int nz = (int) ((zmax - zmin) / edge);
-      if (max(max(nx, ny), nz) > MXCUBE) {
-        throw new EnergyException(" VolumeRegion derivative  --  Increase the Value of mxcube");
-      }
+      gridY = ny + 1;
+      gridZ = nz + 1;
+      int[][] cube = new int[2][(nx + 1) * gridY * gridZ];
 
       // Initialize the coarse lattice of cubes.
-      fill(cube[0], -1);
+      fill(cube[0], 0);
       fill(cube[1], -1);
 
       // Find the number of atoms in each cube.
@@ -3720,9 +4279,9 @@ public class ConnollyRegion extends ParallelRegion {
         for (int j = 0; j <= ny; j++) {
           for (int k = 0; k <= nz; k++) {
             tcube = cube[0][index2(i, j, k)];
-            if (tcube != -1) {
+            if (tcube > 0) {
               isum += tcube;
-              cube[1][index2(i, j, k)] = isum;
+              cube[1][index2(i, j, k)] = isum - 1;
             }
           }
         }
@@ -3749,9 +4308,9 @@ public class ConnollyRegion extends ParallelRegion {
         for (int j = 0; j <= ny; j++) {
           for (int k = 0; k <= nz; k++) {
             tcube = cube[0][index2(i, j, k)];
-            if (tcube != -1) {
+            if (tcube > 0) {
               isum += tcube;
-              cube[0][index2(i, j, k)] = isum;
+              cube[0][index2(i, j, k)] = isum - 1;
               cube[1][index2(i, j, k)]++;
             }
           }
@@ -3765,7 +4324,7 @@ public class ConnollyRegion extends ParallelRegion {
         double pre_dx = 0.0;
         double pre_dy = 0.0;
         double pre_dz = 0.0;
-        if (skip[ir]) {
+        if (skip[ir] || !ownsAtom(ir)) {
           continue;
         }
         double rr = radius[ir];
@@ -38,16 +38,22 @@
 package ffx.potential.nonbonded.implicit;
 
 import static ffx.numerics.atomic.AtomicDoubleArray.atomicDoubleArrayFactory;
-import static ffx.numerics.math.DoubleMath.add;
 import static ffx.numerics.math.DoubleMath.length2;
-import static ffx.numerics.math.DoubleMath.scale;
-import static ffx.numerics.math.DoubleMath.sub;
+import static ffx.utilities.PropertyGroup.ImplicitSolvent;
 import static java.lang.Double.compare;
 import static java.lang.String.format;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+import static java.util.Arrays.sort;
 import static org.apache.commons.math3.util.FastMath.PI;
 import static org.apache.commons.math3.util.FastMath.cbrt;
 import static org.apache.commons.math3.util.FastMath.exp;
+import static org.apache.commons.math3.util.FastMath.floor;
+import static org.apache.commons.math3.util.FastMath.log;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
 import static org.apache.commons.math3.util.FastMath.pow;
+import static org.apache.commons.math3.util.FastMath.sqrt;
 
 import edu.rit.pj.IntegerForLoop;
 import edu.rit.pj.ParallelRegion;
@@ -58,10 +64,8 @@ import ffx.numerics.atomic.AtomicDoubleArray.AtomicDoubleArrayImpl;
 import ffx.numerics.atomic.AtomicDoubleArray3D;
 import ffx.potential.bonded.Atom;
 import ffx.potential.parameters.ForceField;
+import ffx.utilities.FFXProperty;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -157,6 +161,16 @@ public class GaussVol {
    * (ex: a radii scale of 1.25 increases all radii by 25%)
    */
   public static final double DEFAULT_GAUSSVOL_RADII_SCALE = 1.15;
+  /**
+   * Default skin distance (A) for reuse of the overlap tree. While no atom has moved more than half
+   * the skin since the tree was built, the tree is rescanned rather than rebuilt. The default of 0.0
+   * rebuilds the tree for every evaluation.
+   */
+  public static final double DEFAULT_GAUSSVOL_SKIN = 0.0;
+  /**
+   * Buffer (A) added to the neighbor list cutoff to guard against round-off.
+   */
+  private static final double NEIGHBOR_BUFFER = 0.1;
 
   private static final double RMIN_TO_SIGMA = 1.0 / pow(2.0, 1.0 / 6.0);
 
@@ -177,6 +191,14 @@ public class GaussVol {
   private final double vdwRadiiScale;
   private final boolean includeHydrogen;
   private final boolean useSigma;
+  @FFXProperty(name = "gaussvol-skin", propertyGroup = ImplicitSolvent, defaultValue = "0.0",
+      description = """
+      The skin distance (Angstroms) for reuse of the GaussVol overlap tree. Atom pairs within the
+      skin of overlapping are kept in the tree, and while no atom has moved more than half the skin
+      since the tree was built, it is rescanned rather than rebuilt. The default of 0.0 rebuilds the
+      tree for every evaluation.
+      """)
+  private final double skin;
   private static final double FOUR_THIRDS_PI = 4.0 / 3.0 * PI;
 
   /**
@@ -229,6 +251,31 @@ public class GaussVol {
    * Total number of overlaps in overlap tree
    */
   private int totalNumberOfOverlaps = 0;
+  /**
+   * Overlaps whose unswitched volume exceeds this threshold are kept in the tree, even if their
+   * switched volume is zero, so that the tree remains valid within the skin.
+   */
+  private double skinVolumeThreshold = Double.MAX_VALUE;
+  /**
+   * Start index of the neighbors of each atom [nAtoms + 1].
+   */
+  private int[] neighborStart;
+  /**
+   * Neighbors of each atom (with a larger index) that may overlap.
+   */
+  private int[] neighborList;
+  /**
+   * Head of the linked list of atoms in each cell.
+   */
+  private int[] cellHead;
+  /**
+   * Next atom in the same cell.
+   */
+  private int[] cellNext;
+  /**
+   * Atomic coordinates when the overlap tree was last built [3 * nAtoms].
+   */
+  private double[] referenceXYZ;
   /**
    * Surface area (Ang^2).
    */
@@ -269,6 +316,10 @@ public class GaussVol {
     vdwRadiiScale = forceField.getDouble("GAUSSVOL_RADII_SCALE", DEFAULT_GAUSSVOL_RADII_SCALE);
     includeHydrogen = forceField.getBoolean("GAUSSVOL_HYDROGEN", false);
     useSigma = forceField.getBoolean("GAUSSVOL_USE_SIGMA", false);
+    skin = forceField.getDouble("GAUSSVOL_SKIN", DEFAULT_GAUSSVOL_SKIN);
+    neighborStart = new int[nAtoms + 1];
+    neighborList = new int[32 * nAtoms];
+    cellNext = new int[nAtoms];
 
     for (int i = 0; i < nAtoms; i++) {
       updateAtom(i);
@@ -301,70 +352,6 @@ public class GaussVol {
     return radii;
   }
 
-  /**
-   * Overlap between two Gaussians represented by a (V,c,a) triplet
-   *
-   * <p>V: volume of Gaussian c: position of Gaussian a: exponential coefficient
-   *
-   * <p>g(x) = V (a/pi)^(3/2) exp(-a(x-c)^2)
-   *
-   * <p>this version is based on V=V(V1,V2,r1,r2,alpha) alpha = (a1 + a2)/(a1 a2)
-   *
-   * <p>dVdr is (1/r)*(dV12/dr) dVdV is dV12/dV1 dVdalpha is dV12/dalpha d2Vdalphadr is
-   * (1/r)*d^2V12/dalpha dr d2VdVdr is (1/r) d^2V12/dV1 dr
-   *
-   * @param g1   Gaussian 1.
-   * @param g2   Gaussian 2.
-   * @param g12  Overlap Gaussian.
-   * @param dVdr is (1/r)*(dV12/dr)
-   * @param dVdV is dV12/dV1
-   * @param sfp  Derivative of volume.
-   * @return Volume.
-   */
-  private static double overlapGaussianAlpha(
-      GaussianVca g1, GaussianVca g2, GaussianVca g12, double[] dVdr, double[] dVdV, double[] sfp) {
-    double[] c1 = g1.c;
-    double[] c2 = g2.c;
-    double[] dist = new double[3];
-
-    sub(c2, c1, dist);
-    double d2 = length2(dist);
-    double a12 = g1.a + g2.a;
-    double deltai = 1.0 / a12;
-
-    // 1/alpha
-    double df = (g1.a) * (g2.a) * deltai;
-    double ef = exp(-df * d2);
-    double gvol = ((g1.v * g2.v) / pow(PI / df, 1.5)) * ef;
-
-    // (1/r)*(dV/dr) w/o switching function
-    double dgvol = -2.0 * df * gvol;
-    dVdr[0] = dgvol;
-
-    // (1/r)*(dV/dr) w/o switching function
-    double dgvolv = g1.v > 0.0 ? gvol / g1.v : 0.0;
-    dVdV[0] = dgvolv;
-
-    // Parameters for overlap gaussian.
-    // Note that c1 and c2 are Vec3's, and the "*" operator wants the vector first and scalar
-    // second:
-    // vector2 = vector1 * scalar
-    // g12.c = ((c1 * g1.a) + (c2 * g2.a)) * deltai;
-    double[] c1a = new double[3];
-    double[] c2a = new double[3];
-    scale(c1, g1.a * deltai, c1a);
-    scale(c2, g2.a * deltai, c2a);
-    add(c1a, c2a, g12.c);
-    g12.a = a12;
-    g12.v = gvol;
-
-    // Switching function
-    double[] sp = new double[1];
-    double s = switchingFunction(gvol, VOLMINA, VOLMINB, sp);
-    sfp[0] = sp[0] * gvol + s;
-    return s * gvol;
-  }
-
   /**
    * Overlap volume switching function and 1st derivative.
    *
@@ -414,15 +401,20 @@ public class GaussVol {
         updateAtom(i);
       }
 
-      // Update the overlap tree.
-      computeTree(positions);
+      // Update the overlap tree, or rescan it if no atom has left the skin.
+      if (rebuildTree(positions)) {
+        computeTree(positions);
+      } else {
+        rescanTreeVolumes(positions);
+      }
 
       // Compute the volume.
       computeVolume(totalVolume, energy, grad, gradV, freeVolume, selfVolume);
     } else {
       // Execute in parallel.
       try {
-        gaussVolRegion.init(GAUSSVOL_MODE.COMPUTE_TREE, positions);
+        GAUSSVOL_MODE mode = rebuildTree(positions) ? GAUSSVOL_MODE.COMPUTE_TREE : GAUSSVOL_MODE.RESCAN_TREE;
+        gaussVolRegion.init(mode, positions);
         parallelTeam.execute(gaussVolRegion);
       } catch (Exception e) {
         logger.severe(" Exception evaluating GaussVol " + e);
@@ -586,6 +578,183 @@ public class GaussVol {
     }
   }
 
+  /**
+   * Check if the overlap tree must be rebuilt, in which case the neighbor list is updated.
+   *
+   * @param positions Current atomic positions.
+   * @return true if the tree must be rebuilt.
+   */
+  private boolean rebuildTree(double[][] positions) {
+    if (skin > 0.0 && referenceXYZ != null) {
+      double limit = 0.25 * skin * skin;
+      boolean moved = false;
+      for (int i = 0; i < nAtoms; i++) {
+        int index = 3 * i;
+        double dx = positions[i][0] - referenceXYZ[index];
+        double dy = positions[i][1] - referenceXYZ[index + 1];
+        double dz = positions[i][2] - referenceXYZ[index + 2];
+        if (dx * dx + dy * dy + dz * dz > limit) {
+          moved = true;
+          break;
+        }
+      }
+      if (!moved) {
+        return false;
+      }
+    }
+
+    buildNeighborList(positions);
+
+    if (skin > 0.0) {
+      if (referenceXYZ == null) {
+        referenceXYZ = new double[3 * nAtoms];
+      }
+      for (int i = 0; i < nAtoms; i++) {
+        System.arraycopy(positions[i], 0, referenceXYZ, 3 * i, 3);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Distance beyond which the unswitched overlap volume of any pair of atoms is below a threshold.
+   *
+   * @param vMax      The largest atomic volume.
+   * @param dfMax     The largest pair exponent a1 * a2 / (a1 + a2).
+   * @param dfMin     The smallest pair exponent a1 * a2 / (a1 + a2).
+   * @param threshold The volume threshold.
+   * @return The cutoff distance.
+   */
+  private static double overlapCutoff(double vMax, double dfMax, double dfMin, double threshold) {
+    double arg = vMax * vMax * pow(dfMax / PI, 1.5) / threshold;
+    return arg > 1.0 ? sqrt(log(arg) / dfMin) : 0.0;
+  }
+
+  /**
+   * Use a cell list to find the pairs of atoms whose overlap volume may be above threshold.
+   *
+   * @param positions Current atomic positions.
+   */
+  private void buildNeighborList(double[][] positions) {
+    // Bound the pair overlap volume using the largest volume and the range of Gaussian exponents.
+    double vMax = 0.0;
+    double aMin = Double.MAX_VALUE;
+    double aMax = 0.0;
+    double[] lo = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+    double[] hi = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    int nHeavy = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      if (ishydrogen[i] || volumes[i] <= 0.0) {
+        continue;
+      }
+      nHeavy++;
+      double a = sphereConversion / (radii[i] * radii[i]);
+      vMax = max(vMax, volumes[i]);
+      aMin = min(aMin, a);
+      aMax = max(aMax, a);
+      for (int j = 0; j < 3; j++) {
+        lo[j] = min(lo[j], positions[i][j]);
+        hi[j] = max(hi[j], positions[i][j]);
+      }
+    }
+
+    if (nHeavy < 2) {
+      fill(neighborStart, 0);
+      return;
+    }
+
+    double dfMax = 0.5 * aMax;
+    double dfMin = 0.5 * aMin;
+    double threshold = VOLMINA;
+    if (skin > 0.0) {
+      // Keep pair overlaps that could grow above VOLMINA if the pair approaches by the skin.
+      double cutoff = overlapCutoff(vMax, dfMax, dfMin, VOLMINA);
+      threshold = VOLMINA * exp(-2.0 * dfMax * (cutoff + skin) * skin);
+      skinVolumeThreshold = threshold;
+    }
+    double cutoff = overlapCutoff(vMax, dfMax, dfMin, threshold) + NEIGHBOR_BUFFER;
+    double cutoff2 = cutoff * cutoff;
+
+    // Assign atoms to cells with an edge at least as large as the cutoff.
+    double cellSize = max(cutoff, 1.0);
+    int[] cells = new int[3];
+    while (true) {
+      for (int j = 0; j < 3; j++) {
+        cells[j] = (int) floor((hi[j] - lo[j]) / cellSize) + 1;
+      }
+      if ((long) cells[0] * cells[1] * cells[2] <= 8L * nHeavy + 64) {
+        break;
+      }
+      cellSize *= 2.0;
+    }
+    int nCells = cells[0] * cells[1] * cells[2];
+    if (cellHead == null || cellHead.length < nCells) {
+      cellHead = new int[nCells];
+    }
+    fill(cellHead, 0, nCells, -1);
+    for (int i = 0; i < nAtoms; i++) {
+      if (ishydrogen[i] || volumes[i] <= 0.0) {
+        continue;
+      }
+      int cell = cellIndex(positions[i], lo, cellSize, cells);
+      cellNext[i] = cellHead[cell];
+      cellHead[cell] = i;
+    }
+
+    // Collect the neighbors of each atom with a larger index.
+    int count = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      neighborStart[i] = count;
+      if (ishydrogen[i] || volumes[i] <= 0.0) {
+        continue;
+      }
+      double[] xi = positions[i];
+      int cx = min(cells[0] - 1, (int) floor((xi[0] - lo[0]) / cellSize));
+      int cy = min(cells[1] - 1, (int) floor((xi[1] - lo[1]) / cellSize));
+      int cz = min(cells[2] - 1, (int) floor((xi[2] - lo[2]) / cellSize));
+      for (int ix = max(0, cx - 1); ix <= min(cells[0] - 1, cx + 1); ix++) {
+        for (int iy = max(0, cy - 1); iy <= min(cells[1] - 1, cy + 1); iy++) {
+          for (int iz = max(0, cz - 1); iz <= min(cells[2] - 1, cz + 1); iz++) {
+            for (int j = cellHead[(ix * cells[1] + iy) * cells[2] + iz]; j >= 0; j = cellNext[j]) {
+              if (j <= i) {
+                continue;
+              }
+              double[] xj = positions[j];
+              double dx = xj[0] - xi[0];
+              double dy = xj[1] - xi[1];
+              double dz = xj[2] - xi[2];
+              if (dx * dx + dy * dy + dz * dz < cutoff2) {
+                if (count == neighborList.length) {
+                  neighborList = copyOf(neighborList, 2 * count);
+                }
+                neighborList[count++] = j;
+              }
+            }
+          }
+        }
+      }
+      // Siblings are visited in atomic order.
+      sort(neighborList, neighborStart[i], count);
+    }
+    neighborStart[nAtoms] = count;
+  }
+
+  /**
+   * Compute the cell index of an atom.
+   *
+   * @param xyz      Atomic position.
+   * @param lo       Lower corner of the cell grid.
+   * @param cellSize Cell edge length.
+   * @param cells    Number of cells along each axis.
+   * @return The cell index.
+   */
+  private static int cellIndex(double[] xyz, double[] lo, double cellSize, int[] cells) {
+    int ix = min(cells[0] - 1, (int) floor((xyz[0] - lo[0]) / cellSize));
+    int iy = min(cells[1] - 1, (int) floor((xyz[1] - lo[1]) / cellSize));
+    int iz = min(cells[2] - 1, (int) floor((xyz[2] - lo[2]) / cellSize));
+    return (ix * cells[1] + iy) * cells[2] + iz;
+  }
+
   /**
    * Constructs the tree.
    *
@@ -680,156 +849,281 @@ public class GaussVol {
   }
 
   /**
-   * 3D Gaussian, V,c,a representation.
+   * Update the radius, volume and hydrogen flag of an atom after its van der Waals type changes.
+   *
+   * @param i The atom index.
    */
-  private static class GaussianVca {
-
-    // Gaussian volume
-    public double v;
-    // Gaussian exponent
-    public double a;
-    // Center
-    public double[] c = new double[3];
+  public void updateAtom(int i) {
+    Atom atom = atoms[i];
+    ishydrogen[i] = atom.isHydrogen();
+    if (includeHydrogen) {
+      ishydrogen[i] = false;
+    }
+    radii[i] = atom.getVDWType().radius / 2.0;
+    if (useSigma) {
+      radii[i] *= RMIN_TO_SIGMA;
+    }
+    radii[i] += vdwRadiiOffset;
+    radii[i] *= vdwRadiiScale;
+    volumes[i] = FOUR_THIRDS_PI * pow(radii[i], 3);
+    gammas[i] = 1.0;
+    radiiOffset[i] = radii[i] + offset;
+    volumeOffset[i] = FOUR_THIRDS_PI * pow(radiiOffset[i], 3);
+    // The neighbor list depends on the radii, volumes and hydrogen flags, so rebuild the tree.
+    referenceXYZ = null;
   }
 
   /**
-   * Overlap between two Gaussians represented by a (V,c,a) triplet V: volume of Gaussian c: position
-   * of Gaussian a: exponential coefficient
-   *
-   * <p>g(x) = V (a/pi)^(3/2) exp(-a(x-c)^2)
-   *
-   * <p>This version is based on V=V(V1,V2,r1,r2,alpha) alpha = (a1 + a2)/(a1 a2) dVdr is
-   * (1/r)*(dV12/dr) dVdV is dV12/dV1 dVdalpha is dV12/dalpha d2Vdalphadr is (1/r)*d^2V12/dalpha dr
-   * d2VdVdr is (1/r) d^2V12/dV1 dr
+   * Gaussian Overlap Tree.
+   * <p>
+   * The tree is stored in pooled primitive arrays (one entry per overlap) that are reused between
+   * evaluations, and are only grown when a larger tree is encountered.
    */
-  private static class GaussianOverlap implements Comparable<GaussianOverlap> {
+  private class GaussianOverlapTree {
 
     /**
-     * level (0=root, 1=atoms, 2=2-body, 3=3-body, etc.)
+     * Number of atoms.
      */
-    public int level;
+    int nAtoms;
     /**
-     * Gaussian representing overlap
+     * Number of overlaps in the tree. The root is at index 0. Atoms are from 1 .. nAtoms.
      */
-    public GaussianVca g;
+    int size;
     /**
-     * Volume of overlap (also stores Psi1..i in GPU version)
+     * Level of each overlap (0=root, 1=atoms, 2=2-body, 3=3-body, etc.)
      */
-    public double volume;
+    int[] level;
     /**
-     * The atomic index of the last atom of the overlap list (i, j, k, ..., atom)
+     * The atomic index of the last atom of each overlap (i, j, k, ..., atom).
      */
-    public int atom;
+    int[] atom;
     /**
-     * Derivative wrt volume of first atom (also stores F1..i in GPU version)
+     * Index of the parent overlap.
      */
-    double dvv1;
+    int[] parentIndex;
     /**
-     * Derivative wrt position of first atom (also stores P1..i in GPU version)
+     * Start index of the children of each overlap.
      */
-    double[] dv1;
+    int[] childrenStartIndex;
+    /**
+     * Number of children of each overlap.
+     */
+    int[] childrenCount;
+    /**
+     * Volume of the (unswitched) Gaussian representing each overlap.
+     */
+    double[] gv;
+    /**
+     * Exponent of the Gaussian representing each overlap.
+     */
+    double[] ga;
     /**
-     * Sum gammai for this overlap (surface tension parameter)
+     * Center of the Gaussian representing each overlap [3 * size].
      */
-    double gamma1i;
+    double[] gc;
     /**
-     * Self volume accumulator (also stores Psi'1..i in GPU version)
+     * Switched volume of each overlap.
      */
-    double selfVolume;
+    double[] volume;
     /**
-     * Switching function derivatives
+     * Derivative of each overlap volume with respect to the volume of its parent.
      */
-    double sfp;
+    double[] dvv1;
     /**
-     * = (Parent, atom) index in tree list of parent overlap
+     * Derivative of each overlap volume with respect to the position of its parent [3 * size].
      */
-    int parentIndex;
+    double[] dv1;
     /**
-     * Start index in tree array of children
+     * Sum of gammas (surface tension parameters) for each overlap.
      */
-    int childrenStartIndex;
+    double[] gamma1i;
     /**
-     * Number of children.
+     * Switching function derivatives.
      */
-    int childrenCount;
+    double[] sfp;
 
-    public GaussianOverlap() {
-      g = new GaussianVca();
-      dv1 = new double[3];
-    }
+    /**
+     * Number of children in the children buffer.
+     */
+    private int nChildren;
+    private int[] childAtom;
+    private double[] childGv;
+    private double[] childGa;
+    private double[] childGc;
+    private double[] childVolume;
+    private double[] childDvv1;
+    private double[] childDv1;
+    private double[] childGamma1i;
+    private double[] childSfp;
+    private int[] childOrder;
 
-    public GaussianOverlap(GaussianVca g, double volume, double selfVolume, int atom) {
-      this.g = g;
-      this.volume = volume;
-      this.selfVolume = selfVolume;
-      this.atom = atom;
+    /**
+     * Outputs of the overlap between two Gaussians.
+     */
+    private double overlapV;
+    private double overlapA;
+    private final double[] overlapC = new double[3];
+    private final double[] overlapDist = new double[3];
+    private double overlapDVdr;
+    private double overlapDVdV;
+    private double overlapSfp;
+    private final double[] sp = new double[1];
 
-      dv1 = new double[3];
-    }
+    /**
+     * Subtree accumulators for each level of the tree.
+     */
+    final double[] psi1i = new double[MAX_ORDER + 2];
+    private final double[] f1i = new double[MAX_ORDER + 2];
+    private final double[] p1i = new double[3 * (MAX_ORDER + 2)];
+    private final double[] psip1i = new double[MAX_ORDER + 2];
+    private final double[] fp1i = new double[MAX_ORDER + 2];
+    private final double[] pp1i = new double[3 * (MAX_ORDER + 2)];
+    final double[] energy1i = new double[MAX_ORDER + 2];
+    private final double[] fenergy1i = new double[MAX_ORDER + 2];
+    private final double[] penergy1i = new double[3 * (MAX_ORDER + 2)];
 
     /**
-     * Order by volume, larger first.
+     * GaussianOverlapTree constructor.
      *
-     * @param o GaussianOverlap to compare to.
-     * @return Compare by volume.
+     * @param nAtoms Number of atoms.
      */
-    @Override
-    public int compareTo(GaussianOverlap o) {
-      return compare(volume, o.volume);
+    GaussianOverlapTree(int nAtoms) {
+      this.nAtoms = nAtoms;
+      allocateTree(2 * (nAtoms + 1));
+      allocateChildren(64);
     }
 
     /**
-     * Print overlaps.
+     * Ensure the tree can hold the requested number of overlaps.
+     *
+     * @param capacity The required capacity.
      */
-    public void printOverlap() {
-      logger.info(format(" Gaussian Overlap %d: Atom: %d, Parent: %d, ChildrenStartIndex: %d, ChildrenCount: %d,"
-              + "Volume: %6.3f, Gamma: %6.3f, Gauss.a: %6.3f, Gauss.v: %6.3f, Gauss.center (%6.3f,%6.3f,%6.3f),"
-              + "dedx: %6.3f, dedy: %6.3f, dedz: %6.3f, sfp: %6.3f",
-          level, atom, parentIndex, childrenStartIndex, childrenCount, volume, gamma1i,
-          g.a, g.v, g.c[0], g.c[1], g.c[2], dv1[0], dv1[1], dv1[2], sfp));
-    }
-  }
-
-  public void updateAtom(int i) {
-    Atom atom = atoms[i];
-    ishydrogen[i] = atom.isHydrogen();
-    if (includeHydrogen) {
-      ishydrogen[i] = false;
-    }
-    radii[i] = atom.getVDWType().radius / 2.0;
-    if (useSigma) {
-      radii[i] *= RMIN_TO_SIGMA;
+    private void allocateTree(int capacity) {
+      if (level != null && level.length >= capacity) {
+        return;
+      }
+      int n = level == null ? capacity : max(capacity, 2 * level.length);
+      if (level == null) {
+        level = new int[n];
+        atom = new int[n];
+        parentIndex = new int[n];
+        childrenStartIndex = new int[n];
+        childrenCount = new int[n];
+        gv = new double[n];
+        ga = new double[n];
+        gc = new double[3 * n];
+        volume = new double[n];
+        dvv1 = new double[n];
+        dv1 = new double[3 * n];
+        gamma1i = new double[n];
+        sfp = new double[n];
+      } else {
+        level = copyOf(level, n);
+        atom = copyOf(atom, n);
+        parentIndex = copyOf(parentIndex, n);
+        childrenStartIndex = copyOf(childrenStartIndex, n);
+        childrenCount = copyOf(childrenCount, n);
+        gv = copyOf(gv, n);
+        ga = copyOf(ga, n);
+        gc = copyOf(gc, 3 * n);
+        volume = copyOf(volume, n);
+        dvv1 = copyOf(dvv1, n);
+        dv1 = copyOf(dv1, 3 * n);
+        gamma1i = copyOf(gamma1i, n);
+        sfp = copyOf(sfp, n);
+      }
     }
-    radii[i] += vdwRadiiOffset;
-    radii[i] *= vdwRadiiScale;
-    volumes[i] = FOUR_THIRDS_PI * pow(radii[i], 3);
-    gammas[i] = 1.0;
-    radiiOffset[i] = radii[i] + offset;
-    volumeOffset[i] = FOUR_THIRDS_PI * pow(radiiOffset[i], 3);
-  }
-
-  /**
-   * Gaussian Overlap Tree.
-   */
-  private class GaussianOverlapTree {
 
     /**
-     * Number of atoms.
-     */
-    int nAtoms;
-    /**
-     * The root is at index 0. Atoms are from 1 .. nAtoms.
+     * Ensure the children buffer can hold the requested number of overlaps.
+     *
+     * @param capacity The required capacity.
      */
-    List<GaussianOverlap> overlaps;
+    private void allocateChildren(int capacity) {
+      if (childAtom != null && childAtom.length >= capacity) {
+        return;
+      }
+      int n = childAtom == null ? capacity : max(capacity, 2 * childAtom.length);
+      if (childAtom == null) {
+        childAtom = new int[n];
+        childGv = new double[n];
+        childGa = new double[n];
+        childGc = new double[3 * n];
+        childVolume = new double[n];
+        childDvv1 = new double[n];
+        childDv1 = new double[3 * n];
+        childGamma1i = new double[n];
+        childSfp = new double[n];
+        childOrder = new int[n];
+      } else {
+        childAtom = copyOf(childAtom, n);
+        childGv = copyOf(childGv, n);
+        childGa = copyOf(childGa, n);
+        childGc = copyOf(childGc, 3 * n);
+        childVolume = copyOf(childVolume, n);
+        childDvv1 = copyOf(childDvv1, n);
+        childDv1 = copyOf(childDv1, 3 * n);
+        childGamma1i = copyOf(childGamma1i, n);
+        childSfp = copyOf(childSfp, n);
+        childOrder = copyOf(childOrder, n);
+      }
+    }
 
     /**
-     * GaussianOverlapTree constructor.
+     * Overlap between the Gaussian of overlap slot1 and the Gaussian of atomic slot2, each
+     * represented by a (V,c,a) triplet.
      *
-     * @param nAtoms Number of atoms.
+     * <p>V: volume of Gaussian c: position of Gaussian a: exponential coefficient
+     *
+     * <p>g(x) = V (a/pi)^(3/2) exp(-a(x-c)^2)
+     *
+     * <p>this version is based on V=V(V1,V2,r1,r2,alpha) alpha = (a1 + a2)/(a1 a2)
+     *
+     * <p>The overlap Gaussian (V,c,a), dVdr = (1/r)*(dV12/dr), dVdV = dV12/dV1 and the derivative
+     * of the switched volume are stored in the overlap output fields.
+     *
+     * @param slot1 Overlap slot of Gaussian 1.
+     * @param slot2 Atomic slot of Gaussian 2.
+     * @return The switched volume.
      */
-    GaussianOverlapTree(int nAtoms) {
-      this.nAtoms = nAtoms;
-      overlaps = Collections.synchronizedList(new ArrayList<>(nAtoms + 1));
+    private double overlapGaussianAlpha(int slot1, int slot2) {
+      double v1 = gv[slot1];
+      double a1 = ga[slot1];
+      double a2 = ga[slot2];
+      int i1 = 3 * slot1;
+      int i2 = 3 * slot2;
+      overlapDist[0] = gc[i2] - gc[i1];
+      overlapDist[1] = gc[i2 + 1] - gc[i1 + 1];
+      overlapDist[2] = gc[i2 + 2] - gc[i1 + 2];
+      double d2 = length2(overlapDist);
+      double a12 = a1 + a2;
+      double deltai = 1.0 / a12;
+
+      // 1/alpha
+      double df = a1 * a2 * deltai;
+      double ef = exp(-df * d2);
+      double gvol = ((v1 * gv[slot2]) / pow(PI / df, 1.5)) * ef;
+
+      // (1/r)*(dV/dr) w/o switching function
+      overlapDVdr = -2.0 * df * gvol;
+
+      // (1/r)*(dV/dr) w/o switching function
+      overlapDVdV = v1 > 0.0 ? gvol / v1 : 0.0;
+
+      // Parameters for overlap gaussian.
+      // g12.c = ((c1 * g1.a) + (c2 * g2.a)) * deltai;
+      double s1 = a1 * deltai;
+      double s2 = a2 * deltai;
+      overlapC[0] = gc[i1] * s1 + gc[i2] * s2;
+      overlapC[1] = gc[i1 + 1] * s1 + gc[i2 + 1] * s2;
+      overlapC[2] = gc[i1 + 2] * s1 + gc[i2 + 2] * s2;
+      overlapA = a12;
+      overlapV = gvol;
+
+      // Switching function
+      double s = switchingFunction(gvol, VOLMINA, VOLMINB, sp);
+      overlapSfp = sp[0] * gvol + s;
+      return s * gvol;
     }
 
     /**
@@ -845,84 +1139,114 @@ public class GaussVol {
         double[][] pos, double[] radii, double[] volumes, double[] gammas, boolean[] ishydrogen) {
 
       // Reset tree
-      overlaps = Collections.synchronizedList(new ArrayList<>(nAtoms + 1));
+      size = nAtoms + 1;
+      allocateTree(size);
 
       // Slot 0 contains the master tree information, children = all of the atoms.
-      GaussianOverlap overlap = new GaussianOverlap();
-      overlap.level = 0;
-      overlap.volume = 0;
-      overlap.dvv1 = 0.;
-      overlap.selfVolume = 0;
-      overlap.sfp = 1.;
-      overlap.gamma1i = 0.;
-      overlap.parentIndex = -1;
-      overlap.atom = -1;
-      overlap.childrenStartIndex = 1;
-      overlap.childrenCount = nAtoms;
-      overlaps.add(0, overlap);
+      level[0] = 0;
+      gv[0] = 0.0;
+      ga[0] = 0.0;
+      gc[0] = 0.0;
+      gc[1] = 0.0;
+      gc[2] = 0.0;
+      volume[0] = 0.0;
+      dvv1[0] = 0.0;
+      dv1[0] = 0.0;
+      dv1[1] = 0.0;
+      dv1[2] = 0.0;
+      sfp[0] = 1.0;
+      gamma1i[0] = 0.0;
+      parentIndex[0] = -1;
+      atom[0] = -1;
+      childrenStartIndex[0] = 1;
+      childrenCount[0] = nAtoms;
 
       // List of atoms start at slot 1.
       for (int iat = 0; iat < nAtoms; iat++) {
-        overlap = new GaussianOverlap();
-        double a = sphereConversion / (radii[iat] * radii[iat]);
-        double vol = ishydrogen[iat] ? 0 : volumes[iat];
-        overlap.level = 1;
-        overlap.g.v = vol;
-        overlap.g.a = a;
-        overlap.g.c = pos[iat];
-        overlap.volume = vol;
-        overlap.dvv1 = 1; // dVi/dVi
-        overlap.selfVolume = 0;
-        overlap.sfp = 1;
-        overlap.gamma1i = gammas[iat]; // gamma[iat] / SA_DR;
-        overlap.parentIndex = 0;
-        overlap.atom = iat;
-        overlap.childrenStartIndex = -1;
-        overlap.childrenCount = -1;
-        overlaps.add(iat + 1, overlap);
+        int slot = iat + 1;
+        initAtom(slot, pos[iat], radii[iat], ishydrogen[iat] ? 0.0 : volumes[iat], gammas[iat]);
+        parentIndex[slot] = 0;
+        atom[slot] = iat;
+        childrenStartIndex[slot] = -1;
+        childrenCount[slot] = -1;
       }
     }
 
     /**
-     * Add Children.
+     * Load the Gaussian for an atom.
      *
-     * @param parentIndex      Parent index.
-     * @param childrenOverlaps Children overlaps.
+     * @param slot   The atomic slot.
+     * @param xyz    Atomic position.
+     * @param radius Atomic radius.
+     * @param vol    Atomic volume.
+     * @param gamma  Atomic surface tension.
+     */
+    private void initAtom(int slot, double[] xyz, double radius, double vol, double gamma) {
+      int index = 3 * slot;
+      level[slot] = 1;
+      gv[slot] = vol;
+      ga[slot] = sphereConversion / (radius * radius);
+      gc[index] = xyz[0];
+      gc[index + 1] = xyz[1];
+      gc[index + 2] = xyz[2];
+      volume[slot] = vol;
+      dv1[index] = 0.0;
+      dv1[index + 1] = 0.0;
+      dv1[index + 2] = 0.0;
+      dvv1[slot] = 1.0; // dVi/dVi
+      sfp[slot] = 1.0;
+      gamma1i[slot] = gamma; // gamma[iat] / SA_DR;
+    }
+
+    /**
+     * Add the children in the children buffer to the tree.
+     *
+     * @param parent Parent index.
      * @return Index of the first added child.
      */
-    int addChildren(int parentIndex, List<GaussianOverlap> childrenOverlaps) {
+    int addChildren(int parent) {
 
       // Adds children starting at the last slot
-      int startIndex = overlaps.size();
-
-      int noverlaps = childrenOverlaps.size();
-
-      // Retrieves address of root overlap
-      GaussianOverlap root = overlaps.get(parentIndex);
+      int startIndex = size;
+      int noverlaps = nChildren;
+      allocateTree(size + noverlaps);
 
       // Registers list of children
-      root.childrenStartIndex = startIndex;
-      root.childrenCount = noverlaps;
-
-      // Sort neighbors by overlap volume.
-      Collections.sort(childrenOverlaps);
+      childrenStartIndex[parent] = startIndex;
+      childrenCount[parent] = noverlaps;
+
+      // Sort neighbors by overlap volume (a stable insertion sort).
+      for (int i = 0; i < noverlaps; i++) {
+        int index = i;
+        int j = i - 1;
+        while (j >= 0 && compare(childVolume[childOrder[j]], childVolume[index]) > 0) {
+          childOrder[j + 1] = childOrder[j];
+          j--;
+        }
+        childOrder[j + 1] = index;
+      }
 
-      int rootLevel = root.level;
-      int nextLevel = rootLevel + 1;
+      int nextLevel = level[parent] + 1;
 
       // Now copies the children overlaps from temp buffer.
-      for (GaussianOverlap child : childrenOverlaps) {
-        child.level = nextLevel;
-
+      for (int i = 0; i < noverlaps; i++) {
+        int child = childOrder[i];
+        int slot = size++;
+        level[slot] = nextLevel;
+        atom[slot] = childAtom[child];
         // Connect overlap to parent
-        child.parentIndex = parentIndex;
-
+        parentIndex[slot] = parent;
         // Reset its children indexes
-        child.childrenStartIndex = -1;
-        child.childrenCount = -1;
-
-        // Add to tree.
-        overlaps.add(child);
+        childrenStartIndex[slot] = -1;
+        childrenCount[slot] = -1;
+        gv[slot] = childGv[child];
+        ga[slot] = childGa[child];
+        volume[slot] = childVolume[child];
+        dvv1[slot] = childDvv1[child];
+        gamma1i[slot] = childGamma1i[child];
+        sfp[slot] = childSfp[child];
+        System.arraycopy(childGc, 3 * child, gc, 3 * slot, 3);
+        System.arraycopy(childDv1, 3 * child, dv1, 3 * slot, 3);
       }
 
       return startIndex;
@@ -930,102 +1254,111 @@ public class GaussVol {
 
     /**
      * Scans the siblings of overlap identified by "rootIndex" to create children overlaps, returns
-     * them into the "childrenOverlaps" buffer: (root) + (atom) -> (root, atom)
+     * them into the children buffer: (root) + (atom) -> (root, atom)
+     * <p>
+     * The siblings of an atom are restricted to the atoms in its neighbor list.
      *
-     * @param rootIndex        Root index.
-     * @param childrenOverlaps Children overlaps.
+     * @param rootIndex Root index.
      */
-    void computeChildren(int rootIndex, List<GaussianOverlap> childrenOverlaps) {
-      int parentIndex;
-      int siblingStart, siblingCount;
-
+    void computeChildren(int rootIndex) {
       // Reset output buffer
-      childrenOverlaps.clear();
-
-      // Retrieves overlap.
-      GaussianOverlap root = overlaps.get(rootIndex);
+      nChildren = 0;
 
       // Retrieves parent overlap.
-      parentIndex = root.parentIndex;
+      int parent = parentIndex[rootIndex];
 
       // Master root? can't do computeChildren() on master root
-      if (parentIndex < 0) {
+      if (parent < 0) {
         throw new IllegalArgumentException(" Cannot compute children of master node!");
       }
 
-      if (root.level >= MAX_ORDER) {
+      if (level[rootIndex] >= MAX_ORDER) {
         return; // Ignore overlaps above a certain order to cap computational cost.
       }
 
-      GaussianOverlap parent = overlaps.get(parentIndex);
-
       // Retrieves start index and count of siblings. Includes both younger and older siblings
-      siblingStart = parent.childrenStartIndex;
-      siblingCount = parent.childrenCount;
+      int siblingStart = childrenStartIndex[parent];
+      int siblingCount = childrenCount[parent];
 
       // Parent is not initialized?
       if (siblingStart < 0 || siblingCount < 0) {
         throw new IllegalArgumentException(
-            format(" Parent %s of overlap %s has no sibilings.", parent, root));
+            format(" Parent %d of overlap %d has no sibilings.", parent, rootIndex));
       }
 
       // This overlap somehow is not the child of registered parent.
       if (rootIndex < siblingStart && rootIndex > siblingStart + siblingCount - 1) {
         throw new IllegalArgumentException(
-            format(" Node %s is somehow not the child of its parent %s", root, parent));
+            format(" Node %d is somehow not the child of its parent %d", rootIndex, parent));
       }
 
-      // Now loops over "younger" siblings (i<j loop) to compute new overlaps.
-      // Loop starts at the first younger sibling, and runs to the end of all siblings.
-      for (int slotj = rootIndex + 1; slotj < siblingStart + siblingCount; slotj++) {
-
-        GaussianVca g12 = new GaussianVca();
-
-        GaussianOverlap sibling = overlaps.get(slotj);
-        double gvol;
-        double[] dVdr = new double[1];
-        double[] dVdV = new double[1];
-        double[] sfp = new double[1];
-
-        // Atomic gaussian of last atom of sibling.
-        int atom2 = sibling.atom;
-        GaussianVca g1 = root.g;
-
-        // Atoms are stored in the tree at indexes 1...N
-        GaussianVca g2 = overlaps.get(atom2 + 1).g;
-        gvol = overlapGaussianAlpha(g1, g2, g12, dVdr, dVdV, sfp);
-
-        /*
-         Create child if overlap volume is above a threshold.
-         Due to infinite support, the Gaussian volume is never zero.
-        */
-        if (gvol > MIN_GVOL) {
-          GaussianOverlap ov = new GaussianOverlap(g12, gvol, 0.0, atom2);
-          // dv1 is the gradient of V(123..)n with respect to the position of 1
-          // ov.dv1 = ( g2.c - g1.c ) * (-dVdr);
-          sub(g2.c, g1.c, ov.dv1);
-          scale(ov.dv1, -dVdr[0], ov.dv1);
-
-          // dvv1 is the derivative of V(123...)n with respect to V(123...)
-          ov.dvv1 = dVdV[0];
-          ov.sfp = sfp[0];
-          ov.gamma1i = root.gamma1i + overlaps.get(atom2 + 1).gamma1i;
-          childrenOverlaps.add(ov);
+      if (parent == 0) {
+        // The younger siblings of an atom are the atoms in its neighbor list.
+        int iat = atom[rootIndex];
+        for (int n = neighborStart[iat]; n < neighborStart[iat + 1]; n++) {
+          addChild(rootIndex, neighborList[n] + 1);
+        }
+      } else {
+        // Now loops over "younger" siblings (i<j loop) to compute new overlaps.
+        // Loop starts at the first younger sibling, and runs to the end of all siblings.
+        for (int slotj = rootIndex + 1; slotj < siblingStart + siblingCount; slotj++) {
+          addChild(rootIndex, slotj);
         }
       }
     }
 
+    /**
+     * Add the overlap of the root with the last atom of a sibling to the children buffer if its
+     * volume is above threshold.
+     *
+     * @param rootIndex The root index.
+     * @param sibling   The sibling index.
+     */
+    private void addChild(int rootIndex, int sibling) {
+      // Atomic gaussian of last atom of sibling.
+      int atom2 = atom[sibling];
+
+      // Atoms are stored in the tree at indexes 1...N
+      double gvol = overlapGaussianAlpha(rootIndex, atom2 + 1);
+
+      /*
+       Create child if overlap volume is above a threshold.
+       Due to infinite support, the Gaussian volume is never zero.
+       Within a skin, overlaps that may grow above threshold are also kept.
+      */
+      if (gvol > MIN_GVOL || overlapV > skinVolumeThreshold) {
+        allocateChildren(nChildren + 1);
+        int child = nChildren++;
+        int index = 3 * child;
+        childAtom[child] = atom2;
+        childGv[child] = overlapV;
+        childGa[child] = overlapA;
+        childGc[index] = overlapC[0];
+        childGc[index + 1] = overlapC[1];
+        childGc[index + 2] = overlapC[2];
+        childVolume[child] = gvol;
+        // dv1 is the gradient of V(123..)n with respect to the position of 1
+        // ov.dv1 = ( g2.c - g1.c ) * (-dVdr);
+        childDv1[index] = overlapDist[0] * -overlapDVdr;
+        childDv1[index + 1] = overlapDist[1] * -overlapDVdr;
+        childDv1[index + 2] = overlapDist[2] * -overlapDVdr;
+        // dvv1 is the derivative of V(123...)n with respect to V(123...)
+        childDvv1[child] = overlapDVdV;
+        childSfp[child] = overlapSfp;
+        childGamma1i[child] = gamma1i[rootIndex] + gamma1i[atom2 + 1];
+      }
+    }
+
     /**
      * Grow the tree with more children starting at the given root slot (recursive).
      *
      * @param root The root index.
      */
     private void computeAndAddChildrenR(int root) {
-      List<GaussianOverlap> childrenOverlaps = Collections.synchronizedList(new ArrayList<>());
-      computeChildren(root, childrenOverlaps);
-      int nOverlaps = childrenOverlaps.size();
+      computeChildren(root);
+      int nOverlaps = nChildren;
       if (nOverlaps > 0) {
-        int startSlot = addChildren(root, childrenOverlaps);
+        int startSlot = addChildren(root);
         for (int ichild = startSlot; ichild < startSlot + nOverlaps; ichild++) {
           computeAndAddChildrenR(ichild);
           totalNumberOfOverlaps++;
@@ -1054,17 +1387,12 @@ public class GaussVol {
     /**
      * Compute volumes, energy of the overlap at slot and calls itself recursively to get the volumes
      * of the children.
+     * <p>
+     * The subtree accumulators for free volume (psi1i, f1i, p1i), self volume (psip1i, fp1i, pp1i)
+     * and volume-based energy (energy1i, fenergy1i, penergy1i) of the overlap are stored at the
+     * index of its level.
      *
      * @param slot       Slot to begin from.
-     * @param psi1i      Subtree accumulator for free volume.
-     * @param f1i        Subtree accumulator for free volume.
-     * @param p1i        Subtree accumulator for free volume.
-     * @param psip1i     Subtree accumulator for self volume.
-     * @param fp1i       Subtree accumulators for self volume.
-     * @param pp1i       Subtree accumulators for self volume.
-     * @param energy1i   Subtree accumulator for volume-based energy.
-     * @param fenergy1i  Subtree accumulator for volume-based energy.
-     * @param penergy1i  subtree accumulator for volume-based energy.
      * @param threadID   Thread for accumulation.
      * @param dr         Gradient of volume-based energy wrt to atomic positions.
      * @param dv         Gradient of volume-based energy wrt to atomic volumes.
@@ -1073,140 +1401,120 @@ public class GaussVol {
      */
     void computeVolumeUnderSlot2R(
         int slot,
-        double[] psi1i,
-        double[] f1i,
-        double[] p1i,
-        double[] psip1i,
-        double[] fp1i,
-        double[] pp1i,
-        double[] energy1i,
-        double[] fenergy1i,
-        double[] penergy1i,
         int threadID,
         AtomicDoubleArray3D dr,
         AtomicDoubleArray dv,
         AtomicDoubleArray freeVolume,
         AtomicDoubleArray selfVolume) {
 
-      GaussianOverlap ov = overlaps.get(slot);
+      int ovLevel = level[slot];
+      int l = ovLevel;
+      int l3 = 3 * l;
+      for (int k = 0; k < 3; k++) {
+        p1i[l3 + k] = 0.0;
+        pp1i[l3 + k] = 0.0;
+        penergy1i[l3 + k] = 0.0;
+      }
+
+      // Overlaps kept only because they are within the skin do not contribute.
+      if (ovLevel > 1 && volume[slot] <= 0.0 && skinVolumeThreshold < Double.MAX_VALUE) {
+        psi1i[l] = 0.0;
+        f1i[l] = 0.0;
+        psip1i[l] = 0.0;
+        fp1i[l] = 0.0;
+        energy1i[l] = 0.0;
+        fenergy1i[l] = 0.0;
+        return;
+      }
+
       // Keep track of overlap depth for each overlap.
       // If a new depth is greater than previous greatest, save depth in maximumDepth
-      if (ov.level >= maximumDepth) {
-        maximumDepth = ov.level;
+      if (ovLevel >= maximumDepth) {
+        maximumDepth = ovLevel;
       }
 
       // Whether to add volumes (e.g. selfs, 3-body overlaps) or subtract them (e.g. 2-body
       // overlaps, 4-body overlaps)
-      double cf = ov.level % 2 == 0 ? -1.0 : 1.0;
+      double cf = ovLevel % 2 == 0 ? -1.0 : 1.0;
       // Overall volume is increased/decreased by the full volume.
-      double volcoeff = ov.level > 0 ? cf : 0;
+      double volcoeff = ovLevel > 0 ? cf : 0;
       // Atomic contributions to overlap volume are evenly distributed.
-      double volcoeffp = ov.level > 0 ? volcoeff / (double) ov.level : 0;
+      double volcoeffp = ovLevel > 0 ? volcoeff / (double) ovLevel : 0;
 
-      int atom = ov.atom;
-      double ai = overlaps.get(atom + 1).g.a;
-      double a1i = ov.g.a;
+      int ovAtom = atom[slot];
+      double ai = ga[ovAtom + 1];
+      double a1i = ga[slot];
       double a1 = a1i - ai;
 
       // For free volumes
-      psi1i[0] = volcoeff * ov.volume;
-      f1i[0] = volcoeff * ov.sfp;
+      psi1i[l] = volcoeff * volume[slot];
+      f1i[l] = volcoeff * sfp[slot];
 
       // For self volumes
-      psip1i[0] = volcoeffp * ov.volume;
-      fp1i[0] = volcoeffp * ov.sfp;
+      psip1i[l] = volcoeffp * volume[slot];
+      fp1i[l] = volcoeffp * sfp[slot];
 
       // EV energy
-      energy1i[0] = volcoeffp * ov.gamma1i * ov.volume;
-      fenergy1i[0] = volcoeffp * ov.sfp * ov.gamma1i;
+      energy1i[l] = volcoeffp * gamma1i[slot] * volume[slot];
+      fenergy1i[l] = volcoeffp * sfp[slot] * gamma1i[slot];
 
       // Loop over children.
-      if (ov.childrenStartIndex >= 0) {
-        for (int sloti = ov.childrenStartIndex;
-             sloti < ov.childrenStartIndex + ov.childrenCount;
-             sloti++) {
-          double[] psi1it = new double[1];
-          double[] f1it = new double[1];
-          double[] p1it = new double[3];
-          double[] psip1it = new double[1];
-          double[] fp1it = new double[1];
-          double[] pp1it = new double[3];
-          double[] energy1it = new double[1];
-          double[] fenergy1it = new double[1];
-          double[] penergy1it = new double[3];
-          computeVolumeUnderSlot2R(
-              sloti,
-              psi1it,
-              f1it,
-              p1it,
-              psip1it,
-              fp1it,
-              pp1it,
-              energy1it,
-              fenergy1it,
-              penergy1it,
-              threadID,
-              dr,
-              dv,
-              freeVolume,
-              selfVolume);
-          psi1i[0] += psi1it[0];
-          f1i[0] += f1it[0];
-          add(p1i, p1it, p1i);
-
-          psip1i[0] += psip1it[0];
-          fp1i[0] += fp1it[0];
-          add(pp1i, pp1it, pp1i);
-
-          energy1i[0] += energy1it[0];
-          fenergy1i[0] += fenergy1it[0];
-          add(penergy1i, penergy1it, penergy1i);
+      int start = childrenStartIndex[slot];
+      if (start >= 0) {
+        int c = l + 1;
+        int c3 = 3 * c;
+        for (int sloti = start; sloti < start + childrenCount[slot]; sloti++) {
+          computeVolumeUnderSlot2R(sloti, threadID, dr, dv, freeVolume, selfVolume);
+          psi1i[l] += psi1i[c];
+          f1i[l] += f1i[c];
+          psip1i[l] += psip1i[c];
+          fp1i[l] += fp1i[c];
+          energy1i[l] += energy1i[c];
+          fenergy1i[l] += fenergy1i[c];
+          for (int k = 0; k < 3; k++) {
+            p1i[l3 + k] += p1i[c3 + k];
+            pp1i[l3 + k] += pp1i[c3 + k];
+            penergy1i[l3 + k] += penergy1i[c3 + k];
+          }
         }
       }
 
       // Skip this for the Root Level.
-      if (ov.level > 0) {
+      if (ovLevel > 0) {
         // Contributions to free and self volume of last atom
-        freeVolume.add(threadID, atom, psi1i[0]);
-        selfVolume.add(threadID, atom, psip1i[0]);
+        freeVolume.add(threadID, ovAtom, psi1i[l]);
+        selfVolume.add(threadID, ovAtom, psip1i[l]);
 
         // Contributions to energy gradients
         double c2 = ai / a1i;
+        int s3 = 3 * slot;
 
         // dr[atom] += (-ov.dv1) * fenergy1i + penergy1i * c2;
-        double[] work1 = new double[3];
-        double[] work2 = new double[3];
-        double[] work3 = new double[3];
-        scale(penergy1i, c2, work1);
-        scale(ov.dv1, -fenergy1i[0], work2);
-        add(work1, work2, work3);
-        dr.add(threadID, atom, work3[0], work3[1], work3[2]);
+        double fe = -fenergy1i[l];
+        dr.add(threadID, ovAtom,
+            penergy1i[l3] * c2 + dv1[s3] * fe,
+            penergy1i[l3 + 1] * c2 + dv1[s3 + 1] * fe,
+            penergy1i[l3 + 2] * c2 + dv1[s3 + 2] * fe);
 
         // ov.g.v is the unswitched volume
-        dv.add(threadID, atom, ov.g.v * fenergy1i[0]);
+        dv.add(threadID, ovAtom, gv[slot] * fenergy1i[l]);
 
         // Update subtree P1..i's for parent
         c2 = a1 / a1i;
-
-        // p1i = (ov.dv1) * f1i + p1i * c2;
-        scale(ov.dv1, f1i[0], work1);
-        scale(pp1i, c2, work2);
-        add(work1, work2, p1i);
-
-        // pp1i = (ov.dv1) * fp1i + pp1i * c2;
-        scale(ov.dv1, fp1i[0], work1);
-        scale(pp1i, c2, work2);
-        add(work1, work2, pp1i);
-
-        // penergy1i = (ov.dv1) * fenergy1i + penergy1i * c2;
-        scale(ov.dv1, fenergy1i[0], work1);
-        scale(penergy1i, c2, work2);
-        add(work1, work2, penergy1i);
+        for (int k = 0; k < 3; k++) {
+          double dv1k = dv1[s3 + k];
+          // p1i = (ov.dv1) * f1i + p1i * c2;
+          p1i[l3 + k] = dv1k * f1i[l] + pp1i[l3 + k] * c2;
+          // pp1i = (ov.dv1) * fp1i + pp1i * c2;
+          pp1i[l3 + k] = dv1k * fp1i[l] + pp1i[l3 + k] * c2;
+          // penergy1i = (ov.dv1) * fenergy1i + penergy1i * c2;
+          penergy1i[l3 + k] = dv1k * fenergy1i[l] + penergy1i[l3 + k] * c2;
+        }
 
         // Update subtree F1..i's for parent
-        f1i[0] = ov.dvv1 * f1i[0];
-        fp1i[0] = ov.dvv1 * fp1i[0];
-        fenergy1i[0] = ov.dvv1 * fenergy1i[0];
+        f1i[l] = dvv1[slot] * f1i[l];
+        fp1i[l] = dvv1[slot] * fp1i[l];
+        fenergy1i[l] = dvv1[slot] * fenergy1i[l];
       }
     }
 
@@ -1227,36 +1535,9 @@ public class GaussVol {
         AtomicDoubleArray dv,
         AtomicDoubleArray freeVolume,
         AtomicDoubleArray selfvolume) {
-
-      double[] psi1i = new double[1];
-      double[] f1i = new double[1];
-      double[] p1i = new double[3];
-      double[] psip1i = new double[1];
-      double[] fp1i = new double[1];
-      double[] pp1i = new double[3];
-      double[] energy1i = new double[1];
-      double[] fenergy1i = new double[1];
-      double[] penergy1i = new double[3];
       // Only one thread for serial computation.
       int threadID = 0;
-
-      computeVolumeUnderSlot2R(
-          0,
-          psi1i,
-          f1i,
-          p1i,
-          psip1i,
-          fp1i,
-          pp1i,
-          energy1i,
-          fenergy1i,
-          penergy1i,
-          threadID,
-          dr,
-          dv,
-          freeVolume,
-          selfvolume);
-
+      computeVolumeUnderSlot2R(0, threadID, dr, dv, freeVolume, selfvolume);
       volume.addAndGet(psi1i[0]);
       energy.addAndGet(energy1i[0]);
     }
@@ -1282,44 +1563,36 @@ public class GaussVol {
      * @param slot The slot to begin from.
      */
     void rescanR(int slot) {
-      int parentIndex;
-
-      // This overlap.
-      GaussianOverlap ov = overlaps.get(slot);
-
       // Recompute its own overlap by merging parent and last atom.
-      parentIndex = ov.parentIndex;
-      if (parentIndex > 0) {
-        GaussianVca g12 = new GaussianVca();
-        double[] dVdr = new double[1];
-        double[] dVdV = new double[1];
-        double[] sfp = new double[1];
-
-        int atom = ov.atom;
-        GaussianOverlap parent = overlaps.get(parentIndex);
-        GaussianVca g1 = parent.g;
+      int parent = parentIndex[slot];
+      if (parent > 0) {
+        int ovAtom = atom[slot];
 
         // Atoms are stored in the tree at indexes 1...N
-        GaussianVca g2 = overlaps.get(atom + 1).g;
-        double gvol = overlapGaussianAlpha(g1, g2, g12, dVdr, dVdV, sfp);
-        ov.g = g12;
-        ov.volume = gvol;
+        double gvol = overlapGaussianAlpha(parent, ovAtom + 1);
+        int index = 3 * slot;
+        gv[slot] = overlapV;
+        ga[slot] = overlapA;
+        gc[index] = overlapC[0];
+        gc[index + 1] = overlapC[1];
+        gc[index + 2] = overlapC[2];
+        volume[slot] = gvol;
 
         // dv1 is the gradient of V(123..)n with respect to the position of 1
         // ov.dv1 = ( g2.c - g1.c ) * (-dVdr);
-        sub(g2.c, g1.c, ov.dv1);
-        scale(ov.dv1, -dVdr[0], ov.dv1);
+        dv1[index] = overlapDist[0] * -overlapDVdr;
+        dv1[index + 1] = overlapDist[1] * -overlapDVdr;
+        dv1[index + 2] = overlapDist[2] * -overlapDVdr;
 
         // dvv1 is the derivative of V(123...)n with respect to V(123...)
-        ov.dvv1 = dVdV[0];
-        ov.sfp = sfp[0];
-        ov.gamma1i = parent.gamma1i + overlaps.get(atom + 1).gamma1i;
+        dvv1[slot] = overlapDVdV;
+        sfp[slot] = overlapSfp;
+        gamma1i[slot] = gamma1i[parent] + gamma1i[ovAtom + 1];
       }
 
       // Calls itself recursively on the children.
-      for (int slotChild = ov.childrenStartIndex;
-           slotChild < ov.childrenStartIndex + ov.childrenCount;
-           slotChild++) {
+      int start = childrenStartIndex[slot];
+      for (int slotChild = start; slotChild < start + childrenCount[slot]; slotChild++) {
         rescanR(slotChild);
       }
     }
@@ -1335,31 +1608,17 @@ public class GaussVol {
      */
     void initRescanTreeV(
         double[][] pos, double[] radii, double[] volumes, double[] gammas, boolean[] ishydrogen) {
-      int slot = 0;
-      GaussianOverlap ov = overlaps.get(slot);
-      ov.level = 0;
-      ov.volume = 0.0;
-      ov.dv1 = new double[3];
-      ov.dvv1 = 0.0;
-      ov.selfVolume = 0.0;
-      ov.sfp = 1.0;
-      ov.gamma1i = 0.0;
-
-      slot = 1;
-      for (int iat = 0; iat < nAtoms; iat++, slot++) {
-        double a = sphereConversion / (radii[iat] * radii[iat]);
-        double vol = ishydrogen[iat] ? 0.0 : volumes[iat];
-        ov = overlaps.get(slot);
-        ov.level = 1;
-        ov.g.v = vol;
-        ov.g.a = a;
-        ov.g.c = pos[iat];
-        ov.volume = vol;
-        ov.dv1 = new double[3];
-        ov.dvv1 = 1.0; // dVi/dVi
-        ov.selfVolume = 0.0;
-        ov.sfp = 1.0;
-        ov.gamma1i = gammas[iat]; // gamma[iat]/SA_DR
+      level[0] = 0;
+      volume[0] = 0.0;
+      dv1[0] = 0.0;
+      dv1[1] = 0.0;
+      dv1[2] = 0.0;
+      dvv1[0] = 0.0;
+      sfp[0] = 1.0;
+      gamma1i[0] = 0.0;
+
+      for (int iat = 0; iat < nAtoms; iat++) {
+        initAtom(iat + 1, pos[iat], radii[iat], ishydrogen[iat] ? 0.0 : volumes[iat], gammas[iat]);
       }
     }
 
@@ -1369,22 +1628,15 @@ public class GaussVol {
      * @param slot Slot to begin from.
      */
     void rescanGammaR(int slot) {
-
-      // This overlap.
-      GaussianOverlap go = overlaps.get(slot);
-
       // Recompute its own overlap by merging parent and last atom.
-      int parentIndex = go.parentIndex;
-      if (parentIndex > 0) {
-        int atom = go.atom;
-        GaussianOverlap parent = overlaps.get(parentIndex);
-        go.gamma1i = parent.gamma1i + overlaps.get(atom + 1).gamma1i;
+      int parent = parentIndex[slot];
+      if (parent > 0) {
+        gamma1i[slot] = gamma1i[parent] + gamma1i[atom[slot] + 1];
       }
 
       // Calls itself recursively on the children.
-      for (int slotChild = go.childrenStartIndex;
-           slotChild < go.childrenStartIndex + go.childrenCount;
-           slotChild++) {
+      int start = childrenStartIndex[slot];
+      for (int slotChild = start; slotChild < start + childrenCount[slot]; slotChild++) {
         rescanGammaR(slotChild);
       }
     }
@@ -1395,17 +1647,10 @@ public class GaussVol {
      * @param gammas Gamma values.
      */
     void rescanTreeG(double[] gammas) {
-
-      int slot = 0;
-      GaussianOverlap ov = overlaps.get(slot);
-      ov.gamma1i = 0.;
-
-      slot = 1;
-      for (int iat = 0; iat < nAtoms; iat++, slot++) {
-        ov = overlaps.get(slot);
-        ov.gamma1i = gammas[iat];
+      gamma1i[0] = 0.0;
+      for (int iat = 0; iat < nAtoms; iat++) {
+        gamma1i[iat + 1] = gammas[iat];
       }
-
       rescanGammaR(0);
     }
 
@@ -1413,8 +1658,6 @@ public class GaussVol {
      * Print the contents of the tree.
      */
     void printTree() {
-      // logger.info("slot level LastAtom parent ChStart ChCount SelfV V gamma a x y z dedx dedy
-      // dedz sfp");
       for (int i = 1; i <= nAtoms; i++) {
         printTreeR(i);
       }
@@ -1426,10 +1669,16 @@ public class GaussVol {
      * @param slot Slot to begin from.
      */
     void printTreeR(int slot) {
-      GaussianOverlap ov = overlaps.get(slot);
+      int index = 3 * slot;
       logger.info(format("tg:      %d ", slot));
-      ov.printOverlap();
-      for (int i = ov.childrenStartIndex; i < ov.childrenStartIndex + ov.childrenCount; i++) {
+      logger.info(format(" Gaussian Overlap %d: Atom: %d, Parent: %d, ChildrenStartIndex: %d, ChildrenCount: %d,"
+              + "Volume: %6.3f, Gamma: %6.3f, Gauss.a: %6.3f, Gauss.v: %6.3f, Gauss.center (%6.3f,%6.3f,%6.3f),"
+              + "dedx: %6.3f, dedy: %6.3f, dedz: %6.3f, sfp: %6.3f",
+          level[slot], atom[slot], parentIndex[slot], childrenStartIndex[slot], childrenCount[slot],
+          volume[slot], gamma1i[slot], ga[slot], gv[slot], gc[index], gc[index + 1], gc[index + 2],
+          dv1[index], dv1[index + 1], dv1[index + 2], sfp[slot]));
+      int start = childrenStartIndex[slot];
+      for (int i = start; i < start + childrenCount[slot]; i++) {
         printTreeR(i);
       }
     }
@@ -1442,11 +1691,11 @@ public class GaussVol {
      */
     int nChildrenUnderSlotR(int slot) {
       int n = 0;
-      if (overlaps.get(slot).childrenCount > 0) {
-        n += overlaps.get(slot).childrenCount;
+      if (childrenCount[slot] > 0) {
+        n += childrenCount[slot];
         // now calls itself on the children
-        for (int i = 0; i < overlaps.get(slot).childrenCount; i++) {
-          n += nChildrenUnderSlotR(overlaps.get(slot).childrenStartIndex + i);
+        for (int i = 0; i < childrenCount[slot]; i++) {
+          n += nChildrenUnderSlotR(childrenStartIndex[slot] + i);
         }
       }
       return n;
@@ -1565,34 +1814,12 @@ public class GaussVol {
       @Override
       public void run(int first, int last) throws Exception {
         int threadIndex = getThreadIndex();
+        GaussianOverlapTree tree = localTree[threadIndex];
         for (int slot = first; slot <= last; slot++) {
-          double[] psi1i = new double[1];
-          double[] f1i = new double[1];
-          double[] p1i = new double[3];
-          double[] psip1i = new double[1];
-          double[] fp1i = new double[1];
-          double[] pp1i = new double[3];
-          double[] energy1i = new double[1];
-          double[] fenergy1i = new double[1];
-          double[] penergy1i = new double[3];
-          localTree[threadIndex].computeVolumeUnderSlot2R(
-              slot,
-              psi1i,
-              f1i,
-              p1i,
-              psip1i,
-              fp1i,
-              pp1i,
-              energy1i,
-              fenergy1i,
-              penergy1i,
-              threadIndex,
-              grad,
-              gradV,
-              freeVolume,
-              selfVolume);
-          totalVolume.addAndGet(psi1i[0]);
-          energy.addAndGet(energy1i[0]);
+          tree.computeVolumeUnderSlot2R(slot, threadIndex, grad, gradV, freeVolume, selfVolume);
+          // Atoms are at level 1 of the tree.
+          totalVolume.addAndGet(tree.psi1i[1]);
+          energy.addAndGet(tree.energy1i[1]);
         }
       }
     }
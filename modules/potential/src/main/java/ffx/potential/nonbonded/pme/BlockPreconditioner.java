@@ -0,0 +1,735 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded.pme;
+
+import static ffx.numerics.special.Erf.erfc;
+import static java.lang.String.format;
+import static java.util.Arrays.fill;
+import static org.apache.commons.math3.util.FastMath.exp;
+import static org.apache.commons.math3.util.FastMath.floor;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.min;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+import ffx.crystal.Crystal;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Block-Jacobi preconditioner for the induced dipole conjugate gradient solver, with an optional
+ * two-level (coarse domain) correction.
+ * <p>
+ * The polarizable atoms are partitioned into blocks (molecules, with large molecules split into
+ * contiguous chunks of at most maxBlockSize atoms). For each block the 3n x 3n matrix
+ * C_block = [alpha^-1 - T] restricted to the block is factored using a Cholesky decomposition. The
+ * factorizations are cached and only rebuilt once an atom moves more than the rebuild distance.
+ * <p>
+ * For the two-level preconditioner, the blocks are further grouped into spatial domains. Each domain
+ * contributes three coarse vectors (the response of its atoms to a uniform field along x, y and z).
+ * The coarse operator Z^T C Z is assembled using the short-range preconditioner neighbor list and
+ * applied additively:
+ * <br>
+ * z = C_block^-1 r + Z (Z^T C Z)^-1 Z^T r
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class BlockPreconditioner {
+
+  private static final Logger logger = Logger.getLogger(BlockPreconditioner.class.getName());
+
+  /**
+   * Maximum number of atoms per block.
+   */
+  private final int maxBlockSize;
+  /**
+   * Maximum atomic displacement (A) before the block factorizations are rebuilt.
+   */
+  private final double rebuildDistance;
+  /**
+   * Edge length (A) of the coarse domains.
+   */
+  private final double domainSize;
+  /**
+   * If true, apply the coarse domain correction.
+   */
+  private final boolean twoLevel;
+  /**
+   * Real space Ewald parameters used to build the block matrices.
+   */
+  private final EwaldParameters ewaldParameters;
+  private final FactorRegion factorRegion;
+  private final ApplyRegion applyRegion;
+
+  /**
+   * Number of blocks.
+   */
+  private int nBlocks = 0;
+  /**
+   * Index into the blockAtoms array of the first atom of each block [nBlocks + 1].
+   */
+  private int[] blockStart;
+  /**
+   * Atom indices of each block.
+   */
+  private int[] blockAtoms;
+  /**
+   * Lower triangular Cholesky factor of each block matrix (null if the factorization failed).
+   */
+  private double[][] blockFactor;
+  /**
+   * Number of coarse domains.
+   */
+  private int nDomains = 0;
+  /**
+   * The coarse domain of each atom (-1 for atoms that are not preconditioned).
+   */
+  private int[] atomDomain;
+  /**
+   * Lower triangular Cholesky factor of the coarse operator (null if the coarse level is inactive).
+   */
+  private double[] coarseFactor;
+  /**
+   * Coarse right-hand side / solution workspace.
+   */
+  private double[] coarseVector;
+  /**
+   * Coordinates at the time of the last rebuild [3][nAtoms].
+   */
+  private double[][] reference;
+  /**
+   * Use flags at the time of the last rebuild.
+   */
+  private boolean[] referenceUse;
+  /**
+   * The number of rebuilds.
+   */
+  private int rebuilds = 0;
+
+  // Inputs for the current rebuild.
+  private double[][][] coordinates;
+  private double[] polarizability;
+  private double[] ipdamp;
+  private double[] thole;
+  private Crystal crystal;
+  private double invDielectric = 1.0;
+
+  /**
+   * Constructor for the block preconditioner.
+   *
+   * @param maxThreads      The number of threads.
+   * @param maxBlockSize    The maximum number of atoms per block.
+   * @param rebuildDistance The maximum atomic displacement (A) before the blocks are rebuilt.
+   * @param domainSize      The edge length (A) of the coarse domains.
+   * @param twoLevel        If true, apply the coarse domain correction.
+   * @param cutoff          The preconditioner cutoff (A).
+   * @param aewald          The preconditioner Ewald coefficient.
+   */
+  public BlockPreconditioner(int maxThreads, int maxBlockSize, double rebuildDistance,
+      double domainSize, boolean twoLevel, double cutoff, double aewald) {
+    this.maxBlockSize = max(1, maxBlockSize);
+    this.rebuildDistance = rebuildDistance;
+    this.domainSize = domainSize;
+    this.twoLevel = twoLevel;
+    ewaldParameters = new EwaldParameters(cutoff, aewald);
+    factorRegion = new FactorRegion(maxThreads);
+    applyRegion = new ApplyRegion(maxThreads);
+  }
+
+  /**
+   * Get the number of blocks.
+   *
+   * @return The number of blocks.
+   */
+  public int getNumberOfBlocks() {
+    return nBlocks;
+  }
+
+  /**
+   * Get the number of coarse degrees of freedom.
+   *
+   * @return The dimension of the coarse operator (0 if inactive).
+   */
+  public int getCoarseSize() {
+    return coarseFactor == null ? 0 : 3 * nDomains;
+  }
+
+  /**
+   * Get the number of times the factorizations have been rebuilt.
+   *
+   * @return The number of rebuilds.
+   */
+  public int getRebuilds() {
+    return rebuilds;
+  }
+
+  /**
+   * Summarize the preconditioner for the SCF log.
+   *
+   * @return A description of the preconditioner.
+   */
+  @Override
+  public String toString() {
+    if (twoLevel) {
+      return format("Two-Level (%d blocks, %d coarse, %d rebuilds)", nBlocks, getCoarseSize(), rebuilds);
+    }
+    return format("Block (%d blocks, %d rebuilds)", nBlocks, rebuilds);
+  }
+
+  /**
+   * Rebuild the block (and coarse) factorizations if the system changed or an atom moved further
+   * than the rebuild distance since the last rebuild.
+   *
+   * @param coordinates          Coordinates [nSymm][3][nAtoms].
+   * @param polarizability       Polarizability of each atom.
+   * @param ipdamp               Inverse of pdamp for each atom.
+   * @param thole                Thole parameter for each atom.
+   * @param use                  Flag to indicate use of each atom.
+   * @param molecule             Molecule index of each atom.
+   * @param crystal              Unit cell and spacegroup information.
+   * @param dielectric           The dielectric constant.
+   * @param preconditionerLists  Short-range neighbor lists of the asymmetric unit [nAtoms][].
+   * @param preconditionerCounts Number of short-range neighbors of each atom [nAtoms].
+   * @param parallelTeam         The ParallelTeam used to factor the blocks.
+   * @return true if the factorizations were rebuilt.
+   */
+  public boolean update(double[][][] coordinates, double[] polarizability, double[] ipdamp,
+      double[] thole, boolean[] use, int[] molecule, Crystal crystal, double dielectric,
+      int[][] preconditionerLists, int[] preconditionerCounts, ParallelTeam parallelTeam) {
+    if (!needsRebuild(coordinates[0], use)) {
+      return false;
+    }
+    this.coordinates = coordinates;
+    this.polarizability = polarizability;
+    this.ipdamp = ipdamp;
+    this.thole = thole;
+    this.crystal = crystal;
+    invDielectric = dielectric > 1.0 ? 1.0 / dielectric : 1.0;
+
+    int nAtoms = polarizability.length;
+    buildBlocks(nAtoms, use, molecule);
+    try {
+      parallelTeam.execute(factorRegion);
+    } catch (Exception e) {
+      String message = " Exception factoring the block preconditioner.";
+      logger.log(Level.SEVERE, message, e);
+    }
+    if (twoLevel) {
+      buildCoarse(nAtoms, preconditionerLists, preconditionerCounts);
+    }
+
+    // Store the reference state.
+    if (reference == null || reference[0].length != nAtoms) {
+      reference = new double[3][nAtoms];
+      referenceUse = new boolean[nAtoms];
+    }
+    for (int j = 0; j < 3; j++) {
+      System.arraycopy(coordinates[0][j], 0, reference[j], 0, nAtoms);
+    }
+    System.arraycopy(use, 0, referenceUse, 0, nAtoms);
+    rebuilds++;
+    return true;
+  }
+
+  /**
+   * Apply the preconditioner to the residual and chain-rule residual.
+   *
+   * @param r            The residual [3][nAtoms].
+   * @param rCR          The chain-rule residual [3][nAtoms].
+   * @param z            The preconditioned residual [3][nAtoms].
+   * @param zCR          The preconditioned chain-rule residual [3][nAtoms].
+   * @param parallelTeam The ParallelTeam used to apply the block solves.
+   */
+  public void apply(double[][] r, double[][] rCR, double[][] z, double[][] zCR,
+      ParallelTeam parallelTeam) {
+    applyRegion.r = r;
+    applyRegion.rCR = rCR;
+    applyRegion.z = z;
+    applyRegion.zCR = zCR;
+    try {
+      parallelTeam.execute(applyRegion);
+    } catch (Exception e) {
+      String message = " Exception applying the block preconditioner.";
+      logger.log(Level.SEVERE, message, e);
+    }
+    if (coarseFactor != null) {
+      coarseCorrection(r, z);
+      coarseCorrection(rCR, zCR);
+    }
+  }
+
+  /**
+   * Check if the factorizations must be rebuilt.
+   */
+  private boolean needsRebuild(double[][] xyz, boolean[] use) {
+    int nAtoms = use.length;
+    if (reference == null || reference[0].length != nAtoms) {
+      return true;
+    }
+    double limit = rebuildDistance * rebuildDistance;
+    for (int i = 0; i < nAtoms; i++) {
+      if (use[i] != referenceUse[i]) {
+        return true;
+      }
+      double dx = xyz[0][i] - reference[0][i];
+      double dy = xyz[1][i] - reference[1][i];
+      double dz = xyz[2][i] - reference[2][i];
+      if (dx * dx + dy * dy + dz * dz > limit) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Partition the polarizable atoms into blocks of at most maxBlockSize atoms from the same
+   * molecule.
+   */
+  private void buildBlocks(int nAtoms, boolean[] use, int[] molecule) {
+    blockAtoms = new int[nAtoms];
+    blockStart = new int[nAtoms + 1];
+    nBlocks = 0;
+    int count = 0;
+    int currentMolecule = Integer.MIN_VALUE;
+    int currentSize = 0;
+    for (int i = 0; i < nAtoms; i++) {
+      if (!use[i] || polarizability[i] <= 0.0) {
+        continue;
+      }
+      int mol = molecule != null ? molecule[i] : 0;
+      if (mol != currentMolecule || currentSize == maxBlockSize) {
+        blockStart[nBlocks++] = count;
+        currentMolecule = mol;
+        currentSize = 0;
+      }
+      blockAtoms[count++] = i;
+      currentSize++;
+    }
+    blockStart[nBlocks] = count;
+    blockFactor = new double[nBlocks][];
+  }
+
+  /**
+   * Add the 3x3 coupling tensor -T_ik (the negative of the dipole field tensor) to the matrix m
+   * with leading dimension n at rows 3a and columns 3b.
+   */
+  private void addCoupling(int i, int k, double scale, double[] m, int n, int a, int b,
+      double[] dx) {
+    final double[] x = coordinates[0][0];
+    final double[] y = coordinates[0][1];
+    final double[] z = coordinates[0][2];
+    dx[0] = x[k] - x[i];
+    dx[1] = y[k] - y[i];
+    dx[2] = z[k] - z[i];
+    final double r2 = crystal.image(dx);
+    final double r = sqrt(r2);
+    final double rr1 = 1.0 / r;
+    final double rr2 = rr1 * rr1;
+    final double ralpha = ewaldParameters.aewald * r;
+    final double exp2a = exp(-ralpha * ralpha);
+    final double bn0 = erfc(ralpha) * rr1;
+    final double bn1 = (bn0 + ewaldParameters.an0 * exp2a) * rr2;
+    final double bn2 = (3.0 * bn1 + ewaldParameters.an1 * exp2a) * rr2;
+    double scale3 = 1.0;
+    double scale5 = 1.0;
+    double damp = ipdamp[i] * ipdamp[k];
+    final double pgamma = min(thole[i], thole[k]);
+    final double rdamp = r * damp;
+    damp = -pgamma * rdamp * rdamp * rdamp;
+    if (damp > -50.0) {
+      final double expdamp = exp(damp);
+      scale3 = 1.0 - expdamp;
+      scale5 = 1.0 - expdamp * (1.0 - damp);
+    }
+    double rr3 = rr1 * rr2;
+    double rr5 = 3.0 * rr3 * rr2;
+    rr3 *= (1.0 - scale3);
+    rr5 *= (1.0 - scale5);
+    // The field at i due to a dipole u at k is (-bn1 + rr3) u + (bn2 - rr5) (u . r) r.
+    final double diagonal = -bn1 + rr3;
+    final double outer = bn2 - rr5;
+    for (int p = 0; p < 3; p++) {
+      for (int q = 0; q < 3; q++) {
+        double t = outer * dx[p] * dx[q];
+        if (p == q) {
+          t += diagonal;
+        }
+        m[(3 * a + p) * n + 3 * b + q] -= scale * invDielectric * t;
+      }
+    }
+  }
+
+  /**
+   * Assemble and factor the coarse operator Z^T C Z using the short-range neighbor list.
+   */
+  private void buildCoarse(int nAtoms, int[][] lists, int[] counts) {
+    // Find the bounding box of the preconditioned atoms.
+    final double[] x = coordinates[0][0];
+    final double[] y = coordinates[0][1];
+    final double[] z = coordinates[0][2];
+    double[] lo = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+    double[] hi = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+    int count = blockStart[nBlocks];
+    for (int n = 0; n < count; n++) {
+      int i = blockAtoms[n];
+      lo[0] = min(lo[0], x[i]);
+      lo[1] = min(lo[1], y[i]);
+      lo[2] = min(lo[2], z[i]);
+      hi[0] = max(hi[0], x[i]);
+      hi[1] = max(hi[1], y[i]);
+      hi[2] = max(hi[2], z[i]);
+    }
+    int[] cells = new int[3];
+    for (int j = 0; j < 3; j++) {
+      cells[j] = max(1, (int) floor((hi[j] - lo[j]) / domainSize) + 1);
+    }
+
+    // Assign each block to the domain of its first atom, numbering only occupied domains.
+    atomDomain = new int[nAtoms];
+    fill(atomDomain, -1);
+    int[] domainIndex = new int[cells[0] * cells[1] * cells[2]];
+    fill(domainIndex, -1);
+    nDomains = 0;
+    for (int b = 0; b < nBlocks; b++) {
+      int first = blockAtoms[blockStart[b]];
+      int ix = min(cells[0] - 1, (int) floor((x[first] - lo[0]) / domainSize));
+      int iy = min(cells[1] - 1, (int) floor((y[first] - lo[1]) / domainSize));
+      int iz = min(cells[2] - 1, (int) floor((z[first] - lo[2]) / domainSize));
+      int cell = (ix * cells[1] + iy) * cells[2] + iz;
+      if (domainIndex[cell] < 0) {
+        domainIndex[cell] = nDomains++;
+      }
+      for (int n = blockStart[b]; n < blockStart[b + 1]; n++) {
+        atomDomain[blockAtoms[n]] = domainIndex[cell];
+      }
+    }
+
+    // A single domain is already covered by the block solves.
+    if (nDomains < 2) {
+      coarseFactor = null;
+      return;
+    }
+
+    int n = 3 * nDomains;
+    double[] coarse = new double[n * n];
+    double[] coupling = new double[9];
+    double[] dx = new double[3];
+    for (int i = 0; i < nAtoms; i++) {
+      int di = atomDomain[i];
+      if (di < 0) {
+        continue;
+      }
+      double polarI = polarizability[i];
+      // The diagonal term Z^T alpha^-1 Z.
+      for (int p = 0; p < 3; p++) {
+        coarse[(3 * di + p) * n + 3 * di + p] += polarI;
+      }
+      int[] list = lists[i];
+      int npair = counts[i];
+      for (int j = 0; j < npair; j++) {
+        int k = list[j];
+        int dk = atomDomain[k];
+        if (dk < 0 || k == i) {
+          continue;
+        }
+        fill(coupling, 0.0);
+        addCoupling(i, k, polarI * polarizability[k], coupling, 3, 0, 0, dx);
+        // Each pair is listed once, so add both the (i,k) and (k,i) contributions.
+        for (int p = 0; p < 3; p++) {
+          for (int q = 0; q < 3; q++) {
+            double c = coupling[3 * p + q];
+            coarse[(3 * di + p) * n + 3 * dk + q] += c;
+            coarse[(3 * dk + q) * n + 3 * di + p] += c;
+          }
+        }
+      }
+    }
+
+    if (cholesky(coarse, n)) {
+      coarseFactor = coarse;
+      coarseVector = new double[n];
+    } else {
+      logger.info(" The coarse preconditioner operator is not positive definite; using blocks only.");
+      coarseFactor = null;
+    }
+  }
+
+  /**
+   * Add Z (Z^T C Z)^-1 Z^T r to z.
+   */
+  private void coarseCorrection(double[][] r, double[][] z) {
+    fill(coarseVector, 0.0);
+    int count = blockStart[nBlocks];
+    for (int n = 0; n < count; n++) {
+      int i = blockAtoms[n];
+      int d = atomDomain[i];
+      double polar = polarizability[i];
+      coarseVector[3 * d] += polar * r[0][i];
+      coarseVector[3 * d + 1] += polar * r[1][i];
+      coarseVector[3 * d + 2] += polar * r[2][i];
+    }
+    choleskySolve(coarseFactor, 3 * nDomains, coarseVector, 0);
+    for (int n = 0; n < count; n++) {
+      int i = blockAtoms[n];
+      int d = atomDomain[i];
+      double polar = polarizability[i];
+      z[0][i] += polar * coarseVector[3 * d];
+      z[1][i] += polar * coarseVector[3 * d + 1];
+      z[2][i] += polar * coarseVector[3 * d + 2];
+    }
+  }
+
+  /**
+   * In place Cholesky factorization of a symmetric positive definite matrix (lower triangle).
+   *
+   * @param m The matrix with leading dimension n.
+   * @param n The dimension.
+   * @return false if the matrix is not positive definite.
+   */
+  static boolean cholesky(double[] m, int n) {
+    for (int j = 0; j < n; j++) {
+      double d = m[j * n + j];
+      for (int k = 0; k < j; k++) {
+        d -= m[j * n + k] * m[j * n + k];
+      }
+      if (d <= 0.0) {
+        return false;
+      }
+      d = sqrt(d);
+      m[j * n + j] = d;
+      for (int i = j + 1; i < n; i++) {
+        double s = m[i * n + j];
+        for (int k = 0; k < j; k++) {
+          s -= m[i * n + k] * m[j * n + k];
+        }
+        m[i * n + j] = s / d;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Solve L L^T x = b in place using a lower triangular Cholesky factor.
+   *
+   * @param l      The Cholesky factor with leading dimension n.
+   * @param n      The dimension.
+   * @param b      The right-hand side, overwritten by the solution.
+   * @param offset The offset of the vector within b.
+   */
+  static void choleskySolve(double[] l, int n, double[] b, int offset) {
+    // Forward substitution.
+    for (int i = 0; i < n; i++) {
+      double s = b[offset + i];
+      for (int k = 0; k < i; k++) {
+        s -= l[i * n + k] * b[offset + k];
+      }
+      b[offset + i] = s / l[i * n + i];
+    }
+    // Back substitution.
+    for (int i = n - 1; i >= 0; i--) {
+      double s = b[offset + i];
+      for (int k = i + 1; k < n; k++) {
+        s -= l[k * n + i] * b[offset + k];
+      }
+      b[offset + i] = s / l[i * n + i];
+    }
+  }
+
+  /**
+   * Assemble and factor the block matrices.
+   */
+  private class FactorRegion extends ParallelRegion {
+
+    private final FactorLoop[] factorLoops;
+
+    FactorRegion(int nt) {
+      factorLoops = new FactorLoop[nt];
+    }
+
+    @Override
+    public void run() throws Exception {
+      int ti = getThreadIndex();
+      if (factorLoops[ti] == null) {
+        factorLoops[ti] = new FactorLoop();
+      }
+      try {
+        execute(0, nBlocks - 1, factorLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception factoring preconditioner blocks in thread " + ti + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    private class FactorLoop extends IntegerForLoop {
+
+      private final double[] dx = new double[3];
+
+      @Override
+      public void run(int lb, int ub) {
+        for (int b = lb; b <= ub; b++) {
+          int start = blockStart[b];
+          int size = blockStart[b + 1] - start;
+          if (size == 1) {
+            // A single atom block is the diagonal preconditioner.
+            blockFactor[b] = null;
+            continue;
+          }
+          int n = 3 * size;
+          double[] m = new double[n * n];
+          for (int a = 0; a < size; a++) {
+            int i = blockAtoms[start + a];
+            double ipolar = 1.0 / polarizability[i];
+            for (int p = 0; p < 3; p++) {
+              m[(3 * a + p) * n + 3 * a + p] = ipolar;
+            }
+            for (int c = 0; c < size; c++) {
+              if (c != a) {
+                addCoupling(i, blockAtoms[start + c], 1.0, m, n, a, c, dx);
+              }
+            }
+          }
+          blockFactor[b] = cholesky(m, n) ? m : null;
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.dynamic();
+      }
+    }
+  }
+
+  /**
+   * Apply the block solves z = C_block^-1 r.
+   */
+  private class ApplyRegion extends ParallelRegion {
+
+    private final ApplyLoop[] applyLoops;
+    private double[][] r;
+    private double[][] rCR;
+    private double[][] z;
+    private double[][] zCR;
+
+    ApplyRegion(int nt) {
+      applyLoops = new ApplyLoop[nt];
+    }
+
+    @Override
+    public void run() throws Exception {
+      int ti = getThreadIndex();
+      if (applyLoops[ti] == null) {
+        applyLoops[ti] = new ApplyLoop();
+      }
+      try {
+        int nAtoms = polarizability.length;
+        execute(0, nAtoms - 1, applyLoops[ti].zeroLoop);
+        execute(0, nBlocks - 1, applyLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception applying the block preconditioner in thread " + ti + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    private class ApplyLoop extends IntegerForLoop {
+
+      private final double[] work = new double[3 * maxBlockSize];
+
+      private final IntegerForLoop zeroLoop = new IntegerForLoop() {
+        @Override
+        public void run(int lb, int ub) {
+          for (int j = 0; j < 3; j++) {
+            fill(z[j], lb, ub + 1, 0.0);
+            fill(zCR[j], lb, ub + 1, 0.0);
+          }
+        }
+
+        @Override
+        public IntegerSchedule schedule() {
+          return IntegerSchedule.fixed();
+        }
+      };
+
+      @Override
+      public void run(int lb, int ub) {
+        for (int b = lb; b <= ub; b++) {
+          solve(b, r, z);
+          solve(b, rCR, zCR);
+        }
+      }
+
+      private void solve(int b, double[][] rhs, double[][] sol) {
+        int start = blockStart[b];
+        int size = blockStart[b + 1] - start;
+        double[] factor = blockFactor[b];
+        if (factor == null) {
+          for (int a = 0; a < size; a++) {
+            int i = blockAtoms[start + a];
+            double polar = polarizability[i];
+            sol[0][i] = polar * rhs[0][i];
+            sol[1][i] = polar * rhs[1][i];
+            sol[2][i] = polar * rhs[2][i];
+          }
+          return;
+        }
+        for (int a = 0; a < size; a++) {
+          int i = blockAtoms[start + a];
+          work[3 * a] = rhs[0][i];
+          work[3 * a + 1] = rhs[1][i];
+          work[3 * a + 2] = rhs[2][i];
+        }
+        choleskySolve(factor, 3 * size, work, 0);
+        for (int a = 0; a < size; a++) {
+          int i = blockAtoms[start + a];
+          sol[0][i] = work[3 * a];
+          sol[1][i] = work[3 * a + 1];
+          sol[2][i] = work[3 * a + 2];
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.dynamic();
+      }
+    }
+  }
+}
@@ -38,6 +38,7 @@
 package ffx.potential.nonbonded.pme;
 
 import static ffx.numerics.special.Erf.erfc;
+import static ffx.utilities.PropertyGroup.ElectrostaticsFunctionalForm;
 import static java.lang.String.format;
 import static org.apache.commons.math3.util.FastMath.exp;
 import static org.apache.commons.math3.util.FastMath.max;
@@ -57,6 +58,7 @@ import ffx.potential.nonbonded.ParticleMeshEwald;
 import ffx.potential.parameters.ForceField;
 import ffx.potential.utils.EnergyException;
 import ffx.utilities.Constants;
+import ffx.utilities.FFXProperty;
 
 import java.util.List;
 import java.util.logging.Level;
@@ -148,6 +150,13 @@ public class PCGSolver {
    */
   private enum PRECONDITION_MODE {FLETCHER_REEVES, FLEXIBLE, STEEPEST_DECENT}
 
+  /**
+   * The SHORT_RANGE preconditioner uses the field of the residual within a short cutoff.
+   * The BLOCK preconditioner inverts the polarization matrix within each molecule (or block of a
+   * large molecule), and the TWO_LEVEL preconditioner adds a coarse correction over spatial domains.
+   */
+  public enum PRECONDITIONER_TYPE {SHORT_RANGE, BLOCK, TWO_LEVEL}
+
   /**
    * The SCF convergence criteria in Debye.
    */
@@ -172,6 +181,30 @@ public class PCGSolver {
    * The steepest decent method sets beta to zero.
    */
   private final PRECONDITION_MODE preconditionMode;
+  /**
+   * The type of preconditioner.
+   */
+  @FFXProperty(name = "cg-preconditioner-type", clazz = String.class,
+      propertyGroup = ElectrostaticsFunctionalForm, defaultValue = "short-range", description = """
+      [SHORT-RANGE / BLOCK / TWO-LEVEL]
+      The preconditioner used by the conjugate gradient SCF solver. SHORT-RANGE uses the field of the
+      residual within the cg-preconditioner-cutoff. BLOCK inverts the polarization matrix within each
+      molecule (or block of a large molecule), and TWO-LEVEL adds a coarse correction over spatial
+      domains to the block preconditioner.
+      """)
+  private final PRECONDITIONER_TYPE preconditionerType;
+  /**
+   * Block (and two-level) preconditioner, or null for the short-range preconditioner.
+   */
+  private final BlockPreconditioner blockPreconditioner;
+  /**
+   * Block preconditioner dipoles (z = M^-1 r).
+   */
+  private double[][] zBlock;
+  /**
+   * Block preconditioner dipoles for the chain-rule dipoles (zCR = M^-1 rCR).
+   */
+  private double[][] zBlockCR;
   /**
    * Neighbor lists, without atoms beyond the preconditioner cutoff.
    * [nSymm][nAtoms][nIncludedNeighbors]
@@ -233,6 +266,10 @@ public class PCGSolver {
    * Thole parameter for each atom.
    */
   private double[] thole;
+  /**
+   * Molecule number of each atom.
+   */
+  private int[] molecule;
   /**
    * When computing the polarization energy at Lambda there are 3 pieces.
    *
@@ -313,6 +350,39 @@ public class PCGSolver {
    */
   public static final double DEFAULT_CG_PRECONDITIONER_SCALE = 2.0;
 
+  /**
+   * The maximum number of atoms in each block of the block preconditioner.
+   * <br>
+   * Each block requires the Cholesky factorization of a dense 3n x 3n matrix.
+   */
+  @FFXProperty(name = "cg-preconditioner-block-size", clazz = Integer.class,
+      propertyGroup = ElectrostaticsFunctionalForm, defaultValue = "24", description = """
+      The maximum number of atoms in each block of the BLOCK and TWO-LEVEL preconditioners. Larger
+      molecules are split into contiguous blocks. Each block requires the Cholesky
+      factorization of a dense 3n x 3n matrix.
+      """)
+  public static final int DEFAULT_CG_PRECONDITIONER_BLOCK_SIZE = 24;
+
+  /**
+   * The block factorizations are reused until an atom moves further than this distance (A).
+   */
+  @FFXProperty(name = "cg-preconditioner-rebuild", propertyGroup = ElectrostaticsFunctionalForm,
+      defaultValue = "0.25", description = """
+      The block factorizations of the BLOCK and TWO-LEVEL preconditioners are reused until an atom
+      moves further than this distance (Angstroms) from its position when they were built.
+      """)
+  public static final double DEFAULT_CG_PRECONDITIONER_REBUILD = 0.25;
+
+  /**
+   * The edge length (A) of the spatial domains used by the two-level coarse correction.
+   */
+  @FFXProperty(name = "cg-preconditioner-domain", propertyGroup = ElectrostaticsFunctionalForm,
+      defaultValue = "8.0", description = """
+      The edge length (Angstroms) of the spatial domains used by the coarse correction of the
+      TWO-LEVEL preconditioner.
+      """)
+  public static final double DEFAULT_CG_PRECONDITIONER_DOMAIN = 8.0;
+
   private double dieletric;
 
   /**
@@ -347,11 +417,32 @@ public class PCGSolver {
         // Do nothing.
       }
       preconditionMode = mode;
+      PRECONDITIONER_TYPE type = PRECONDITIONER_TYPE.SHORT_RANGE;
+      try {
+        String t = forceField.getString("CG_PRECONDITIONER_TYPE", PRECONDITIONER_TYPE.SHORT_RANGE.toString());
+        t = ForceField.toEnumForm(t);
+        type = PRECONDITIONER_TYPE.valueOf(t);
+      } catch (Exception e) {
+        // Do nothing.
+      }
+      preconditionerType = type;
     } else {
       preconditionerCutoff = 0.0;
       preconditionerEwald = 0.0;
       preconditionerScale = 0.0;
       preconditionMode = PRECONDITION_MODE.FLETCHER_REEVES;
+      preconditionerType = PRECONDITIONER_TYPE.SHORT_RANGE;
+    }
+
+    if (preconditionerType != PRECONDITIONER_TYPE.SHORT_RANGE) {
+      int blockSize = forceField.getInteger("CG_PRECONDITIONER_BLOCK_SIZE", DEFAULT_CG_PRECONDITIONER_BLOCK_SIZE);
+      double rebuild = forceField.getDouble("CG_PRECONDITIONER_REBUILD", DEFAULT_CG_PRECONDITIONER_REBUILD);
+      double domain = forceField.getDouble("CG_PRECONDITIONER_DOMAIN", DEFAULT_CG_PRECONDITIONER_DOMAIN);
+      boolean twoLevel = preconditionerType == PRECONDITIONER_TYPE.TWO_LEVEL;
+      blockPreconditioner = new BlockPreconditioner(maxThreads, blockSize, rebuild, domain, twoLevel,
+          preconditionerCutoff, preconditionerEwald);
+    } else {
+      blockPreconditioner = null;
     }
 
     allocateVectors(nAtoms);
@@ -384,6 +475,10 @@ public class PCGSolver {
       pCR = new double[3][nAtoms];
       vec = new double[3][nAtoms];
       vecCR = new double[3][nAtoms];
+      if (blockPreconditioner != null) {
+        zBlock = new double[3][nAtoms];
+        zBlockCR = new double[3][nAtoms];
+      }
     }
   }
 
@@ -423,6 +518,15 @@ public class PCGSolver {
     return preconditionMode.toString();
   }
 
+  /**
+   * Get the preconditioner type.
+   *
+   * @return The type.
+   */
+  public PRECONDITIONER_TYPE getPreconditionerType() {
+    return preconditionerType;
+  }
+
   /**
    * Neighbor lists when applying the preconditioner.
    *
@@ -448,6 +552,7 @@ public class PCGSolver {
       double[] ipdamp,
       double[] thole,
       boolean[] use,
+      int[] molecule,
       Crystal crystal,
       double[][][] inducedDipole,
       double[][][] inducedDipoleCR,
@@ -466,6 +571,7 @@ public class PCGSolver {
     this.ipdamp = ipdamp;
     this.thole = thole;
     this.use = use;
+    this.molecule = molecule;
     this.crystal = crystal;
     this.inducedDipole = inducedDipole;
     this.inducedDipoleCR = inducedDipoleCR;
@@ -482,10 +588,20 @@ public class PCGSolver {
 
   public int scfByPCG(boolean print, long startTime, ParticleMeshEwald particleMeshEwald) {
     long directTime = System.nanoTime() - startTime;
+    // Rebuild the block factorizations if atoms have moved beyond the rebuild distance.
+    if (blockPreconditioner != null) {
+      blockPreconditioner.update(coordinates, polarizability, ipdamp, thole, use, molecule, crystal,
+          dieletric, preconditionerLists[0], preconditionerCounts[0], parallelTeam);
+    }
+
     // A request of 0 SCF cycles simplifies mutual polarization to direct polarization.
     StringBuilder sb = null;
     if (print) {
-      sb = new StringBuilder("\n Self-Consistent Field\n Iter  RMS Change (Debye)  Time\n");
+      sb = new StringBuilder("\n Self-Consistent Field\n");
+      if (blockPreconditioner != null) {
+        sb.append(format(" Preconditioner: %s\n", blockPreconditioner));
+      }
+      sb.append(" Iter  RMS Change (Debye)  Time\n");
     }
 
     // Find the induced dipole field due to direct dipoles
@@ -700,12 +816,21 @@ public class PCGSolver {
           if (use[i]) {
             // Set initial conjugate vector p (induced dipoles).
             double polar = polarizability[i];
-            zpre[0][i] = polar * (field.getX(i) + preconditionerScale * r[0][i]);
-            zpre[1][i] = polar * (field.getY(i) + preconditionerScale * r[1][i]);
-            zpre[2][i] = polar * (field.getZ(i) + preconditionerScale * r[2][i]);
-            zpreCR[0][i] = polar * (fieldCR.getX(i) + preconditionerScale * rCR[0][i]);
-            zpreCR[1][i] = polar * (fieldCR.getY(i) + preconditionerScale * rCR[1][i]);
-            zpreCR[2][i] = polar * (fieldCR.getZ(i) + preconditionerScale * rCR[2][i]);
+            if (blockPreconditioner != null) {
+              zpre[0][i] = zBlock[0][i];
+              zpre[1][i] = zBlock[1][i];
+              zpre[2][i] = zBlock[2][i];
+              zpreCR[0][i] = zBlockCR[0][i];
+              zpreCR[1][i] = zBlockCR[1][i];
+              zpreCR[2][i] = zBlockCR[2][i];
+            } else {
+              zpre[0][i] = polar * (field.getX(i) + preconditionerScale * r[0][i]);
+              zpre[1][i] = polar * (field.getY(i) + preconditionerScale * r[1][i]);
+              zpre[2][i] = polar * (field.getZ(i) + preconditionerScale * r[2][i]);
+              zpreCR[0][i] = polar * (fieldCR.getX(i) + preconditionerScale * rCR[0][i]);
+              zpreCR[1][i] = polar * (fieldCR.getY(i) + preconditionerScale * rCR[1][i]);
+              zpreCR[2][i] = polar * (fieldCR.getZ(i) + preconditionerScale * rCR[2][i]);
+            }
             p[0][i] = zpre[0][i];
             p[1][i] = zpre[1][i];
             p[2][i] = zpre[2][i];
@@ -1064,12 +1189,21 @@ public class PCGSolver {
             // z_k+1 = M^(-1) r_k+1
             //       = polar * (E_r_k+1 + diagonal scale * r_k+1)
             double polar = polarizability[i];
-            zpre[0][i] = polar * (field.getX(i) + preconditionerScale * r[0][i]);
-            zpre[1][i] = polar * (field.getY(i) + preconditionerScale * r[1][i]);
-            zpre[2][i] = polar * (field.getZ(i) + preconditionerScale * r[2][i]);
-            zpreCR[0][i] = polar * (fieldCR.getX(i) + preconditionerScale * rCR[0][i]);
-            zpreCR[1][i] = polar * (fieldCR.getY(i) + preconditionerScale * rCR[1][i]);
-            zpreCR[2][i] = polar * (fieldCR.getZ(i) + preconditionerScale * rCR[2][i]);
+            if (blockPreconditioner != null) {
+              zpre[0][i] = zBlock[0][i];
+              zpre[1][i] = zBlock[1][i];
+              zpre[2][i] = zBlock[2][i];
+              zpreCR[0][i] = zBlockCR[0][i];
+              zpreCR[1][i] = zBlockCR[1][i];
+              zpreCR[2][i] = zBlockCR[2][i];
+            } else {
+              zpre[0][i] = polar * (field.getX(i) + preconditionerScale * r[0][i]);
+              zpre[1][i] = polar * (field.getY(i) + preconditionerScale * r[1][i]);
+              zpre[2][i] = polar * (field.getZ(i) + preconditionerScale * r[2][i]);
+              zpreCR[0][i] = polar * (fieldCR.getX(i) + preconditionerScale * rCR[0][i]);
+              zpreCR[1][i] = polar * (fieldCR.getY(i) + preconditionerScale * rCR[1][i]);
+              zpreCR[2][i] = polar * (fieldCR.getZ(i) + preconditionerScale * rCR[2][i]);
+            }
 
             switch (preconditionMode) {
               case FLEXIBLE:
@@ -1179,6 +1313,11 @@ public class PCGSolver {
    * Compute the induced field due to the Uind = polarizability * Eresidual.
    */
   private void computePreconditioner() {
+    // The block preconditioner directly solves for z = M^-1 r.
+    if (blockPreconditioner != null) {
+      blockPreconditioner.apply(r, rCR, zBlock, zBlockCR, parallelTeam);
+      return;
+    }
     try {
       // Reset the preconditioner field.
       field.reset(parallelTeam);
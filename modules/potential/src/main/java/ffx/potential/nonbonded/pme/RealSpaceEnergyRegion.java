@@ -159,6 +159,12 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
      * energy of sub-structures.
      */
     private boolean[] use;
+    /**
+     * If not null, only interactions between an atom flagged in pairAtomsA and an atom flagged in
+     * pairAtomsB are evaluated.
+     */
+    private boolean[] pairAtomsA = null;
+    private boolean[] pairAtomsB = null;
     /**
      * Molecule number for each atom.
      */
@@ -410,6 +416,23 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
         return polarizationEnergy;
     }
 
+    /**
+     * Restrict evaluation to interactions between an atom of the first set and an atom of the second
+     * set. This is only meaningful for the permanent energy, since induced dipoles depend on all atoms.
+     *
+     * @param pairAtomsA Flags for the first set of atoms, or null to evaluate all interactions.
+     * @param pairAtomsB Flags for the second set of atoms.
+     */
+    public void setPairAtoms(boolean[] pairAtomsA, boolean[] pairAtomsB) {
+        if (pairAtomsA == null || pairAtomsB == null) {
+            this.pairAtomsA = null;
+            this.pairAtomsB = null;
+        } else {
+            this.pairAtomsA = pairAtomsA;
+            this.pairAtomsB = pairAtomsB;
+        }
+    }
+
     public void init(
             Atom[] atoms,
             Crystal crystal,
@@ -593,6 +616,28 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
         sharedInteractions.set(0);
     }
 
+    /**
+     * Check if atom i is excluded by the atom pair selection.
+     *
+     * @param i The atom index.
+     * @return true if all interactions of atom i are skipped.
+     */
+    private boolean skipAtom(int i) {
+        return pairAtomsA != null && !pairAtomsA[i] && !pairAtomsB[i];
+    }
+
+    /**
+     * Check if the interaction between atoms i and k is excluded by the atom pair selection.
+     *
+     * @param i The first atom index.
+     * @param k The second atom index.
+     * @return true if the interaction is skipped.
+     */
+    private boolean skipPair(int i, int k) {
+        return pairAtomsA != null
+                && !(pairAtomsA[i] && pairAtomsB[k]) && !(pairAtomsB[i] && pairAtomsA[k]);
+    }
+
     /**
      * Log the real space electrostatics interaction.
      *
@@ -836,7 +881,7 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
             final double[][] neighborInducedDipole = inducedDipole[iSymm];
             final double[][] neighborInducedDipolep = inducedDipoleCR[iSymm];
             for (i = lb; i <= ub; i++) {
-                if (!use[i]) {
+                if (!use[i] || skipAtom(i)) {
                     continue;
                 }
                 final int moleculei = molecule[i];
@@ -859,7 +904,7 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
                 final int npair = realSpaceCounts[iSymm][i];
                 for (int j = 0; j < npair; j++) {
                     k = list[j];
-                    if (!use[k]) {
+                    if (!use[k] || skipPair(i, k)) {
                         continue;
                     }
                     boolean sameMolecule = (moleculei == molecule[k]);
@@ -2411,7 +2456,7 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
             final double[] neighborZ = coordinates[iSymm][2];
             final double[][] neighborMultipole = globalMultipole[iSymm];
             for (i = lb; i <= ub; i++) {
-                if (!use[i]) {
+                if (!use[i] || skipAtom(i)) {
                     continue;
                 }
                 final int moleculei = molecule[i];
@@ -2428,7 +2473,7 @@ public class RealSpaceEnergyRegion extends ParallelRegion implements MaskingInte
                 final int npair = realSpaceCounts[iSymm][i];
                 for (int j = 0; j < npair; j++) {
                     k = list[j];
-                    if (!use[k]) {
+                    if (!use[k] || skipPair(i, k)) {
                         continue;
                     }
                     boolean sameMolecule = (moleculei == molecule[k]);
@@ -50,7 +50,8 @@ import java.util.List;
 public enum SCFAlgorithm {
   SOR(true, true),
   CG(true, true),
-  EPT(true, true);
+  EPT(true, true),
+  TCG(true, false);
 
   private final List<Platform> supportedPlatforms;
 
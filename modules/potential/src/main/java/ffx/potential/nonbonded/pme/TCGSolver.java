@@ -0,0 +1,1065 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded.pme;
+
+import static ffx.utilities.PropertyGroup.ElectrostaticsFunctionalForm;
+import static java.lang.String.format;
+import static org.apache.commons.math3.util.FastMath.max;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+
+import edu.rit.pj.IntegerForLoop;
+import edu.rit.pj.IntegerSchedule;
+import edu.rit.pj.ParallelRegion;
+import edu.rit.pj.ParallelTeam;
+import edu.rit.pj.reduction.SharedDouble;
+import ffx.numerics.atomic.AtomicDoubleArray3D;
+import ffx.potential.bonded.Atom;
+import ffx.potential.nonbonded.ParticleMeshEwald;
+import ffx.potential.parameters.ForceField;
+import ffx.utilities.Constants;
+import ffx.utilities.FFXProperty;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parallel truncated conjugate gradient (TCG) solver for the induced dipoles.
+ * <p>
+ * The TCG model applies a fixed number (1 or 2) of diagonally preconditioned conjugate gradient
+ * steps, starting from zero induced dipoles, and then stops. The cost of each energy evaluation is
+ * therefore a fixed number of induced dipole field evaluations and no predictor history is needed.
+ * <p>
+ * Because the direct and chain-rule fields differ by their masking rules, the solver works with the
+ * two symmetric systems C mu+ = E_d + E_p and C mu- = E_d - E_p, where C = [alpha^-1 - T]. The
+ * induced and chain-rule induced dipoles are then u = (mu+ + mu-) / 2 and p = (mu+ - mu-) / 2.
+ * <p>
+ * The polarization energy is taken as U = -1/4 (u . E_p + p . E_d), which is the average of the
+ * truncated quadratic functionals of the two symmetric systems. The gradient of this energy is the
+ * usual mutual polarization gradient evaluated at (u, p), plus corrections that account for the
+ * dependence of the Krylov subspace on the atomic coordinates:
+ * <br>
+ * 1) A permanent multipole / induced dipole term, evaluated with the direct polarization kernel.
+ * <br>
+ * 2) For TCG2 only, two induced dipole / induced dipole terms, evaluated with the mutual
+ * polarization kernel and zero permanent multipoles.
+ * <p>
+ * Citation:
+ * <br>
+ * Aviat, F.; Levitt, A.; Stamm, B.; Maday, Y.; Ren, P.; Ponder, J. W.; Lagardere, L.; Piquemal,
+ * J.-P., Truncated Conjugate Gradient: An Optimal Strategy for the Analytical Evaluation of the
+ * Many-Body Polarization Energy and Forces in Molecular Simulations. J. Chem. Theory Comput. 2017,
+ * 13 (1), 180-190.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class TCGSolver {
+
+  private static final Logger logger = Logger.getLogger(TCGSolver.class.getName());
+
+  /**
+   * The default TCG order.
+   */
+  public static final int DEFAULT_TCG_ORDER = 2;
+
+  /**
+   * The number of truncated conjugate gradient steps.
+   */
+  @FFXProperty(name = "tcg-order", clazz = Integer.class, propertyGroup = ElectrostaticsFunctionalForm,
+      defaultValue = "2", description = """
+      [1 / 2]
+      The number of truncated conjugate gradient iterations used to compute the induced dipoles
+      when the scf-algorithm property is TCG. Each iteration costs one induced dipole field evaluation.
+      """)
+  private final int order;
+
+  private final InitRegion initRegion;
+  private final UpdateRegion updateRegion;
+  private final ConjugateRegion conjugateRegion;
+  private final FinalRegion finalRegion;
+  private final GradientRegion gradientRegion;
+
+  /**
+   * Right-hand side of the symmetric systems (E_d + E_p and E_d - E_p).
+   */
+  private double[][] sourcePlus;
+  private double[][] sourceMinus;
+  /**
+   * The first search direction (M^-1 times the right-hand side).
+   */
+  private double[][] firstPlus;
+  private double[][] firstMinus;
+  /**
+   * The current search direction.
+   */
+  private double[][] directionPlus;
+  private double[][] directionMinus;
+  /**
+   * The matrix C applied to the current search direction (or the preconditioned residual).
+   */
+  private double[][] productPlus;
+  private double[][] productMinus;
+  /**
+   * Residual vectors (an electric field).
+   */
+  private double[][] residualPlus;
+  private double[][] residualMinus;
+  /**
+   * The induced dipoles of the symmetric systems.
+   */
+  private double[][] dipolePlus;
+  private double[][] dipoleMinus;
+  /**
+   * Cartesian and fractional reciprocal space potential of the symmetric induced dipoles.
+   */
+  private double[][] phiPlus;
+  private double[][] phiMinus;
+  private double[][] fracPhiPlus;
+  private double[][] fracPhiMinus;
+  /**
+   * Step sizes of the first and second iterations.
+   */
+  private final double[] stepPlus = new double[2];
+  private final double[] stepMinus = new double[2];
+  /**
+   * Fletcher-Reeves beta of the second iteration.
+   */
+  private double betaPlus;
+  private double betaMinus;
+  /**
+   * The dot product of the residual and preconditioned residual.
+   */
+  private double rDotZPlus;
+  private double rDotZMinus;
+  /**
+   * The energy correction (in units of electric^-1) that converts -1/2 u . E_p into the TCG
+   * polarization energy.
+   */
+  private double energyCorrection;
+  /**
+   * The number of completed TCG iterations.
+   */
+  private int iteration;
+  /**
+   * The gradient correction pass to load.
+   */
+  private int gradientPass;
+
+  /**
+   * An ordered array of atoms in the system.
+   */
+  private Atom[] atoms;
+  /**
+   * Polarizability of each atom.
+   */
+  private double[] polarizability;
+  /**
+   * Flag to indicate use of each atom.
+   */
+  private boolean[] use;
+  /**
+   * Induced dipoles with dimensions of [nsymm][nAtoms][3].
+   */
+  private double[][][] inducedDipole;
+  private double[][][] inducedDipoleCR;
+  /**
+   * Direct induced dipoles with dimensions of [nAtoms][3].
+   */
+  private double[][] directDipole;
+  private double[][] directDipoleCR;
+  /**
+   * Field array.
+   */
+  private AtomicDoubleArray3D field;
+  /**
+   * Chain rule field array.
+   */
+  private AtomicDoubleArray3D fieldCR;
+  /**
+   * Reciprocal space potential of the induced dipoles (null without reciprocal space).
+   */
+  private double[][] cartesianDipolePhi;
+  private double[][] cartesianDipolePhiCR;
+  private double[][] fractionalDipolePhi;
+  private double[][] fractionalDipolePhiCR;
+  /**
+   * The default ParallelTeam encapsulates the maximum number of threads used to parallelize the
+   * electrostatics calculation.
+   */
+  private ParallelTeam parallelTeam;
+
+  /**
+   * Constructor for the TCG solver.
+   *
+   * @param maxThreads Number of threads.
+   * @param forceField Force field in use.
+   * @param nAtoms     Initial number of atoms.
+   */
+  public TCGSolver(int maxThreads, ForceField forceField, int nAtoms) {
+    int tcgOrder = forceField.getInteger("TCG_ORDER", DEFAULT_TCG_ORDER);
+    if (tcgOrder < 1 || tcgOrder > 2) {
+      logger.warning(format(" TCG order %d is not supported; using %d.", tcgOrder, DEFAULT_TCG_ORDER));
+      tcgOrder = DEFAULT_TCG_ORDER;
+    }
+    order = tcgOrder;
+    initRegion = new InitRegion(maxThreads);
+    updateRegion = new UpdateRegion(maxThreads);
+    conjugateRegion = new ConjugateRegion(maxThreads);
+    finalRegion = new FinalRegion(maxThreads);
+    gradientRegion = new GradientRegion(maxThreads);
+    allocateVectors(nAtoms);
+  }
+
+  /**
+   * Allocate TCG vectors.
+   *
+   * @param nAtoms The number of atoms.
+   */
+  public void allocateVectors(int nAtoms) {
+    if (sourcePlus == null || sourcePlus[0].length != nAtoms) {
+      sourcePlus = new double[3][nAtoms];
+      sourceMinus = new double[3][nAtoms];
+      firstPlus = new double[3][nAtoms];
+      firstMinus = new double[3][nAtoms];
+      directionPlus = new double[3][nAtoms];
+      directionMinus = new double[3][nAtoms];
+      productPlus = new double[3][nAtoms];
+      productMinus = new double[3][nAtoms];
+      residualPlus = new double[3][nAtoms];
+      residualMinus = new double[3][nAtoms];
+      dipolePlus = new double[3][nAtoms];
+      dipoleMinus = new double[3][nAtoms];
+      phiPlus = null;
+      phiMinus = null;
+      fracPhiPlus = null;
+      fracPhiMinus = null;
+    }
+  }
+
+  /**
+   * Get the TCG order.
+   *
+   * @return The number of truncated conjugate gradient iterations.
+   */
+  public int getOrder() {
+    return order;
+  }
+
+  /**
+   * The number of gradient correction passes needed after the energy has been computed.
+   * <p>
+   * Pass 0 is a permanent multipole / induced dipole term that should be evaluated with the
+   * direct polarization kernel. For TCG2, passes 1 and 2 are induced dipole / induced dipole terms
+   * that should be evaluated with the mutual polarization kernel and zero permanent multipoles.
+   *
+   * @return The number of gradient correction passes.
+   */
+  public int getGradientPasses() {
+    return order == 1 ? 1 : 3;
+  }
+
+  /**
+   * Get the correction that converts the polarization energy computed from -1/2 u . E_p into the
+   * TCG polarization energy -1/4 (u . E_p + p . E_d).
+   *
+   * @return The energy correction, which must be multiplied by the electric constant.
+   */
+  public double getEnergyCorrection() {
+    return energyCorrection;
+  }
+
+  public void init(
+      Atom[] atoms,
+      double[] polarizability,
+      boolean[] use,
+      double[][][] inducedDipole,
+      double[][][] inducedDipoleCR,
+      double[][] directDipole,
+      double[][] directDipoleCR,
+      AtomicDoubleArray3D field,
+      AtomicDoubleArray3D fieldCR,
+      double[][] cartesianDipolePhi,
+      double[][] cartesianDipolePhiCR,
+      double[][] fractionalDipolePhi,
+      double[][] fractionalDipolePhiCR,
+      ParallelTeam parallelTeam) {
+    this.atoms = atoms;
+    this.polarizability = polarizability;
+    this.use = use;
+    this.inducedDipole = inducedDipole;
+    this.inducedDipoleCR = inducedDipoleCR;
+    this.directDipole = directDipole;
+    this.directDipoleCR = directDipoleCR;
+    this.field = field;
+    this.fieldCR = fieldCR;
+    this.cartesianDipolePhi = cartesianDipolePhi;
+    this.cartesianDipolePhiCR = cartesianDipolePhiCR;
+    this.fractionalDipolePhi = fractionalDipolePhi;
+    this.fractionalDipolePhiCR = fractionalDipolePhiCR;
+    this.parallelTeam = parallelTeam;
+    if (cartesianDipolePhi != null) {
+      int nAtoms = atoms.length;
+      int tensorCount = cartesianDipolePhi[0].length;
+      if (phiPlus == null || phiPlus.length != nAtoms || phiPlus[0].length != tensorCount) {
+        phiPlus = new double[nAtoms][tensorCount];
+        phiMinus = new double[nAtoms][tensorCount];
+        fracPhiPlus = new double[nAtoms][tensorCount];
+        fracPhiMinus = new double[nAtoms][tensorCount];
+      }
+    }
+  }
+
+  /**
+   * Compute the TCG induced dipoles using a fixed number of induced dipole field evaluations.
+   *
+   * @param print             If true, log the residual of each iteration.
+   * @param startTime         The start time of the SCF.
+   * @param particleMeshEwald The ParticleMeshEwald instance used to compute induced dipole fields.
+   * @return The number of induced dipole field evaluations.
+   */
+  public int scfByTCG(boolean print, long startTime, ParticleMeshEwald particleMeshEwald) {
+    long directTime = System.nanoTime() - startTime;
+    StringBuilder sb = null;
+    if (print) {
+      sb = new StringBuilder(format("\n Truncated Conjugate Gradient (Order %d)\n Iter  RMS Residual (Debye)  Time\n", order));
+    }
+
+    try {
+      // Set the initial residual to the source field and load the first search direction.
+      parallelTeam.execute(initRegion);
+    } catch (Exception e) {
+      String message = "Exception initializing the truncated conjugate-gradient solver.";
+      logger.log(Level.SEVERE, message, e);
+    }
+
+    int nAtoms = atoms.length;
+    for (iteration = 0; iteration < order; iteration++) {
+      long cycleTime = -System.nanoTime();
+
+      // Find the induced dipole field due to the search direction.
+      particleMeshEwald.computeInduceDipoleField();
+
+      try {
+        // Compute C d, the step size and update the dipoles and residual.
+        parallelTeam.execute(updateRegion);
+        if (iteration < order - 1) {
+          // Compute the new search direction and load it for the next field evaluation.
+          parallelTeam.execute(conjugateRegion);
+        }
+      } catch (Exception e) {
+        String message = "Exception during truncated conjugate-gradient iteration.";
+        logger.log(Level.SEVERE, message, e);
+      }
+
+      cycleTime += System.nanoTime();
+      if (print) {
+        double eps = max(updateRegion.getEps(), updateRegion.getEpsMinus());
+        eps = Constants.ELEC_ANG_TO_DEBYE * sqrt(eps / (double) nAtoms);
+        sb.append(format(" %4d     %15.10f %7.4f\n", iteration + 1, eps, cycleTime * Constants.NS2SEC));
+      }
+    }
+
+    try {
+      // Load the induced dipoles, their reciprocal space potential and the energy correction.
+      parallelTeam.execute(finalRegion);
+    } catch (Exception e) {
+      String message = "Exception finalizing the truncated conjugate-gradient solver.";
+      logger.log(Level.SEVERE, message, e);
+    }
+
+    if (print) {
+      sb.append(format(" Direct:                  %7.4f\n", Constants.NS2SEC * directTime));
+      startTime = System.nanoTime() - startTime;
+      sb.append(format(" Total:                   %7.4f", startTime * Constants.NS2SEC));
+      logger.info(sb.toString());
+    }
+
+    return order;
+  }
+
+  /**
+   * Prepare the gradient corrections. For TCG2, this requires one additional induced dipole field
+   * evaluation, after which the TCG induced dipoles are restored.
+   *
+   * @param particleMeshEwald The ParticleMeshEwald instance used to compute induced dipole fields.
+   */
+  public void prepareGradient(ParticleMeshEwald particleMeshEwald) {
+    if (order == 1) {
+      return;
+    }
+    try {
+      // Load M^-1 r as induced dipoles.
+      gradientPass = -1;
+      parallelTeam.execute(gradientRegion);
+      // Compute C M^-1 r.
+      particleMeshEwald.computeInduceDipoleField();
+      parallelTeam.execute(gradientRegion.productRegion);
+      // Restore the TCG induced dipoles and their reciprocal space potential.
+      parallelTeam.execute(finalRegion);
+      particleMeshEwald.expandInducedDipoles();
+    } catch (Exception e) {
+      String message = "Exception preparing the truncated conjugate-gradient gradient.";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  /**
+   * Load the dipoles for a gradient correction pass into the asymmetric unit of the supplied
+   * arrays.
+   *
+   * @param pass     The gradient correction pass (0 to getGradientPasses() - 1).
+   * @param dipole   Dipoles for the induced dipole slot [nSymm][nAtoms][3].
+   * @param dipoleCR Dipoles for the chain-rule induced dipole slot [nSymm][nAtoms][3].
+   */
+  public void loadGradientDipoles(int pass, double[][][] dipole, double[][][] dipoleCR) {
+    gradientPass = pass;
+    gradientRegion.dipole = dipole;
+    gradientRegion.dipoleCR = dipoleCR;
+    try {
+      parallelTeam.execute(gradientRegion);
+    } catch (Exception e) {
+      String message = "Exception loading truncated conjugate-gradient gradient dipoles.";
+      logger.log(Level.SEVERE, message, e);
+    }
+  }
+
+  /**
+   * Set the source fields, the first search direction d_0 = M^-1 s and the residual r_0 = s.
+   */
+  private class InitRegion extends ParallelRegion {
+
+    private final InitLoop[] initLoops;
+    private final SharedDouble rDotZPlusShared;
+    private final SharedDouble rDotZMinusShared;
+
+    public InitRegion(int nt) {
+      initLoops = new InitLoop[nt];
+      rDotZPlusShared = new SharedDouble();
+      rDotZMinusShared = new SharedDouble();
+    }
+
+    @Override
+    public void start() {
+      rDotZPlusShared.set(0.0);
+      rDotZMinusShared.set(0.0);
+    }
+
+    @Override
+    public void run() throws Exception {
+      try {
+        int ti = getThreadIndex();
+        if (initLoops[ti] == null) {
+          initLoops[ti] = new InitLoop();
+        }
+        int nAtoms = atoms.length;
+        execute(0, nAtoms - 1, initLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception initializing the TCG induced dipoles in thread " + getThreadIndex() + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    @Override
+    public void finish() {
+      rDotZPlus = rDotZPlusShared.get();
+      rDotZMinus = rDotZMinusShared.get();
+    }
+
+    private class InitLoop extends IntegerForLoop {
+
+      private double rDotZPlusLocal;
+      private double rDotZMinusLocal;
+
+      @Override
+      public void start() {
+        rDotZPlusLocal = 0.0;
+        rDotZMinusLocal = 0.0;
+      }
+
+      @Override
+      public void finish() {
+        rDotZPlusShared.addAndGet(rDotZPlusLocal);
+        rDotZMinusShared.addAndGet(rDotZMinusLocal);
+      }
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        for (int i = lb; i <= ub; i++) {
+          double polar = polarizability[i];
+          for (int j = 0; j < 3; j++) {
+            double sp = 0.0;
+            double sm = 0.0;
+            if (use[i] && polar > 0.0) {
+              // The direct dipoles are the polarizability times the direct field.
+              double ipolar = 1.0 / polar;
+              double ed = directDipole[i][j] * ipolar;
+              double ep = directDipoleCR[i][j] * ipolar;
+              sp = ed + ep;
+              sm = ed - ep;
+            }
+            sourcePlus[j][i] = sp;
+            sourceMinus[j][i] = sm;
+            residualPlus[j][i] = sp;
+            residualMinus[j][i] = sm;
+            firstPlus[j][i] = polar * sp;
+            firstMinus[j][i] = polar * sm;
+            directionPlus[j][i] = firstPlus[j][i];
+            directionMinus[j][i] = firstMinus[j][i];
+            dipolePlus[j][i] = 0.0;
+            dipoleMinus[j][i] = 0.0;
+            rDotZPlusLocal += sp * firstPlus[j][i];
+            rDotZMinusLocal += sm * firstMinus[j][i];
+            // Load the search direction whose field will be computed next.
+            inducedDipole[0][i][j] = directionPlus[j][i];
+            inducedDipoleCR[0][i][j] = directionMinus[j][i];
+          }
+          if (phiPlus != null) {
+            double[] phiP = phiPlus[i];
+            double[] phiM = phiMinus[i];
+            double[] fracP = fracPhiPlus[i];
+            double[] fracM = fracPhiMinus[i];
+            for (int t = 0; t < phiP.length; t++) {
+              phiP[t] = 0.0;
+              phiM[t] = 0.0;
+              fracP[t] = 0.0;
+              fracM[t] = 0.0;
+            }
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+  }
+
+  /**
+   * Compute C d, the step size t = r.z / d.Cd, and update the dipoles (mu += t d) and the residual
+   * (r -= t Cd).
+   */
+  private class UpdateRegion extends ParallelRegion {
+
+    private final ProductLoop[] productLoops;
+    private final StepLoop[] stepLoops;
+    private final SharedDouble dDotCdPlusShared;
+    private final SharedDouble dDotCdMinusShared;
+    private final SharedDouble rDotZPlusShared;
+    private final SharedDouble rDotZMinusShared;
+    private final SharedDouble epsPlusShared;
+    private final SharedDouble epsMinusShared;
+
+    public UpdateRegion(int nt) {
+      productLoops = new ProductLoop[nt];
+      stepLoops = new StepLoop[nt];
+      dDotCdPlusShared = new SharedDouble();
+      dDotCdMinusShared = new SharedDouble();
+      rDotZPlusShared = new SharedDouble();
+      rDotZMinusShared = new SharedDouble();
+      epsPlusShared = new SharedDouble();
+      epsMinusShared = new SharedDouble();
+    }
+
+    public double getEps() {
+      return epsPlusShared.get();
+    }
+
+    public double getEpsMinus() {
+      return epsMinusShared.get();
+    }
+
+    @Override
+    public void start() {
+      dDotCdPlusShared.set(0.0);
+      dDotCdMinusShared.set(0.0);
+      rDotZPlusShared.set(0.0);
+      rDotZMinusShared.set(0.0);
+      epsPlusShared.set(0.0);
+      epsMinusShared.set(0.0);
+    }
+
+    @Override
+    public void run() throws Exception {
+      try {
+        int ti = getThreadIndex();
+        if (productLoops[ti] == null) {
+          productLoops[ti] = new ProductLoop();
+          stepLoops[ti] = new StepLoop();
+        }
+        int nAtoms = atoms.length;
+        execute(0, nAtoms - 1, productLoops[ti]);
+        execute(0, nAtoms - 1, stepLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception computing the TCG induced dipoles in thread " + getThreadIndex() + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    @Override
+    public void finish() {
+      stepPlus[iteration] = stepSize(rDotZPlus, dDotCdPlusShared.get());
+      stepMinus[iteration] = stepSize(rDotZMinus, dDotCdMinusShared.get());
+      // The Fletcher-Reeves beta of the next search direction (kept for the TCG2 gradient).
+      if (iteration < order - 1) {
+        betaPlus = rDotZPlus != 0.0 ? rDotZPlusShared.get() / rDotZPlus : 0.0;
+        betaMinus = rDotZMinus != 0.0 ? rDotZMinusShared.get() / rDotZMinus : 0.0;
+      }
+      rDotZPlus = rDotZPlusShared.get();
+      rDotZMinus = rDotZMinusShared.get();
+    }
+
+    private class ProductLoop extends IntegerForLoop {
+
+      private double dDotCdPlus;
+      private double dDotCdMinus;
+
+      @Override
+      public void start() {
+        dDotCdPlus = 0.0;
+        dDotCdMinus = 0.0;
+      }
+
+      @Override
+      public void finish() {
+        dDotCdPlusShared.addAndGet(dDotCdPlus);
+        dDotCdMinusShared.addAndGet(dDotCdMinus);
+      }
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        for (int i = lb; i <= ub; i++) {
+          if (use[i] && polarizability[i] > 0.0) {
+            double ipolar = 1.0 / polarizability[i];
+            // Compute C d = [1/alpha - T] d
+            productPlus[0][i] = directionPlus[0][i] * ipolar - field.getX(i);
+            productPlus[1][i] = directionPlus[1][i] * ipolar - field.getY(i);
+            productPlus[2][i] = directionPlus[2][i] * ipolar - field.getZ(i);
+            productMinus[0][i] = directionMinus[0][i] * ipolar - fieldCR.getX(i);
+            productMinus[1][i] = directionMinus[1][i] * ipolar - fieldCR.getY(i);
+            productMinus[2][i] = directionMinus[2][i] * ipolar - fieldCR.getZ(i);
+          } else {
+            for (int j = 0; j < 3; j++) {
+              productPlus[j][i] = 0.0;
+              productMinus[j][i] = 0.0;
+            }
+          }
+          for (int j = 0; j < 3; j++) {
+            dDotCdPlus += directionPlus[j][i] * productPlus[j][i];
+            dDotCdMinus += directionMinus[j][i] * productMinus[j][i];
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+
+    private class StepLoop extends IntegerForLoop {
+
+      private double rDotZPlusLocal;
+      private double rDotZMinusLocal;
+      private double epsPlus;
+      private double epsMinus;
+
+      @Override
+      public void start() {
+        rDotZPlusLocal = 0.0;
+        rDotZMinusLocal = 0.0;
+        epsPlus = 0.0;
+        epsMinus = 0.0;
+      }
+
+      @Override
+      public void finish() {
+        rDotZPlusShared.addAndGet(rDotZPlusLocal);
+        rDotZMinusShared.addAndGet(rDotZMinusLocal);
+        epsPlusShared.addAndGet(epsPlus);
+        epsMinusShared.addAndGet(epsMinus);
+      }
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        double tPlus = stepSize(rDotZPlus, dDotCdPlusShared.get());
+        double tMinus = stepSize(rDotZMinus, dDotCdMinusShared.get());
+        for (int i = lb; i <= ub; i++) {
+          double polar = polarizability[i];
+          for (int j = 0; j < 3; j++) {
+            dipolePlus[j][i] += tPlus * directionPlus[j][i];
+            dipoleMinus[j][i] += tMinus * directionMinus[j][i];
+            residualPlus[j][i] -= tPlus * productPlus[j][i];
+            residualMinus[j][i] -= tMinus * productMinus[j][i];
+            double rp = residualPlus[j][i];
+            double rm = residualMinus[j][i];
+            rDotZPlusLocal += polar * rp * rp;
+            rDotZMinusLocal += polar * rm * rm;
+            epsPlus += rp * rp;
+            epsMinus += rm * rm;
+          }
+          // The reciprocal space potential is linear in the dipoles.
+          if (phiPlus != null) {
+            double[] phi = cartesianDipolePhi[i];
+            double[] phiCR = cartesianDipolePhiCR[i];
+            double[] frac = fractionalDipolePhi[i];
+            double[] fracCR = fractionalDipolePhiCR[i];
+            double[] phiP = phiPlus[i];
+            double[] phiM = phiMinus[i];
+            double[] fracP = fracPhiPlus[i];
+            double[] fracM = fracPhiMinus[i];
+            for (int t = 0; t < phiP.length; t++) {
+              phiP[t] += tPlus * phi[t];
+              phiM[t] += tMinus * phiCR[t];
+              fracP[t] += tPlus * frac[t];
+              fracM[t] += tMinus * fracCR[t];
+            }
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+  }
+
+  /**
+   * Update the search direction d_k+1 = M^-1 r_k+1 + beta d_k and load it as induced dipoles.
+   */
+  private class ConjugateRegion extends ParallelRegion {
+
+    private final ConjugateLoop[] conjugateLoops;
+
+    public ConjugateRegion(int nt) {
+      conjugateLoops = new ConjugateLoop[nt];
+    }
+
+    @Override
+    public void run() throws Exception {
+      try {
+        int ti = getThreadIndex();
+        if (conjugateLoops[ti] == null) {
+          conjugateLoops[ti] = new ConjugateLoop();
+        }
+        int nAtoms = atoms.length;
+        execute(0, nAtoms - 1, conjugateLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception computing the TCG search direction in thread " + getThreadIndex() + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    private class ConjugateLoop extends IntegerForLoop {
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        for (int i = lb; i <= ub; i++) {
+          double polar = polarizability[i];
+          for (int j = 0; j < 3; j++) {
+            directionPlus[j][i] = polar * residualPlus[j][i] + betaPlus * directionPlus[j][i];
+            directionMinus[j][i] = polar * residualMinus[j][i] + betaMinus * directionMinus[j][i];
+            inducedDipole[0][i][j] = directionPlus[j][i];
+            inducedDipoleCR[0][i][j] = directionMinus[j][i];
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+  }
+
+  /**
+   * Load u = (mu+ + mu-) / 2 and p = (mu+ - mu-) / 2, their reciprocal space potential, and
+   * compute the energy correction 1/4 (u . E_p - p . E_d).
+   */
+  private class FinalRegion extends ParallelRegion {
+
+    private final FinalLoop[] finalLoops;
+    private final SharedDouble energyShared;
+
+    public FinalRegion(int nt) {
+      finalLoops = new FinalLoop[nt];
+      energyShared = new SharedDouble();
+    }
+
+    @Override
+    public void start() {
+      energyShared.set(0.0);
+    }
+
+    @Override
+    public void run() throws Exception {
+      try {
+        int ti = getThreadIndex();
+        if (finalLoops[ti] == null) {
+          finalLoops[ti] = new FinalLoop();
+        }
+        int nAtoms = atoms.length;
+        execute(0, nAtoms - 1, finalLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception loading the TCG induced dipoles in thread " + getThreadIndex() + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    @Override
+    public void finish() {
+      energyCorrection = energyShared.get();
+    }
+
+    private class FinalLoop extends IntegerForLoop {
+
+      private double energy;
+
+      @Override
+      public void start() {
+        energy = 0.0;
+      }
+
+      @Override
+      public void finish() {
+        energyShared.addAndGet(energy);
+      }
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        for (int i = lb; i <= ub; i++) {
+          for (int j = 0; j < 3; j++) {
+            double u = 0.5 * (dipolePlus[j][i] + dipoleMinus[j][i]);
+            double p = 0.5 * (dipolePlus[j][i] - dipoleMinus[j][i]);
+            double ed = 0.5 * (sourcePlus[j][i] + sourceMinus[j][i]);
+            double ep = 0.5 * (sourcePlus[j][i] - sourceMinus[j][i]);
+            inducedDipole[0][i][j] = u;
+            inducedDipoleCR[0][i][j] = p;
+            energy += 0.25 * (u * ep - p * ed);
+          }
+          if (phiPlus != null) {
+            double[] phi = cartesianDipolePhi[i];
+            double[] phiCR = cartesianDipolePhiCR[i];
+            double[] frac = fractionalDipolePhi[i];
+            double[] fracCR = fractionalDipolePhiCR[i];
+            double[] phiP = phiPlus[i];
+            double[] phiM = phiMinus[i];
+            double[] fracP = fracPhiPlus[i];
+            double[] fracM = fracPhiMinus[i];
+            for (int t = 0; t < phiP.length; t++) {
+              phi[t] = 0.5 * (phiP[t] + phiM[t]);
+              phiCR[t] = 0.5 * (phiP[t] - phiM[t]);
+              frac[t] = 0.5 * (fracP[t] + fracM[t]);
+              fracCR[t] = 0.5 * (fracP[t] - fracM[t]);
+            }
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+  }
+
+  /**
+   * Load the dipoles of the gradient correction passes.
+   * <p>
+   * With w = M^-1 r, the final residual r, and the TCG2 coefficients a1 = t1 + t2 (1 + beta) and
+   * a2 = -t1 t2, the correction for each symmetric system is
+   * <br>
+   * -(a1 w + a2 M^-1 C w) . dE - a2 w . dT . (M^-1 s)
+   * <br>
+   * For TCG1, a1 = t1 and a2 = 0.
+   */
+  private class GradientRegion extends ParallelRegion {
+
+    private final GradientLoop[] gradientLoops;
+    private final ProductRegion productRegion;
+    private double[][][] dipole;
+    private double[][][] dipoleCR;
+
+    public GradientRegion(int nt) {
+      gradientLoops = new GradientLoop[nt];
+      productRegion = new ProductRegion(nt);
+    }
+
+    @Override
+    public void run() throws Exception {
+      try {
+        int ti = getThreadIndex();
+        if (gradientLoops[ti] == null) {
+          gradientLoops[ti] = new GradientLoop();
+        }
+        int nAtoms = atoms.length;
+        execute(0, nAtoms - 1, gradientLoops[ti]);
+      } catch (Exception e) {
+        String message = "Fatal exception computing the TCG gradient dipoles in thread " + getThreadIndex() + "\n";
+        logger.log(Level.SEVERE, message, e);
+      }
+    }
+
+    private class GradientLoop extends IntegerForLoop {
+
+      @Override
+      public void run(int lb, int ub) throws Exception {
+        double a1Plus = stepPlus[0];
+        double a1Minus = stepMinus[0];
+        double a2Plus = 0.0;
+        double a2Minus = 0.0;
+        if (order == 2) {
+          a1Plus += stepPlus[1] * (1.0 + betaPlus);
+          a1Minus += stepMinus[1] * (1.0 + betaMinus);
+          a2Plus = -stepPlus[0] * stepPlus[1];
+          a2Minus = -stepMinus[0] * stepMinus[1];
+        }
+        for (int i = lb; i <= ub; i++) {
+          double polar = polarizability[i];
+          for (int j = 0; j < 3; j++) {
+            double wPlus = polar * residualPlus[j][i];
+            double wMinus = polar * residualMinus[j][i];
+            switch (gradientPass) {
+              case -1 -> {
+                // Load w = M^-1 r to compute C w.
+                inducedDipole[0][i][j] = wPlus;
+                inducedDipoleCR[0][i][j] = wMinus;
+              }
+              case 0 -> {
+                // Permanent multipole / induced dipole correction.
+                double xPlus = a1Plus * wPlus;
+                double xMinus = a1Minus * wMinus;
+                if (order == 2) {
+                  xPlus += a2Plus * polar * productPlus[j][i];
+                  xMinus += a2Minus * polar * productMinus[j][i];
+                }
+                dipole[0][i][j] = 0.5 * (xPlus + xMinus);
+                dipoleCR[0][i][j] = 0.5 * (xPlus - xMinus);
+              }
+              case 1 -> {
+                // Induced dipole / induced dipole correction for the first symmetric system.
+                dipole[0][i][j] = -0.5 * a2Plus * wPlus;
+                dipoleCR[0][i][j] = firstPlus[j][i];
+              }
+              default -> {
+                // Induced dipole / induced dipole correction for the second symmetric system.
+                dipole[0][i][j] = 0.5 * a2Minus * wMinus;
+                dipoleCR[0][i][j] = firstMinus[j][i];
+              }
+            }
+          }
+        }
+      }
+
+      @Override
+      public IntegerSchedule schedule() {
+        return IntegerSchedule.fixed();
+      }
+    }
+
+    /**
+     * Store C w in the product vectors.
+     */
+    private class ProductRegion extends ParallelRegion {
+
+      private final ProductLoop[] productLoops;
+
+      public ProductRegion(int nt) {
+        productLoops = new ProductLoop[nt];
+      }
+
+      @Override
+      public void run() throws Exception {
+        try {
+          int ti = getThreadIndex();
+          if (productLoops[ti] == null) {
+            productLoops[ti] = new ProductLoop();
+          }
+          int nAtoms = atoms.length;
+          execute(0, nAtoms - 1, productLoops[ti]);
+        } catch (Exception e) {
+          String message = "Fatal exception computing the TCG gradient dipoles in thread " + getThreadIndex() + "\n";
+          logger.log(Level.SEVERE, message, e);
+        }
+      }
+
+      private class ProductLoop extends IntegerForLoop {
+
+        @Override
+        public void run(int lb, int ub) throws Exception {
+          for (int i = lb; i <= ub; i++) {
+            if (use[i] && polarizability[i] > 0.0) {
+              // C w = w / alpha - T w = r - T w
+              productPlus[0][i] = residualPlus[0][i] - field.getX(i);
+              productPlus[1][i] = residualPlus[1][i] - field.getY(i);
+              productPlus[2][i] = residualPlus[2][i] - field.getZ(i);
+              productMinus[0][i] = residualMinus[0][i] - fieldCR.getX(i);
+              productMinus[1][i] = residualMinus[1][i] - fieldCR.getY(i);
+              productMinus[2][i] = residualMinus[2][i] - fieldCR.getZ(i);
+            } else {
+              for (int j = 0; j < 3; j++) {
+                productPlus[j][i] = 0.0;
+                productMinus[j][i] = 0.0;
+              }
+            }
+          }
+        }
+
+        @Override
+        public IntegerSchedule schedule() {
+          return IntegerSchedule.fixed();
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute a conjugate gradient step size, guarding against a zero denominator.
+   *
+   * @param rDotZ The dot product of the residual and the preconditioned residual.
+   * @param dDotCd The dot product of the search direction and C times the search direction.
+   * @return The step size.
+   */
+  private static double stepSize(double rDotZ, double dDotCd) {
+    if (dDotCd == 0.0) {
+      return 0.0;
+    }
+    return rDotZ / dDotCd;
+  }
+}
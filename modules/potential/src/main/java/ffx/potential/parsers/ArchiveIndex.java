@@ -0,0 +1,673 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.parsers;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The ArchiveIndex class records the byte offset of each snapshot in a TINKER archive (*.ARC) so
+ * that any snapshot can be parsed directly.
+ *
+ * <p>The index is built once by scanning the archive and is cached next to it (<code>
+ * archive.arc.idx</code>). The cache is reused while the archive's length and modification time
+ * are unchanged; if the archive has grown, only the new snapshots are scanned.
+ *
+ * <p>Snapshots are parsed from a memory-mapped view of the archive without creating a String per
+ * line or token. Each call maps its own region, so different snapshots can be read by different
+ * threads concurrently.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class ArchiveIndex {
+
+  private static final Logger logger = Logger.getLogger(ArchiveIndex.class.getName());
+
+  /** Magic number at the start of a cached index ("FFXARCI1"). */
+  private static final long MAGIC = 0x4646584152434931L;
+  /** Size of the buffer used to scan the archive. */
+  private static final int SCAN_BUFFER_SIZE = 1 << 20;
+  /** Powers of ten that are exactly representable as doubles. */
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    POWERS_OF_TEN[0] = 1.0;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+  }
+
+  /**
+   * A snapshot parsed from an archive.
+   *
+   * @param header The header (title) line.
+   * @param box The unit cell parameters (a, b, c, alpha, beta, gamma), or null if the snapshot
+   *     does not include them.
+   * @param xyz The coordinates [3N].
+   */
+  public record Snapshot(String header, double[] box, double[] xyz) {
+
+  }
+
+  /** The archive file. */
+  private final File archive;
+  /** The number of atoms in each snapshot. */
+  private final int nAtoms;
+  /** The file offset of each snapshot. */
+  private long[] offsets;
+  /** The number of snapshots. */
+  private int nFrames;
+  /** The file position after the last complete snapshot. */
+  private long end;
+
+  /**
+   * Private constructor; use the <code>load</code> method.
+   *
+   * @param archive The archive file.
+   * @param nAtoms The number of atoms in each snapshot.
+   */
+  private ArchiveIndex(File archive, int nAtoms) {
+    this.archive = archive;
+    this.nAtoms = nAtoms;
+    offsets = new long[16];
+    nFrames = 0;
+    end = 0;
+  }
+
+  /**
+   * Load the index for an archive, reusing or extending the cached index if possible. The cache
+   * is (re)written for archives with more than one snapshot.
+   *
+   * @param archive The archive file.
+   * @param nAtoms The number of atoms in each snapshot.
+   * @return The index.
+   * @throws IOException If the archive cannot be read.
+   */
+  public static ArchiveIndex load(File archive, int nAtoms) throws IOException {
+    return load(archive, nAtoms, true);
+  }
+
+  /**
+   * Load the index for an archive, reusing or extending the cached index if possible.
+   *
+   * @param archive The archive file.
+   * @param nAtoms The number of atoms in each snapshot.
+   * @param writeCache If true, the cache is (re)written for archives with more than one
+   *     snapshot; otherwise an existing cache is only read.
+   * @return The index.
+   * @throws IOException If the archive cannot be read.
+   */
+  public static ArchiveIndex load(File archive, int nAtoms, boolean writeCache)
+      throws IOException {
+    ArchiveIndex index = new ArchiveIndex(archive, nAtoms);
+    File cache = getCacheFile(archive);
+    long length = archive.length();
+    long lastModified = archive.lastModified();
+    boolean current = false;
+    if (cache.exists() && index.readCache(cache)) {
+      if (index.end == length && cache.lastModified() >= lastModified) {
+        current = true;
+      } else if (index.end > length || !index.lastFrameIsValid()) {
+        // The archive was truncated or replaced.
+        index.nFrames = 0;
+        index.end = 0;
+      }
+    }
+    if (!current) {
+      index.scan();
+      if (writeCache) {
+        index.writeCache(cache);
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Get the cache file for an archive.
+   *
+   * @param archive The archive file.
+   * @return The cache file.
+   */
+  public static File getCacheFile(File archive) {
+    return new File(archive.getAbsolutePath() + ".idx");
+  }
+
+  /**
+   * Get the number of atoms in each snapshot.
+   *
+   * @return The number of atoms.
+   */
+  public int getNumberOfAtoms() {
+    return nAtoms;
+  }
+
+  /**
+   * Get the number of complete snapshots.
+   *
+   * @return The number of snapshots.
+   */
+  public int getNumberOfFrames() {
+    return nFrames;
+  }
+
+  /**
+   * Get the file position after the last complete snapshot.
+   *
+   * @return The number of indexed bytes.
+   */
+  public long getIndexedLength() {
+    return end;
+  }
+
+  /**
+   * Get the byte offset of a snapshot.
+   *
+   * @param frame The snapshot (0 to the number of snapshots - 1).
+   * @return The offset of the snapshot's header line.
+   */
+  public long getOffset(int frame) {
+    checkFrame(frame);
+    return offsets[frame];
+  }
+
+  /**
+   * Parse a snapshot. This method is thread-safe.
+   *
+   * @param frame The snapshot (0 to the number of snapshots - 1).
+   * @param xyz Array to store the coordinates [3N], or null to allocate one.
+   * @return The snapshot.
+   * @throws IOException If the snapshot cannot be read or parsed.
+   */
+  public Snapshot readSnapshot(int frame, double[] xyz) throws IOException {
+    checkFrame(frame);
+    if (xyz == null) {
+      xyz = new double[nAtoms * 3];
+    }
+    long start = offsets[frame];
+    long stop = (frame + 1 < nFrames) ? offsets[frame + 1] : end;
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, stop - start);
+    }
+    Parser parser = new Parser(buffer);
+
+    // Header line.
+    parser.skipBlankLines();
+    String header = parser.readLine();
+
+    // Optional unit cell parameters.
+    double[] box = null;
+    parser.skipBlankLines();
+    if (!parser.firstTokenIsInteger()) {
+      box = new double[6];
+      for (int i = 0; i < 6; i++) {
+        box[i] = parser.nextDouble();
+      }
+      parser.nextLine();
+    }
+
+    // Atoms: index, name, x, y, z, type and bonds.
+    for (int i = 0; i < nAtoms; i++) {
+      parser.skipBlankLines();
+      parser.skipToken();
+      parser.skipToken();
+      int i3 = i * 3;
+      xyz[i3] = parser.nextDouble();
+      xyz[i3 + 1] = parser.nextDouble();
+      xyz[i3 + 2] = parser.nextDouble();
+      parser.nextLine();
+    }
+    return new Snapshot(header, box, xyz);
+  }
+
+  /**
+   * Check that a snapshot is in range.
+   *
+   * @param frame The snapshot.
+   */
+  private void checkFrame(int frame) {
+    if (frame < 0 || frame >= nFrames) {
+      throw new IndexOutOfBoundsException(
+          format(" Snapshot %d is out of range for %d snapshots in %s.", frame, nFrames, archive));
+    }
+  }
+
+  /**
+   * Scan the archive from the end of the last indexed snapshot, adding each complete snapshot.
+   *
+   * @throws IOException If the archive cannot be read.
+   */
+  private void scan() throws IOException {
+    try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+      LineScanner scanner = new LineScanner();
+      long position = end;
+      channel.position(position);
+      scanner.lineStart = position;
+      while (channel.read(buffer) > 0) {
+        buffer.flip();
+        int limit = buffer.limit();
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < limit; i++) {
+          if (!scanner.accept(bytes[i], position)) {
+            return;
+          }
+          position++;
+        }
+        buffer.clear();
+      }
+      // A final line without a newline.
+      scanner.endLine(position);
+    }
+  }
+
+  /**
+   * Check that the last indexed snapshot still starts with a header line, which guards against
+   * extending a stale index after the archive has been rewritten.
+   *
+   * @return True if the last indexed snapshot starts with a header line.
+   */
+  private boolean lastFrameIsValid() {
+    if (nFrames == 0) {
+      return true;
+    }
+    long start = offsets[nFrames - 1];
+    try (FileChannel channel = FileChannel.open(archive.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(256, end - start));
+      channel.read(buffer, start);
+      buffer.flip();
+      Parser parser = new Parser(buffer);
+      parser.skipBlankLines();
+      return parser.firstTokenIsInteger() && (int) parser.nextDouble() == nAtoms;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Record a complete snapshot.
+   *
+   * @param offset The offset of the snapshot.
+   * @param next The position after the snapshot.
+   */
+  private void addFrame(long offset, long next) {
+    if (nFrames == offsets.length) {
+      offsets = Arrays.copyOf(offsets, nFrames * 2);
+    }
+    offsets[nFrames++] = offset;
+    end = next;
+  }
+
+  /**
+   * Read a cached index.
+   *
+   * @param cache The cache file.
+   * @return True if the cache is valid for this archive.
+   */
+  private boolean readCache(File cache) {
+    try (DataInputStream input = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(cache)))) {
+      if (input.readLong() != MAGIC || input.readInt() != nAtoms) {
+        return false;
+      }
+      long cachedEnd = input.readLong();
+      int n = input.readInt();
+      long[] cachedOffsets = new long[Math.max(16, n)];
+      for (int i = 0; i < n; i++) {
+        cachedOffsets[i] = input.readLong();
+      }
+      offsets = cachedOffsets;
+      nFrames = n;
+      end = cachedEnd;
+      return true;
+    } catch (IOException e) {
+      logger.fine(format(" Ignoring archive index %s: %s", cache, e));
+      return false;
+    }
+  }
+
+  /**
+   * Write the index next to the archive. Failure is not fatal (e.g. a read-only directory).
+   *
+   * @param cache The cache file.
+   */
+  private void writeCache(File cache) {
+    // A single snapshot is cheap to scan, so no cache is written.
+    if (nFrames < 2) {
+      return;
+    }
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(cache)))) {
+      output.writeLong(MAGIC);
+      output.writeInt(nAtoms);
+      output.writeLong(end);
+      output.writeInt(nFrames);
+      for (int i = 0; i < nFrames; i++) {
+        output.writeLong(offsets[i]);
+      }
+    } catch (IOException e) {
+      logger.log(Level.FINE, format(" Could not write archive index %s.", cache), e);
+    }
+  }
+
+  /**
+   * Identifies snapshots one byte at a time. A snapshot is a header line whose first token is the
+   * number of atoms, an optional unit cell line whose first token is not an integer, and one line
+   * per atom. Blank lines are ignored.
+   */
+  private class LineScanner {
+
+    private static final int HEADER = 0;
+    private static final int FIRST = 1;
+    private static final int ATOMS = 2;
+
+    /** Offset of the current line. */
+    long lineStart;
+    /** 0: before the first token, 1: in a first token of digits, 2: first token complete. */
+    private int tokenState = 0;
+    private boolean sign = false;
+    private boolean blank = true;
+    private boolean isInteger = false;
+    private long value = 0;
+    private int frameState = HEADER;
+    private long frameStart;
+    private int atomCount;
+
+    /**
+     * Accept the next byte.
+     *
+     * @param b The byte.
+     * @param position Its offset.
+     * @return False if the archive cannot be indexed past this point.
+     */
+    boolean accept(byte b, long position) {
+      if (b == '\n') {
+        boolean ok = endLine(position + 1);
+        lineStart = position + 1;
+        return ok;
+      }
+      boolean whitespace = b == ' ' || b == '\t' || b == '\r';
+      if (!whitespace) {
+        blank = false;
+      }
+      switch (tokenState) {
+        case 0 -> {
+          if (!whitespace) {
+            if (b >= '0' && b <= '9') {
+              value = b - '0';
+              isInteger = true;
+              tokenState = 1;
+            } else if ((b == '-' || b == '+') && !sign) {
+              sign = true;
+            } else {
+              isInteger = false;
+              tokenState = 2;
+            }
+          }
+        }
+        case 1 -> {
+          if (whitespace) {
+            tokenState = 2;
+          } else if (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+          } else {
+            isInteger = false;
+            tokenState = 2;
+          }
+        }
+        default -> {
+          // The first token has been classified.
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Process a complete line.
+     *
+     * @param next The offset after the line.
+     * @return False if the archive cannot be indexed past this point.
+     */
+    boolean endLine(long next) {
+      boolean ok = true;
+      if (!blank) {
+        switch (frameState) {
+          case HEADER -> {
+            if (isInteger && !sign && value == nAtoms) {
+              frameStart = lineStart;
+              atomCount = 0;
+              frameState = FIRST;
+            } else {
+              logger.fine(format(" Unexpected header at byte %d of %s.", lineStart, archive));
+              ok = false;
+            }
+          }
+          case FIRST -> {
+            frameState = ATOMS;
+            if (isInteger) {
+              atomCount++;
+            }
+          }
+          default -> atomCount++;
+        }
+        if (frameState == ATOMS && atomCount == nAtoms) {
+          addFrame(frameStart, next);
+          frameState = HEADER;
+        }
+      }
+      tokenState = 0;
+      sign = false;
+      blank = true;
+      isInteger = false;
+      value = 0;
+      return ok;
+    }
+  }
+
+  /**
+   * Parses tokens directly from a mapped snapshot.
+   */
+  private static class Parser {
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position = 0;
+
+    Parser(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.limit = buffer.limit();
+    }
+
+    /** Skip lines that contain only whitespace. */
+    void skipBlankLines() {
+      int p = position;
+      while (p < limit) {
+        byte b = buffer.get(p);
+        if (b == '\n') {
+          position = p + 1;
+        } else if (!isWhitespace(b)) {
+          return;
+        }
+        p++;
+      }
+      position = p;
+    }
+
+    /** Advance past the end of the current line. */
+    void nextLine() {
+      while (position < limit && buffer.get(position++) != '\n') {
+        // Skip to the newline.
+      }
+    }
+
+    /**
+     * Read the remainder of the current line.
+     *
+     * @return The line, without the newline.
+     */
+    String readLine() {
+      int start = position;
+      int stop = start;
+      while (stop < limit && buffer.get(stop) != '\n') {
+        stop++;
+      }
+      position = Math.min(stop + 1, limit);
+      if (stop > start && buffer.get(stop - 1) == '\r') {
+        stop--;
+      }
+      byte[] bytes = new byte[stop - start];
+      buffer.get(start, bytes);
+      return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Check if the first token on the current line is an integer.
+     *
+     * @return True if the first token is an integer.
+     */
+    boolean firstTokenIsInteger() {
+      int p = skipSpaces(position);
+      if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+        p++;
+      }
+      int digits = p;
+      while (p < limit && isDigit(buffer.get(p))) {
+        p++;
+      }
+      return p > digits && (p == limit || isWhitespace(buffer.get(p)) || buffer.get(p) == '\n');
+    }
+
+    /** Skip the next token on the current line. */
+    void skipToken() throws IOException {
+      int p = skipSpaces(position);
+      if (p >= limit || buffer.get(p) == '\n') {
+        throw new IOException(" Unexpected end of line in archive.");
+      }
+      while (p < limit && !isWhitespace(buffer.get(p)) && buffer.get(p) != '\n') {
+        p++;
+      }
+      position = p;
+    }
+
+    /**
+     * Parse the next token on the current line as a double. Fixed point values are parsed
+     * directly; other forms fall back to Double.parseDouble.
+     *
+     * @return The value.
+     */
+    double nextDouble() throws IOException {
+      int p = skipSpaces(position);
+      int start = p;
+      boolean negative = false;
+      if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) {
+        negative = buffer.get(p) == '-';
+        p++;
+      }
+      long mantissa = 0;
+      int digits = 0;
+      int fractionDigits = 0;
+      boolean point = false;
+      boolean simple = true;
+      while (p < limit) {
+        byte b = buffer.get(p);
+        if (isDigit(b)) {
+          mantissa = mantissa * 10 + (b - '0');
+          digits++;
+          if (point) {
+            fractionDigits++;
+          }
+        } else if (b == '.' && !point) {
+          point = true;
+        } else if (isWhitespace(b) || b == '\n') {
+          break;
+        } else {
+          simple = false;
+        }
+        p++;
+      }
+      position = p;
+      if (digits == 0 && simple) {
+        throw new IOException(" Expected a number in archive.");
+      }
+      if (simple && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+        // Both the mantissa and the power of ten are exact, so the quotient is correctly rounded.
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+      }
+      byte[] bytes = new byte[p - start];
+      buffer.get(start, bytes);
+      try {
+        return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+      } catch (NumberFormatException e) {
+        throw new IOException(e);
+      }
+    }
+
+    private int skipSpaces(int p) {
+      while (p < limit && isWhitespace(buffer.get(p))) {
+        p++;
+      }
+      return p;
+    }
+
+    private static boolean isWhitespace(byte b) {
+      return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+      return b >= '0' && b <= '9';
+    }
+  }
+}
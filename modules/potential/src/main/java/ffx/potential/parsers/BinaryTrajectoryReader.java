@@ -0,0 +1,339 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.parsers;
+
+import static ffx.potential.parsers.BinaryTrajectoryWriter.BOX;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.FRAME_PREFIX_SIZE;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.HEADER_SIZE;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.INDEX_MAGIC;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.MAGIC;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.TRAILER_SIZE;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.VELOCITIES;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.VERSION;
+import static ffx.potential.parsers.BinaryTrajectoryWriter.recordSize;
+import static java.lang.String.format;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The BinaryTrajectoryReader class provides random access to the frames of a binary trajectory
+ * written by the {@link BinaryTrajectoryWriter}.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class BinaryTrajectoryReader implements AutoCloseable {
+
+  /**
+   * A single trajectory frame.
+   *
+   * @param step The time step.
+   * @param time The simulation time (psec).
+   * @param lambda The state of lambda, or NaN if undefined.
+   * @param pH The constant pH value, or NaN if undefined.
+   * @param box The unit cell parameters (a, b, c, alpha, beta, gamma), or null if not stored.
+   * @param x The coordinates [3N].
+   * @param v The velocities [3N], or null if not stored.
+   */
+  public record Frame(long step, double time, double lambda, double pH, double[] box, double[] x,
+                      double[] v) {
+
+  }
+
+  /** The binary trajectory header. */
+  record Header(int nAtoms, int flags) {
+
+  }
+
+  /**
+   * The frame index.
+   *
+   * @param offsets The file offset of each frame.
+   * @param end The file position after the last complete frame.
+   */
+  record FrameIndex(long[] offsets, long end) {
+
+  }
+
+  /** The trajectory file. */
+  private final File file;
+  /** The file channel. */
+  private final FileChannel channel;
+  /** The number of atoms in each frame. */
+  private final int nAtoms;
+  /** The header flags. */
+  private final int flags;
+  /** File offset of each frame. */
+  private final long[] frameOffsets;
+  /** Inflater for frame records. */
+  private final Inflater inflater = new Inflater();
+
+  /**
+   * Open a binary trajectory for reading.
+   *
+   * @param file The trajectory file.
+   * @throws IOException If the file cannot be read or is not a binary trajectory.
+   */
+  public BinaryTrajectoryReader(File file) throws IOException {
+    this.file = file;
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      Header header = readHeader(channel);
+      nAtoms = header.nAtoms();
+      flags = header.flags();
+      frameOffsets = readIndex(channel).offsets();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of atoms in each frame.
+   *
+   * @return The number of atoms.
+   */
+  public int getNumberOfAtoms() {
+    return nAtoms;
+  }
+
+  /**
+   * Get the number of frames.
+   *
+   * @return The number of frames.
+   */
+  public int getNumberOfFrames() {
+    return frameOffsets.length;
+  }
+
+  /**
+   * Check if velocities are stored.
+   *
+   * @return True if each frame includes velocities.
+   */
+  public boolean hasVelocities() {
+    return (flags & VELOCITIES) != 0;
+  }
+
+  /**
+   * Check if unit cell parameters are stored.
+   *
+   * @return True if each frame includes unit cell parameters.
+   */
+  public boolean hasBox() {
+    return (flags & BOX) != 0;
+  }
+
+  /**
+   * Read a frame.
+   *
+   * @param index The frame index (0 to the number of frames - 1).
+   * @return The frame.
+   * @throws IOException If the frame cannot be read.
+   */
+  public Frame readFrame(int index) throws IOException {
+    if (index < 0 || index >= frameOffsets.length) {
+      throw new IndexOutOfBoundsException(
+          format(" Frame %d is out of range for %d frames.", index, frameOffsets.length));
+    }
+    long offset = frameOffsets[index];
+    ByteBuffer prefix = readFully(channel, offset, FRAME_PREFIX_SIZE);
+    int length = prefix.getInt();
+    int compressedLength = prefix.getInt();
+    if (length != recordSize(nAtoms, flags)) {
+      throw new IOException(format(" Frame %d of %s has an unexpected length %d.", index, file, length));
+    }
+    ByteBuffer compressed = readFully(channel, offset + FRAME_PREFIX_SIZE, compressedLength);
+
+    byte[] bytes = new byte[length];
+    inflater.reset();
+    inflater.setInput(compressed.array(), 0, compressedLength);
+    try {
+      int n = 0;
+      while (n < length && !inflater.finished()) {
+        int count = inflater.inflate(bytes, n, length - n);
+        if (count == 0 && inflater.needsInput()) {
+          break;
+        }
+        n += count;
+      }
+      if (n != length) {
+        throw new IOException(format(" Frame %d of %s is truncated.", index, file));
+      }
+    } catch (DataFormatException e) {
+      throw new IOException(format(" Frame %d of %s is corrupt.", index, file), e);
+    }
+
+    ByteBuffer record = ByteBuffer.wrap(bytes);
+    long step = record.getLong();
+    double time = record.getDouble();
+    double lambda = record.getDouble();
+    double pH = record.getDouble();
+    double[] box = null;
+    if (hasBox()) {
+      box = new double[6];
+      for (int i = 0; i < 6; i++) {
+        box[i] = record.getDouble();
+      }
+    }
+    double[] x = readFloats(record, nAtoms * 3);
+    double[] v = hasVelocities() ? readFloats(record, nAtoms * 3) : null;
+    return new Frame(step, time, lambda, pH, box, x, v);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    channel.close();
+  }
+
+  /**
+   * Read and check the header of a binary trajectory.
+   *
+   * @param channel The file channel.
+   * @return The header.
+   * @throws IOException If the header is not valid.
+   */
+  static Header readHeader(FileChannel channel) throws IOException {
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException(" File is too short to be a binary trajectory.");
+    }
+    ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+    int magic = header.getInt();
+    int version = header.getInt();
+    if (magic != MAGIC) {
+      throw new IOException(" File is not a binary trajectory.");
+    }
+    if (version != VERSION) {
+      throw new IOException(format(" Unsupported binary trajectory version %d.", version));
+    }
+    return new Header(header.getInt(), header.getInt());
+  }
+
+  /**
+   * Read the frame index from the trailer of a binary trajectory. If the trailer is missing or
+   * inconsistent, the complete frames are found by scanning the file.
+   *
+   * @param channel The file channel.
+   * @return The frame index.
+   * @throws IOException If the file cannot be read.
+   */
+  static FrameIndex readIndex(FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size >= HEADER_SIZE + TRAILER_SIZE) {
+      ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+      long indexPosition = trailer.getLong();
+      int nFrames = trailer.getInt();
+      int magic = trailer.getInt();
+      if (magic == INDEX_MAGIC && nFrames >= 0 && indexPosition >= HEADER_SIZE
+          && indexPosition + (long) nFrames * Long.BYTES + TRAILER_SIZE == size) {
+        ByteBuffer index = readFully(channel, indexPosition, nFrames * Long.BYTES);
+        long[] offsets = new long[nFrames];
+        for (int i = 0; i < nFrames; i++) {
+          offsets[i] = index.getLong();
+        }
+        return new FrameIndex(offsets, indexPosition);
+      }
+    }
+
+    // Scan the frames.
+    long[] offsets = new long[16];
+    int nFrames = 0;
+    long position = HEADER_SIZE;
+    while (position + FRAME_PREFIX_SIZE <= size) {
+      ByteBuffer prefix = readFully(channel, position, FRAME_PREFIX_SIZE);
+      int length = prefix.getInt();
+      int compressedLength = prefix.getInt();
+      long next = position + FRAME_PREFIX_SIZE + compressedLength;
+      if (length <= 0 || compressedLength <= 0 || next > size) {
+        break;
+      }
+      if (nFrames == offsets.length) {
+        offsets = Arrays.copyOf(offsets, nFrames * 2);
+      }
+      offsets[nFrames++] = position;
+      position = next;
+    }
+    return new FrameIndex(Arrays.copyOf(offsets, nFrames), position);
+  }
+
+  /**
+   * Read bytes from a file position.
+   *
+   * @param channel The file channel.
+   * @param offset The file position.
+   * @param length The number of bytes.
+   * @return A buffer containing the bytes, positioned at zero.
+   * @throws IOException If the bytes cannot be read.
+   */
+  private static ByteBuffer readFully(FileChannel channel, long offset, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, offset + buffer.position());
+      if (count < 0) {
+        throw new EOFException();
+      }
+    }
+    return buffer.flip();
+  }
+
+  /**
+   * Read single precision values into a double array.
+   *
+   * @param record The frame record.
+   * @param n The number of values.
+   * @return The values.
+   */
+  private static double[] readFloats(ByteBuffer record, int n) {
+    double[] values = new double[n];
+    for (int i = 0; i < n; i++) {
+      values[i] = record.getFloat();
+    }
+    return values;
+  }
+}
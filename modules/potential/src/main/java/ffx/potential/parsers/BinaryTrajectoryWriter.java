@@ -0,0 +1,508 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.parsers;
+
+import static java.lang.String.format;
+
+import ffx.crystal.Crystal;
+import ffx.potential.bonded.Atom;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+/**
+ * The BinaryTrajectoryWriter class appends frames to a compact, compressed binary trajectory.
+ *
+ * <p>Frames are copied into a ring of preallocated slots by the caller (usually the dynamics
+ * thread) and are compressed and written to disk by a background thread. The caller only blocks
+ * if all slots are waiting to be written.
+ *
+ * <p>The file is laid out as:
+ * <ul>
+ *   <li>Header: magic, version, number of atoms and flags (4 ints).</li>
+ *   <li>Frames: uncompressed length and compressed length (2 ints), followed by the deflated
+ *   frame record.</li>
+ *   <li>Frame index: the file offset of each frame (longs), followed by a trailer containing the
+ *   index offset (long), the number of frames and the index magic (2 ints).</li>
+ * </ul>
+ *
+ * <p>A frame record contains the step (long), time, lambda and pH (doubles, NaN if undefined), the
+ * unit cell parameters if the BOX flag is set (6 doubles), the coordinates (3N floats) and the
+ * velocities if the VELOCITIES flag is set (3N floats).
+ *
+ * <p>The index is written when the writer is closed. If it is missing (e.g. after a crash), the
+ * complete frames are recovered by scanning the file. Opening an existing trajectory appends to
+ * it.
+ *
+ * @author Michael J. Schnieders
+ * @see BinaryTrajectoryReader
+ * @since 1.0
+ */
+public class BinaryTrajectoryWriter implements AutoCloseable {
+
+  private static final Logger logger = Logger.getLogger(BinaryTrajectoryWriter.class.getName());
+
+  /** Magic number at the start of a binary trajectory ("FFXT"). */
+  static final int MAGIC = 0x46465854;
+  /** Magic number at the end of the frame index ("FFXI"). */
+  static final int INDEX_MAGIC = 0x46465849;
+  /** Binary trajectory format version. */
+  static final int VERSION = 1;
+  /** Size of the header in bytes. */
+  static final int HEADER_SIZE = 16;
+  /** Size of the per-frame length prefix in bytes. */
+  static final int FRAME_PREFIX_SIZE = 8;
+  /** Size of the index trailer in bytes. */
+  static final int TRAILER_SIZE = 16;
+  /** Flag indicating velocities are stored. */
+  static final int VELOCITIES = 1;
+  /** Flag indicating unit cell parameters are stored. */
+  static final int BOX = 2;
+  /** The default number of frames that can be queued for writing. */
+  public static final int DEFAULT_BUFFER_FRAMES = 4;
+
+  /** The trajectory file. */
+  private final File file;
+  /** The number of atoms in each frame. */
+  private final int nAtoms;
+  /** The header flags. */
+  private final int flags;
+  /** The file channel. Only used by the writer thread after construction. */
+  private final FileChannel channel;
+  /** Slots available to be filled by the caller. */
+  private final ArrayBlockingQueue<Slot> freeSlots;
+  /** Slots waiting to be written. */
+  private final ArrayBlockingQueue<Slot> filledSlots;
+  /** Signals the writer thread to finish. */
+  private final Slot endOfFrames = new Slot(0, false);
+  /** The background writer thread. */
+  private final Thread writerThread;
+  /** Deflater used by the writer thread. */
+  private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+  /** Uncompressed frame record. */
+  private final ByteBuffer record;
+  /** Compressed frame record. */
+  private byte[] compressed;
+  /** File offset of each frame. */
+  private long[] frameOffsets;
+  /** The number of frames in the file. */
+  private volatile int nFrames;
+  /** The file position where the next frame will be written. */
+  private long position;
+  /** An exception thrown by the writer thread. */
+  private volatile IOException writeException = null;
+  /** True once close has been called. */
+  private boolean closed = false;
+
+  /**
+   * Open a binary trajectory for writing. If the file exists, new frames are appended.
+   *
+   * @param file The trajectory file.
+   * @param nAtoms The number of atoms in each frame.
+   * @param writeVelocities If true, velocities are stored.
+   * @param writeBox If true, unit cell parameters are stored.
+   * @param bufferFrames The number of frames that can be queued for writing.
+   * @throws IOException If the file cannot be opened or is not a compatible trajectory.
+   */
+  public BinaryTrajectoryWriter(File file, int nAtoms, boolean writeVelocities, boolean writeBox,
+      int bufferFrames) throws IOException {
+    this.file = file;
+    this.nAtoms = nAtoms;
+    int flags = 0;
+    if (writeVelocities) {
+      flags |= VELOCITIES;
+    }
+    if (writeBox) {
+      flags |= BOX;
+    }
+    this.flags = flags;
+    bufferFrames = Math.max(1, bufferFrames);
+
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      if (channel.size() > 0) {
+        BinaryTrajectoryReader.Header header = BinaryTrajectoryReader.readHeader(channel);
+        if (header.nAtoms() != nAtoms || header.flags() != flags) {
+          throw new IOException(format(" Binary trajectory %s has %d atoms and flags %d (expected %d and %d).",
+              file, header.nAtoms(), header.flags(), nAtoms, flags));
+        }
+        // Drop the frame index; it is rewritten when the writer is closed.
+        BinaryTrajectoryReader.FrameIndex index = BinaryTrajectoryReader.readIndex(channel);
+        frameOffsets = Arrays.copyOf(index.offsets(), Math.max(16, index.offsets().length * 2));
+        nFrames = index.offsets().length;
+        position = index.end();
+        channel.truncate(position);
+      } else {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(nAtoms).putInt(flags).flip();
+        writeFully(header, 0);
+        frameOffsets = new long[16];
+        nFrames = 0;
+        position = HEADER_SIZE;
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+
+    record = ByteBuffer.allocate(recordSize(nAtoms, flags));
+    compressed = new byte[record.capacity() + record.capacity() / 100 + 64];
+    freeSlots = new ArrayBlockingQueue<>(bufferFrames);
+    filledSlots = new ArrayBlockingQueue<>(bufferFrames + 1);
+    for (int i = 0; i < bufferFrames; i++) {
+      freeSlots.add(new Slot(nAtoms, writeVelocities));
+    }
+    writerThread = new Thread(this::writeFrames, "BinaryTrajectoryWriter-" + file.getName());
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Queue a frame built from the current state of an array of atoms.
+   *
+   * @param step The time step.
+   * @param time The simulation time (psec).
+   * @param lambda The state of lambda, or NaN if undefined.
+   * @param pH The constant pH value, or NaN if undefined.
+   * @param crystal The unit cell (ignored unless unit cell parameters are stored).
+   * @param atoms The atoms, which provide coordinates and velocities.
+   * @throws IOException If a previous frame could not be written.
+   */
+  public void append(long step, double time, double lambda, double pH, Crystal crystal, Atom[] atoms)
+      throws IOException {
+    if (atoms.length != nAtoms) {
+      throw new IllegalArgumentException(format(" Expected %d atoms, but received %d.", nAtoms, atoms.length));
+    }
+    Slot slot = takeSlot();
+    slot.setMetadata(step, time, lambda, pH, crystal);
+    double[] xyz = new double[3];
+    for (int i = 0; i < nAtoms; i++) {
+      int i3 = i * 3;
+      atoms[i].getXYZ(xyz);
+      slot.x[i3] = (float) xyz[0];
+      slot.x[i3 + 1] = (float) xyz[1];
+      slot.x[i3 + 2] = (float) xyz[2];
+      if (slot.v != null) {
+        atoms[i].getVelocity(xyz);
+        slot.v[i3] = (float) xyz[0];
+        slot.v[i3 + 1] = (float) xyz[1];
+        slot.v[i3 + 2] = (float) xyz[2];
+      }
+    }
+    queueSlot(slot);
+  }
+
+  /**
+   * Queue a frame from flat coordinate and velocity arrays.
+   *
+   * @param step The time step.
+   * @param time The simulation time (psec).
+   * @param lambda The state of lambda, or NaN if undefined.
+   * @param pH The constant pH value, or NaN if undefined.
+   * @param crystal The unit cell (ignored unless unit cell parameters are stored).
+   * @param x The coordinates [3N].
+   * @param v The velocities [3N] (ignored unless velocities are stored).
+   * @throws IOException If a previous frame could not be written.
+   */
+  public void append(long step, double time, double lambda, double pH, Crystal crystal, double[] x,
+      double[] v) throws IOException {
+    Slot slot = takeSlot();
+    slot.setMetadata(step, time, lambda, pH, crystal);
+    int n = nAtoms * 3;
+    for (int i = 0; i < n; i++) {
+      slot.x[i] = (float) x[i];
+    }
+    if (slot.v != null) {
+      for (int i = 0; i < n; i++) {
+        slot.v[i] = (float) v[i];
+      }
+    }
+    queueSlot(slot);
+  }
+
+  /**
+   * Wait for queued frames to be written, write the frame index and close the file.
+   *
+   * @throws IOException If a frame or the index could not be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      filledSlots.put(endOfFrames);
+      writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      channel.close();
+      throw new InterruptedIOException(" Interrupted while closing " + file);
+    }
+    try {
+      if (writeException == null) {
+        writeIndex();
+      }
+    } finally {
+      deflater.end();
+      channel.close();
+    }
+    if (writeException != null) {
+      throw writeException;
+    }
+  }
+
+  /**
+   * Get the trajectory file.
+   *
+   * @return The trajectory file.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Get the number of frames that have been written to disk.
+   *
+   * @return The number of frames.
+   */
+  public int getNumberOfFrames() {
+    return nFrames;
+  }
+
+  /**
+   * Compute the size of an uncompressed frame record.
+   *
+   * @param nAtoms The number of atoms.
+   * @param flags The header flags.
+   * @return The size in bytes.
+   */
+  static int recordSize(int nAtoms, int flags) {
+    int size = Long.BYTES + 3 * Double.BYTES + 3 * nAtoms * Float.BYTES;
+    if ((flags & BOX) != 0) {
+      size += 6 * Double.BYTES;
+    }
+    if ((flags & VELOCITIES) != 0) {
+      size += 3 * nAtoms * Float.BYTES;
+    }
+    return size;
+  }
+
+  /**
+   * Take an empty slot, waiting for the writer thread if necessary.
+   *
+   * @return An empty slot.
+   * @throws IOException If the writer is closed or a previous frame could not be written.
+   */
+  private Slot takeSlot() throws IOException {
+    if (closed) {
+      throw new IOException(" Binary trajectory " + file + " is closed.");
+    }
+    if (writeException != null) {
+      throw writeException;
+    }
+    try {
+      return freeSlots.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(" Interrupted while appending to " + file);
+    }
+  }
+
+  /**
+   * Pass a filled slot to the writer thread.
+   *
+   * @param slot The filled slot.
+   * @throws IOException If interrupted.
+   */
+  private void queueSlot(Slot slot) throws IOException {
+    try {
+      filledSlots.put(slot);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(" Interrupted while appending to " + file);
+    }
+  }
+
+  /**
+   * Body of the writer thread: write each queued frame and return its slot.
+   */
+  private void writeFrames() {
+    while (true) {
+      Slot slot;
+      try {
+        slot = filledSlots.take();
+      } catch (InterruptedException e) {
+        // Only close() waits on this thread, so keep draining.
+        continue;
+      }
+      if (slot == endOfFrames) {
+        return;
+      }
+      if (writeException == null) {
+        try {
+          writeFrame(slot);
+        } catch (IOException e) {
+          logger.warning(format(" Writing to binary trajectory %s failed:\n %s", file, e));
+          writeException = e;
+        }
+      }
+      freeSlots.add(slot);
+    }
+  }
+
+  /**
+   * Compress a frame and write it at the end of the file.
+   *
+   * @param slot The frame.
+   * @throws IOException If the frame could not be written.
+   */
+  private void writeFrame(Slot slot) throws IOException {
+    record.clear();
+    record.putLong(slot.step).putDouble(slot.time).putDouble(slot.lambda).putDouble(slot.pH);
+    if ((flags & BOX) != 0) {
+      for (double p : slot.box) {
+        record.putDouble(p);
+      }
+    }
+    record.asFloatBuffer().put(slot.x);
+    record.position(record.position() + slot.x.length * Float.BYTES);
+    if (slot.v != null) {
+      record.asFloatBuffer().put(slot.v);
+      record.position(record.position() + slot.v.length * Float.BYTES);
+    }
+    int length = record.position();
+
+    deflater.reset();
+    deflater.setInput(record.array(), 0, length);
+    deflater.finish();
+    int compressedLength = 0;
+    while (!deflater.finished()) {
+      if (compressedLength == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      compressedLength += deflater.deflate(compressed, compressedLength,
+          compressed.length - compressedLength);
+    }
+
+    ByteBuffer prefix = ByteBuffer.allocate(FRAME_PREFIX_SIZE);
+    prefix.putInt(length).putInt(compressedLength).flip();
+    long offset = position;
+    writeFully(prefix, position);
+    writeFully(ByteBuffer.wrap(compressed, 0, compressedLength), position + FRAME_PREFIX_SIZE);
+    position += FRAME_PREFIX_SIZE + compressedLength;
+
+    if (nFrames == frameOffsets.length) {
+      frameOffsets = Arrays.copyOf(frameOffsets, frameOffsets.length * 2);
+    }
+    frameOffsets[nFrames] = offset;
+    nFrames++;
+  }
+
+  /**
+   * Write the frame index and trailer after the last frame.
+   *
+   * @throws IOException If the index could not be written.
+   */
+  private void writeIndex() throws IOException {
+    ByteBuffer index = ByteBuffer.allocate(nFrames * Long.BYTES + TRAILER_SIZE);
+    for (int i = 0; i < nFrames; i++) {
+      index.putLong(frameOffsets[i]);
+    }
+    index.putLong(position).putInt(nFrames).putInt(INDEX_MAGIC).flip();
+    writeFully(index, position);
+    channel.force(false);
+  }
+
+  /**
+   * Write all remaining bytes of a buffer at a file position.
+   *
+   * @param buffer The buffer.
+   * @param offset The file position.
+   * @throws IOException If the write fails.
+   */
+  private void writeFully(ByteBuffer buffer, long offset) throws IOException {
+    while (buffer.hasRemaining()) {
+      offset += channel.write(buffer, offset);
+    }
+  }
+
+  /**
+   * One preallocated frame in the ring buffer.
+   */
+  private static class Slot {
+
+    long step;
+    double time;
+    double lambda;
+    double pH;
+    final double[] box = new double[6];
+    final float[] x;
+    final float[] v;
+
+    Slot(int nAtoms, boolean velocities) {
+      x = new float[nAtoms * 3];
+      v = velocities ? new float[nAtoms * 3] : null;
+    }
+
+    void setMetadata(long step, double time, double lambda, double pH, Crystal crystal) {
+      this.step = step;
+      this.time = time;
+      this.lambda = lambda;
+      this.pH = pH;
+      if (crystal != null) {
+        box[0] = crystal.a;
+        box[1] = crystal.b;
+        box[2] = crystal.c;
+        box[3] = crystal.alpha;
+        box[4] = crystal.beta;
+        box[5] = crystal.gamma;
+      } else {
+        Arrays.fill(box, 0.0);
+      }
+    }
+  }
+}
@@ -81,6 +81,8 @@ public class XYZFilter extends SystemFilter {
   private BufferedReader bufferedReader = null;
   private int snapShot;
   private String remarkLine;
+  /** Snapshot offsets for random access to an archive (loaded on demand). */
+  private ArchiveIndex archiveIndex = null;
 
   /**
    * Constructor for XYZFilter.
@@ -206,28 +208,36 @@ public class XYZFilter extends SystemFilter {
 
     String[] tokens = data.trim().split(" +");
     if (tokens.length == 6) {
-      CompositeConfiguration config = activeMolecularAssembly.getProperties();
-      double a = parseDouble(tokens[0]);
-      double b = parseDouble(tokens[1]);
-      double c = parseDouble(tokens[2]);
-      double alpha = parseDouble(tokens[3]);
-      double beta = parseDouble(tokens[4]);
-      double gamma = parseDouble(tokens[5]);
-      config.setProperty("a-axis", a);
-      config.setProperty("b-axis", b);
-      config.setProperty("c-axis", c);
-      config.setProperty("alpha", alpha);
-      config.setProperty("beta", beta);
-      config.setProperty("gamma", gamma);
-
-      Crystal crystal = activeMolecularAssembly.getCrystal();
-      if (crystal != null) {
-        crystal.changeUnitCellParameters(a, b, c, alpha, beta, gamma);
+      double[] box = new double[6];
+      for (int i = 0; i < 6; i++) {
+        box[i] = parseDouble(tokens[i]);
       }
+      setPBC(box, activeMolecularAssembly);
     }
     return true;
   }
 
+  /**
+   * Apply unit cell parameters to a molecular assembly.
+   *
+   * @param box The unit cell parameters (a, b, c, alpha, beta, gamma).
+   * @param activeMolecularAssembly The molecular assembly.
+   */
+  private static void setPBC(double[] box, MolecularAssembly activeMolecularAssembly) {
+    CompositeConfiguration config = activeMolecularAssembly.getProperties();
+    config.setProperty("a-axis", box[0]);
+    config.setProperty("b-axis", box[1]);
+    config.setProperty("c-axis", box[2]);
+    config.setProperty("alpha", box[3]);
+    config.setProperty("beta", box[4]);
+    config.setProperty("gamma", box[5]);
+
+    Crystal crystal = activeMolecularAssembly.getCrystal();
+    if (crystal != null) {
+      crystal.changeUnitCellParameters(box[0], box[1], box[2], box[3], box[4], box[5]);
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public void closeReader() {
@@ -244,6 +254,17 @@ public class XYZFilter extends SystemFilter {
   public int countNumModels() {
     File xyzFile = activeMolecularAssembly.getFile();
     int nAtoms = activeMolecularAssembly.getAtomArray().length;
+
+    // Count snapshots using the archive index; an existing cache is used, but none is written.
+    try {
+      int nSnaps = ArchiveIndex.load(xyzFile, nAtoms, false).getNumberOfFrames();
+      if (nSnaps > 0) {
+        return nSnaps;
+      }
+    } catch (IOException e) {
+      logger.fine(format(" Could not index %s: %s", xyzFile, e));
+    }
+
     Pattern crystInfoPattern = Pattern.compile(
         "^ *(?:[0-9]+\\.[0-9]+ +){3}(?:-?[0-9]+\\.[0-9]+ +){2}(?:-?[0-9]+\\.[0-9]+) *$");
 
@@ -299,6 +320,67 @@ public class XYZFilter extends SystemFilter {
     return snapShot;
   }
 
+  /**
+   * Get the snapshot index of the current archive, which is built (or loaded from its cache) on
+   * the first call.
+   *
+   * @return The archive index.
+   * @throws IOException If the archive cannot be indexed.
+   */
+  public ArchiveIndex getArchiveIndex() throws IOException {
+    int nAtoms = activeMolecularAssembly.getAtomArray().length;
+    if (archiveIndex == null || archiveIndex.getNumberOfAtoms() != nAtoms) {
+      archiveIndex = ArchiveIndex.load(currentFile, nAtoms);
+    }
+    return archiveIndex;
+  }
+
+  /**
+   * Read a snapshot of an archive directly into the activeMolecularAssembly using the archive
+   * index. Subsequent calls to <code>readNext</code> continue from the following snapshot.
+   *
+   * @param snapshot The snapshot to read (1 to the number of snapshots).
+   * @return True if the snapshot was read.
+   */
+  public boolean readSnapshot(int snapshot) {
+    try {
+      ArchiveIndex index = getArchiveIndex();
+      int nSnapshots = index.getNumberOfFrames();
+      if (snapshot < 1 || snapshot > nSnapshots) {
+        logger.warning(format(" Snapshot %d is not in %s (%d snapshots).", snapshot,
+            currentFile.getName(), nSnapshots));
+        return false;
+      }
+      Atom[] atoms = activeMolecularAssembly.getAtomArray();
+      ArchiveIndex.Snapshot frame = index.readSnapshot(snapshot - 1, null);
+      String[] tokens = frame.header().trim().split(" +");
+      if (tokens.length > 1) {
+        activeMolecularAssembly.setName(tokens[1]);
+      }
+      remarkLine = frame.header();
+      if (frame.box() != null) {
+        setPBC(frame.box(), activeMolecularAssembly);
+      }
+      double[] xyz = frame.xyz();
+      for (int i = 0; i < atoms.length; i++) {
+        int i3 = i * 3;
+        atoms[i].moveTo(xyz[i3], xyz[i3 + 1], xyz[i3 + 2]);
+      }
+      snapShot = snapshot;
+
+      // Position the sequential reader at the next snapshot (archives are ASCII).
+      closeReader();
+      bufferedReader = new BufferedReader(new FileReader(currentFile));
+      long next = (snapshot < nSnapshots) ? index.getOffset(snapshot) : index.getIndexedLength();
+      bufferedReader.skip(next);
+      return true;
+    } catch (IOException e) {
+      String message = format("Exception reading snapshot %d from file %s.", snapshot, currentFile);
+      logger.log(Level.WARNING, message, e);
+    }
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    *
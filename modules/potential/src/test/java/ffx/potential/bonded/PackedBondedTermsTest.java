@@ -0,0 +1,95 @@
+//******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+//******************************************************************************
+package ffx.potential.bonded;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test that the packed bonded kernels reproduce the per-object bonded energies and gradient.
+ */
+public class PackedBondedTermsTest extends PotentialTest {
+
+  private final double tolerance = 1.0e-8;
+
+  @Test
+  public void testPackedBondedTerms() {
+    String filepath = getResourcePath("crambin.xyz");
+
+    // Evaluate the reference energy and gradient using the per-object path.
+    binding.setVariable("args", new String[] {filepath});
+    Energy energy = new Energy(binding).run();
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    double[] g = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+    forceFieldEnergy.energyAndGradient(x, g);
+    double bondEnergy = forceFieldEnergy.getBondEnergy();
+    double angleEnergy = forceFieldEnergy.getAngleEnergy();
+    double ureyBradleyEnergy = forceFieldEnergy.getUreyBradleyEnergy();
+    double torsionEnergy = forceFieldEnergy.getTorsionEnergy();
+    double totalEnergy = forceFieldEnergy.getTotalEnergy();
+    energy.destroyPotentials();
+
+    // Repeat using the packed bonded kernels.
+    System.setProperty("packed-bonded", "true");
+    binding = new Binding();
+    binding.setVariable("args", new String[] {filepath});
+    energy = new Energy(binding).run();
+    potentialScript = energy;
+    forceFieldEnergy = energy.forceFieldEnergy;
+    double[] gPacked = new double[nVars];
+    forceFieldEnergy.energyAndGradient(x, gPacked);
+
+    assertEquals(" Bond Energy", bondEnergy, forceFieldEnergy.getBondEnergy(), tolerance);
+    assertEquals(" Angle Energy", angleEnergy, forceFieldEnergy.getAngleEnergy(), tolerance);
+    assertEquals(" Urey-Bradley Energy", ureyBradleyEnergy,
+        forceFieldEnergy.getUreyBradleyEnergy(), tolerance);
+    assertEquals(" Torsion Energy", torsionEnergy, forceFieldEnergy.getTorsionEnergy(), tolerance);
+    assertEquals(" Total Energy", totalEnergy, forceFieldEnergy.getTotalEnergy(), tolerance);
+    for (int i = 0; i < nVars; i++) {
+      assertEquals(" Gradient " + i, g[i], gPacked[i], tolerance);
+    }
+  }
+}
@@ -37,10 +37,17 @@
 // ******************************************************************************
 package ffx.potential.groovy;
 
+import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import ffx.numerics.Potential;
+import ffx.potential.DualTopologyEnergy;
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.bonded.LambdaInterface;
 import ffx.potential.groovy.test.LambdaGradient;
 import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
 import org.junit.Test;
 
 /**
@@ -138,4 +145,137 @@ public class LambdaGradientTest extends PotentialTest {
     assertEquals(0, lambdaGradient.ndEdXdLFailures);
     assertEquals(0, lambdaGradient.ndEdXFailures);
   }
+
+  /**
+   * Tests that ForceFieldEnergy.energyAtLambdas, which re-uses lambda independent terms and only
+   * recomputes softcore van der Waals interactions after the first lambda, matches separate
+   * setLambda / energy evaluations.
+   */
+  @Test
+  public void testEnergyAtLambdasSoftcore() {
+    String xyzpath = getResourcePath("ethylparaben.xyz");
+    String[] args = {"--ac", "1-44", "--sk2", "--sdX", xyzpath};
+    binding.setVariable("args", args);
+
+    LambdaGradient lambdaGradient = new LambdaGradient(binding).run();
+    potentialScript = lambdaGradient;
+
+    Potential potential = lambdaGradient.getPotentials().get(0);
+    assertTrue(potential instanceof ForceFieldEnergy);
+    compareEnergyAtLambdas(potential);
+  }
+
+  /**
+   * Tests that DualTopologyEnergy.energyAtLambdas, which evaluates each topology once per lambda
+   * and computes the shared bonded terms only once, matches separate setLambda / energy
+   * evaluations.
+   */
+  @Test
+  public void testEnergyAtLambdasDualTopology() {
+    String xyzpath = getResourcePath("phenacetin.xyz");
+    String[] args = {"--ac", "1-5", "--ac2", "1-5", "--sk2", "--sdX", xyzpath, xyzpath};
+    binding.setVariable("args", args);
+
+    LambdaGradient lambdaGradient = new LambdaGradient(binding).run();
+    potentialScript = lambdaGradient;
+
+    Potential potential = lambdaGradient.getPotentials().get(0);
+    assertTrue(potential instanceof DualTopologyEnergy);
+    compareEnergyAtLambdas(potential);
+  }
+
+  /**
+   * Tests that evaluating the shared environment of a dual topology once reproduces the energy and
+   * gradient of evaluating both topologies in full.
+   */
+  @Test
+  public void testSharedEnvironment() {
+    double[] lambdas = {0.0, 0.4, 1.0};
+    double[][] unshared = dualTopologyEnergyAndGradient(lambdas);
+    potentialScript.destroyPotentials();
+    potentialScript = null;
+
+    System.setProperty("shared-environment", "true");
+    binding = new Binding();
+    double[][] shared = dualTopologyEnergyAndGradient(lambdas);
+
+    for (int i = 0; i < lambdas.length; i++) {
+      int n = unshared[i].length;
+      assertEquals(n, shared[i].length);
+      assertEquals(format(" Energy at L=%4.2f", lambdas[i]), unshared[i][0], shared[i][0], 1.0e-8);
+      for (int j = 1; j < n; j++) {
+        assertEquals(format(" Gradient %d at L=%4.2f", j - 1, lambdas[i]),
+            unshared[i][j], shared[i][j], 1.0e-8);
+      }
+    }
+  }
+
+  /**
+   * Evaluate a phenacetin dual topology at each lambda.
+   *
+   * @param lambdas The lambda values.
+   * @return For each lambda, the energy followed by the gradient.
+   */
+  private double[][] dualTopologyEnergyAndGradient(double[] lambdas) {
+    String xyzpath = getResourcePath("phenacetin.xyz");
+    String[] args = {"--ac", "1-5", "--ac2", "1-5", "--sk2", "--sdX", xyzpath, xyzpath};
+    binding.setVariable("args", args);
+
+    LambdaGradient lambdaGradient = new LambdaGradient(binding).run();
+    potentialScript = lambdaGradient;
+
+    Potential potential = lambdaGradient.getPotentials().get(0);
+    assertTrue(potential instanceof DualTopologyEnergy);
+    LambdaInterface lambdaInterface = (LambdaInterface) potential;
+    int n = potential.getNumberOfVariables();
+    double[] x = new double[n];
+    potential.getCoordinates(x);
+
+    double[][] ret = new double[lambdas.length][n + 1];
+    double[] g = new double[n];
+    for (int i = 0; i < lambdas.length; i++) {
+      lambdaInterface.setLambda(lambdas[i]);
+      ret[i][0] = potential.energyAndGradient(x, g);
+      System.arraycopy(g, 0, ret[i], 1, n);
+      // The energy alone must agree with the energy from the gradient evaluation.
+      assertEquals(ret[i][0], potential.energy(x), 1.0e-8);
+    }
+    return ret;
+  }
+
+  /**
+   * Compare energies from a single energyAtLambdas call with separate evaluations at each lambda.
+   *
+   * @param potential A ForceFieldEnergy or DualTopologyEnergy.
+   */
+  private static void compareEnergyAtLambdas(Potential potential) {
+    double[] lambdas = {0.0, 0.1, 0.25, 0.5, 0.75, 0.9, 1.0};
+    double[] x = new double[potential.getNumberOfVariables()];
+    potential.getCoordinates(x);
+
+    double[] energies;
+    if (potential instanceof ForceFieldEnergy forceFieldEnergy) {
+      energies = forceFieldEnergy.energyAtLambdas(x, lambdas);
+    } else {
+      energies = ((DualTopologyEnergy) potential).energyAtLambdas(x, lambdas);
+    }
+
+    LambdaInterface lambdaInterface = (LambdaInterface) potential;
+    for (int i = 0; i < lambdas.length; i++) {
+      lambdaInterface.setLambda(lambdas[i]);
+      double expected = potential.energy(x);
+      assertEquals(format(" Energy at L=%4.2f", lambdas[i]), expected, energies[i], 1.0e-8);
+    }
+
+    // Interleaved full evaluations must not disturb the state re-used by energyAtLambdas.
+    double[] repeat;
+    if (potential instanceof ForceFieldEnergy forceFieldEnergy) {
+      repeat = forceFieldEnergy.energyAtLambdas(x, lambdas);
+    } else {
+      repeat = ((DualTopologyEnergy) potential).energyAtLambdas(x, lambdas);
+    }
+    for (int i = 0; i < lambdas.length; i++) {
+      assertEquals(format(" Repeated energy at L=%4.2f", lambdas[i]), energies[i], repeat[i], 1.0e-8);
+    }
+  }
 }
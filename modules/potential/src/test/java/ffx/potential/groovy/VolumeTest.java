@@ -312,6 +312,44 @@ public class VolumeTest extends PotentialTest {
     assertEquals("Crambin gradient failures: ", 0, gradient.nFailures);
   }
 
+  /**
+   * Test GaussVol with a 1.0 A overlap tree skin, which keeps additional overlaps that do not
+   * contribute at the build geometry. The result is within 1e-4 (relative) of the default mode.
+   */
+  @Test
+  public void testGaussVolSkinCrambin() {
+    System.setProperty("gaussvol-skin", "1.0");
+    // Configure input arguments for the Volume script.
+    String filepath = getResourcePath("crambin.xyz");
+    String[] args = {"-o", "0.0", filepath};
+    binding.setVariable("args", args);
+
+    // Construct and evaluate the Volume script.
+    Volume volume = new Volume(binding).run();
+    potentialScript = volume;
+    assertEquals(4371.667466648112, volume.totalVolume, 1.0e-4 * 4371.667466648112);
+    assertEquals(3971.0619085859435, volume.totalSurfaceArea, 1.0e-4 * 3971.0619085859435);
+  }
+
+  /** Test GaussVol derivatives with a 1.0 A overlap tree skin, where the tree is rescanned. */
+  @Test
+  public void testGaussVolSkinCrambinDerivatives() {
+    // Configure input arguments for the Gradient script.
+    System.setProperty("gkterm", "true");
+    System.setProperty("cavmodel", "gauss-disp");
+    System.setProperty("gaussvol-skin", "1.0");
+    // Choose a random atom to test.
+    int atomID = (int) floor(random() * 642) + 1;
+    String filepath = getResourcePath("crambin.xyz");
+    String[] args = {"--ga", Integer.toString(atomID), filepath};
+    binding.setVariable("args", args);
+
+    // Construct and evaluate the Gradient script
+    Gradient gradient = new Gradient(binding).run();
+    potentialScript = gradient;
+    assertEquals("Crambin gradient failures with a GaussVol skin: ", 0, gradient.nFailures);
+  }
+
   /** Test GaussVol without hydrogen and a 0.4 A radii offset. */
   @Test
   public void testGaussVolEthylbenzene() {
@@ -0,0 +1,169 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.bonded.Residue;
+import ffx.potential.bonded.Rotamer;
+import ffx.potential.bonded.RotamerLibrary;
+import ffx.potential.groovy.Energy;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Test that the cluster-pair van der Waals kernel reproduces the neighbor-list energy and gradient.
+ */
+public class ClusterPairVanDerWaalsTest extends PotentialTest {
+
+  private final double tolerance = 1.0e-8;
+
+  /**
+   * Periodic AMBER system with scaled 1-4 interactions.
+   */
+  @Test
+  public void testClusterPairPeriodic() {
+    compareKernels("ubiquitin-amber99.xyz");
+  }
+
+  /**
+   * Aperiodic AMOEBA system with reduced hydrogen vdW sites.
+   */
+  @Test
+  public void testClusterPairAperiodic() {
+    compareKernels("crambin.xyz");
+  }
+
+  private void compareKernels(String filename) {
+    String filepath = getResourcePath(filename);
+    // Only van der Waals interactions differ between the two evaluations.
+    System.setProperty("mpoleterm", "false");
+
+    // Evaluate the reference energy and gradient using the atomic neighbor-list kernel.
+    binding.setVariable("args", new String[] {filepath});
+    Energy energy = new Energy(binding).run();
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    double[] g = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+    forceFieldEnergy.energyAndGradient(x, g);
+    double vdwEnergy = forceFieldEnergy.getVanDerWaalsEnergy();
+    int vdwInteractions = forceFieldEnergy.getVanDerWaalsInteractions();
+    energy.destroyPotentials();
+
+    // Repeat using the cluster-pair kernel.
+    System.setProperty("vdw-cluster-pair", "true");
+    binding = new Binding();
+    binding.setVariable("args", new String[] {filepath});
+    energy = new Energy(binding).run();
+    potentialScript = energy;
+    forceFieldEnergy = energy.forceFieldEnergy;
+    double[] gCluster = new double[nVars];
+    forceFieldEnergy.energyAndGradient(x, gCluster);
+
+    assertEquals(" Van der Waals Energy", vdwEnergy, forceFieldEnergy.getVanDerWaalsEnergy(),
+        tolerance);
+    assertEquals(" Van der Waals Interactions", vdwInteractions,
+        forceFieldEnergy.getVanDerWaalsInteractions());
+    for (int i = 0; i < nVars; i++) {
+      assertEquals(" Gradient " + i, g[i], gCluster[i], tolerance);
+    }
+  }
+
+  /**
+   * The change in local energy for a side-chain move must equal the change in total energy, both
+   * for the neighbor-list kernel and for the cluster-pair kernel.
+   */
+  @Test
+  public void testLocalEnergy() {
+    compareLocalEnergy(false);
+    compareLocalEnergy(true);
+  }
+
+  private void compareLocalEnergy(boolean clusterPair) {
+    System.setProperty("vdw-cluster-pair", Boolean.toString(clusterPair));
+    binding = new Binding();
+    binding.setVariable("args", new String[] {getResourcePath("crambin.xyz")});
+    Energy energy = new Energy(binding).run();
+    potentialScript = energy;
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    MolecularAssembly molecularAssembly = energy.activeAssembly;
+
+    // Find the first residue with more than one rotamer.
+    RotamerLibrary library = RotamerLibrary.getDefaultLibrary();
+    Residue residue = null;
+    Rotamer[] rotamers = null;
+    for (Residue r : molecularAssembly.getResidueList()) {
+      Rotamer[] rots = r.setRotamers(library);
+      if (rots != null && rots.length > 1) {
+        residue = r;
+        rotamers = rots;
+        break;
+      }
+    }
+    assertNotNull(residue);
+    Atom[] atoms = residue.getVariableAtoms().toArray(new Atom[0]);
+
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+    double total0 = forceFieldEnergy.energy(x);
+    double local0 = forceFieldEnergy.getLocalEnergy(atoms);
+
+    RotamerLibrary.applyRotamer(residue, rotamers[1]);
+    forceFieldEnergy.getCoordinates(x);
+    double total1 = forceFieldEnergy.energy(x);
+    double local1 = forceFieldEnergy.getLocalEnergy(atoms);
+
+    double deltaTotal = total1 - total0;
+    double deltaLocal = local1 - local0;
+    assertEquals(" Local energy change (cluster pairs " + clusterPair + ")", deltaTotal, deltaLocal,
+        tolerance * max(1.0, abs(deltaTotal)));
+
+    potentialScript.destroyPotentials();
+    potentialScript = null;
+  }
+}
@@ -0,0 +1,169 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test incremental updates of the Born radii after a group of atoms moves.
+ *
+ * @author Michael J. Schnieders
+ */
+public class IncrementalBornRadiiTest extends PotentialTest {
+
+  private final String filename = "1bpi.xyz";
+
+  /**
+   * Range of atoms (about 3% of the protein) that is displaced between the two evaluations.
+   */
+  private final int firstAtom = 238;
+  private final int lastAtom = 261;
+
+  /**
+   * An incremental update after a group of atoms moves gives the Born radii, solvation energy and gradient
+   * of a full recomputation.
+   */
+  @Test
+  public void testIncrementalGradient() {
+    // The Born radii do not depend on polarization.
+    System.setProperty("polarization", "none");
+    System.setProperty("incremental-born-radii", "true");
+    ForceFieldEnergy forceFieldEnergy = loadPotential();
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+
+    // The first evaluation caches the descreening integrals; the second updates them.
+    double[] gradient = new double[nVars];
+    forceFieldEnergy.energyAndGradient(x, gradient);
+    displaceGroup(x, 0.2);
+    double energy = forceFieldEnergy.energyAndGradient(x, gradient);
+    double solvation = forceFieldEnergy.getSolvationEnergy();
+    double[] born = forceFieldEnergy.getGK().getBorn().clone();
+    potentialScript.destroyPotentials();
+
+    // Recompute the Born radii from scratch.
+    System.clearProperty("incremental-born-radii");
+    forceFieldEnergy = loadPotential();
+    double[] expectedGradient = new double[nVars];
+    double expectedEnergy = forceFieldEnergy.energyAndGradient(x, expectedGradient);
+    double[] expectedBorn = forceFieldEnergy.getGK().getBorn();
+
+    double tolerance = 1.0e-8;
+    assertEquals(" Energy", expectedEnergy, energy, tolerance);
+    assertEquals(" Solvation Energy", forceFieldEnergy.getSolvationEnergy(), solvation, tolerance);
+    for (int i = 0; i < born.length; i++) {
+      assertEquals(" Born Radius " + i, expectedBorn[i], born[i], tolerance);
+    }
+    for (int i = 0; i < nVars; i++) {
+      assertEquals(" Gradient " + i, expectedGradient[i], gradient[i], 1.0e-6);
+    }
+  }
+
+  /**
+   * Born radii that change by less than the tolerance keep their previous value, along with the
+   * unscaled Born integral used by the gradient.
+   */
+  @Test
+  public void testBornRadiiTolerance() {
+    double bornTolerance = 0.01;
+    System.setProperty("polarization", "none");
+    System.setProperty("incremental-born-radii", "true");
+    System.setProperty("born-radii-tolerance", Double.toString(bornTolerance));
+    ForceFieldEnergy forceFieldEnergy = loadPotential();
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+
+    double[] gradient = new double[nVars];
+    forceFieldEnergy.energyAndGradient(x, gradient);
+    double[] previousBorn = forceFieldEnergy.getGK().getBorn().clone();
+    double[] previousIntegral = forceFieldEnergy.getGK().getUnscaledBornIntegral().clone();
+    displaceGroup(x, 0.05);
+    forceFieldEnergy.energyAndGradient(x, gradient);
+    double[] born = forceFieldEnergy.getGK().getBorn().clone();
+    double[] integral = forceFieldEnergy.getGK().getUnscaledBornIntegral().clone();
+    potentialScript.destroyPotentials();
+
+    // Recompute the Born radii from scratch.
+    System.clearProperty("incremental-born-radii");
+    System.clearProperty("born-radii-tolerance");
+    forceFieldEnergy = loadPotential();
+    forceFieldEnergy.energy(x);
+    double[] expectedBorn = forceFieldEnergy.getGK().getBorn();
+
+    int kept = 0;
+    for (int i = 0; i < born.length; i++) {
+      assertEquals(" Born Radius " + i, expectedBorn[i], born[i], bornTolerance);
+      if (born[i] == previousBorn[i] && expectedBorn[i] != previousBorn[i]) {
+        assertEquals(" Unscaled Born Integral " + i, previousIntegral[i], integral[i], 0.0);
+        kept++;
+      }
+    }
+    assertTrue(" No Born radius was kept by the tolerance.", kept > 0);
+  }
+
+  private ForceFieldEnergy loadPotential() {
+    binding = new Binding();
+    binding.setVariable("args", new String[] {getResourcePath(filename)});
+    Energy energy = new Energy(binding).run();
+    potentialScript = energy;
+    return energy.forceFieldEnergy;
+  }
+
+  /**
+   * Translate the group of atoms.
+   *
+   * @param x The coordinates.
+   * @param displacement The displacement along each axis (Angstroms).
+   */
+  private void displaceGroup(double[] x, double displacement) {
+    for (int i = firstAtom; i <= lastAtom; i++) {
+      for (int k = 0; k < 3; k++) {
+        x[i * 3 + k] += displacement;
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test that incremental neighbor-list updates reproduce the energy and gradient of full rebuilds.
+ */
+public class IncrementalNeighborListTest extends PotentialTest {
+
+  private final double tolerance = 1.0e-8;
+
+  @Test
+  public void testIncrementalNeighborList() {
+    String filepath = getResourcePath("ubiquitin-amber99.xyz");
+    System.setProperty("mpoleterm", "false");
+
+    // Move a few atoms by more than half the neighbor-list buffer, using full rebuilds.
+    binding.setVariable("args", new String[] {filepath});
+    Energy energy = new Energy(binding).run();
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+    double[][] expected = moveAtoms(forceFieldEnergy, x);
+    energy.destroyPotentials();
+
+    // Repeat using incremental updates.
+    System.setProperty("neighbor-list-incremental", "true");
+    binding = new Binding();
+    binding.setVariable("args", new String[] {filepath});
+    energy = new Energy(binding).run();
+    potentialScript = energy;
+    forceFieldEnergy = energy.forceFieldEnergy;
+    double[][] actual = moveAtoms(forceFieldEnergy, x);
+
+    for (int step = 0; step < expected.length; step++) {
+      assertEquals(" Van der Waals Energy " + step, expected[step][nVars], actual[step][nVars],
+          tolerance);
+      for (int i = 0; i < nVars; i++) {
+        assertEquals(" Gradient " + step + " " + i, expected[step][i], actual[step][i], tolerance);
+      }
+    }
+  }
+
+  /**
+   * Displace a small group of atoms in several steps and record the gradient and van der Waals
+   * energy after each step.
+   *
+   * @param forceFieldEnergy The potential.
+   * @param x0 The initial coordinates.
+   * @return The gradient for each step, followed by the van der Waals energy.
+   */
+  private double[][] moveAtoms(ForceFieldEnergy forceFieldEnergy, double[] x0) {
+    int nVars = x0.length;
+    double[] x = x0.clone();
+    double[] g = new double[nVars];
+    forceFieldEnergy.energyAndGradient(x, g);
+    int[] movingAtoms = {10, 11, 12, 500, 501, 4000};
+    int nSteps = 4;
+    double[][] results = new double[nSteps][];
+    for (int step = 0; step < nSteps; step++) {
+      for (int atom : movingAtoms) {
+        x[atom * 3] += 0.7;
+        x[atom * 3 + 1] -= 0.6;
+        x[atom * 3 + 2] += 0.5;
+      }
+      forceFieldEnergy.energyAndGradient(x, g);
+      results[step] = new double[nVars + 1];
+      System.arraycopy(g, 0, results[step], 0, nVars);
+      results[step][nVars] = forceFieldEnergy.getVanDerWaalsEnergy();
+    }
+    return results;
+  }
+}
@@ -0,0 +1,125 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+/**
+ * Test optional reciprocal space grid and FFT modes against the default complex FFT of a double
+ * precision grid.
+ *
+ * @author Michael J. Schnieders
+ */
+public class ReciprocalSpaceTest extends PotentialTest {
+
+  /** Paracetamol crystal (AMOEBA with PME and mutual polarization). */
+  private static final String FILENAME = "paracetamol.xyz";
+
+  /**
+   * The single precision grid rounds each grid value to about 7 significant digits, which changes
+   * the electrostatic energy and gradient by much less than 0.01 kcal/mol (and kcal/mol/A).
+   */
+  @Test
+  public void testSinglePrecision() {
+    compareToDefaultGrid("pme-single-precision", 1.0e-2);
+  }
+
+  /**
+   * The real-to-complex FFT of the permanent multipole grid is exact to within round-off of the
+   * complex FFT.
+   */
+  @Test
+  public void testRealFFT() {
+    ForceFieldEnergy forceFieldEnergy = compareToDefaultGrid("pme-real-fft", 1.0e-6);
+    ReciprocalSpace reciprocalSpace = forceFieldEnergy.getPmeNode().getReciprocalSpace();
+    assertTrue(" The real-to-complex FFT should be used", reciprocalSpace.getRealFFT());
+  }
+
+  /**
+   * Compare the electrostatic energy and gradient computed with a reciprocal space option to those
+   * of the default grid.
+   *
+   * @param key The property that enables the option.
+   * @param tolerance The tolerance for the energy (kcal/mol) and gradient (kcal/mol/A).
+   * @return The ForceFieldEnergy with the option enabled.
+   */
+  private ForceFieldEnergy compareToDefaultGrid(String key, double tolerance) {
+    // Converge the induced dipoles tightly so that only the grid differs.
+    System.setProperty("polar-eps", "1.0e-8");
+    ForceFieldEnergy forceFieldEnergy = loadPotential();
+    int nVars = forceFieldEnergy.getNumberOfVariables();
+    double[] x = new double[nVars];
+    forceFieldEnergy.getCoordinates(x);
+    double[] expectedGradient = new double[nVars];
+    double expectedEnergy = forceFieldEnergy.energyAndGradient(x, expectedGradient);
+    double expectedPermanent = forceFieldEnergy.getPermanentMultipoleEnergy();
+    double expectedPolarization = forceFieldEnergy.getPolarizationEnergy();
+    potentialScript.destroyPotentials();
+
+    System.setProperty(key, "true");
+    forceFieldEnergy = loadPotential();
+    double[] gradient = new double[nVars];
+    double energy = forceFieldEnergy.energyAndGradient(x, gradient);
+
+    assertEquals(format(" %s permanent multipole energy", key), expectedPermanent,
+        forceFieldEnergy.getPermanentMultipoleEnergy(), tolerance);
+    assertEquals(format(" %s polarization energy", key), expectedPolarization,
+        forceFieldEnergy.getPolarizationEnergy(), tolerance);
+    assertEquals(format(" %s total energy", key), expectedEnergy, energy, tolerance);
+    for (int i = 0; i < nVars; i++) {
+      assertEquals(format(" %s gradient %d", key, i), expectedGradient[i], gradient[i], tolerance);
+    }
+    return forceFieldEnergy;
+  }
+
+  private ForceFieldEnergy loadPotential() {
+    binding = new Binding();
+    binding.setVariable("args", new String[] {getResourcePath(FILENAME)});
+    Energy energy = new Energy(binding).run();
+    potentialScript = energy;
+    return energy.forceFieldEnergy;
+  }
+}
@@ -0,0 +1,132 @@
+//******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+//******************************************************************************
+package ffx.potential.nonbonded.implicit;
+
+import static org.junit.Assert.assertEquals;
+
+import ffx.potential.MolecularAssembly;
+import ffx.potential.bonded.Atom;
+import ffx.potential.utils.PotentialTest;
+import ffx.potential.utils.PotentialsUtils;
+import org.junit.Test;
+
+/**
+ * Test the spatial domain decomposition of the Connolly surface.
+ *
+ * @author Michael J. Schnieders
+ */
+public class ConnollyRegionTest extends PotentialTest {
+
+  /**
+   * The exclude radius used for the solvent excluded volume.
+   */
+  private static final double EXCLUDE = 1.4;
+
+  /**
+   * The 1N7S asymmetric unit is large enough to be split into several spatial domains.
+   */
+  @Test
+  public void testDomainDecomposition() {
+    PotentialsUtils potentialsUtils = new PotentialsUtils();
+    MolecularAssembly molecularAssembly =
+        potentialsUtils.open(getResourcePath("1n7s.P212121.xyz"));
+    Atom[] atoms = molecularAssembly.getAtomArray();
+    int nAtoms = atoms.length;
+    double[] radii = new double[nAtoms];
+    for (int i = 0; i < nAtoms; i++) {
+      Atom atom = atoms[i];
+      radii[i] = atom.isHydrogen() ? 0.0 : atom.getVDWType().radius / 2.0;
+    }
+
+    // Compute the solvent excluded volume serially.
+    ConnollyRegion serial = createRegion(atoms, radii, 1);
+    serial.runVolume();
+    double volume = serial.getVolume();
+    double area = serial.getSurfaceArea();
+    double[][] gradient = serial.getVolumeGradient();
+
+    // The decomposed result does not depend on the number of domains.
+    ConnollyRegion decomposed = createRegion(atoms, radii, 4);
+    decomposed.runVolume();
+    assertEquals(" Volume", volume, decomposed.getVolume(), 0.0);
+    assertEquals(" Surface Area", area, decomposed.getSurfaceArea(), 0.0);
+    double[][] decomposedGradient = decomposed.getVolumeGradient();
+    for (int i = 0; i < nAtoms; i++) {
+      for (int k = 0; k < 3; k++) {
+        assertEquals(" Gradient " + i, gradient[k][i], decomposedGradient[k][i], 0.0);
+      }
+    }
+
+    // Compare the decomposed gradient of surface atoms in different domains to finite differences.
+    decomposed.init(atoms, false);
+    double step = 1.0e-5;
+    double[] xyz = new double[3];
+    for (int i : new int[] {0, 2435, 5141}) {
+      Atom atom = atoms[i];
+      for (int k = 0; k < 3; k++) {
+        atom.getXYZ(xyz);
+        xyz[k] += step;
+        atom.setXYZ(xyz);
+        decomposed.runVolume();
+        double vp = decomposed.getVolume();
+        xyz[k] -= 2.0 * step;
+        atom.setXYZ(xyz);
+        decomposed.runVolume();
+        double vm = decomposed.getVolume();
+        xyz[k] += step;
+        atom.setXYZ(xyz);
+        double fd = (vp - vm) / (2.0 * step);
+        // The analytic gradient agrees with finite differences to about 0.1 Ang^2.
+        assertEquals(" Finite-difference gradient " + i, fd, gradient[k][i], 0.15);
+      }
+    }
+
+    serial.destroy();
+    decomposed.destroy();
+    molecularAssembly.getPotentialEnergy().destroy();
+  }
+
+  private static ConnollyRegion createRegion(Atom[] atoms, double[] radii, int nThreads) {
+    ConnollyRegion connollyRegion = new ConnollyRegion(atoms, radii, nThreads);
+    connollyRegion.setWiggle(0.0);
+    connollyRegion.setExclude(EXCLUDE);
+    connollyRegion.setProbe(0.0);
+    connollyRegion.init(atoms, true);
+    return connollyRegion;
+  }
+}
@@ -0,0 +1,120 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded.pme;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.nonbonded.ParticleMeshEwald;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+/**
+ * Test that the block and two-level preconditioners converge the PCG SCF to the same induced
+ * dipoles as the default short-range preconditioner.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class BlockPreconditionerTest extends PotentialTest {
+
+  /** BPTI in vacuum (AMOEBA with mutual polarization). */
+  private static final String FILENAME = "1bpi.xyz";
+  /** Tolerance for induced dipole components (e-Ang). */
+  private static final double DIPOLE_TOLERANCE = 1.0e-5;
+  /** Tolerance for the polarization energy (kcal/mol). */
+  private static final double ENERGY_TOLERANCE = 1.0e-4;
+
+  /** The block preconditioner converges to the same dipoles in fewer SCF cycles. */
+  @Test
+  public void testBlockPreconditioner() {
+    Result reference = solve("SHORT_RANGE");
+    Result block = solve("BLOCK");
+    compare(reference, block);
+    assertTrue(format(" Block preconditioner SCF cycles (%d) should be fewer than default (%d)",
+        block.cycles, reference.cycles), block.cycles < reference.cycles);
+  }
+
+  /** The two-level preconditioner converges to the same dipoles. */
+  @Test
+  public void testTwoLevelPreconditioner() {
+    Result reference = solve("SHORT_RANGE");
+    Result twoLevel = solve("TWO_LEVEL");
+    compare(reference, twoLevel);
+  }
+
+  private void compare(Result reference, Result result) {
+    assertEquals(" Polarization energy", reference.polarization, result.polarization,
+        ENERGY_TOLERANCE);
+    for (int i = 0; i < reference.dipoles.length; i++) {
+      for (int j = 0; j < 3; j++) {
+        assertEquals(format(" Induced dipole %d component %d", i, j), reference.dipoles[i][j],
+            result.dipoles[i][j], DIPOLE_TOLERANCE);
+      }
+    }
+  }
+
+  private Result solve(String preconditioner) {
+    System.setProperty("gkterm", "false");
+    System.setProperty("polar-eps", "1.0e-7");
+    System.setProperty("cg-preconditioner-type", preconditioner);
+    binding = new Binding();
+    binding.setVariable("args", new String[] {getResourcePath(FILENAME)});
+    Energy energy = new Energy(binding).run();
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    ParticleMeshEwald pme = forceFieldEnergy.getPmeNode();
+    double[][] inducedDipole = pme.inducedDipole[0];
+    double[][] dipoles = new double[inducedDipole.length][];
+    for (int i = 0; i < inducedDipole.length; i++) {
+      dipoles[i] = inducedDipole[i].clone();
+    }
+    Result result = new Result(dipoles, forceFieldEnergy.getPolarizationEnergy(),
+        pme.getSCFCycles());
+    logger.info(format(" %s preconditioner: %d SCF cycles.", preconditioner, result.cycles));
+    energy.destroyPotentials();
+    return result;
+  }
+
+  private record Result(double[][] dipoles, double polarization, int cycles) {
+
+  }
+}
@@ -0,0 +1,157 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.nonbonded.pme;
+
+import static java.lang.String.format;
+import static org.apache.commons.math3.util.FastMath.abs;
+import static org.apache.commons.math3.util.FastMath.sqrt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import ffx.potential.ForceFieldEnergy;
+import ffx.potential.groovy.Energy;
+import ffx.potential.groovy.test.Gradient;
+import ffx.potential.utils.PotentialTest;
+import groovy.lang.Binding;
+import org.junit.Test;
+
+/**
+ * Test the truncated conjugate gradient (TCG) polarization model against the converged SCF
+ * solution, and test its analytic gradient by finite differences.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class TCGSolverTest extends PotentialTest {
+
+  /** Paracetamol crystal (AMOEBA with PME and mutual polarization). */
+  private static final String FILENAME = "paracetamol.xyz";
+
+  /**
+   * TCG induced dipoles and polarization energy approach the converged CG solution, and TCG2 is
+   * closer than TCG1.
+   */
+  @Test
+  public void testTCGConvergence() {
+    // Converged reference.
+    System.setProperty("polar-eps", "1.0e-8");
+    Energy energy = runEnergy();
+    ForceFieldEnergy forceFieldEnergy = energy.forceFieldEnergy;
+    double polarization = forceFieldEnergy.getPolarizationEnergy();
+    double[][] dipoles = copyDipoles(forceFieldEnergy);
+    energy.destroyPotentials();
+
+    double rmsDipole = 0.0;
+    for (double[] dipole : dipoles) {
+      rmsDipole += dipole[0] * dipole[0] + dipole[1] * dipole[1] + dipole[2] * dipole[2];
+    }
+    rmsDipole = sqrt(rmsDipole / dipoles.length);
+
+    System.setProperty("scf-algorithm", "TCG");
+    double[] energyError = new double[2];
+    double[] dipoleError = new double[2];
+    // Relative tolerances for TCG1 and TCG2.
+    double[] energyTolerance = {0.25, 0.05};
+    double[] dipoleTolerance = {0.25, 0.10};
+    for (int order = 1; order <= 2; order++) {
+      System.setProperty("tcg-order", Integer.toString(order));
+      binding = new Binding();
+      energy = runEnergy();
+      forceFieldEnergy = energy.forceFieldEnergy;
+      double[][] tcgDipoles = copyDipoles(forceFieldEnergy);
+      double rms = 0.0;
+      for (int i = 0; i < dipoles.length; i++) {
+        for (int j = 0; j < 3; j++) {
+          double d = tcgDipoles[i][j] - dipoles[i][j];
+          rms += d * d;
+        }
+      }
+      energyError[order - 1] =
+          abs((forceFieldEnergy.getPolarizationEnergy() - polarization) / polarization);
+      dipoleError[order - 1] = sqrt(rms / dipoles.length) / rmsDipole;
+      logger.info(format(" TCG%d relative polarization energy error %8.6f, dipole error %8.6f",
+          order, energyError[order - 1], dipoleError[order - 1]));
+      energy.destroyPotentials();
+
+      assertTrue(format(" TCG%d polarization energy error", order),
+          energyError[order - 1] < energyTolerance[order - 1]);
+      assertTrue(format(" TCG%d induced dipole error", order),
+          dipoleError[order - 1] < dipoleTolerance[order - 1]);
+    }
+    assertTrue(" TCG2 dipoles should be closer to the SCF solution than TCG1",
+        dipoleError[1] < dipoleError[0]);
+  }
+
+  /** Finite-difference test of the TCG1 gradient. */
+  @Test
+  public void testTCG1Gradient() {
+    testGradient(1);
+  }
+
+  /** Finite-difference test of the TCG2 gradient. */
+  @Test
+  public void testTCG2Gradient() {
+    testGradient(2);
+  }
+
+  private void testGradient(int order) {
+    System.setProperty("scf-algorithm", "TCG");
+    System.setProperty("tcg-order", Integer.toString(order));
+    String[] args = {"--ga", "ALL", "--dx", "1.0e-5", "--tol", "1.0e-2",
+        getResourcePath(FILENAME)};
+    binding.setVariable("args", args);
+    Gradient gradient = new Gradient(binding).run();
+    potentialScript = gradient;
+    assertEquals(format(" TCG%d gradient failures: ", order), 0, gradient.nFailures);
+  }
+
+  private Energy runEnergy() {
+    binding.setVariable("args", new String[] {getResourcePath(FILENAME)});
+    // The caller destroys the potential.
+    return new Energy(binding).run();
+  }
+
+  private static double[][] copyDipoles(ForceFieldEnergy forceFieldEnergy) {
+    double[][] inducedDipole = forceFieldEnergy.getPmeNode().inducedDipole[0];
+    double[][] copy = new double[inducedDipole.length][];
+    for (int i = 0; i < inducedDipole.length; i++) {
+      copy[i] = inducedDipole[i].clone();
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,157 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.parsers;
+
+import static java.lang.String.format;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import ffx.utilities.FFXTest;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test indexing and random access of TINKER archives.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class ArchiveIndexTest extends FFXTest {
+
+  private static final int N_ATOMS = 5;
+
+  /** Index an archive, read snapshots out of order and extend the index after appending. */
+  @Test
+  public void testArchiveIndex() throws IOException {
+    File archive = File.createTempFile("archiveIndex", ".arc");
+    archive.deleteOnExit();
+    ArchiveIndex.getCacheFile(archive).deleteOnExit();
+    Random random = new Random(1);
+
+    double[][] xyz = new double[6][];
+    try (FileWriter writer = new FileWriter(archive)) {
+      for (int i = 0; i < 4; i++) {
+        xyz[i] = writeSnapshot(writer, random, i, i % 2 == 0);
+      }
+      // A partial snapshot that is still being written.
+      writer.write(format("%6d  water\n", N_ATOMS));
+    }
+
+    ArchiveIndex index = ArchiveIndex.load(archive, N_ATOMS);
+    assertEquals(4, index.getNumberOfFrames());
+    assertTrue(ArchiveIndex.getCacheFile(archive).exists());
+    for (int i = 3; i >= 0; i--) {
+      ArchiveIndex.Snapshot snapshot = index.readSnapshot(i, null);
+      assertArrayEquals(xyz[i], snapshot.xyz(), 0.0);
+      if (i % 2 == 0) {
+        assertEquals(30.0 + i, snapshot.box()[0], 0.0);
+        assertEquals(90.0, snapshot.box()[5], 0.0);
+      } else {
+        assertNull(snapshot.box());
+      }
+      assertEquals(format("%6d  water", N_ATOMS), snapshot.header());
+    }
+
+    // Rewrite the archive with two complete snapshots appended and load the cached index.
+    try (FileWriter writer = new FileWriter(archive)) {
+      Random replay = new Random(1);
+      for (int i = 0; i < 4; i++) {
+        writeSnapshot(writer, replay, i, i % 2 == 0);
+      }
+      for (int i = 4; i < 6; i++) {
+        xyz[i] = writeSnapshot(writer, random, i, false);
+      }
+    }
+    index = ArchiveIndex.load(archive, N_ATOMS);
+    assertEquals(6, index.getNumberOfFrames());
+    assertEquals(archive.length(), index.getIndexedLength());
+    assertArrayEquals(xyz[5], index.readSnapshot(5, null).xyz(), 0.0);
+    assertArrayEquals(xyz[1], index.readSnapshot(1, null).xyz(), 0.0);
+  }
+
+  /** Counting or indexing a single snapshot must not leave a cache file next to the archive. */
+  @Test
+  public void testNoCacheForSingleSnapshot() throws IOException {
+    File archive = File.createTempFile("archiveIndexSingle", ".xyz");
+    archive.deleteOnExit();
+    File cache = ArchiveIndex.getCacheFile(archive);
+    cache.deleteOnExit();
+    try (FileWriter writer = new FileWriter(archive)) {
+      writeSnapshot(writer, new Random(1), 0, true);
+    }
+    assertEquals(1, ArchiveIndex.load(archive, N_ATOMS, false).getNumberOfFrames());
+    assertFalse(cache.exists());
+    assertEquals(1, ArchiveIndex.load(archive, N_ATOMS).getNumberOfFrames());
+    assertFalse(cache.exists());
+
+    // Without writing, a multi-snapshot archive is indexed but not cached.
+    try (FileWriter writer = new FileWriter(archive, true)) {
+      writeSnapshot(writer, new Random(2), 2, true);
+    }
+    assertEquals(2, ArchiveIndex.load(archive, N_ATOMS, false).getNumberOfFrames());
+    assertFalse(cache.exists());
+  }
+
+  private static double[] writeSnapshot(FileWriter writer, Random random, int frame, boolean box)
+      throws IOException {
+    double[] xyz = new double[N_ATOMS * 3];
+    writer.write(format("%6d  water\n", N_ATOMS));
+    if (box) {
+      writer.write(format(" %11.6f %11.6f %11.6f %11.6f %11.6f %11.6f\n", 30.0 + frame, 30.0, 30.0,
+          90.0, 90.0, 90.0));
+    }
+    if (frame == 1) {
+      writer.write("\n");
+    }
+    for (int i = 0; i < N_ATOMS; i++) {
+      for (int j = 0; j < 3; j++) {
+        // Round to the precision of the archive format.
+        xyz[i * 3 + j] = Double.parseDouble(format("%.6f", 100.0 * (random.nextDouble() - 0.5)));
+      }
+      writer.write(format("%6d  O  %11.6f %11.6f %11.6f %5d %7d\n", i + 1, xyz[i * 3],
+          xyz[i * 3 + 1], xyz[i * 3 + 2], 349, i == 0 ? 2 : 1));
+    }
+    return xyz;
+  }
+}
@@ -0,0 +1,126 @@
+// ******************************************************************************
+//
+// Title:       Force Field X.
+// Description: Force Field X - Software for Molecular Biophysics.
+// Copyright:   Copyright (c) Michael J. Schnieders 2001-2024.
+//
+// This file is part of Force Field X.
+//
+// Force Field X is free software; you can redistribute it and/or modify it
+// under the terms of the GNU General Public License version 3 as published by
+// the Free Software Foundation.
+//
+// Force Field X is distributed in the hope that it will be useful, but WITHOUT
+// ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+// FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+// details.
+//
+// You should have received a copy of the GNU General Public License along with
+// Force Field X; if not, write to the Free Software Foundation, Inc., 59 Temple
+// Place, Suite 330, Boston, MA 02111-1307 USA
+//
+// Linking this library statically or dynamically with other modules is making a
+// combined work based on this library. Thus, the terms and conditions of the
+// GNU General Public License cover the whole combination.
+//
+// As a special exception, the copyright holders of this library give you
+// permission to link this library with independent modules to produce an
+// executable, regardless of the license terms of these independent modules, and
+// to copy and distribute the resulting executable under terms of your choice,
+// provided that you also meet, for each linked independent module, the terms
+// and conditions of the license of that module. An independent module is a
+// module which is not derived from or based on this library. If you modify this
+// library, you may extend this exception to your version of the library, but
+// you are not obligated to do so. If you do not wish to do so, delete this
+// exception statement from your version.
+//
+// ******************************************************************************
+package ffx.potential.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import ffx.utilities.FFXTest;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test writing and reading binary trajectories.
+ *
+ * @author Michael J. Schnieders
+ * @since 1.0
+ */
+public class BinaryTrajectoryTest extends FFXTest {
+
+  private static final double TOLERANCE = 1.0e-4;
+
+  /** Write frames, append to the file and read them back. */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    int nAtoms = 100;
+    int nFrames = 10;
+    double[][] x = randomFrames(nFrames, nAtoms, 1);
+    double[][] v = randomFrames(nFrames, nAtoms, 2);
+
+    File file = File.createTempFile("binaryTrajectory", ".ftrj");
+    file.deleteOnExit();
+    assertTrue(file.delete());
+
+    // Write the first half, then append the second half.
+    int half = nFrames / 2;
+    try (BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(file, nAtoms, true, false, 2)) {
+      for (int i = 0; i < half; i++) {
+        writer.append(i, 0.1 * i, 0.5, Double.NaN, null, x[i], v[i]);
+      }
+    }
+    try (BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(file, nAtoms, true, false, 2)) {
+      for (int i = half; i < nFrames; i++) {
+        writer.append(i, 0.1 * i, 0.5, Double.NaN, null, x[i], v[i]);
+      }
+    }
+
+    try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(file)) {
+      assertEquals(nAtoms, reader.getNumberOfAtoms());
+      assertEquals(nFrames, reader.getNumberOfFrames());
+      // Read the frames out of order.
+      for (int i = nFrames - 1; i >= 0; i--) {
+        BinaryTrajectoryReader.Frame frame = reader.readFrame(i);
+        assertEquals(i, frame.step());
+        assertEquals(0.1 * i, frame.time(), 0.0);
+        assertEquals(0.5, frame.lambda(), 0.0);
+        assertTrue(Double.isNaN(frame.pH()));
+        assertNull(frame.box());
+        for (int j = 0; j < nAtoms * 3; j++) {
+          assertEquals(x[i][j], frame.x()[j], TOLERANCE);
+          assertEquals(v[i][j], frame.v()[j], TOLERANCE);
+        }
+      }
+    }
+
+    // Remove the frame index and part of the last frame; the complete frames should be recovered.
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      BinaryTrajectoryReader.FrameIndex index = BinaryTrajectoryReader.readIndex(raf.getChannel());
+      raf.setLength(index.end() - 1);
+    }
+    try (BinaryTrajectoryReader reader = new BinaryTrajectoryReader(file)) {
+      assertEquals(nFrames - 1, reader.getNumberOfFrames());
+      BinaryTrajectoryReader.Frame frame = reader.readFrame(nFrames - 2);
+      assertEquals(nFrames - 2, frame.step());
+    }
+  }
+
+  private static double[][] randomFrames(int nFrames, int nAtoms, long seed) {
+    Random random = new Random(seed);
+    double[][] frames = new double[nFrames][nAtoms * 3];
+    for (int i = 0; i < nFrames; i++) {
+      for (int j = 0; j < nAtoms * 3; j++) {
+        frames[i][j] = 100.0 * (random.nextDouble() - 0.5);
+      }
+    }
+    return frames;
+  }
+}
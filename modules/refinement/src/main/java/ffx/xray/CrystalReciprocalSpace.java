@@ -200,6 +200,8 @@ public class CrystalReciprocalSpace {
   private final int aRadGrid;
   /** If the "Native Environment Approximation" is true, the "use" flag is ignored. */
   private boolean nativeEnvironmentApproximation = false;
+  /** If true, the density grid is transformed using a real-to-complex FFT. */
+  private boolean realFFT = false;
 
   /**
    * Crystal Reciprocal Space constructor, assumes this is not a bulk solvent mask and is not a
@@ -997,6 +999,41 @@ public class CrystalReciprocalSpace {
     }
   }
 
+  /**
+   * Should the density grid be transformed using a real-to-complex FFT? Only the non-redundant half
+   * of the Hermitian spectrum (h = 0 .. fftX / 2) is computed, which is all that is needed to
+   * extract structure factors and to compute gradients.
+   *
+   * @param realFFT if true, use a real-to-complex FFT.
+   */
+  void setRealFFT(boolean realFFT) {
+    this.realFFT = realFFT && complexFFT3D.supportsRealInput();
+  }
+
+  /**
+   * Is the density grid transformed using a real-to-complex FFT?
+   *
+   * @return true if the real-to-complex FFT is in use.
+   */
+  boolean getRealFFT() {
+    return realFFT;
+  }
+
+  /**
+   * The inverse real-to-complex FFT implicitly includes the conjugate partner of each coefficient
+   * with 0 &lt; h &lt; fftX / 2, so those coefficients are weighted by one half to reproduce the real
+   * part of the complex inverse FFT.
+   *
+   * @param h the Miller index along the X-axis (0 .. fftX / 2).
+   * @return the weight for the coefficient.
+   */
+  private double hermitianWeight(int h) {
+    if (realFFT && h > 0 && h < halfFFTX) {
+      return 0.5;
+    }
+    return 1.0;
+  }
+
   /**
    * should the structure factor computation use 3 Gaussians or 6 for atoms?
    *
@@ -1159,26 +1196,32 @@ public class CrystalReciprocalSpace {
 
         if (h < halfFFTX + 1) {
           final int ii = iComplex3D(h, k, l, fftX, fftY);
+          final double w = hermitianWeight(h);
           cj.phaseShiftIP(shift);
-          densityGrid[ii] += cj.re();
+          densityGrid[ii] += w * cj.re();
           // Added parentheses below on June 6, 2022.
           // TODO: Should there be a "minus"?
-          densityGrid[ii + 1] += (-cj.im());
+          densityGrid[ii + 1] += w * (-cj.im());
         } else {
           h = (fftX - h) % fftX;
           k = (fftY - k) % fftY;
           l = (fftZ - l) % fftZ;
           final int ii = iComplex3D(h, k, l, fftX, fftY);
+          final double w = hermitianWeight(h);
           cj.phaseShiftIP(shift);
-          densityGrid[ii] += cj.re();
-          densityGrid[ii + 1] += cj.im();
+          densityGrid[ii] += w * cj.re();
+          densityGrid[ii + 1] += w * cj.im();
         }
       }
     }
     symtime += System.nanoTime();
 
     long startTime = System.nanoTime();
-    complexFFT3D.ifft(densityGrid);
+    if (realFFT) {
+      complexFFT3D.realIFFT(densityGrid);
+    } else {
+      complexFFT3D.ifft(densityGrid);
+    }
     long fftTime = System.nanoTime() - startTime;
 
     /*
@@ -1293,7 +1336,11 @@ public class CrystalReciprocalSpace {
 
     // Compute model structure factors via an FFT of the electron density.
     long startTime = System.nanoTime();
-    complexFFT3D.fft(densityGrid);
+    if (realFFT) {
+      complexFFT3D.realFFT(densityGrid);
+    } else {
+      complexFFT3D.fft(densityGrid);
+    }
     long fftTime = System.nanoTime() - startTime;
 
     // Extract and scale structure factors.
@@ -1540,7 +1587,11 @@ public class CrystalReciprocalSpace {
     expTime += System.nanoTime();
 
     long fftTime = -System.nanoTime();
-    complexFFT3D.fft(densityGrid);
+    if (realFFT) {
+      complexFFT3D.realFFT(densityGrid);
+    } else {
+      complexFFT3D.fft(densityGrid);
+    }
     fftTime += System.nanoTime();
 
     // Extract and scale structure factors.
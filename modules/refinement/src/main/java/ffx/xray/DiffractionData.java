@@ -37,6 +37,7 @@
 // ******************************************************************************
 package ffx.xray;
 
+import static ffx.utilities.PropertyGroup.StructuralRefinement;
 import static ffx.utilities.TinkerUtils.version;
 import static ffx.xray.CrystalReciprocalSpace.SolventModel.POLYNOMIAL;
 import static java.lang.String.format;
@@ -56,6 +57,7 @@ import ffx.potential.bonded.Molecule;
 import ffx.potential.bonded.Residue;
 import ffx.potential.parameters.ForceField;
 import ffx.potential.parsers.PDBFilter;
+import ffx.utilities.FFXProperty;
 import ffx.xray.CrystalReciprocalSpace.SolventModel;
 import ffx.xray.RefinementMinimize.RefinementMode;
 import ffx.xray.parsers.DiffractionFile;
@@ -98,6 +100,13 @@ public class DiffractionData implements DataContainer {
   // Settings
   private final double fsigfCutoff;
   private final boolean use_3g;
+  @FFXProperty(name = "xray-real-fft", clazz = Boolean.class, propertyGroup = StructuralRefinement,
+      defaultValue = "false", description = """
+      If true, structure factors are computed from the atomic and bulk solvent densities with a
+      real-to-complex FFT, which only transforms the non-redundant half of the Hermitian spectrum.
+      This requires an even grid dimension along the x-axis; otherwise the complex FFT is used.
+      """)
+  private final boolean realFFT;
   private final double aRadBuff;
   private final double xrayScaleTol;
   private final double sigmaATol;
@@ -244,6 +253,7 @@ public class DiffractionData implements DataContainer {
     gridSearch = properties.getBoolean("solvent-grid-search", false);
     splineFit = !properties.getBoolean("no-spline-fit", false);
     use_3g = properties.getBoolean("use-3g", true);
+    realFFT = properties.getBoolean("xray-real-fft", false);
     aRadBuff = properties.getDouble("scattering-buffer", 0.75);
     double sampling = properties.getDouble("sampling", 0.6);
     xrayScaleTol = properties.getDouble("xray-scale-tol", 1e-4);
@@ -319,6 +329,7 @@ public class DiffractionData implements DataContainer {
       sb.append("  Target Function\n");
       sb.append("   X-ray refinement weight: ").append(xWeight).append("\n");
       sb.append("   Use cctbx 3 Gaussians: ").append(use_3g).append("\n");
+      sb.append("   Real-to-complex FFT: ").append(realFFT).append("\n");
       sb.append("   Atomic form factor radius buffer: ").append(aRadBuff).append("\n");
       sb.append("   Reciprocal space sampling rate: ").append(sampling).append("\n");
       sb.append("   Resolution dependent spline scale: ").append(splineFit).append("\n");
@@ -414,6 +425,7 @@ public class DiffractionData implements DataContainer {
       crystalReciprocalSpacesFc[i].lambdaTerm = false;
       crystalReciprocalSpacesFc[i].setNativeEnvironmentApproximation(
           nativeEnvironmentApproximation);
+      crystalReciprocalSpacesFc[i].setRealFFT(realFFT);
 
       // Bulk Solvent Scattering
       crystalReciprocalSpacesFs[i] =
@@ -432,6 +444,7 @@ public class DiffractionData implements DataContainer {
       crystalReciprocalSpacesFs[i].lambdaTerm = false;
       crystalReciprocalSpacesFs[i].setNativeEnvironmentApproximation(
           nativeEnvironmentApproximation);
+      crystalReciprocalSpacesFs[i].setRealFFT(realFFT);
       crystalStats[i] = new CrystalStats(reflectionList[i], refinementData[i]);
     }
 
@@ -490,6 +503,7 @@ public class DiffractionData implements DataContainer {
               gridMethod);
       crystalReciprocalSpacesFc[i].setNativeEnvironmentApproximation(
           nativeEnvironmentApproximation);
+      crystalReciprocalSpacesFc[i].setRealFFT(realFFT);
       refinementData[i].setCrystalReciprocalSpaceFc(crystalReciprocalSpacesFc[i]);
 
       crystalReciprocalSpacesFs[i] =
@@ -504,6 +518,7 @@ public class DiffractionData implements DataContainer {
               gridMethod);
       crystalReciprocalSpacesFs[i].setNativeEnvironmentApproximation(
           nativeEnvironmentApproximation);
+      crystalReciprocalSpacesFs[i].setRealFFT(realFFT);
       refinementData[i].setCrystalReciprocalSpaceFs(crystalReciprocalSpacesFs[i]);
     }
 
@@ -38,6 +38,7 @@
 package ffx.xray;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import edu.rit.pj.ParallelTeam;
 import ffx.algorithms.misc.AlgorithmsTest;
@@ -121,6 +122,44 @@ public class CrystalReciprocalSpaceTest extends AlgorithmsTest {
     assertEquals("2 1 10 reflection should be correct", -412.01967983851665, a.im(), 0.0001);
   }
 
+  /**
+   * The real-to-complex FFT reproduces the structure factors of the complex FFT.
+   */
+  @Test
+  public void test1N7SRealFFT() {
+    File structure = getResourceFile("1N7S.pdb");
+    PotentialsUtils potutil = new PotentialsUtils();
+    MolecularAssembly mola = potutil.open(structure);
+    CompositeConfiguration properties = mola.getProperties();
+
+    Crystal crystal = new Crystal(39.767, 51.750, 132.938, 90.00, 90.00, 90.00, "P212121");
+    Resolution resolution = new Resolution(1.45);
+    ReflectionList reflectionList = new ReflectionList(crystal, resolution);
+    DiffractionRefinementData complexData =
+        new DiffractionRefinementData(properties, reflectionList);
+    DiffractionRefinementData realData =
+        new DiffractionRefinementData(properties, reflectionList);
+
+    mola.finalize(true, mola.getForceField());
+    Atom[] atomArray = mola.getAtomList().toArray(new Atom[0]);
+
+    ParallelTeam parallelTeam = new ParallelTeam();
+    CrystalReciprocalSpace crs =
+        new CrystalReciprocalSpace(reflectionList, atomArray, parallelTeam, parallelTeam);
+    crs.computeAtomicDensity(complexData.fc);
+    crs.setRealFFT(true);
+    assertTrue("The real-to-complex FFT should be supported", crs.getRealFFT());
+    crs.computeAtomicDensity(realData.fc);
+
+    for (HKL hkl : reflectionList.hklList) {
+      int i = hkl.getIndex();
+      ComplexNumber expected = complexData.getFc(i);
+      ComplexNumber actual = realData.getFc(i);
+      assertEquals(hkl + " real part", expected.re(), actual.re(), 1.0e-6);
+      assertEquals(hkl + " imaginary part", expected.im(), actual.im(), 1.0e-6);
+    }
+  }
+
   @Test
   public void test1NSFPermanent() {
     // load the structure
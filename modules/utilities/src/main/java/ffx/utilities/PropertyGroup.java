@@ -88,6 +88,14 @@ public enum PropertyGroup {
    * Constant pH molecular dynamics parameters.
    */
   ConstantPhMolecularDynamics,
+  /**
+   * Molecular dynamics parameters.
+   */
+  MolecularDynamics,
+  /**
+   * Rotamer optimization parameters.
+   */
+  RotamerOptimization,
   /**
    * Refinement parameters.
    */